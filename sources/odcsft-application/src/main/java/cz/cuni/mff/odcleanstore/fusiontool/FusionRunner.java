@@ -2,6 +2,7 @@ package cz.cuni.mff.odcleanstore.fusiontool;
 
 import cz.cuni.mff.odcleanstore.conflictresolution.exceptions.ConflictResolutionException;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.ResourceDescriptionConflictResolver;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.MutableUriMapping;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingIterable;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.InputLoader;
@@ -10,6 +11,7 @@ import cz.cuni.mff.odcleanstore.fusiontool.util.ProfilingTimeCounter;
 import cz.cuni.mff.odcleanstore.fusiontool.writers.CloseableRDFWriter;
 import org.openrdf.model.Model;
 
+import java.io.Closeable;
 import java.io.IOException;
 
 /**
@@ -51,6 +53,7 @@ public class FusionRunner {
     public void runFusionTool() throws LDFusionToolException, IOException, ConflictResolutionException {
         InputLoader inputLoader = null;
         CloseableRDFWriter rdfWriter = null;
+        UriMappingIterable uriMapping = null;
         timeProfiler = ProfilingTimeCounter.createInstance(EnumFusionCounters.class, isProfilingOn);
         try {
             // Load source named graphs metadata
@@ -58,7 +61,11 @@ public class FusionRunner {
             Model metadata = componentFactory.getMetadata();
 
             // Load & resolve owl:sameAs links
-            UriMappingIterable uriMapping = componentFactory.getUriMapping();
+            uriMapping = componentFactory.getUriMapping();
+            if (uriMapping instanceof MutableUriMapping) {
+                // The mapping is complete; reading it must not modify it when it is shared by loader and fusion threads
+                ((MutableUriMapping) uriMapping).compressPaths();
+            }
             timeProfiler.stopAddCounter(EnumFusionCounters.META_INITIALIZATION);
 
             // Create & initialize quad loader
@@ -89,6 +96,9 @@ public class FusionRunner {
             if (inputLoader != null) {
                 inputLoader.close();
             }
+            if (uriMapping instanceof Closeable) {
+                ((Closeable) uriMapping).close();
+            }
         }
     }
 
@@ -1,6 +1,5 @@
 package cz.cuni.mff.odcleanstore.fusiontool;
 
-import com.google.code.externalsorting.ExternalSort;
 import cz.cuni.mff.odcleanstore.conflictresolution.ConflictResolverFactory;
 import cz.cuni.mff.odcleanstore.conflictresolution.ResolutionFunctionRegistry;
 import cz.cuni.mff.odcleanstore.conflictresolution.impl.ConflictResolutionPolicyImpl;
@@ -14,12 +13,22 @@ import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.impl.NestedResourc
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.impl.ResourceDescriptionConflictResolverImpl;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.AlternativeUriNavigator;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingIterable;
-import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingIterableImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.AbstractInternedUriMappingIterable;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.CompactUriMappingIterableImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.ConcurrentUriMappingIterableImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.MutableUriMapping;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
 import cz.cuni.mff.odcleanstore.fusiontool.io.LargeCollectionFactory;
 import cz.cuni.mff.odcleanstore.fusiontool.io.MapdbCollectionFactory;
 import cz.cuni.mff.odcleanstore.fusiontool.io.MemoryCollectionFactory;
 import cz.cuni.mff.odcleanstore.fusiontool.io.RepositoryFactory;
+import cz.cuni.mff.odcleanstore.fusiontool.io.TempDirectories;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.AsyncIOTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.urimapping.MappedUriMappingIterableImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.io.urimapping.SameAsFingerprint;
+import cz.cuni.mff.odcleanstore.fusiontool.io.urimapping.SnapshotUriMappingIterableImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.MemoryGovernor;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.ExternalSortingInputLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.InputLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.SubjectsSetInputLoader;
@@ -33,7 +42,9 @@ import cz.cuni.mff.odcleanstore.fusiontool.loaders.fiter.MappedResourceFilter;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.fiter.RequiredClassFilter;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.fiter.ResourceDescriptionFilter;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.metadata.MetadataLoader;
+import cz.cuni.mff.odcleanstore.fusiontool.loaders.sameas.ParallelSameAsLinkLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.sameas.SameAsLinkFileLoader;
+import cz.cuni.mff.odcleanstore.fusiontool.loaders.sameas.SameAsLinkLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.sameas.SameAsLinkRepositoryLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.source.ConstructSource;
 import cz.cuni.mff.odcleanstore.fusiontool.source.ConstructSourceImpl;
@@ -49,6 +60,7 @@ import org.openrdf.repository.RepositoryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
@@ -98,7 +110,8 @@ public class LDFusionToolComponentFactory implements FusionComponentFactory {
                 config.getMaxOutputTriples(),
                 getInputFilter(uriMapping),
                 executorTimeProfiler,
-                executorMemoryProfiler
+                executorMemoryProfiler,
+                config.getFusionThreadCount()
         );
     }
 
@@ -109,9 +122,12 @@ public class LDFusionToolComponentFactory implements FusionComponentFactory {
             Collection<AllTriplesLoader> allTriplesLoaders = getAllTriplesLoaders();
             return new ExternalSortingInputLoader(allTriplesLoaders,
                     LDFusionToolUtils.getResourceDescriptionProperties(config),
-                    config.getTempDirectory(),
+                    new TempDirectories(config.getTempDirectories()),
                     config.getParserConfig(),
-                    memoryLimit);
+                    memoryLimit,
+                    config.getSortThreadCount(),
+                    config.getDataSourceThreadCount(),
+                    createTempFileCodec());
         } else {
             Collection<DataSource> dataSources = getDataSources();
             SparqlRestriction seedResourceDescription = getSeedResourceRestriction();
@@ -156,7 +172,7 @@ public class LDFusionToolComponentFactory implements FusionComponentFactory {
             try {
                 AllTriplesLoader loader;
                 if (dataSourceConfig.getType() == EnumDataSourceType.FILE) {
-                    loader = new AllTriplesFileLoader(dataSourceConfig, config.getParserConfig());
+                    loader = new AllTriplesFileLoader(dataSourceConfig, config.getParserConfig(), config.getParserThreadCount());
                 } else {
                     DataSource dataSource = DataSourceImpl.fromConfig(dataSourceConfig, config.getPrefixes(), repositoryFactory);
                     loader = new AllTriplesRepositoryLoader(dataSource);
@@ -257,28 +273,90 @@ public class LDFusionToolComponentFactory implements FusionComponentFactory {
                 config.getPropertyResolutionStrategies().keySet(),
                 config.getCanonicalURIsInputFile(),
                 config.getPreferredCanonicalURIs());
-        UriMappingIterableImpl uriMapping = new UriMappingIterableImpl(preferredURIs);
-
-        // TODO: rework
-        List<ConstructSourceConfig> repositorySameAsSourcesConfig = new ArrayList<>();
-        List<ConstructSourceConfig> fileSameAsSourcesConfig = new ArrayList<>();
-        for (ConstructSourceConfig sourceConfig : config.getSameAsSources()) {
-            if (sourceConfig.getType() == EnumDataSourceType.FILE) {
-                fileSameAsSourcesConfig.add(sourceConfig);
-            } else {
-                repositorySameAsSourcesConfig.add(sourceConfig);
+
+        boolean isParallelLoading = config.getSameAsThreadCount() > 1 && !config.isMemoryMappedUriMapping();
+        if (config.getSameAsThreadCount() > 1 && config.isMemoryMappedUriMapping()) {
+            LOG.info("Memory-mapped owl:sameAs mapping is used, sameAs sources will be loaded sequentially");
+        }
+        File snapshotFile = config.getSameAsSnapshotFile();
+        Long snapshotFingerprint = null;
+        if (snapshotFile != null && SameAsFingerprint.isSupported(config.getSameAsSources())) {
+            snapshotFingerprint = SameAsFingerprint.compute(
+                    config.getSameAsSources(), config.getSameAsLinkTypes(), preferredURIs, isParallelLoading);
+            SnapshotUriMappingIterableImpl snapshot = SnapshotUriMappingIterableImpl.load(snapshotFile, snapshotFingerprint);
+            if (snapshot != null) {
+                return snapshot;
             }
+        } else if (snapshotFile != null) {
+            LOG.warn("Snapshot of owl:sameAs mapping is not used because changes of sameAs sources other than files cannot be detected");
+        }
+
+        AbstractInternedUriMappingIterable uriMapping;
+        if (config.isMemoryMappedUriMapping()) {
+            uriMapping = loadSameAsLinks(
+                    new MappedUriMappingIterableImpl(preferredURIs, new TempDirectories(config.getTempDirectories()).getDirectoryWithMostSpace()),
+                    false);
+        } else if (isParallelLoading) {
+            uriMapping = loadSameAsLinks(new ConcurrentUriMappingIterableImpl(preferredURIs), true);
+        } else {
+            uriMapping = loadSameAsLinks(new CompactUriMappingIterableImpl(preferredURIs), false);
         }
 
-        for (ConstructSourceConfig source : fileSameAsSourcesConfig) {
-            SameAsLinkFileLoader loader = new SameAsLinkFileLoader(source, config.getParserConfig(), config.getSameAsLinkTypes());
-            loader.loadSameAsMappings(uriMapping);
+        if (snapshotFingerprint != null) {
+            try {
+                SnapshotUriMappingIterableImpl.save(uriMapping, preferredURIs, snapshotFingerprint, snapshotFile);
+            } catch (IOException e) {
+                LOG.warn("Cannot save snapshot of owl:sameAs mapping to " + snapshotFile.getPath(), e);
+            }
         }
+        return uriMapping;
+    }
+
+    /**
+     * Loads sameAs links from all configured sameAs sources to the given URI mapping.
+     * The URI mapping is closed if loading fails.
+     * @param uriMapping URI mapping to load links to
+     * @param isParallelLoading whether sources should be loaded in parallel; the mapping must support concurrent updates then
+     * @param <T> type of the URI mapping
+     * @return {@code uriMapping}
+     * @throws cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException error
+     * @throws java.io.IOException I/O error
+     */
+    private <T extends AbstractInternedUriMappingIterable & MutableUriMapping> T loadSameAsLinks(T uriMapping, boolean isParallelLoading)
+            throws LDFusionToolException, IOException {
+        try {
+            // TODO: rework
+            List<ConstructSourceConfig> repositorySameAsSourcesConfig = new ArrayList<>();
+            List<ConstructSourceConfig> fileSameAsSourcesConfig = new ArrayList<>();
+            for (ConstructSourceConfig sourceConfig : config.getSameAsSources()) {
+                if (sourceConfig.getType() == EnumDataSourceType.FILE) {
+                    fileSameAsSourcesConfig.add(sourceConfig);
+                } else {
+                    repositorySameAsSourcesConfig.add(sourceConfig);
+                }
+            }
+
+            List<SameAsLinkLoader> loaders = new ArrayList<>();
+            for (ConstructSourceConfig source : fileSameAsSourcesConfig) {
+                loaders.add(new SameAsLinkFileLoader(source, config.getParserConfig(), config.getSameAsLinkTypes()));
+            }
+            Collection<ConstructSource> repositorySameAsSources = getConstructSources(repositorySameAsSourcesConfig);
+            for (ConstructSource source : repositorySameAsSources) {
+                loaders.add(new SameAsLinkRepositoryLoader(source));
+            }
 
-        Collection<ConstructSource> repositorySameAsSources = getConstructSources(repositorySameAsSourcesConfig);
-        for (ConstructSource source : repositorySameAsSources) {
-            SameAsLinkRepositoryLoader loader = new SameAsLinkRepositoryLoader(source);
-            loader.loadSameAsMappings(uriMapping);
+            if (isParallelLoading) {
+                new ParallelSameAsLinkLoader(loaders, config.getSameAsThreadCount()).loadSameAsMappings(uriMapping);
+            } else {
+                for (SameAsLinkLoader loader : loaders) {
+                    loader.loadSameAsMappings(uriMapping);
+                }
+            }
+        } catch (LDFusionToolException | RuntimeException e) {
+            if (uriMapping instanceof Closeable) {
+                ((Closeable) uriMapping).close();
+            }
+            throw e;
         }
         return uriMapping;
     }
@@ -331,7 +409,7 @@ public class LDFusionToolComponentFactory implements FusionComponentFactory {
      */
     protected LargeCollectionFactory createLargeCollectionFactory() throws IOException {
         if (config.getEnableFileCache()) {
-            return new MapdbCollectionFactory(config.getTempDirectory());
+            return new MapdbCollectionFactory(new TempDirectories(config.getTempDirectories()).getDirectoryWithMostSpace());
         } else {
             return new MemoryCollectionFactory();
         }
@@ -438,7 +516,19 @@ public class LDFusionToolComponentFactory implements FusionComponentFactory {
     protected long calculateMemoryLimit() {
         return Math.min(
                 config.getMemoryLimit() != null ? config.getMemoryLimit() : Long.MAX_VALUE,
-                (long) (ExternalSort.estimateAvailableMemory() * config.getMaxFreeMemoryUsage()));
+                (long) (MemoryGovernor.estimateAvailableMemory() * config.getMaxFreeMemoryUsage()));
+    }
+
+    /**
+     * Creates codec for temporary files according to configuration.
+     * @return temporary file codec
+     */
+    private TempFileCodec createTempFileCodec() {
+        TempFileCodec codec = config.getTempFileCompression().createCodec(config.getTempFileCompressionLevel(), config.getTempFileBufferSize());
+        if (config.getTempFileIOThreadCount() > 0) {
+            codec = new AsyncIOTempFileCodec(codec, config.getTempFileIOThreadCount(), config.getTempFileIOBufferSize());
+        }
+        return codec;
     }
 
     public ProfilingTimeCounter<EnumFusionCounters> getExecutorTimeProfiler() {
@@ -1,9 +1,13 @@
 package cz.cuni.mff.odcleanstore.fusiontool;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import cz.cuni.mff.odcleanstore.conflictresolution.ResolvedStatement;
 import cz.cuni.mff.odcleanstore.conflictresolution.exceptions.ConflictResolutionException;
+import cz.cuni.mff.odcleanstore.fusiontool.config.LDFTConfigConstants;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.ResourceDescription;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.ResourceDescriptionConflictResolver;
+import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolApplicationException;
+import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolErrorCodes;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.InputLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.fiter.ResourceDescriptionFilter;
@@ -16,13 +20,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Fuses RDF data loaded from RDF sources using ODCS Conflict Resolution and writes the output to RDF outputs.
  * Conflict resolution includes resolution of owl:sameAs link, resolution of instance-level conflicts.
  * See sample configuration files (sample-config-full.xml) for overview of all processing options.
  *
+ * When more than one fusion thread is configured, input filtering and conflict resolution run in a pool of worker
+ * threads while the input loader and the output writer are accessed only from the thread calling {@code fuse()}.
+ * Results are written in the order in which resource descriptions were returned by the input loader.
+ * The conflict resolver and the filter must be thread-safe in that case. They share the URI mapping, which must not
+ * be modified by reading; {@link FusionRunner} calls
+ * {@link cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.MutableUriMapping#compressPaths()}
+ * before the input loader and the executor are created.
+ *
  * This class is not thread-safe.
  */
 public class LDFusionToolExecutor implements FusionExecutor {
@@ -32,6 +51,7 @@ public class LDFusionToolExecutor implements FusionExecutor {
     private final Long maxOutputTriples;
     private final ProfilingTimeCounter<EnumFusionCounters> timeProfiler;
     private final MemoryProfiler memoryProfiler;
+    private final int fusionThreadCount;
     private ResourceDescriptionFilter resourceDescriptionFilter;
     private IsCanceledCallback isCanceledCallback;
 
@@ -49,6 +69,27 @@ public class LDFusionToolExecutor implements FusionExecutor {
             ResourceDescriptionFilter resourceDescriptionFilter,
             ProfilingTimeCounter<EnumFusionCounters> timeProfiler,
             MemoryProfiler memoryProfiler) {
+        this(hasVirtuosoSource, maxOutputTriples, resourceDescriptionFilter, timeProfiler, memoryProfiler,
+                LDFTConfigConstants.DEFAULT_FUSION_THREAD_COUNT);
+    }
+
+    /**
+     * @param hasVirtuosoSource indicates whether the {@link cz.cuni.mff.odcleanstore.fusiontool.loaders.InputLoader}
+     *      given to {@code fuse()} may contain a source of type
+     *      {@link cz.cuni.mff.odcleanstore.fusiontool.config.EnumDataSourceType#VIRTUOSO} (need for Virtuoso bug circumvention).
+     * @param maxOutputTriples maximum number of triples to be processed; null means unlimited
+     * @param timeProfiler time profiler
+     * @param memoryProfiler memory profiler
+     * @param fusionThreadCount number of threads resolving conflicts; 1 means sequential processing in the calling thread
+     */
+    public LDFusionToolExecutor(
+            boolean hasVirtuosoSource,
+            Long maxOutputTriples,
+            ResourceDescriptionFilter resourceDescriptionFilter,
+            ProfilingTimeCounter<EnumFusionCounters> timeProfiler,
+            MemoryProfiler memoryProfiler,
+            int fusionThreadCount) {
+        this.fusionThreadCount = Math.max(1, fusionThreadCount);
         this.hasVirtuosoSource = hasVirtuosoSource;
         this.maxOutputTriples = maxOutputTriples;
         this.resourceDescriptionFilter = resourceDescriptionFilter;
@@ -59,6 +100,15 @@ public class LDFusionToolExecutor implements FusionExecutor {
     @Override
     public void fuse(ResourceDescriptionConflictResolver conflictResolver, InputLoader inputLoader, CloseableRDFWriter rdfWriter)
             throws LDFusionToolException, ConflictResolutionException, IOException {
+        if (fusionThreadCount > 1) {
+            fuseParallel(conflictResolver, inputLoader, rdfWriter);
+        } else {
+            fuseSequential(conflictResolver, inputLoader, rdfWriter);
+        }
+    }
+
+    private void fuseSequential(ResourceDescriptionConflictResolver conflictResolver, InputLoader inputLoader, CloseableRDFWriter rdfWriter)
+            throws LDFusionToolException, ConflictResolutionException, IOException {
 
         // Initialize triple counters
         long outputTriples = 0;
@@ -121,6 +171,119 @@ public class LDFusionToolExecutor implements FusionExecutor {
         LOG.info(String.format("Processed %,d quads which were resolved to %,d output quads.", inputTriples, outputTriples));
     }
 
+    private void fuseParallel(ResourceDescriptionConflictResolver conflictResolver, InputLoader inputLoader, CloseableRDFWriter rdfWriter)
+            throws LDFusionToolException, ConflictResolutionException, IOException {
+
+        // Initialize triple counters
+        long outputTriples = 0;
+        long inputTriples = 0;
+        boolean checkMaxOutputTriples = maxOutputTriples != null && maxOutputTriples >= 0;
+
+        // Resource descriptions submitted for resolution in the order they were loaded
+        int maxPendingTasks = fusionThreadCount * LDFTConfigConstants.FUSION_QUEUE_SIZE_PER_THREAD;
+        Deque<Future<ResolutionTaskResult>> pendingTasks = new ArrayDeque<>(maxPendingTasks);
+        ExecutorService workers = Executors.newFixedThreadPool(fusionThreadCount, new ThreadFactoryBuilder()
+                .setNameFormat("fusion-worker-%d")
+                .setDaemon(true)
+                .build());
+
+        // Load & process input quads
+        LOG.info("Starting conflict resolution with {} threads", fusionThreadCount);
+        try {
+            timeProfiler.startCounter(EnumFusionCounters.BUFFERING);
+            while (!isCanceled()) {
+                // Keep the workers busy as long as there is free space in the queue;
+                // up to maxPendingTasks resource descriptions are read ahead before their resolved statements
+                // are passed back to the input loader. Loaders depending on resolved statements (e.g. transitive
+                // loading) therefore see them later than in sequential processing, but hasNext() is checked
+                // again after each resolved description is passed back, so no discovered input is missed.
+                if (pendingTasks.size() < maxPendingTasks && inputLoader.hasNext()) {
+                    timeProfiler.stopAddCounter(EnumFusionCounters.BUFFERING);
+
+                    // Load quads for the given subject
+                    timeProfiler.startCounter(EnumFusionCounters.QUAD_LOADING);
+                    ResourceDescription resourceDescription = inputLoader.next();
+                    inputTriples += resourceDescription.getDescribingStatements().size();
+                    timeProfiler.stopAddCounter(EnumFusionCounters.QUAD_LOADING);
+
+                    pendingTasks.addLast(workers.submit(
+                            new ResolutionTask(resourceDescription, resourceDescriptionFilter, conflictResolver, timeProfiler.newInstance())));
+                    timeProfiler.startCounter(EnumFusionCounters.BUFFERING);
+                    continue;
+                }
+                if (pendingTasks.isEmpty()) {
+                    break;
+                }
+
+                // Wait for the oldest resource description to be resolved
+                ResolutionTaskResult taskResult = getTaskResult(pendingTasks.removeFirst());
+                timeProfiler.stopAddCounter(EnumFusionCounters.BUFFERING);
+                timeProfiler.addProfilingTimeCounter(taskResult.timeProfiler);
+                if (taskResult.resolvedQuads == null) {
+                    LOG.debug("Resource {} doesn't match filter, skipping", taskResult.resourceDescription.getResource());
+                    timeProfiler.startCounter(EnumFusionCounters.BUFFERING);
+                    continue;
+                }
+                Collection<ResolvedStatement> resolvedQuads = taskResult.resolvedQuads;
+                LOG.debug("Resolved {} quads resulting in {} quads (processed totally {} quads)",
+                        new Object[] {taskResult.resourceDescription.getDescribingStatements().size(), resolvedQuads.size(), inputTriples});
+
+                // Check if we have reached the limit on output triples
+                if (checkMaxOutputTriples && outputTriples + resolvedQuads.size() > maxOutputTriples) {
+                    timeProfiler.startCounter(EnumFusionCounters.BUFFERING);
+                    break;
+                }
+                outputTriples += resolvedQuads.size();
+
+                // Add objects filtered by CR for traversal
+                timeProfiler.startCounter(EnumFusionCounters.BUFFERING);
+                inputLoader.updateWithResolvedStatements(resolvedQuads);
+                timeProfiler.stopAddCounter(EnumFusionCounters.BUFFERING);
+
+                // Write result to output
+                timeProfiler.startCounter(EnumFusionCounters.OUTPUT_WRITING);
+                rdfWriter.writeResolvedStatements(resolvedQuads);
+                timeProfiler.stopAddCounter(EnumFusionCounters.OUTPUT_WRITING);
+
+                memoryProfiler.capture();
+                fixVirtuosoOpenedStatements();
+                timeProfiler.startCounter(EnumFusionCounters.BUFFERING);
+            }
+            timeProfiler.stopAddCounter(EnumFusionCounters.BUFFERING);
+        } finally {
+            for (Future<ResolutionTaskResult> pendingTask : pendingTasks) {
+                pendingTask.cancel(true);
+            }
+            workers.shutdownNow();
+        }
+        if (isCanceled()) {
+            LOG.warn("The execution was canceled!");
+        }
+        LOG.info(String.format("Processed %,d quads which were resolved to %,d output quads.", inputTriples, outputTriples));
+    }
+
+    private ResolutionTaskResult getTaskResult(Future<ResolutionTaskResult> task)
+            throws LDFusionToolException, ConflictResolutionException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.PARALLEL_FUSION,
+                    "Interrupted while waiting for conflict resolution", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ConflictResolutionException) {
+                throw (ConflictResolutionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.PARALLEL_FUSION,
+                    "Error in conflict resolution thread", cause);
+        }
+    }
+
     /**
      * Fixes bug in Virtuoso which doesn't release connections even when they are released explicitly.
      * This method puts the current thread to sleep so that the thread releasing connections has chance to be
@@ -143,6 +306,10 @@ public class LDFusionToolExecutor implements FusionExecutor {
         return maxOutputTriples;
     }
 
+    public int getFusionThreadCount() {
+        return fusionThreadCount;
+    }
+
     public ResourceDescriptionFilter getResourceDescriptionFilter() {
         return resourceDescriptionFilter;
     }
@@ -154,5 +321,62 @@ public class LDFusionToolExecutor implements FusionExecutor {
     private boolean isCanceled() {
         return isCanceledCallback != null && isCanceledCallback.isCanceled();
     }
+
+    /**
+     * Applies input filter and conflict resolution to a single resource description in a worker thread.
+     */
+    private static class ResolutionTask implements Callable<ResolutionTaskResult> {
+        private final ResourceDescription resourceDescription;
+        private final ResourceDescriptionFilter resourceDescriptionFilter;
+        private final ResourceDescriptionConflictResolver conflictResolver;
+        private final ProfilingTimeCounter<EnumFusionCounters> timeProfiler;
+
+        public ResolutionTask(
+                ResourceDescription resourceDescription,
+                ResourceDescriptionFilter resourceDescriptionFilter,
+                ResourceDescriptionConflictResolver conflictResolver,
+                ProfilingTimeCounter<EnumFusionCounters> timeProfiler) {
+            this.resourceDescription = resourceDescription;
+            this.resourceDescriptionFilter = resourceDescriptionFilter;
+            this.conflictResolver = conflictResolver;
+            this.timeProfiler = timeProfiler;
+        }
+
+        @Override
+        public ResolutionTaskResult call() throws ConflictResolutionException {
+            // Apply input filters
+            timeProfiler.startCounter(EnumFusionCounters.INPUT_FILTERING);
+            boolean accept = resourceDescriptionFilter.accept(resourceDescription);
+            timeProfiler.stopAddCounter(EnumFusionCounters.INPUT_FILTERING);
+            if (!accept) {
+                return new ResolutionTaskResult(resourceDescription, null, timeProfiler);
+            }
+
+            // Resolve conflicts
+            timeProfiler.startCounter(EnumFusionCounters.CONFLICT_RESOLUTION);
+            Collection<ResolvedStatement> resolvedQuads = conflictResolver.resolveConflicts(resourceDescription);
+            timeProfiler.stopAddCounter(EnumFusionCounters.CONFLICT_RESOLUTION);
+            return new ResolutionTaskResult(resourceDescription, resolvedQuads, timeProfiler);
+        }
+    }
+
+    /**
+     * Result of {@link ResolutionTask}.
+     */
+    private static class ResolutionTaskResult {
+        private final ResourceDescription resourceDescription;
+        /** Resolved quads or null if the resource description didn't match input filter. */
+        private final Collection<ResolvedStatement> resolvedQuads;
+        private final ProfilingTimeCounter<EnumFusionCounters> timeProfiler;
+
+        public ResolutionTaskResult(
+                ResourceDescription resourceDescription,
+                Collection<ResolvedStatement> resolvedQuads,
+                ProfilingTimeCounter<EnumFusionCounters> timeProfiler) {
+            this.resourceDescription = resourceDescription;
+            this.resolvedQuads = resolvedQuads;
+            this.timeProfiler = timeProfiler;
+        }
+    }
 }
 
@@ -28,7 +28,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
@@ -118,7 +118,7 @@ public class SparqlDumpDownloader {
                 }
             };
         }
-        return new BufferedWriter(new OutputStreamWriter(outputStream, Charset.defaultCharset()));
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
     }
 
     private static class RDFWriterWrapper extends RDFHandlerBase implements RDFHandler {
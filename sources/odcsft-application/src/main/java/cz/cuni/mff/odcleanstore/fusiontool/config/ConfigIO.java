@@ -50,8 +50,18 @@ public interface ConfigIO {
     File getCanonicalURIsInputFile();
 
     /**
-     * Directory for temporary files.
-     * @return directory for temporary files.
+     * File where the resolved owl:sameAs mapping is saved so that later runs can reload it
+     * instead of loading sameAs sources again.
+     * The saved mapping is used only if sameAs sources and preferred canonical URIs have not changed.
+     * Null means that the mapping is not saved.
+     * @return file with saved owl:sameAs mapping or null
      */
-    File getTempDirectory();
+    File getSameAsSnapshotFile();
+
+    /**
+     * Directories for temporary files.
+     * Temporary files are spread across all directories so that disk I/O is spread across the disks they reside on.
+     * @return non-empty list of directories for temporary files.
+     */
+    List<File> getTempDirectories();
 }
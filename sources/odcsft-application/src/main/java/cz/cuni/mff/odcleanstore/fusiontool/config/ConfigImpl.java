@@ -2,6 +2,7 @@ package cz.cuni.mff.odcleanstore.fusiontool.config;
 
 import cz.cuni.mff.odcleanstore.conflictresolution.ResolutionStrategy;
 import cz.cuni.mff.odcleanstore.conflictresolution.impl.ResolutionStrategyImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
 import org.openrdf.model.URI;
 import org.openrdf.rio.ParserConfig;
 
@@ -32,9 +33,21 @@ public class ConfigImpl implements Config {
     private boolean outputMappedSubjectsOnly = false;
     private boolean isLocalCopyProcessing = true;
     private Long memoryLimit = null;
-    private File tempDirectory = LDFTConfigConstants.DEFAULT_TEMP_DIRECTORY;
+    private List<File> tempDirectories = Collections.singletonList(LDFTConfigConstants.DEFAULT_TEMP_DIRECTORY);
     private ParserConfig parserConfig = LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG;
     private URI requiredClassOfProcessedResources = null;
+    private int fusionThreadCount = LDFTConfigConstants.DEFAULT_FUSION_THREAD_COUNT;
+    private int sortThreadCount = LDFTConfigConstants.DEFAULT_SORT_THREAD_COUNT;
+    private int parserThreadCount = LDFTConfigConstants.DEFAULT_PARSER_THREAD_COUNT;
+    private EnumTempFileCodec tempFileCompression = LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION;
+    private int tempFileCompressionLevel = LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION_LEVEL;
+    private Integer tempFileBufferSize = null;
+    private int tempFileIOThreadCount = LDFTConfigConstants.DEFAULT_TEMP_FILE_IO_THREAD_COUNT;
+    private int tempFileIOBufferSize = LDFTConfigConstants.DEFAULT_TEMP_FILE_IO_BUFFER_SIZE;
+    private boolean isMemoryMappedUriMapping = false;
+    private File sameAsSnapshotFile = null;
+    private int sameAsThreadCount = LDFTConfigConstants.DEFAULT_SAME_AS_THREAD_COUNT;
+    private int dataSourceThreadCount = LDFTConfigConstants.DEFAULT_DATA_SOURCE_THREAD_COUNT;
 
     @Override
     public List<DataSourceConfig> getDataSources() {
@@ -176,6 +189,20 @@ public class ConfigImpl implements Config {
         this.canonicalURIsInputFile = file;
     }
 
+    @Override
+    public File getSameAsSnapshotFile() {
+        return sameAsSnapshotFile;
+    }
+
+    /**
+     * Sets value for {@link #getSameAsSnapshotFile()}.
+     *
+     * @param sameAsSnapshotFile see {@link #getSameAsSnapshotFile()}
+     */
+    public void setSameAsSnapshotFile(File sameAsSnapshotFile) {
+        this.sameAsSnapshotFile = sameAsSnapshotFile;
+    }
+
     @Override
     public boolean getEnableFileCache() {
         return enableFileCache;
@@ -218,6 +245,160 @@ public class ConfigImpl implements Config {
         this.isProfilingOn = isProfilingOn;
     }
 
+    @Override
+    public int getFusionThreadCount() {
+        return fusionThreadCount;
+    }
+
+    /**
+     * Sets value for {@link #getFusionThreadCount()}.
+     *
+     * @param fusionThreadCount see {@link #getFusionThreadCount()}
+     */
+    public void setFusionThreadCount(int fusionThreadCount) {
+        this.fusionThreadCount = fusionThreadCount;
+    }
+
+    @Override
+    public int getSortThreadCount() {
+        return sortThreadCount;
+    }
+
+    /**
+     * Sets value for {@link #getSortThreadCount()}.
+     *
+     * @param sortThreadCount see {@link #getSortThreadCount()}
+     */
+    public void setSortThreadCount(int sortThreadCount) {
+        this.sortThreadCount = sortThreadCount;
+    }
+
+    @Override
+    public int getParserThreadCount() {
+        return parserThreadCount;
+    }
+
+    /**
+     * Sets value for {@link #getParserThreadCount()}.
+     *
+     * @param parserThreadCount see {@link #getParserThreadCount()}
+     */
+    public void setParserThreadCount(int parserThreadCount) {
+        this.parserThreadCount = parserThreadCount;
+    }
+
+    @Override
+    public EnumTempFileCodec getTempFileCompression() {
+        return tempFileCompression;
+    }
+
+    /**
+     * Sets value for {@link #getTempFileCompression()}.
+     *
+     * @param tempFileCompression see {@link #getTempFileCompression()}
+     */
+    public void setTempFileCompression(EnumTempFileCodec tempFileCompression) {
+        this.tempFileCompression = tempFileCompression;
+    }
+
+    @Override
+    public int getTempFileCompressionLevel() {
+        return tempFileCompressionLevel;
+    }
+
+    /**
+     * Sets value for {@link #getTempFileCompressionLevel()}.
+     *
+     * @param tempFileCompressionLevel see {@link #getTempFileCompressionLevel()}
+     */
+    public void setTempFileCompressionLevel(int tempFileCompressionLevel) {
+        this.tempFileCompressionLevel = tempFileCompressionLevel;
+    }
+
+    @Override
+    public Integer getTempFileBufferSize() {
+        return tempFileBufferSize;
+    }
+
+    /**
+     * Sets value for {@link #getTempFileBufferSize()}.
+     *
+     * @param tempFileBufferSize see {@link #getTempFileBufferSize()}
+     */
+    public void setTempFileBufferSize(Integer tempFileBufferSize) {
+        this.tempFileBufferSize = tempFileBufferSize;
+    }
+
+    @Override
+    public int getTempFileIOThreadCount() {
+        return tempFileIOThreadCount;
+    }
+
+    /**
+     * Sets value for {@link #getTempFileIOThreadCount()}.
+     *
+     * @param tempFileIOThreadCount see {@link #getTempFileIOThreadCount()}
+     */
+    public void setTempFileIOThreadCount(int tempFileIOThreadCount) {
+        this.tempFileIOThreadCount = tempFileIOThreadCount;
+    }
+
+    @Override
+    public int getTempFileIOBufferSize() {
+        return tempFileIOBufferSize;
+    }
+
+    /**
+     * Sets value for {@link #getTempFileIOBufferSize()}.
+     *
+     * @param tempFileIOBufferSize see {@link #getTempFileIOBufferSize()}
+     */
+    public void setTempFileIOBufferSize(int tempFileIOBufferSize) {
+        this.tempFileIOBufferSize = tempFileIOBufferSize;
+    }
+
+    @Override
+    public boolean isMemoryMappedUriMapping() {
+        return isMemoryMappedUriMapping;
+    }
+
+    /**
+     * Sets value for {@link #isMemoryMappedUriMapping()}.
+     *
+     * @param isMemoryMappedUriMapping see {@link #isMemoryMappedUriMapping()}
+     */
+    public void setMemoryMappedUriMapping(boolean isMemoryMappedUriMapping) {
+        this.isMemoryMappedUriMapping = isMemoryMappedUriMapping;
+    }
+
+    @Override
+    public int getSameAsThreadCount() {
+        return sameAsThreadCount;
+    }
+
+    /**
+     * Sets value for {@link #getSameAsThreadCount()}.
+     *
+     * @param sameAsThreadCount see {@link #getSameAsThreadCount()}
+     */
+    public void setSameAsThreadCount(int sameAsThreadCount) {
+        this.sameAsThreadCount = sameAsThreadCount;
+    }
+
+    @Override
+    public int getDataSourceThreadCount() {
+        return dataSourceThreadCount;
+    }
+
+    /**
+     * Sets value for {@link #getDataSourceThreadCount()}.
+     *
+     * @param dataSourceThreadCount see {@link #getDataSourceThreadCount()}
+     */
+    public void setDataSourceThreadCount(int dataSourceThreadCount) {
+        this.dataSourceThreadCount = dataSourceThreadCount;
+    }
+
     //@Override
     //public boolean getOutputConflictsOnly() {
     //    return outputConflictsOnly;
@@ -273,16 +454,16 @@ public class ConfigImpl implements Config {
     }
 
     @Override
-    public File getTempDirectory() {
-        return tempDirectory;
+    public List<File> getTempDirectories() {
+        return tempDirectories;
     }
 
     /**
-     * Sets value for {@link #getTempDirectory()}.
-     * @param tempDirectory see {@link #getTempDirectory()}
+     * Sets value for {@link #getTempDirectories()}.
+     * @param tempDirectories see {@link #getTempDirectories()}
      */
-    public void setTempDirectory(File tempDirectory) {
-        this.tempDirectory = tempDirectory;
+    public void setTempDirectories(List<File> tempDirectories) {
+        this.tempDirectories = tempDirectories;
     }
 
     @Override
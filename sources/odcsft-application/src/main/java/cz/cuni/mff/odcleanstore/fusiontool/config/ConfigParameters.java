@@ -24,6 +24,19 @@ public final class ConfigParameters {
     public static final String PROCESSING_MAX_OUTPUT_TRIPLES = "maxOutputTriples";
     public static final String PROCESSING_LOCAL_COPY_PROCESSING = "localCopyProcessing";
     public static final String PROCESSING_ONLY_RESOURCES_WITH_CLASS = "processResourcesWithClass";
+    public static final String PROCESSING_FUSION_THREAD_COUNT = "fusionThreadCount";
+    public static final String PROCESSING_SORT_THREAD_COUNT = "sortThreadCount";
+    public static final String PROCESSING_PARSER_THREAD_COUNT = "parserThreadCount";
+    public static final String PROCESSING_TEMP_DIRECTORY = "tempDirectory";
+    public static final String PROCESSING_TEMP_FILE_COMPRESSION = "tempFileCompression";
+    public static final String PROCESSING_TEMP_FILE_COMPRESSION_LEVEL = "tempFileCompressionLevel";
+    public static final String PROCESSING_TEMP_FILE_BUFFER_SIZE = "tempFileBufferSize";
+    public static final String PROCESSING_TEMP_FILE_IO_THREAD_COUNT = "tempFileIOThreadCount";
+    public static final String PROCESSING_TEMP_FILE_IO_BUFFER_SIZE = "tempFileIOBufferSize";
+    public static final String PROCESSING_MEMORY_MAPPED_URI_MAPPING = "memoryMappedUriMapping";
+    public static final String PROCESSING_SAME_AS_SNAPSHOT_FILE = "sameAsSnapshotFile";
+    public static final String PROCESSING_SAME_AS_THREAD_COUNT = "sameAsThreadCount";
+    public static final String PROCESSING_DATA_SOURCE_THREAD_COUNT = "dataSourceThreadCount";
     public static final String OUTPUT_PATH = "path";
     public static final String OUTPUT_FORMAT = "format";
     public static final String OUTPUT_SPLIT_BY_MB = "splitByMb".toLowerCase();
@@ -1,5 +1,6 @@
 package cz.cuni.mff.odcleanstore.fusiontool.config;
 
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
 import org.openrdf.rio.ParserConfig;
 
 import java.io.File;
@@ -37,6 +38,7 @@ public interface ConfigProcessing {
 
     /**
      * Max portion of free memory to use.
+     * Free memory is the maximum heap size minus memory occupied by live objects after the last garbage collection.
      * @return portion of free memory to use as a number between 0 and 1
      */
     float getMaxFreeMemoryUsage();
@@ -53,4 +55,84 @@ public interface ConfigProcessing {
      * @return true iff profiling logs should be printed
      */
     boolean isProfilingOn();
+
+    /**
+     * Number of threads resolving conflicts in parallel.
+     * Value 1 means that input is processed sequentially in the main thread.
+     * @return number of conflict resolution threads (at least 1)
+     */
+    int getFusionThreadCount();
+
+    /**
+     * Number of threads sorting blocks of data in parallel when local copy processing is used.
+     * Value 1 means that blocks are read and sorted sequentially in the main thread.
+     * @return number of sort threads (at least 1)
+     */
+    int getSortThreadCount();
+
+    /**
+     * Number of threads parsing a single large input file in N-Quads or N-Triples format in parallel.
+     * Value 1 means that each input file is parsed by a single thread.
+     * @return number of parser threads per input file (at least 1)
+     */
+    int getParserThreadCount();
+
+    /**
+     * Type of compression of temporary files used when local copy processing is used.
+     * @return temporary file compression
+     */
+    EnumTempFileCodec getTempFileCompression();
+
+    /**
+     * Compression level of temporary files (only applicable to {@link EnumTempFileCodec#GZIP}).
+     * @return compression level between 0 and 9
+     */
+    int getTempFileCompressionLevel();
+
+    /**
+     * Size of buffers (or blocks for {@link EnumTempFileCodec#BLOCK}) used for compression of temporary files.
+     * Null means the default size for the selected compression.
+     * @return buffer size in bytes or null
+     */
+    Integer getTempFileBufferSize();
+
+    /**
+     * Number of threads reading (and decompressing) temporary files ahead and compressing and writing them
+     * in background when local copy processing is used; the threads are shared by all temporary files.
+     * Value 0 means that temporary files are read and written synchronously by the thread processing the data.
+     * @return number of I/O threads (at least 0)
+     */
+    int getTempFileIOThreadCount();
+
+    /**
+     * Size of blocks of temporary files read ahead or written behind by I/O threads;
+     * two blocks are allocated for each open temporary file.
+     * @return buffer size in bytes
+     */
+    int getTempFileIOBufferSize();
+
+    /**
+     * Indicates whether the owl:sameAs mapping should be kept in memory-mapped temporary files outside
+     * of the JVM heap instead of on heap. Suitable for very large sets of owl:sameAs links.
+     * @return true iff the owl:sameAs mapping should be stored in memory-mapped files
+     */
+    boolean isMemoryMappedUriMapping();
+
+    /**
+     * Number of threads loading owl:sameAs links from different sameAs sources in parallel.
+     * Value 1 means that sameAs sources are loaded sequentially in the main thread.
+     * With parallel loading, the canonical URI of each set of equivalent URIs doesn't depend
+     * on the order of links: preferred URIs take precedence and the lexicographically least URI is selected among them.
+     * @return number of sameAs loading threads (at least 1)
+     */
+    int getSameAsThreadCount();
+
+    /**
+     * Number of threads loading quads from different data sources in parallel.
+     * Value 1 means that data sources are loaded sequentially in the main thread.
+     * The output doesn't depend on the number of threads because RDF terms are assigned identifiers
+     * in the order of data sources.
+     * @return number of data source loading threads (at least 1)
+     */
+    int getDataSourceThreadCount();
 }
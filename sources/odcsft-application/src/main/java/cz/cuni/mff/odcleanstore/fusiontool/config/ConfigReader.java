@@ -1,11 +1,14 @@
 package cz.cuni.mff.odcleanstore.fusiontool.config;
 
+import com.google.common.base.Splitter;
 import cz.cuni.mff.odcleanstore.conflictresolution.ResolutionStrategy;
 import cz.cuni.mff.odcleanstore.conflictresolution.impl.ResolutionStrategyImpl;
 import cz.cuni.mff.odcleanstore.core.ODCSUtils;
 import cz.cuni.mff.odcleanstore.fusiontool.config.xml.*;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.InvalidInputException;
 import cz.cuni.mff.odcleanstore.fusiontool.io.EnumSerializationFormat;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.BlockTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
 import cz.cuni.mff.odcleanstore.fusiontool.util.NamespacePrefixExpander;
 import org.openrdf.model.URI;
 import org.openrdf.model.impl.ValueFactoryImpl;
@@ -14,6 +17,7 @@ import org.simpleframework.xml.core.Persister;
 
 import java.io.File;
 import java.util.*;
+import java.util.zip.Deflater;
 
 /**
  * Reads the XML configuration file and produces instances of configuration in a {@link Config} instance.
@@ -174,6 +178,12 @@ public final class ConfigReader {
                 } else {
                     config.setCanonicalURIsInputFile(null);
                 }
+            } else if (ConfigParameters.PROCESSING_SAME_AS_SNAPSHOT_FILE.equalsIgnoreCase(param.getName())) {
+                if (!ODCSUtils.isNullOrEmpty(param.getValue())) {
+                    config.setSameAsSnapshotFile(new File(param.getValue()));
+                } else {
+                    config.setSameAsSnapshotFile(null);
+                }
             } else if (ConfigParameters.PROCESSING_ENABLE_FILE_CACHE.equalsIgnoreCase(param.getName()) && !ODCSUtils.isNullOrEmpty(param.getValue())) {
                 config.setEnableFileCache(Boolean.parseBoolean(param.getValue()));
             } else if (ConfigParameters.PROCESSING_MAX_OUTPUT_TRIPLES.equalsIgnoreCase(param.getName())) {
@@ -186,6 +196,80 @@ public final class ConfigReader {
                     URI classUri = prefixExpander.convertToUriWithExpansion(param.getValue());
                     config.setRequiredClassOfProcessedResources(classUri);
                 }
+            } else if (ConfigParameters.PROCESSING_FUSION_THREAD_COUNT.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_FUSION_THREAD_COUNT + " is not a valid number");
+                if (value < 1) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_FUSION_THREAD_COUNT + " must be a positive number");
+                }
+                config.setFusionThreadCount(value);
+            } else if (ConfigParameters.PROCESSING_SORT_THREAD_COUNT.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_SORT_THREAD_COUNT + " is not a valid number");
+                if (value < 1) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_SORT_THREAD_COUNT + " must be a positive number");
+                }
+                config.setSortThreadCount(value);
+            } else if (ConfigParameters.PROCESSING_PARSER_THREAD_COUNT.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_PARSER_THREAD_COUNT + " is not a valid number");
+                if (value < 1) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_PARSER_THREAD_COUNT + " must be a positive number");
+                }
+                config.setParserThreadCount(value);
+            } else if (ConfigParameters.PROCESSING_TEMP_DIRECTORY.equalsIgnoreCase(param.getName())) {
+                List<File> tempDirectories = new ArrayList<>();
+                for (String directory : Splitter.on(LDFTConfigConstants.TEMP_DIRECTORY_SEPARATOR).trimResults().omitEmptyStrings().split(param.getValue())) {
+                    tempDirectories.add(new File(directory));
+                }
+                if (tempDirectories.isEmpty()) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_TEMP_DIRECTORY + " must contain at least one directory");
+                }
+                config.setTempDirectories(tempDirectories);
+            } else if (ConfigParameters.PROCESSING_TEMP_FILE_COMPRESSION.equalsIgnoreCase(param.getName())) {
+                EnumTempFileCodec codec = EnumTempFileCodec.parseCodec(param.getValue());
+                if (codec == null) {
+                    throw new InvalidInputException("Unknown value of " + ConfigParameters.PROCESSING_TEMP_FILE_COMPRESSION
+                            + ": " + param.getValue());
+                }
+                config.setTempFileCompression(codec);
+            } else if (ConfigParameters.PROCESSING_TEMP_FILE_COMPRESSION_LEVEL.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_TEMP_FILE_COMPRESSION_LEVEL + " is not a valid number");
+                if (value < Deflater.NO_COMPRESSION || value > Deflater.BEST_COMPRESSION) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_TEMP_FILE_COMPRESSION_LEVEL + " must be between "
+                            + Deflater.NO_COMPRESSION + " and " + Deflater.BEST_COMPRESSION);
+                }
+                config.setTempFileCompressionLevel(value);
+            } else if (ConfigParameters.PROCESSING_TEMP_FILE_BUFFER_SIZE.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_TEMP_FILE_BUFFER_SIZE + " is not a valid number");
+                if (value < 1 || value > BlockTempFileCodec.MAX_BLOCK_SIZE) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_TEMP_FILE_BUFFER_SIZE + " must be between 1 and "
+                            + BlockTempFileCodec.MAX_BLOCK_SIZE);
+                }
+                config.setTempFileBufferSize(value);
+            } else if (ConfigParameters.PROCESSING_TEMP_FILE_IO_THREAD_COUNT.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_TEMP_FILE_IO_THREAD_COUNT + " is not a valid number");
+                if (value < 0) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_TEMP_FILE_IO_THREAD_COUNT + " must not be negative");
+                }
+                config.setTempFileIOThreadCount(value);
+            } else if (ConfigParameters.PROCESSING_TEMP_FILE_IO_BUFFER_SIZE.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_TEMP_FILE_IO_BUFFER_SIZE + " is not a valid number");
+                if (value < 1) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_TEMP_FILE_IO_BUFFER_SIZE + " must be a positive number");
+                }
+                config.setTempFileIOBufferSize(value);
+            } else if (ConfigParameters.PROCESSING_MEMORY_MAPPED_URI_MAPPING.equalsIgnoreCase(param.getName()) && !ODCSUtils.isNullOrEmpty(param.getValue())) {
+                config.setMemoryMappedUriMapping(Boolean.parseBoolean(param.getValue()));
+            } else if (ConfigParameters.PROCESSING_SAME_AS_THREAD_COUNT.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_SAME_AS_THREAD_COUNT + " is not a valid number");
+                if (value < 1) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_SAME_AS_THREAD_COUNT + " must be a positive number");
+                }
+                config.setSameAsThreadCount(value);
+            } else if (ConfigParameters.PROCESSING_DATA_SOURCE_THREAD_COUNT.equalsIgnoreCase(param.getName())) {
+                int value = convertToInt(param.getValue(), "Value of " + ConfigParameters.PROCESSING_DATA_SOURCE_THREAD_COUNT + " is not a valid number");
+                if (value < 1) {
+                    throw new InvalidInputException("Value of " + ConfigParameters.PROCESSING_DATA_SOURCE_THREAD_COUNT + " must be a positive number");
+                }
+                config.setDataSourceThreadCount(value);
             } else {
                 throw new InvalidInputException("Unknown parameter " + param.getName()
                         + " used in data processing parameters");
@@ -306,6 +390,14 @@ public final class ConfigReader {
         }
     }
 
+    private int convertToInt(String str, String errorMessage) throws InvalidInputException {
+        try {
+            return Integer.parseInt(str);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException(errorMessage, e);
+        }
+    }
+
     private URI convertToURI(String str, String errorMessage) throws InvalidInputException {
         try {
             return ValueFactoryImpl.getInstance().createURI(str);
@@ -6,6 +6,7 @@ package cz.cuni.mff.odcleanstore.fusiontool.config;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import cz.cuni.mff.odcleanstore.core.ODCSUtils;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
 import cz.cuni.mff.odcleanstore.vocabulary.ODCS;
 import org.openrdf.model.URI;
 import org.openrdf.model.vocabulary.*;
@@ -18,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.zip.Deflater;
 
 import static cz.cuni.mff.odcleanstore.core.ODCSUtils.TIME_UNIT_60;
 import static cz.cuni.mff.odcleanstore.core.ODCSUtils.TIME_UNIT_60_INT;
@@ -99,6 +101,11 @@ public final class LDFTConfigConstants {
      */
     public static final File DEFAULT_TEMP_DIRECTORY = new File(".");
 
+    /**
+     * Separator of multiple directories in the temporary directory configuration parameter.
+     */
+    public static final char TEMP_DIRECTORY_SEPARATOR = ';';
+
     /**
      * Maximum number of rows to be requested in any SPARQL query.
      * Use Virtuoso Default
@@ -110,6 +117,69 @@ public final class LDFTConfigConstants {
      */
     public static final float MAX_FREE_MEMORY_USAGE = 0.85f;
 
+    /**
+     * Default number of threads resolving conflicts in parallel; 1 means sequential processing.
+     */
+    public static final int DEFAULT_FUSION_THREAD_COUNT = 1;
+
+    /**
+     * Default number of threads sorting blocks of temporary files in parallel with reading; 1 means sequential processing.
+     */
+    public static final int DEFAULT_SORT_THREAD_COUNT = 1;
+
+    /**
+     * Default number of threads parsing a single N-Quads or N-Triples input file; 1 means sequential parsing.
+     */
+    public static final int DEFAULT_PARSER_THREAD_COUNT = 1;
+
+    /**
+     * Minimum size in bytes of a part of an input file parsed by a separate thread.
+     */
+    public static final long MIN_PARALLEL_PARSE_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Default compression of temporary files.
+     */
+    public static final EnumTempFileCodec DEFAULT_TEMP_FILE_COMPRESSION = EnumTempFileCodec.GZIP;
+
+    /**
+     * Default compression level of temporary files (favors speed).
+     */
+    public static final int DEFAULT_TEMP_FILE_COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+
+    /**
+     * Default number of threads reading ahead and writing behind temporary files; 0 means synchronous I/O.
+     */
+    public static final int DEFAULT_TEMP_FILE_IO_THREAD_COUNT = 0;
+
+    /**
+     * Default size in bytes of blocks of temporary files read ahead or written behind by I/O threads.
+     */
+    public static final int DEFAULT_TEMP_FILE_IO_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Default number of threads loading sameAs sources in parallel; 1 means sequential loading.
+     */
+    public static final int DEFAULT_SAME_AS_THREAD_COUNT = 1;
+
+    /**
+     * Default number of threads loading data sources in parallel; 1 means sequential loading.
+     */
+    public static final int DEFAULT_DATA_SOURCE_THREAD_COUNT = 1;
+
+    /**
+     * Maximum number of resource descriptions waiting for conflict resolution or output per fusion thread.
+     * This is also the number of resource descriptions per thread read from the input loader ahead
+     * of passing resolved statements back to it.
+     */
+    public static final int FUSION_QUEUE_SIZE_PER_THREAD = 16;
+
+    /**
+     * Maximum number of recently used terms stored in a temporary file cached in memory by the term dictionary of
+     * {@link cz.cuni.mff.odcleanstore.fusiontool.loaders.ExternalSortingInputLoader}.
+     */
+    public static final int TERM_DICTIONARY_CACHE_SIZE = 100_000;
+
     /**
      * Set of 'same as' link property URIs for the purposes of conflict resolution.
      */
@@ -14,6 +14,8 @@ public final class LDFusionToolErrorCodes {
 
 
     // CHECKSTYLE:OFF
+    public static final int INPUT_LOADER_TMP_FILE_SPACE = 43;
+    public static final int PARALLEL_FUSION = 42;
     public static final int INPUT_LOADER_MERGE = 41;
     public static final int SAME_AS_LOAD = 40;
     public static final int INVALID_TMP_FILE_FORMAT_TUPLE = 39;
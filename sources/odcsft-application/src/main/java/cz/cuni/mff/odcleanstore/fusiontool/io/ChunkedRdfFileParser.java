@@ -0,0 +1,337 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Statement;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.ParserConfig;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.RioSetting;
+import org.openrdf.rio.helpers.BasicParserSettings;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+/**
+ * Parser of RDF files in a line-based format (N-Quads, N-Triples) which splits the file into parts
+ * at line boundaries and parses each part by a separate thread.
+ * Statements from all parts are passed to the given handler, which is never called by more than one thread at a time.
+ * Blank node identifiers have the same scope as if the whole file was parsed by a single parser,
+ * i.e. the same identifier in two parts of the file denotes the same blank node.
+ * Order of statements passed to the handler is not preserved.
+ */
+public class ChunkedRdfFileParser {
+    private static final Logger LOG = LoggerFactory.getLogger(ChunkedRdfFileParser.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int STATEMENT_BATCH_SIZE = 1024;
+
+    private final ParserConfig parserConfig;
+    private final int threadCount;
+    private final long minChunkSize;
+
+    /**
+     * Creates a new instance.
+     * @param parserConfig configuration of parsers
+     * @param threadCount maximum number of parser threads
+     * @param minChunkSize minimum size in bytes of a part of the file parsed by a single thread
+     */
+    public ChunkedRdfFileParser(ParserConfig parserConfig, int threadCount, long minChunkSize) {
+        Preconditions.checkNotNull(parserConfig);
+        Preconditions.checkArgument(threadCount > 0);
+        Preconditions.checkArgument(minChunkSize > 0);
+        this.parserConfig = parserConfig;
+        this.threadCount = threadCount;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Checks whether the given file can be split into parts parsed independently,
+     * i.e. whether it is in a line-based format and is not compressed.
+     * @param file input file
+     * @param format serialization format of the file
+     * @return true iff the file can be parsed by {@link #parse(File, String, RDFFormat, RDFHandler)}
+     * @throws IOException error reading the file
+     */
+    public static boolean isSplittable(File file, RDFFormat format) throws IOException {
+        if (!RDFFormat.NQUADS.equals(format) && !RDFFormat.NTRIPLES.equals(format)) {
+            return false;
+        }
+        // compressed files are detected from magic numbers the same way as in RDFLoader
+        byte[] header = new byte[4];
+        int headerLength;
+        try (InputStream inputStream = new FileInputStream(file)) {
+            headerLength = ByteStreams.read(inputStream, header, 0, header.length);
+        }
+        boolean isGzip = headerLength >= 2 && header[0] == (byte) 0x1f && header[1] == (byte) 0x8b;
+        boolean isZip = headerLength >= 4 && header[0] == 'P' && header[1] == 'K' && header[2] == 3 && header[3] == 4;
+        return !isGzip && !isZip;
+    }
+
+    /**
+     * Parses the given file and passes all statements to the given handler.
+     * @param file input file in a format for which {@link #isSplittable(File, RDFFormat)} holds
+     * @param baseURI base URI for parsing
+     * @param format serialization format of the file
+     * @param rdfHandler handler of parsed statements; it need not be thread-safe
+     * @throws IOException error reading the file
+     * @throws RDFParseException error parsing the file
+     * @throws RDFHandlerException error in the handler
+     */
+    public void parse(final File file, final String baseURI, final RDFFormat format, RDFHandler rdfHandler)
+            throws IOException, RDFParseException, RDFHandlerException {
+        List<long[]> chunks = splitToChunks(file);
+        LOG.debug("Parsing {} in {} parts", file.getName(), chunks.size());
+
+        final ScopedBNodeValueFactory valueFactory = new ScopedBNodeValueFactory(!parserConfig.isPreserveBNodeIDs());
+        final ParserConfig chunkParserConfig = createChunkParserConfig(format, valueFactory);
+        final SynchronizedStatementSink sink = new SynchronizedStatementSink(rdfHandler);
+        rdfHandler.startRDF();
+
+        ExecutorService parsers = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, chunks.size())), new ThreadFactoryBuilder()
+                .setNameFormat("rdf-parser-%d")
+                .setDaemon(true)
+                .build());
+        List<Future<Void>> pendingChunks = new ArrayList<>(chunks.size());
+        try {
+            for (final long[] chunk : chunks) {
+                pendingChunks.add(parsers.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        parseChunk(file, chunk[0], chunk[1], baseURI, format, chunkParserConfig, valueFactory, sink);
+                        return null;
+                    }
+                }));
+            }
+        } finally {
+            parsers.shutdown();
+        }
+
+        // Wait for all parts even on error so that the handler is not used after this method returns
+        Throwable firstException = null;
+        for (Future<Void> pendingChunk : pendingChunks) {
+            try {
+                getUninterruptibly(pendingChunk);
+            } catch (ExecutionException e) {
+                sink.abort();
+                // prefer the original error to errors of parts aborted because of it
+                if (firstException == null || firstException instanceof ParsingAbortedException) {
+                    firstException = e.getCause();
+                }
+            }
+        }
+        if (firstException instanceof IOException) {
+            throw (IOException) firstException;
+        } else if (firstException instanceof RDFParseException) {
+            throw (RDFParseException) firstException;
+        } else if (firstException instanceof RDFHandlerException) {
+            throw (RDFHandlerException) firstException;
+        } else if (firstException instanceof RuntimeException) {
+            throw (RuntimeException) firstException;
+        } else if (firstException != null) {
+            throw new RDFHandlerException(firstException);
+        }
+
+        rdfHandler.endRDF();
+    }
+
+    /**
+     * Splits the file into at most {@code threadCount} non-empty byte ranges starting at line boundaries.
+     * @return list of pairs [start offset, end offset (exclusive)]
+     */
+    private List<long[]> splitToChunks(File file) throws IOException {
+        long fileLength = file.length();
+        long chunkCount = Math.max(1, Math.min(threadCount, fileLength / minChunkSize));
+        List<long[]> chunks = new ArrayList<>((int) chunkCount);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            long chunkStart = 0;
+            for (long i = 1; i <= chunkCount && chunkStart < fileLength; i++) {
+                long chunkEnd = i == chunkCount
+                        ? fileLength
+                        : findLineStart(randomAccessFile, Math.max(chunkStart, fileLength / chunkCount * i), fileLength);
+                if (chunkEnd > chunkStart) {
+                    chunks.add(new long[] {chunkStart, chunkEnd});
+                }
+                chunkStart = chunkEnd;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns offset of the first line starting at or after the given offset.
+     * A line feed cannot occur inside an N-Quads or N-Triples statement, only as its terminator.
+     */
+    private static long findLineStart(RandomAccessFile file, long offset, long fileLength) throws IOException {
+        if (offset == 0) {
+            return 0;
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long position = offset - 1;
+        while (position < fileLength) {
+            file.seek(position);
+            int read = file.read(buffer);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return fileLength;
+    }
+
+    private static void parseChunk(File file, long start, long end, String baseURI, RDFFormat format,
+            ParserConfig chunkParserConfig, ScopedBNodeValueFactory valueFactory, SynchronizedStatementSink sink)
+            throws IOException, RDFParseException, RDFHandlerException {
+        RDFParser parser = Rio.createParser(format, valueFactory);
+        parser.setParserConfig(chunkParserConfig);
+        parser.setRDFHandler(new ChunkHandler(sink));
+        try (FileInputStream fileInputStream = new FileInputStream(file)) {
+            fileInputStream.getChannel().position(start);
+            InputStream inputStream = ByteStreams.limit(new BufferedInputStream(fileInputStream, BUFFER_SIZE), end - start);
+            parser.parse(inputStream, baseURI);
+        } catch (RDFParseException e) {
+            throw new RDFParseException("Error parsing part of file starting at byte " + start + ": " + e.getMessage(),
+                    e.getLineNumber(), e.getColumnNumber());
+        }
+    }
+
+    /**
+     * Creates a copy of parser configuration which preserves blank node identifiers so that they can be
+     * scoped to the whole file by {@link ScopedBNodeValueFactory} rather than to a single part.
+     */
+    private ParserConfig createChunkParserConfig(RDFFormat format, ScopedBNodeValueFactory valueFactory) {
+        ParserConfig result = new ParserConfig();
+        for (RioSetting<?> setting : Rio.createParser(format, valueFactory).getSupportedSettings()) {
+            copySetting(setting, parserConfig, result);
+        }
+        result.setNonFatalErrors(parserConfig.getNonFatalErrors());
+        result.set(BasicParserSettings.PRESERVE_BNODE_IDS, true);
+        return result;
+    }
+
+    private static <T> void copySetting(RioSetting<T> setting, ParserConfig source, ParserConfig target) {
+        if (source.isSet(setting)) {
+            target.set(setting, source.get(setting));
+        }
+    }
+
+    /**
+     * Value factory creating blank nodes for identifiers from the parsed file.
+     * Unless the original identifiers should be preserved, they are prefixed by a prefix unique for each instance
+     * so that blank nodes from different files do not clash.
+     */
+    private static class ScopedBNodeValueFactory extends ValueFactoryImpl {
+        private final String bNodePrefix;
+
+        ScopedBNodeValueFactory(boolean isScoped) {
+            this.bNodePrefix = isScoped ? ValueFactoryImpl.getInstance().createBNode().getID() + "x" : "";
+        }
+
+        @Override
+        public BNode createBNode(String nodeID) {
+            return super.createBNode(bNodePrefix + nodeID);
+        }
+    }
+
+    /**
+     * Passes batches of statements to the wrapped handler under a lock.
+     */
+    private static class SynchronizedStatementSink {
+        private final RDFHandler rdfHandler;
+        private final AtomicBoolean aborted = new AtomicBoolean(false);
+
+        SynchronizedStatementSink(RDFHandler rdfHandler) {
+            this.rdfHandler = rdfHandler;
+        }
+
+        public void abort() {
+            aborted.set(true);
+        }
+
+        public void handleStatements(List<Statement> statements) throws RDFHandlerException {
+            if (aborted.get()) {
+                throw new ParsingAbortedException();
+            }
+            try {
+                synchronized (this) {
+                    for (Statement statement : statements) {
+                        rdfHandler.handleStatement(statement);
+                    }
+                }
+            } catch (RDFHandlerException | RuntimeException e) {
+                aborted.set(true);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Signals that parsing of a part of the file was aborted because of an error in another part.
+     */
+    private static class ParsingAbortedException extends RDFHandlerException {
+        private static final long serialVersionUID = 7230811286417915406L;
+
+        ParsingAbortedException() {
+            super("Parsing aborted because of an error in another part of the file");
+        }
+    }
+
+    /**
+     * Handler collecting statements parsed from one part of the file to batches.
+     */
+    private static class ChunkHandler extends RDFHandlerBase {
+        private final SynchronizedStatementSink sink;
+        private final List<Statement> batch = new ArrayList<>(STATEMENT_BATCH_SIZE);
+
+        ChunkHandler(SynchronizedStatementSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void handleStatement(Statement statement) throws RDFHandlerException {
+            batch.add(statement);
+            if (batch.size() >= STATEMENT_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public void endRDF() throws RDFHandlerException {
+            flush();
+        }
+
+        private void flush() throws RDFHandlerException {
+            sink.handleStatements(batch);
+            batch.clear();
+        }
+    }
+}
@@ -1,20 +1,32 @@
 package cz.cuni.mff.odcleanstore.fusiontool.io;
 
+import cz.cuni.mff.odcleanstore.fusiontool.config.LDFTConfigConstants;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.BinaryRecordReader;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.BinaryRecordWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.BlockIndexingRecordWriter;
 import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.ExternalSort;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.MergedRecordIterator;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.SparseBlockIndex;
 import cz.cuni.mff.odcleanstore.fusiontool.util.LDFusionToolUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
- * TODO
+ * Sorts binary records (as written by {@link BinaryRecordWriter}) using external sort.
  */
 public class ExternalSorter {
     private static final Logger LOG = LoggerFactory.getLogger(ExternalSorter.class);
@@ -26,40 +38,210 @@ public class ExternalSorter {
      */
     private static final int MAX_SORT_TMP_FILES = 2048;
 
-    private static final Charset CHARSET = Charset.defaultCharset();
+    /**
+     * Default maximum number of sorted temporary files merged at once.
+     */
+    public static final int DEFAULT_MAX_MERGE_FAN_IN = 64;
 
-    private final Comparator<String> lineComparator;
-    private final File cacheDirectory;
-    private final boolean useGZip;
+    private final Comparator<byte[]> recordComparator;
+    private final TempDirectories tempDirectories;
+    private final TempFileCodec tempFileCodec;
     private final long maxMemoryLimit;
+    private final int sortThreadCount;
+    private final int maxMergeFanIn;
+
+    public ExternalSorter(Comparator<byte[]> recordComparator, File cacheDirectory, TempFileCodec tempFileCodec, long maxMemoryLimit) {
+        this(recordComparator, cacheDirectory, tempFileCodec, maxMemoryLimit, LDFTConfigConstants.DEFAULT_SORT_THREAD_COUNT);
+    }
+
+    /**
+     * @param recordComparator comparator of sorted records
+     * @param cacheDirectory directory for temporary files
+     * @param tempFileCodec codec used to encode (compress) temporary files
+     * @param maxMemoryLimit maximum memory amount to use for sorted blocks held in memory
+     * @param sortThreadCount number of threads sorting blocks of input in parallel with reading;
+     *      1 means sequential processing in the calling thread
+     */
+    public ExternalSorter(Comparator<byte[]> recordComparator, File cacheDirectory, TempFileCodec tempFileCodec, long maxMemoryLimit,
+            int sortThreadCount) {
+        this(recordComparator, cacheDirectory, tempFileCodec, maxMemoryLimit, sortThreadCount, DEFAULT_MAX_MERGE_FAN_IN);
+    }
+
+    /**
+     * @param recordComparator comparator of sorted records
+     * @param cacheDirectory directory for temporary files
+     * @param tempFileCodec codec used to encode (compress) temporary files
+     * @param maxMemoryLimit maximum memory amount to use for sorted blocks held in memory
+     * @param sortThreadCount number of threads sorting blocks of input in parallel with reading
+     *      and merging groups of temporary files in parallel; 1 means sequential processing in the calling thread
+     * @param maxMergeFanIn maximum number of sorted temporary files merged (and open) at once;
+     *      if there are more temporary files, they are merged in multiple passes
+     */
+    public ExternalSorter(Comparator<byte[]> recordComparator, File cacheDirectory, TempFileCodec tempFileCodec, long maxMemoryLimit,
+            int sortThreadCount, int maxMergeFanIn) {
+        this(recordComparator, new TempDirectories(cacheDirectory), tempFileCodec, maxMemoryLimit, sortThreadCount, maxMergeFanIn);
+    }
 
-    public ExternalSorter(Comparator<String> lineComparator, File cacheDirectory, boolean useGZip, long maxMemoryLimit) {
-        this.lineComparator = lineComparator;
-        this.cacheDirectory = cacheDirectory;
-        this.useGZip = useGZip;
+    /**
+     * @param recordComparator comparator of sorted records
+     * @param tempDirectories directories for temporary files; sorted blocks are spread across them
+     * @param tempFileCodec codec used to encode (compress) temporary files
+     * @param maxMemoryLimit maximum memory amount to use for sorted blocks held in memory
+     * @param sortThreadCount number of threads sorting blocks of input in parallel with reading
+     *      and merging groups of temporary files in parallel; 1 means sequential processing in the calling thread
+     * @param maxMergeFanIn maximum number of sorted temporary files merged (and open) at once;
+     *      if there are more temporary files, they are merged in multiple passes
+     */
+    public ExternalSorter(Comparator<byte[]> recordComparator, TempDirectories tempDirectories, TempFileCodec tempFileCodec,
+            long maxMemoryLimit, int sortThreadCount, int maxMergeFanIn) {
+        checkArgument(maxMergeFanIn >= 2, "Maximum merge fan-in must be at least 2");
+        this.recordComparator = recordComparator;
+        this.tempDirectories = checkNotNull(tempDirectories);
+        this.tempFileCodec = checkNotNull(tempFileCodec);
         this.maxMemoryLimit = maxMemoryLimit;
+        this.sortThreadCount = Math.max(1, sortThreadCount);
+        this.maxMergeFanIn = maxMergeFanIn;
     }
 
-    public void sort(BufferedReader inputReader, long inputSize, BufferedWriter outputWriter) throws IOException {
-        LOG.debug("Sorting file of size {} MB",
-                String.format("%,.2f", inputSize / (double) LDFusionToolUtils.MB_BYTES));
-        List<File> sortFiles = ExternalSort.sortInBatch(
-                inputReader,
-                inputSize,
-                lineComparator,
-                MAX_SORT_TMP_FILES,
-                maxMemoryLimit,
-                CHARSET,
-                cacheDirectory,
-                true,
-                0,
-                useGZip);
+    /**
+     * Sorts records from {@code inputStream} and writes them to {@code outputStream}; duplicate records are removed.
+     * Both streams are closed when sorting is finished.
+     * @param inputStream stream with records written by {@link BinaryRecordWriter}
+     * @param inputSize (estimated) size of the input in bytes
+     * @param outputStream stream where sorted records are written
+     * @throws IOException I/O error
+     */
+    public void sort(InputStream inputStream, long inputSize, OutputStream outputStream) throws IOException {
+        sort(Collections.singletonList(inputStream), inputSize, outputStream);
+    }
+
+    /**
+     * Sorts records from all {@code inputStreams} together and writes them to {@code outputStream};
+     * duplicate records are removed.
+     * Each input is split to sorted blocks separately and blocks from all inputs are then merged in a single merge.
+     * All streams are closed when sorting is finished.
+     * @param inputStreams streams with records written by {@link BinaryRecordWriter}
+     * @param inputSize (estimated) total size of the inputs in bytes
+     * @param outputStream stream where sorted records are written
+     * @throws IOException I/O error
+     */
+    public void sort(List<InputStream> inputStreams, long inputSize, OutputStream outputStream) throws IOException {
+        sort(inputStreams, inputSize, new BinaryRecordWriter(outputStream));
+    }
+
+    /**
+     * Sorts records from all {@code inputStreams} together and writes them to {@code outputFile} encoded
+     * in independent blocks; a {@link SparseBlockIndex} of the blocks is written next to the output file.
+     * Duplicate records are removed and all streams are closed when sorting is finished.
+     * @param inputStreams streams with records written by {@link BinaryRecordWriter}
+     * @param inputSize (estimated) total size of the inputs in bytes
+     * @param outputFile file where sorted records are written by {@link BlockIndexingRecordWriter}
+     * @throws IOException I/O error
+     * @see SparseBlockIndex#getIndexFile(File)
+     */
+    public void sortToIndexedFile(List<InputStream> inputStreams, long inputSize, File outputFile) throws IOException {
+        BlockIndexingRecordWriter output;
+        try {
+            output = new BlockIndexingRecordWriter(outputFile, tempFileCodec, BlockIndexingRecordWriter.DEFAULT_BLOCK_SIZE);
+        } catch (IOException | RuntimeException e) {
+            for (InputStream inputStream : inputStreams) {
+                closeQuietly(inputStream);
+            }
+            throw e;
+        }
+        sort(inputStreams, inputSize, output);
+    }
+
+    /**
+     * Sorts records from all {@code inputStreams} together and returns an iterator performing
+     * the final merge of sorted blocks lazily, so that the sorted records are never written to a file.
+     * Duplicate records are removed and all input streams are closed when the iterator is returned.
+     * The returned iterator must be closed in order to release the temporary files.
+     * @param inputStreams streams with records written by {@link BinaryRecordWriter}
+     * @param inputSize (estimated) total size of the inputs in bytes
+     * @return iterator over sorted records
+     * @throws IOException I/O error
+     */
+    public MergedRecordIterator sortToIterator(List<InputStream> inputStreams, long inputSize) throws IOException {
+        List<File> sortFiles = sortInBatch(inputStreams, inputSize);
+        LOG.debug("Merging sorted data from {} blocks on the fly", sortFiles.size());
+        try {
+            return ExternalSort.openMergedFiles(sortFiles,
+                    recordComparator,
+                    true, // distinct
+                    tempFileCodec,
+                    maxMergeFanIn,
+                    sortThreadCount,
+                    tempDirectories);
+        } catch (IOException | RuntimeException | Error e) {
+            for (File sortFile : sortFiles) {
+                sortFile.delete();
+            }
+            throw e;
+        }
+    }
+
+    private void sort(List<InputStream> inputStreams, long inputSize, BinaryRecordWriter output) throws IOException {
+        List<File> sortFiles;
+        try {
+            sortFiles = sortInBatch(inputStreams, inputSize);
+        } catch (IOException | RuntimeException | Error e) {
+            closeQuietly(output);
+            throw e;
+        }
         LOG.debug("Merging sorted data from {} blocks", sortFiles.size());
         ExternalSort.mergeSortedFiles(sortFiles,
-                outputWriter,
-                lineComparator,
-                Charset.defaultCharset(),
+                output,
+                recordComparator,
                 true, // distinct
-                useGZip);
+                tempFileCodec,
+                maxMergeFanIn,
+                sortThreadCount,
+                tempDirectories);
+    }
+
+    private List<File> sortInBatch(List<InputStream> inputStreams, long inputSize) throws IOException {
+        LOG.debug("Sorting {} file(s) of total size {} MB", inputStreams.size(),
+                String.format("%,.2f", inputSize / (double) LDFusionToolUtils.MB_BYTES));
+        List<File> sortFiles = new ArrayList<>();
+        try {
+            for (InputStream inputStream : inputStreams) {
+                sortFiles.addAll(ExternalSort.sortInBatch(
+                        new BinaryRecordReader(inputStream),
+                        inputSize,
+                        recordComparator,
+                        MAX_SORT_TMP_FILES,
+                        maxMemoryLimit,
+                        tempDirectories,
+                        true,
+                        tempFileCodec,
+                        sortThreadCount));
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            for (InputStream inputStream : inputStreams) {
+                closeQuietly(inputStream);
+            }
+            for (File sortFile : sortFiles) {
+                sortFile.delete();
+            }
+            throw e;
+        }
+        return sortFiles;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static void closeQuietly(BinaryRecordWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // ignore
+        }
     }
 }
@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import cz.cuni.mff.odcleanstore.core.ODCSUtils;
 import cz.cuni.mff.odcleanstore.fusiontool.config.ConfigParameters;
 import cz.cuni.mff.odcleanstore.fusiontool.config.EnumDataSourceType;
+import cz.cuni.mff.odcleanstore.fusiontool.config.LDFTConfigConstants;
 import cz.cuni.mff.odcleanstore.fusiontool.config.SourceConfig;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolApplicationException;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolErrorCodes;
@@ -32,8 +33,18 @@ public class RdfFileLoader {
     private final SourceConfig dataSourceConfig;
     private final ParserConfig parserConfig;
     private final OutputParamReader paramReader;
+    private final int parserThreadCount;
 
     public RdfFileLoader(SourceConfig sourceConfig, ParserConfig parserConfig) {
+        this(sourceConfig, parserConfig, LDFTConfigConstants.DEFAULT_PARSER_THREAD_COUNT);
+    }
+
+    /**
+     * @param sourceConfig configuration of the file source
+     * @param parserConfig configuration of the RDF parser
+     * @param parserThreadCount number of threads parsing a single file in a line-based format in parallel
+     */
+    public RdfFileLoader(SourceConfig sourceConfig, ParserConfig parserConfig, int parserThreadCount) {
         Preconditions.checkNotNull(sourceConfig);
         Preconditions.checkNotNull(parserConfig);
         this.dataSourceConfig = sourceConfig;
@@ -41,7 +52,9 @@ public class RdfFileLoader {
         if (sourceConfig.getType() != EnumDataSourceType.FILE) {
             throw new IllegalArgumentException("The given data source must be of type FILE, " + sourceConfig.getType() + " given");
         }
+        Preconditions.checkArgument(parserThreadCount > 0);
         this.parserConfig = parserConfig;
+        this.parserThreadCount = parserThreadCount;
     }
 
     public void read(RDFHandler rdfHandler) throws LDFusionToolException, RDFHandlerException {
@@ -72,7 +85,16 @@ public class RdfFileLoader {
                     "Unknown serialization format " + format + " for input file " + label);
         }
 
-        RDFLoader loader = new RDFLoader(parserConfig, VF);
-        loader.load(file, baseURI, sesameFormat, rdfHandler);
+        if (parserThreadCount > 1
+                && file.length() >= 2 * LDFTConfigConstants.MIN_PARALLEL_PARSE_CHUNK_SIZE
+                && ChunkedRdfFileParser.isSplittable(file, sesameFormat)) {
+            LOG.debug("Parsing {} using {} threads", label, parserThreadCount);
+            ChunkedRdfFileParser parser = new ChunkedRdfFileParser(
+                    parserConfig, parserThreadCount, LDFTConfigConstants.MIN_PARALLEL_PARSE_CHUNK_SIZE);
+            parser.parse(file, baseURI, sesameFormat, rdfHandler);
+        } else {
+            RDFLoader loader = new RDFLoader(parserConfig, VF);
+            loader.load(file, baseURI, sesameFormat, rdfHandler);
+        }
     }
 }
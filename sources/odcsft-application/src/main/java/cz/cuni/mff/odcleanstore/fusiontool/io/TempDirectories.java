@@ -0,0 +1,125 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io;
+
+import com.google.common.collect.ImmutableList;
+import cz.cuni.mff.odcleanstore.fusiontool.util.LDFusionToolUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Set of directories for temporary files.
+ * Temporary files are spread across the directories in round-robin fashion so that reading and writing
+ * of temporary files is spread across all disks the directories reside on.
+ * This class is thread-safe.
+ */
+public class TempDirectories {
+    private final List<File> directories;
+    private final AtomicInteger nextDirectoryIndex = new AtomicInteger();
+
+    /**
+     * Creates a new instance with a single directory.
+     * @param directory directory for temporary files
+     */
+    public TempDirectories(File directory) {
+        this(ImmutableList.of(directory));
+    }
+
+    /**
+     * @param directories directories for temporary files
+     */
+    public TempDirectories(Collection<File> directories) {
+        checkArgument(!directories.isEmpty(), "At least one directory for temporary files is required");
+        this.directories = ImmutableList.copyOf(directories);
+    }
+
+    /**
+     * Returns the directories for temporary files.
+     * @return list of directories
+     */
+    public List<File> getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Returns the next directory in round-robin order.
+     * @return directory for a new temporary file
+     */
+    public File nextDirectory() {
+        int index = nextDirectoryIndex.getAndIncrement() & Integer.MAX_VALUE;
+        return directories.get(index % directories.size());
+    }
+
+    /**
+     * Returns the directory with the most usable space.
+     * Suitable for a single large temporary file whose size is not known in advance.
+     * @return directory for a new temporary file
+     */
+    public File getDirectoryWithMostSpace() {
+        File result = directories.get(0);
+        long resultSpace = getUsableSpace(result);
+        for (int i = 1; i < directories.size(); i++) {
+            long space = getUsableSpace(directories.get(i));
+            if (space > resultSpace) {
+                result = directories.get(i);
+                resultSpace = space;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new temporary file in the next directory in round-robin order.
+     * @param filePrefix prefix of the temporary file name
+     * @return the created file
+     * @throws IOException error creating the file
+     */
+    public File createTempFile(String filePrefix) throws IOException {
+        return LDFusionToolUtils.createTempFile(nextDirectory(), filePrefix);
+    }
+
+    /**
+     * Returns the total usable space in all directories.
+     * Space of directories residing on the same file store is counted only once.
+     * @return usable space in bytes
+     * @throws IOException error reading file store attributes
+     */
+    public long getTotalUsableSpace() throws IOException {
+        Map<FileStore, Long> fileStores = new HashMap<>();
+        for (File directory : directories) {
+            FileStore fileStore = Files.getFileStore(getExistingAncestor(directory).toPath());
+            fileStores.put(fileStore, fileStore.getUsableSpace());
+        }
+        long result = 0;
+        for (Long space : fileStores.values()) {
+            result += space;
+        }
+        return result;
+    }
+
+    private static long getUsableSpace(File directory) {
+        return getExistingAncestor(directory).getUsableSpace();
+    }
+
+    private static File getExistingAncestor(File directory) {
+        // the directory itself may not have been created yet
+        File result = directory.getAbsoluteFile();
+        while (!result.exists() && result.getParentFile() != null) {
+            result = result.getParentFile();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return directories.toString();
+    }
+}
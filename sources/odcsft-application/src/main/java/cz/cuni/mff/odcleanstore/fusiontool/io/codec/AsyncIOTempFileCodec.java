@@ -0,0 +1,94 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Temporary file codec decorating another codec with asynchronous I/O.
+ * Input streams read and decode the next block ahead by a background thread ({@link ReadAheadInputStream}),
+ * output streams encode and write the previous block by a background thread ({@link WriteBehindOutputStream}),
+ * so that decompression and disk waits overlap with processing of data in the calling thread.
+ * Background tasks of all streams share a pool of I/O threads; idle threads are terminated so that the codec
+ * needs not be closed.
+ */
+public class AsyncIOTempFileCodec implements TempFileCodec {
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10;
+
+    private final TempFileCodec codec;
+    private final int threadCount;
+    private final int bufferSize;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param codec decorated codec
+     * @param threadCount number of I/O threads shared by all streams
+     * @param bufferSize size of blocks read ahead or written behind in bytes; each stream holds two blocks
+     */
+    public AsyncIOTempFileCodec(TempFileCodec codec, int threadCount, int bufferSize) {
+        checkNotNull(codec);
+        checkArgument(threadCount > 0, "Number of I/O threads must be positive");
+        checkArgument(bufferSize > 0, "Buffer size must be positive");
+        this.codec = codec;
+        this.threadCount = threadCount;
+        this.bufferSize = bufferSize;
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("temp-file-io-%d")
+                        .setDaemon(true)
+                        .build());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public OutputStream createOutputStream(OutputStream outputStream) throws IOException {
+        return new WriteBehindOutputStream(codec.createOutputStream(outputStream), bufferSize, executor);
+    }
+
+    @Override
+    public InputStream createInputStream(InputStream inputStream) throws IOException {
+        return new ReadAheadInputStream(codec.createInputStream(inputStream), bufferSize, executor);
+    }
+
+    /**
+     * Returns the decorated codec; files are encoded by the decorated codec only.
+     * @return decorated codec
+     */
+    public TempFileCodec getDecoratedCodec() {
+        return codec;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s with asynchronous I/O (%d threads, buffer size %d)", codec, threadCount, bufferSize);
+    }
+
+    /**
+     * Converts failure of a background I/O task to an exception thrown in the calling thread.
+     * @param e exception thrown by the task
+     * @return exception to be thrown
+     */
+    static IOException toIOException(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            return new IOException(cause);
+        }
+    }
+}
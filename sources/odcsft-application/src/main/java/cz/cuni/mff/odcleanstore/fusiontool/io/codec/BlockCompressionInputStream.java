@@ -0,0 +1,141 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream decompressing data written by {@link BlockCompressionOutputStream}.
+ * Buffers are allocated lazily according to the size of the largest block read.
+ */
+public class BlockCompressionInputStream extends FilterInputStream {
+    private static final int EMPTY_LENGTH = -1;
+    private static final byte[] EMPTY_BUFFER = new byte[0];
+
+    private byte[] buffer = EMPTY_BUFFER;
+    private byte[] compressedBuffer = EMPTY_BUFFER;
+    private int position = 0;
+    private int limit = 0;
+    private boolean eof = false;
+
+    /**
+     * @param in underlying input stream
+     */
+    public BlockCompressionInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !readBlock()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit && !readBlock()) {
+            return -1;
+        }
+        int chunk = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, chunk);
+        position += chunk;
+        return chunk;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0 || (position == limit && !readBlock())) {
+            return 0;
+        }
+        int chunk = (int) Math.min(n, limit - position);
+        position += chunk;
+        return chunk;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private boolean readBlock() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int rawLength = readVarInt(true);
+        if (rawLength == EMPTY_LENGTH) {
+            eof = true;
+            return false;
+        }
+        int storedLength = readVarInt(false);
+        if (rawLength <= 0 || rawLength > LzBlockCompressor.MAX_BLOCK_SIZE
+                || storedLength <= 0 || storedLength > rawLength) {
+            throw new IOException("Corrupted compressed block header in temporary file");
+        }
+
+        if (buffer.length < rawLength) {
+            buffer = new byte[rawLength];
+        }
+        if (storedLength == rawLength) {
+            readFully(buffer, storedLength);
+        } else {
+            if (compressedBuffer.length < storedLength) {
+                compressedBuffer = new byte[LzBlockCompressor.maxCompressedLength(rawLength)];
+            }
+            readFully(compressedBuffer, storedLength);
+            LzBlockCompressor.decompress(compressedBuffer, storedLength, buffer, rawLength);
+        }
+        position = 0;
+        limit = rawLength;
+        return true;
+    }
+
+    private int readVarInt(boolean allowEof) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (allowEof && shift == 0) {
+                    return EMPTY_LENGTH;
+                }
+                throw new EOFException("Unexpected end of compressed temporary file");
+            }
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Corrupted compressed block header in temporary file");
+    }
+
+    private void readFully(byte[] dst, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int read = in.read(dst, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of compressed temporary file");
+            }
+            offset += read;
+        }
+    }
+}
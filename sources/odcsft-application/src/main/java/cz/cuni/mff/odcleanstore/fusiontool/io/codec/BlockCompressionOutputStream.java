@@ -0,0 +1,96 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream compressing data in independent blocks using {@link LzBlockCompressor}.
+ * Each block is written as a varint-encoded uncompressed length, a varint-encoded stored length and the stored data;
+ * blocks which would not get smaller by compression are stored uncompressed (stored length equals uncompressed length).
+ * @see BlockCompressionInputStream
+ */
+public class BlockCompressionOutputStream extends FilterOutputStream {
+    private static final int MAX_HEADER_SIZE = 10;
+
+    private final LzBlockCompressor compressor = new LzBlockCompressor();
+    private final byte[] buffer;
+    private final byte[] compressedBuffer;
+    private final byte[] headerBuffer = new byte[MAX_HEADER_SIZE];
+    private int count = 0;
+    private boolean closed = false;
+
+    /**
+     * @param out underlying output stream
+     * @param blockSize size of uncompressed blocks in bytes
+     */
+    public BlockCompressionOutputStream(OutputStream out, int blockSize) {
+        super(out);
+        this.buffer = new byte[blockSize];
+        this.compressedBuffer = new byte[LzBlockCompressor.maxCompressedLength(blockSize)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            writeBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buffer.length) {
+                writeBlock();
+            }
+            int chunk = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, chunk);
+            count += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlock();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int compressedLength = compressor.compress(buffer, count, compressedBuffer);
+        boolean compressed = compressedLength < count;
+        int storedLength = compressed ? compressedLength : count;
+        int headerLength = writeVarInt(count, headerBuffer, 0);
+        headerLength = writeVarInt(storedLength, headerBuffer, headerLength);
+        out.write(headerBuffer, 0, headerLength);
+        out.write(compressed ? compressedBuffer : buffer, 0, storedLength);
+        count = 0;
+    }
+
+    private static int writeVarInt(int value, byte[] dst, int position) {
+        while ((value & ~0x7F) != 0) {
+            dst[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dst[position++] = (byte) value;
+        return position;
+    }
+}
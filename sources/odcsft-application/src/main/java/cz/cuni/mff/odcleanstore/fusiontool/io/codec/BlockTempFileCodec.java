@@ -0,0 +1,44 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Temporary file codec compressing data in large independent blocks with a fast LZ77-style compression
+ * (see {@link LzBlockCompressor}).
+ * The compression ratio is lower than with GZIP but compression and decompression need much less CPU time.
+ */
+public class BlockTempFileCodec implements TempFileCodec {
+    /** Default size of uncompressed blocks in bytes. */
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    /** Maximum size of uncompressed blocks in bytes. */
+    public static final int MAX_BLOCK_SIZE = LzBlockCompressor.MAX_BLOCK_SIZE;
+
+    private final int blockSize;
+
+    /**
+     * @param blockSize size of uncompressed blocks in bytes (and of the buffers used for compression)
+     */
+    public BlockTempFileCodec(int blockSize) {
+        checkArgument(blockSize > 0 && blockSize <= MAX_BLOCK_SIZE, "Block size must be between 1 and %s", MAX_BLOCK_SIZE);
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public OutputStream createOutputStream(OutputStream outputStream) {
+        return new BlockCompressionOutputStream(outputStream, blockSize);
+    }
+
+    @Override
+    public InputStream createInputStream(InputStream inputStream) {
+        return new BlockCompressionInputStream(inputStream);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("block (block size %d)", blockSize);
+    }
+}
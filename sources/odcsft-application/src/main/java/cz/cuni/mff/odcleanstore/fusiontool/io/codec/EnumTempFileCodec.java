@@ -0,0 +1,60 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+/**
+ * Type of encoding of temporary files.
+ */
+public enum EnumTempFileCodec {
+    /**
+     * No compression.
+     */
+    NONE {
+        @Override
+        public TempFileCodec createCodec(int compressionLevel, Integer bufferSize) {
+            return new NoCompressionTempFileCodec();
+        }
+    },
+
+    /**
+     * GZIP compression with the given compression level and buffer size.
+     */
+    GZIP {
+        @Override
+        public TempFileCodec createCodec(int compressionLevel, Integer bufferSize) {
+            return new GzipTempFileCodec(
+                    bufferSize != null ? bufferSize : GzipTempFileCodec.DEFAULT_BUFFER_SIZE,
+                    compressionLevel);
+        }
+    },
+
+    /**
+     * Fast block compression; buffer size is the block size, compression level is ignored.
+     */
+    BLOCK {
+        @Override
+        public TempFileCodec createCodec(int compressionLevel, Integer bufferSize) {
+            return new BlockTempFileCodec(bufferSize != null ? bufferSize : BlockTempFileCodec.DEFAULT_BLOCK_SIZE);
+        }
+    };
+
+    /**
+     * Creates a codec of this type.
+     * @param compressionLevel compression level (if applicable)
+     * @param bufferSize size of buffers in bytes or null for the default size of the codec
+     * @return new codec
+     */
+    public abstract TempFileCodec createCodec(int compressionLevel, Integer bufferSize);
+
+    /**
+     * Converts string to an enum value.
+     * This method is case insensitive.
+     * @param str string to convert
+     * @return converted value or null
+     */
+    public static EnumTempFileCodec parseCodec(String str) {
+        try {
+            return valueOf(str.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
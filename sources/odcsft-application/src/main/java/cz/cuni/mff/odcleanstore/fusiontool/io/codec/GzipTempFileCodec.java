@@ -0,0 +1,53 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Temporary file codec using GZIP compression.
+ */
+public class GzipTempFileCodec implements TempFileCodec {
+    /** Default size of GZIP buffers in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 2048;
+
+    private final int bufferSize;
+    private final int compressionLevel;
+
+    /**
+     * @param bufferSize size of GZIP buffers in bytes
+     * @param compressionLevel compression level between {@link Deflater#NO_COMPRESSION}
+     *      and {@link Deflater#BEST_COMPRESSION}
+     */
+    public GzipTempFileCodec(int bufferSize, int compressionLevel) {
+        checkArgument(bufferSize > 0, "Buffer size must be positive");
+        checkArgument(compressionLevel >= Deflater.NO_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION,
+                "Invalid compression level %s", compressionLevel);
+        this.bufferSize = bufferSize;
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public OutputStream createOutputStream(OutputStream outputStream) throws IOException {
+        return new GZIPOutputStream(outputStream, bufferSize) {
+            {
+                this.def.setLevel(compressionLevel);
+            }
+        };
+    }
+
+    @Override
+    public InputStream createInputStream(InputStream inputStream) throws IOException {
+        return new GZIPInputStream(inputStream, bufferSize);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("gzip (level %d, buffer size %d)", compressionLevel, bufferSize);
+    }
+}
@@ -0,0 +1,193 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fast LZ77-style compression of a single block of data in the spirit of LZ4.
+ * The compressed block is a sequence of (literals, match) pairs. Each pair starts with a token byte
+ * whose upper four bits hold the number of literals and lower four bits the match length minus {@value #MIN_MATCH};
+ * value 15 in either half means that the length continues in following bytes (each adding up to 255).
+ * Literals are followed by a two-byte little-endian backward offset of the match and by the match length continuation.
+ * The last pair contains only literals.
+ * <p>
+ * Instances are not thread-safe; they reuse the hash table between calls.
+ */
+final class LzBlockCompressor {
+    /** Maximum supported size of an uncompressed block. */
+    public static final int MAX_BLOCK_SIZE = 1 << 24;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_LOG = 14;
+    private static final int SKIP_STRENGTH = 6;
+    private static final int RUN_MASK = 0x0F;
+    private static final int NO_POSITION = -1;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    /**
+     * Returns the maximum size of compressed data for the given uncompressed size.
+     * @param length size of uncompressed data
+     * @return size of buffer sufficient for compressed data
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses data.
+     * @param src uncompressed data
+     * @param srcLength length of uncompressed data
+     * @param dst output buffer of size at least {@link #maxCompressedLength(int) maxCompressedLength(srcLength)}
+     * @return length of compressed data written to {@code dst}
+     */
+    public int compress(byte[] src, int srcLength, byte[] dst) {
+        Arrays.fill(hashTable, NO_POSITION);
+        int anchor = 0;
+        int op = 0;
+        int ip = 0;
+        int matchLimit = srcLength - LAST_LITERALS;
+        int searchLimit = matchLimit - MIN_MATCH;
+        while (ip < searchLimit) {
+            int sequence = readInt(src, ip);
+            int hash = hash(sequence);
+            int ref = hashTable[hash];
+            hashTable[hash] = ip;
+            if (ref == NO_POSITION || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                ip += 1 + ((ip - anchor) >>> SKIP_STRENGTH);
+                continue;
+            }
+
+            while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+                ip--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH;
+            while (ip + matchLength < matchLimit && src[ref + matchLength] == src[ip + matchLength]) {
+                matchLength++;
+            }
+
+            op = writeLiterals(src, anchor, ip - anchor, matchLength - MIN_MATCH, dst, op);
+            int offset = ip - ref;
+            dst[op++] = (byte) offset;
+            dst[op++] = (byte) (offset >>> 8);
+            if (matchLength - MIN_MATCH >= RUN_MASK) {
+                op = writeLengthContinuation(matchLength - MIN_MATCH - RUN_MASK, dst, op);
+            }
+            ip += matchLength;
+            anchor = ip;
+        }
+        return writeLiterals(src, anchor, srcLength - anchor, 0, dst, op);
+    }
+
+    /**
+     * Decompresses data compressed by {@link #compress(byte[], int, byte[])}.
+     * @param src compressed data
+     * @param srcLength length of compressed data
+     * @param dst output buffer
+     * @param dstLength expected length of uncompressed data
+     * @throws IOException compressed data are corrupted
+     */
+    public static void decompress(byte[] src, int srcLength, byte[] dst, int dstLength) throws IOException {
+        int ip = 0;
+        int op = 0;
+        while (true) {
+            if (ip >= srcLength) {
+                throw corrupted();
+            }
+            int token = src[ip++] & 0xFF;
+
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    if (ip >= srcLength) {
+                        throw corrupted();
+                    }
+                    b = src[ip++] & 0xFF;
+                    literalLength += b;
+                } while (b == 0xFF);
+            }
+            if (literalLength > srcLength - ip || literalLength > dstLength - op) {
+                throw corrupted();
+            }
+            System.arraycopy(src, ip, dst, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+            if (op == dstLength) {
+                if (ip != srcLength) {
+                    throw corrupted();
+                }
+                return;
+            }
+
+            if (srcLength - ip < 2) {
+                throw corrupted();
+            }
+            int offset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+            ip += 2;
+            if (offset == 0 || offset > op) {
+                throw corrupted();
+            }
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    if (ip >= srcLength) {
+                        throw corrupted();
+                    }
+                    b = src[ip++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > dstLength - op) {
+                throw corrupted();
+            }
+            // byte by byte because the match may overlap with the output being written
+            int ref = op - offset;
+            for (int end = op + matchLength; op < end; op++, ref++) {
+                dst[op] = dst[ref];
+            }
+        }
+    }
+
+    private static int writeLiterals(byte[] src, int start, int length, int matchToken, byte[] dst, int op) {
+        int tokenPosition = op++;
+        int token = Math.min(matchToken, RUN_MASK);
+        if (length >= RUN_MASK) {
+            dst[tokenPosition] = (byte) ((RUN_MASK << 4) | token);
+            op = writeLengthContinuation(length - RUN_MASK, dst, op);
+        } else {
+            dst[tokenPosition] = (byte) ((length << 4) | token);
+        }
+        System.arraycopy(src, start, dst, op, length);
+        return op + length;
+    }
+
+    private static int writeLengthContinuation(int length, byte[] dst, int op) {
+        while (length >= 0xFF) {
+            dst[op++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int readInt(byte[] buffer, int position) {
+        return (buffer[position] & 0xFF)
+                | ((buffer[position + 1] & 0xFF) << 8)
+                | ((buffer[position + 2] & 0xFF) << 16)
+                | ((buffer[position + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static IOException corrupted() {
+        return new IOException("Corrupted compressed block in temporary file");
+    }
+}
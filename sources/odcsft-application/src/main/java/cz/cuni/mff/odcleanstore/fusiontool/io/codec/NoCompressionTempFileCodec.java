@@ -0,0 +1,25 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Temporary file codec storing data as they are.
+ * Readers and writers of temporary files are expected to do their own buffering.
+ */
+public class NoCompressionTempFileCodec implements TempFileCodec {
+    @Override
+    public OutputStream createOutputStream(OutputStream outputStream) {
+        return outputStream;
+    }
+
+    @Override
+    public InputStream createInputStream(InputStream inputStream) {
+        return inputStream;
+    }
+
+    @Override
+    public String toString() {
+        return "none";
+    }
+}
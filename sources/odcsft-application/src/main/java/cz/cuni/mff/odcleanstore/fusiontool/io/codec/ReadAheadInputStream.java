@@ -0,0 +1,139 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+/**
+ * Input stream reading (and decoding) the next block of the underlying stream by a background task
+ * while the caller consumes the current block.
+ * There is at most one pending read of the underlying stream at a time.
+ */
+public class ReadAheadInputStream extends InputStream {
+    private final InputStream inputStream;
+    private final ExecutorService executor;
+    private byte[] buffer;
+    private byte[] spareBuffer;
+    private int position = 0;
+    private int limit = 0;
+    private boolean isEndOfInput = false;
+    private boolean isClosed = false;
+    private Future<Integer> pendingRead;
+
+    /**
+     * @param inputStream underlying input stream; it is closed when this stream is closed
+     * @param bufferSize size of blocks read ahead in bytes
+     * @param executor executor running reads of the underlying stream
+     */
+    public ReadAheadInputStream(InputStream inputStream, int bufferSize, ExecutorService executor) {
+        checkArgument(bufferSize > 0, "Buffer size must be positive");
+        this.inputStream = inputStream;
+        this.executor = executor;
+        this.buffer = new byte[bufferSize];
+        this.spareBuffer = new byte[bufferSize];
+        startReadAhead();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= limit && !fillBuffer()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= limit && !fillBuffer()) {
+            return -1;
+        }
+        int length = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        try {
+            // the underlying stream must not be closed while it is being read by another thread;
+            // the pending read is not cancelled because a running task would not be waited for then
+            if (pendingRead != null) {
+                getUninterruptibly(pendingRead);
+            }
+        } catch (ExecutionException e) {
+            // ignore, the data are not needed anymore
+        } finally {
+            pendingRead = null;
+            inputStream.close();
+        }
+    }
+
+    private void startReadAhead() {
+        final byte[] target = spareBuffer;
+        pendingRead = executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws IOException {
+                int length = 0;
+                while (length < target.length) {
+                    int readCount = inputStream.read(target, length, target.length - length);
+                    if (readCount < 0) {
+                        break;
+                    }
+                    length += readCount;
+                }
+                return length;
+            }
+        });
+    }
+
+    private boolean fillBuffer() throws IOException {
+        if (isClosed) {
+            throw new IOException("Stream closed");
+        }
+        if (isEndOfInput) {
+            return false;
+        }
+        int length = getPendingReadResult();
+        byte[] filledBuffer = spareBuffer;
+        spareBuffer = buffer;
+        buffer = filledBuffer;
+        position = 0;
+        limit = length;
+        if (length < buffer.length) {
+            isEndOfInput = true;
+        } else {
+            startReadAhead();
+        }
+        return length > 0;
+    }
+
+    private int getPendingReadResult() throws IOException {
+        try {
+            return getUninterruptibly(pendingRead);
+        } catch (ExecutionException e) {
+            isEndOfInput = true;
+            throw AsyncIOTempFileCodec.toIOException(e);
+        } finally {
+            pendingRead = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encoding (typically compression) of temporary files.
+ * Implementations must be thread-safe so that the same codec can be used for multiple files at the same time.
+ * @see EnumTempFileCodec
+ */
+public interface TempFileCodec {
+    /**
+     * Wraps a stream writing to a temporary file so that written data are encoded.
+     * Closing the returned stream closes the underlying stream.
+     * @param outputStream underlying output stream
+     * @return encoding output stream
+     * @throws IOException I/O error
+     */
+    OutputStream createOutputStream(OutputStream outputStream) throws IOException;
+
+    /**
+     * Wraps a stream reading from a temporary file written by {@link #createOutputStream(java.io.OutputStream)}
+     * so that read data are decoded.
+     * Closing the returned stream closes the underlying stream.
+     * @param inputStream underlying input stream
+     * @return decoding input stream
+     * @throws IOException I/O error
+     */
+    InputStream createInputStream(InputStream inputStream) throws IOException;
+}
@@ -0,0 +1,135 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+/**
+ * Output stream writing (and encoding) full blocks to the underlying stream by a background task
+ * while the caller fills the next block.
+ * There is at most one pending write to the underlying stream at a time; errors of a background write
+ * are thrown from the following call of a write, {@link #flush()} or {@link #close()}.
+ */
+public class WriteBehindOutputStream extends OutputStream {
+    private final OutputStream outputStream;
+    private final ExecutorService executor;
+    private byte[] buffer;
+    private byte[] spareBuffer;
+    private int count = 0;
+    private boolean isClosed = false;
+    private Future<Void> pendingWrite;
+
+    /**
+     * @param outputStream underlying output stream; it is closed when this stream is closed
+     * @param bufferSize size of blocks written in background in bytes
+     * @param executor executor running writes to the underlying stream
+     */
+    public WriteBehindOutputStream(OutputStream outputStream, int bufferSize, ExecutorService executor) {
+        checkArgument(bufferSize > 0, "Buffer size must be positive");
+        this.outputStream = outputStream;
+        this.executor = executor;
+        this.buffer = new byte[bufferSize];
+        this.spareBuffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkNotClosed();
+        if (count >= buffer.length) {
+            writeBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkNotClosed();
+        while (len > 0) {
+            if (count >= buffer.length) {
+                writeBuffer();
+            }
+            int length = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, length);
+            count += length;
+            off += length;
+            len -= length;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        checkNotClosed();
+        if (count > 0) {
+            writeBuffer();
+        }
+        waitForPendingWrite();
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        try {
+            if (count > 0) {
+                writeBuffer();
+            }
+            waitForPendingWrite();
+        } finally {
+            isClosed = true;
+            // the underlying stream must not be closed while it is being written by another thread
+            if (pendingWrite != null) {
+                try {
+                    getUninterruptibly(pendingWrite);
+                } catch (ExecutionException e) {
+                    // already failing
+                }
+                pendingWrite = null;
+            }
+            outputStream.close();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        waitForPendingWrite();
+        final byte[] data = buffer;
+        final int length = count;
+        pendingWrite = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                outputStream.write(data, 0, length);
+                return null;
+            }
+        });
+        // the spare buffer is not used by any pending write now
+        buffer = spareBuffer;
+        spareBuffer = data;
+        count = 0;
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (isClosed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void waitForPendingWrite() throws IOException {
+        if (pendingWrite == null) {
+            return;
+        }
+        try {
+            getUninterruptibly(pendingWrite);
+        } catch (ExecutionException e) {
+            throw AsyncIOTempFileCodec.toIOException(e);
+        } finally {
+            pendingWrite = null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+import cz.cuni.mff.odcleanstore.fusiontool.util.ThrowingAbstractIterator;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads RDF statements written by {@link BinaryStatementWriter}.
+ */
+public class BinaryStatementReader extends ThrowingAbstractIterator<Statement, IOException> implements Closeable<IOException> {
+    private static final ValueFactory VF = ValueFactoryImpl.getInstance();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataInputStream inputStream;
+
+    /**
+     * @param inputStream underlying input stream; it is buffered by this class
+     */
+    public BinaryStatementReader(InputStream inputStream) {
+        this.inputStream = new DataInputStream(new BufferedInputStream(inputStream, BUFFER_SIZE));
+    }
+
+    @Override
+    protected Statement computeNext() throws IOException {
+        int flag = inputStream.read();
+        if (flag < 0) {
+            return endOfData();
+        } else if (flag != BinaryStatementWriter.NO_CONTEXT && flag != BinaryStatementWriter.HAS_CONTEXT) {
+            throw new IOException("Invalid format of serialized statement, unexpected flag " + flag);
+        }
+        Value subject = ValueSerializer.INSTANCE.deserialize(inputStream, -1);
+        Value predicate = ValueSerializer.INSTANCE.deserialize(inputStream, -1);
+        Value object = ValueSerializer.INSTANCE.deserialize(inputStream, -1);
+        Value context = flag == BinaryStatementWriter.HAS_CONTEXT
+                ? ValueSerializer.INSTANCE.deserialize(inputStream, -1)
+                : null;
+        if (!(subject instanceof Resource) || !(predicate instanceof URI)
+                || (context != null && !(context instanceof Resource))) {
+            throw new IOException("Invalid format of serialized statement " + subject + " " + predicate + " " + object);
+        }
+        return VF.createStatement((Resource) subject, (URI) predicate, object, (Resource) context);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
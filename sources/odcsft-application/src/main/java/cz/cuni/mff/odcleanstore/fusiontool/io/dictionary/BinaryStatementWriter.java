@@ -0,0 +1,51 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes RDF statements to a binary stream so that they can be read back by {@link BinaryStatementReader}.
+ * Each statement is written as a flag indicating whether it has a context followed by its subject, predicate,
+ * object and optionally context serialized by {@link ValueSerializer}.
+ */
+public class BinaryStatementWriter implements Closeable<IOException> {
+    static final int NO_CONTEXT = 0;
+    static final int HAS_CONTEXT = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataOutputStream outputStream;
+
+    /**
+     * @param outputStream underlying output stream; it is buffered by this class
+     */
+    public BinaryStatementWriter(OutputStream outputStream) {
+        this.outputStream = new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+    }
+
+    /**
+     * Writes a single statement.
+     * @param statement statement to write
+     * @throws IOException I/O error
+     */
+    public void write(Statement statement) throws IOException {
+        Resource context = statement.getContext();
+        outputStream.writeByte(context != null ? HAS_CONTEXT : NO_CONTEXT);
+        ValueSerializer.INSTANCE.serialize(outputStream, statement.getSubject());
+        ValueSerializer.INSTANCE.serialize(outputStream, statement.getPredicate());
+        ValueSerializer.INSTANCE.serialize(outputStream, statement.getObject());
+        if (context != null) {
+            ValueSerializer.INSTANCE.serialize(outputStream, context);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        outputStream.close();
+    }
+}
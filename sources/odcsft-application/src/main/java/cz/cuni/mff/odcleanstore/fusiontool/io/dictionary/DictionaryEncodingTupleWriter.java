@@ -0,0 +1,41 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.TupleWriter;
+import org.openrdf.model.Value;
+
+import java.io.IOException;
+
+/**
+ * Writes tuples of RDF values as tuples of their identifiers assigned by a {@link TermDictionary}.
+ * The dictionary is not closed when the writer is closed.
+ */
+public class DictionaryEncodingTupleWriter implements TupleWriter {
+    private final IdTupleSink idTupleSink;
+    private final TermDictionary dictionary;
+
+    /**
+     * @param idTupleSink underlying destination of identifier tuples
+     * @param dictionary dictionary assigning identifiers to values
+     */
+    public DictionaryEncodingTupleWriter(IdTupleSink idTupleSink, TermDictionary dictionary) {
+        this.idTupleSink = idTupleSink;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void writeTuple(Value... values) throws IOException {
+        if (values == null || values.length == 0) {
+            return;
+        }
+        long[] ids = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ids[i] = dictionary.encode(values[i]);
+        }
+        idTupleSink.writeTuple(ids);
+    }
+
+    @Override
+    public void close() throws IOException {
+        idTupleSink.close();
+    }
+}
@@ -0,0 +1,230 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * In-memory buffer of tuples of term identifiers.
+ * All tuples must have the same number of identifiers; they are stored one after another in a single
+ * {@code long} array so that the buffer has minimal memory overhead per tuple.
+ * The buffer can be sorted and iterated over like a sorted temporary file, i.e. as an in-memory replacement
+ * of writing tuples with {@link IdTupleWriter}, sorting them and reading them back with {@link IdTupleReader}.
+ */
+public class IdTupleBuffer implements IdTupleSink {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private static final long[] EMPTY_DATA = new long[0];
+
+    private long[] data = EMPTY_DATA;
+    private int arity = 0;
+    private int length = 0;
+
+    @Override
+    public void writeTuple(long... ids) {
+        if (ids == null || ids.length == 0) {
+            return;
+        }
+        if (arity == 0) {
+            arity = ids.length;
+        }
+        checkArgument(ids.length == arity, "All tuples in buffer must have %s identifiers", arity);
+        ensureCapacity(length + arity);
+        System.arraycopy(ids, 0, data, length, arity);
+        length += arity;
+    }
+
+    /**
+     * Appends all tuples from another buffer.
+     * @param other buffer whose tuples are appended; it must contain tuples of the same length
+     */
+    public void addAll(IdTupleBuffer other) {
+        if (other.length == 0) {
+            return;
+        }
+        if (arity == 0) {
+            arity = other.arity;
+        }
+        checkArgument(other.arity == arity, "All tuples in buffer must have %s identifiers", arity);
+        ensureCapacity(length + other.length);
+        System.arraycopy(other.data, 0, data, length, other.length);
+        length += other.length;
+    }
+
+    /**
+     * Returns the number of tuples in the buffer.
+     * @return number of tuples
+     */
+    public int size() {
+        return arity == 0 ? 0 : length / arity;
+    }
+
+    /**
+     * Returns an estimate of memory occupied by the buffer.
+     * @return estimated size of the buffer in bytes
+     */
+    public long getMemorySize() {
+        return (long) data.length * IdTupleFormat.ID_SIZE;
+    }
+
+    /**
+     * Sorts tuples in the buffer lexicographically (i.e. by the first identifier in the first place)
+     * and removes duplicate tuples.
+     */
+    public void sortDistinct() {
+        int size = size();
+        if (size < 2) {
+            return;
+        }
+        sort(0, size, new long[arity]);
+        int distinctSize = 1;
+        for (int i = 1; i < size; i++) {
+            if (compare(i, distinctSize - 1) != 0) {
+                if (i != distinctSize) {
+                    System.arraycopy(data, i * arity, data, distinctSize * arity, arity);
+                }
+                distinctSize++;
+            }
+        }
+        length = distinctSize * arity;
+    }
+
+    /**
+     * Writes all tuples in the buffer to the given destination.
+     * @param sink destination of tuples; it is not closed
+     * @throws IOException I/O error
+     */
+    public void writeTo(IdTupleSink sink) throws IOException {
+        long[] tuple = new long[arity];
+        for (int offset = 0; offset < length; offset += arity) {
+            System.arraycopy(data, offset, tuple, 0, arity);
+            sink.writeTuple(tuple);
+        }
+    }
+
+    /**
+     * Returns an iterator over tuples in the buffer in their current order.
+     * The buffer must not be modified while the iterator is used.
+     * @return iterator over tuples
+     */
+    public IdTupleIterator iterator() {
+        return new IdTupleIterator() {
+            private int offset = 0;
+
+            @Override
+            protected long[] computeNext() {
+                if (offset >= length) {
+                    return endOfData();
+                }
+                long[] tuple = Arrays.copyOfRange(data, offset, offset + arity);
+                offset += arity;
+                return tuple;
+            }
+
+            @Override
+            public void close() {
+                offset = length;
+            }
+        };
+    }
+
+    /**
+     * Releases memory held by the buffer and removes all tuples.
+     */
+    @Override
+    public void close() {
+        data = EMPTY_DATA;
+        length = 0;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Too many tuples in buffer");
+        }
+        if (minCapacity > data.length) {
+            long newCapacity = Math.max(INITIAL_CAPACITY, data.length + ((long) data.length >> 1));
+            data = Arrays.copyOf(data, (int) Math.min(MAX_CAPACITY, Math.max(newCapacity, minCapacity)));
+        }
+    }
+
+    /**
+     * Sorts tuples with indexes [from, to) using quicksort with three-way partitioning,
+     * which is efficient for inputs with many duplicates.
+     */
+    private void sort(int from, int to, long[] pivot) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int pivotIndex = medianOfThree(from, from + (to - from) / 2, to - 1);
+            System.arraycopy(data, pivotIndex * arity, pivot, 0, arity);
+            int lt = from;
+            int i = from;
+            int gt = to;
+            while (i < gt) {
+                int cmp = compareToPivot(i, pivot);
+                if (cmp < 0) {
+                    swap(lt++, i++);
+                } else if (cmp > 0) {
+                    swap(i, --gt);
+                } else {
+                    i++;
+                }
+            }
+            // recurse into the smaller part to limit recursion depth
+            if (lt - from < to - gt) {
+                sort(from, lt, pivot);
+                from = gt;
+            } else {
+                sort(gt, to, pivot);
+                to = lt;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(j - 1, j) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    private int medianOfThree(int a, int b, int c) {
+        if (compare(a, b) < 0) {
+            return compare(b, c) < 0 ? b : (compare(a, c) < 0 ? c : a);
+        } else {
+            return compare(a, c) < 0 ? a : (compare(b, c) < 0 ? c : b);
+        }
+    }
+
+    private int compare(int tupleA, int tupleB) {
+        int offsetA = tupleA * arity;
+        int offsetB = tupleB * arity;
+        for (int k = 0; k < arity; k++) {
+            int cmp = Long.compare(data[offsetA + k], data[offsetB + k]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private int compareToPivot(int tuple, long[] pivot) {
+        int offset = tuple * arity;
+        for (int k = 0; k < arity; k++) {
+            int cmp = Long.compare(data[offset + k], pivot[k]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private void swap(int tupleA, int tupleB) {
+        int offsetA = tupleA * arity;
+        int offsetB = tupleB * arity;
+        for (int k = 0; k < arity; k++) {
+            long tmp = data[offsetA + k];
+            data[offsetA + k] = data[offsetB + k];
+            data[offsetB + k] = tmp;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.exceptions.NTupleMergeTransformException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges two sequences of tuples of term identifiers using full inner join by the first identifier in each tuple.
+ * Only two sorted inputs are joined, so no tournament tree is needed; k-way merges of sorted files
+ * are done by {@link cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.LoserTree} in
+ * {@link cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.ExternalSort}.
+ */
+public class IdTupleFileMerger {
+    private final IdTupleMergeTransform transform;
+
+    public IdTupleFileMerger(IdTupleMergeTransform transform) {
+        this.transform = transform;
+    }
+
+    /**
+     * Merges two sequences of tuples using full inner join by the first identifier in each tuple.
+     * Necessary buffering is done on the right side.
+     * After join of corresponding tuples, the matching records are transformed with transformed and written to {@code output}.
+     * The method expects that both inputs are sorted by the first identifier in each tuple.
+     * All readers and the writer are closed when the merge is finished.
+     * @param leftReader reader of tuples sorted by first identifier
+     * @param rightReader reader of tuples sorted by first identifier
+     * @param output writer for merged result
+     */
+    public void merge(IdTupleIterator leftReader, IdTupleIterator rightReader, IdTupleSink output)
+            throws IOException, NTupleMergeTransformException {
+        List<long[]> rightBuffer = new ArrayList<>();
+        try {
+            while (leftReader.hasNext() && rightReader.hasNext()) {
+                boolean wasEqual = leftReader.skipLessThan(rightReader.peek()[0]);
+                if (!wasEqual && leftReader.hasNext()) {
+                    wasEqual = rightReader.skipLessThan(leftReader.peek()[0]);
+                }
+
+                if (wasEqual) {
+                    rightBuffer.clear();
+                    long firstId = rightReader.peek()[0];
+                    while (rightReader.hasMatchingRecord(firstId)) {
+                        rightBuffer.add(rightReader.next());
+                    }
+                    while (leftReader.hasMatchingRecord(firstId)) {
+                        long[] left = leftReader.next();
+                        for (long[] right : rightBuffer) {
+                            output.writeTuple(transform.transform(left, right));
+                        }
+                    }
+                }
+            }
+        } finally {
+            output.close();
+            leftReader.close();
+            rightReader.close();
+        }
+    }
+
+    /**
+     * Merges tuples of both sides of the join stored in a single sequence using full inner join by the first identifier
+     * in each tuple. Tuples with {@code rightTupleLength} identifiers belong to the right side, other tuples to the left side.
+     * The method expects that the input is sorted by the first identifier in each tuple and that within each group
+     * of tuples with the same first identifier, all right tuples precede left tuples (e.g. sorted by
+     * {@link IdTupleFirstIdAndLengthComparator} if right tuples are shorter). This way both sides are
+     * read in a single pass and need not be sorted separately.
+     * Necessary buffering is done on the right side.
+     * The reader and the writer are closed when the merge is finished.
+     * @param reader reader of tuples of both sides
+     * @param rightTupleLength number of identifiers in tuples of the right side
+     * @param output writer for merged result
+     */
+    public void mergeGrouped(IdTupleIterator reader, int rightTupleLength, IdTupleSink output)
+            throws IOException, NTupleMergeTransformException {
+        List<long[]> rightBuffer = new ArrayList<>();
+        try {
+            while (reader.hasNext()) {
+                rightBuffer.clear();
+                long firstId = reader.peek()[0];
+                while (reader.hasMatchingRecord(firstId) && reader.peek().length == rightTupleLength) {
+                    rightBuffer.add(reader.next());
+                }
+                while (reader.hasMatchingRecord(firstId)) {
+                    long[] left = reader.next();
+                    if (left.length == rightTupleLength) {
+                        throw new NTupleMergeTransformException("Unexpected order of input data in merge, "
+                                + "right tuples must precede left tuples with the same first identifier.");
+                    }
+                    for (long[] right : rightBuffer) {
+                        output.writeTuple(transform.transform(left, right));
+                    }
+                }
+            }
+        } finally {
+            output.close();
+            reader.close();
+        }
+    }
+
+    /**
+     * Transformation of a pair of joined tuples to the output tuple.
+     */
+    public static interface IdTupleMergeTransform {
+        long[] transform(long[] leftIds, long[] rightIds) throws NTupleMergeTransformException;
+    }
+}
@@ -0,0 +1,36 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import java.util.Comparator;
+
+/**
+ * Comparator of records written by {@link IdTupleWriter} by the first identifier in the tuple, then by the number
+ * of identifiers in the tuple and finally by the remaining identifiers.
+ * Sorting a file with tuples of different lengths by this comparator groups tuples by the first identifier
+ * and within each group places shorter tuples first, see {@link IdTupleFileMerger#mergeGrouped(IdTupleIterator, int, IdTupleSink)}.
+ * Equal tuples are adjacent in the sorted file, so that duplicates are removed the same way as by
+ * {@link IdTupleBuffer#sortDistinct()}, and tuples of the same length are in the same order as in {@link IdTupleBuffer}.
+ * The order is consistent with {@link IdTupleFirstIdComparator}.
+ */
+public final class IdTupleFirstIdAndLengthComparator implements Comparator<byte[]> {
+    public static final IdTupleFirstIdAndLengthComparator INSTANCE = new IdTupleFirstIdAndLengthComparator();
+
+    private static final Comparator<byte[]> RECORD_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+    private IdTupleFirstIdAndLengthComparator() {
+    }
+
+    @Override
+    public int compare(byte[] record1, byte[] record2) {
+        int result = IdTupleFirstIdComparator.INSTANCE.compare(record1, record2);
+        if (result != 0) {
+            return result;
+        }
+        if (record1.length != record2.length) {
+            return record1.length < record2.length ? -1 : 1;
+        }
+        // identifiers are non-negative big-endian longs, so that their unsigned byte order is their numeric order
+        return RECORD_COMPARATOR.compare(record1, record2);
+    }
+}
@@ -0,0 +1,20 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import java.util.Comparator;
+
+/**
+ * Comparator of records written by {@link IdTupleWriter} by the first identifier in the tuple.
+ */
+public final class IdTupleFirstIdComparator implements Comparator<byte[]> {
+    public static final IdTupleFirstIdComparator INSTANCE = new IdTupleFirstIdComparator();
+
+    private IdTupleFirstIdComparator() {
+    }
+
+    @Override
+    public int compare(byte[] record1, byte[] record2) {
+        long id1 = IdTupleFormat.readId(record1, 0);
+        long id2 = IdTupleFormat.readId(record2, 0);
+        return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+    }
+}
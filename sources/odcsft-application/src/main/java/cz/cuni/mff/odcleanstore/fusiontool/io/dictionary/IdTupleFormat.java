@@ -0,0 +1,75 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import java.io.IOException;
+
+/**
+ * Encoding of tuples of term identifiers to binary records used by {@link IdTupleWriter} and {@link IdTupleReader}.
+ * Each identifier is encoded as a fixed-width big-endian long; the number of identifiers in a tuple
+ * is given by the length of the record.
+ */
+final class IdTupleFormat {
+    static final int ID_SIZE = 8;
+
+    /** Disable constructor for a utility class. */
+    private IdTupleFormat() {
+    }
+
+    /**
+     * Writes an identifier to a record.
+     * @param record record buffer
+     * @param index index of the identifier in the tuple
+     * @param id identifier to write
+     */
+    static void writeId(byte[] record, int index, long id) {
+        int offset = index * ID_SIZE;
+        for (int i = ID_SIZE - 1; i >= 0; i--) {
+            record[offset + i] = (byte) id;
+            id >>>= 8;
+        }
+    }
+
+    /**
+     * Reads an identifier from a record.
+     * @param record encoded record
+     * @param index index of the identifier in the tuple
+     * @return decoded identifier
+     */
+    static long readId(byte[] record, int index) {
+        int offset = index * ID_SIZE;
+        long id = 0;
+        for (int i = 0; i < ID_SIZE; i++) {
+            id = (id << 8) | (record[offset + i] & 0xFF);
+        }
+        return id;
+    }
+
+    /**
+     * Reads the first identifier from a record without decoding the rest of the tuple.
+     * @param record encoded record
+     * @return the first identifier in the tuple
+     * @throws IOException invalid record format
+     */
+    static long readFirstId(byte[] record) throws IOException {
+        if (record.length < ID_SIZE) {
+            throw new IOException("Invalid identifier tuple format, unexpected record length " + record.length);
+        }
+        return readId(record, 0);
+    }
+
+    /**
+     * Decodes all identifiers in a record.
+     * @param record encoded record
+     * @return decoded tuple
+     * @throws IOException invalid record format
+     */
+    static long[] decodeTuple(byte[] record) throws IOException {
+        if (record.length % ID_SIZE != 0) {
+            throw new IOException("Invalid identifier tuple format, unexpected record length " + record.length);
+        }
+        long[] tuple = new long[record.length / ID_SIZE];
+        for (int i = 0; i < tuple.length; i++) {
+            tuple[i] = readId(record, i);
+        }
+        return tuple;
+    }
+}
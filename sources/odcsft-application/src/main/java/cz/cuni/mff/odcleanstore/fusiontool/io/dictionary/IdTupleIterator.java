@@ -0,0 +1,38 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+import cz.cuni.mff.odcleanstore.fusiontool.util.ThrowingAbstractIterator;
+
+import java.io.IOException;
+
+/**
+ * Iterator over tuples of term identifiers, typically sorted by the first identifier in each tuple.
+ * @see IdTupleReader
+ * @see IdTupleBuffer
+ */
+public abstract class IdTupleIterator extends ThrowingAbstractIterator<long[], IOException> implements Closeable<IOException> {
+    /**
+     * Returns true if calling {@link #next()} would return a tuple which has its first identifier equal to {@code firstId}.
+     * @param firstId identifier to be matched against
+     * @return true if calling {@link #next()} would return a tuple which has its first identifier equal to {@code firstId}
+     * @throws IOException I/O error
+     */
+    public boolean hasMatchingRecord(long firstId) throws IOException {
+        return hasNext() && peek()[0] == firstId;
+    }
+
+    /**
+     * Skips all tuples that have the first identifier less than {@code firstId}.
+     * After execution of this method, the iterator will point to the first tuple with first identifier greater
+     * or equal to {@code firstId} or beyond the end of input if there are no more tuples.
+     * @param firstId compared identifier
+     * @return true if the tuple returned by {@link #next()} will have the first identifier equal to {@code firstId}
+     * @throws IOException I/O error
+     */
+    public boolean skipLessThan(long firstId) throws IOException {
+        while (hasNext() && peek()[0] < firstId) {
+            next();
+        }
+        return hasMatchingRecord(firstId);
+    }
+}
@@ -0,0 +1,37 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import java.io.IOException;
+
+/**
+ * View of tuples of term identifiers from another iterator which have the given number of identifiers.
+ * Tuples of other lengths are skipped.
+ */
+public class IdTupleLengthFilteringIterator extends IdTupleIterator {
+    private final IdTupleIterator source;
+    private final int tupleLength;
+
+    /**
+     * @param source underlying iterator; it is closed when this iterator is closed
+     * @param tupleLength number of identifiers in returned tuples
+     */
+    public IdTupleLengthFilteringIterator(IdTupleIterator source, int tupleLength) {
+        this.source = source;
+        this.tupleLength = tupleLength;
+    }
+
+    @Override
+    protected long[] computeNext() throws IOException {
+        while (source.hasNext()) {
+            long[] tuple = source.next();
+            if (tuple.length == tupleLength) {
+                return tuple;
+            }
+        }
+        return endOfData();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
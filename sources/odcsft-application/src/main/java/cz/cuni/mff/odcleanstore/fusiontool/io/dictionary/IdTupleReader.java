@@ -0,0 +1,108 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.BinaryRecordReader;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.SparseBlockIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads tuples of term identifiers written by {@link IdTupleWriter}.
+ * If the file is sorted by {@link IdTupleFirstIdComparator} and has a {@link SparseBlockIndex},
+ * {@link #skipLessThan(long)} seeks past whole blocks of the file instead of decoding them.
+ * Other skipped records are compared by their first identifier without decoding whole tuples.
+ */
+public class IdTupleReader extends IdTupleIterator {
+    private final File file;
+    private final TempFileCodec codec;
+    private final SparseBlockIndex index;
+    private BinaryRecordReader recordReader;
+    private long pendingSeekOffset = -1;
+    private byte[] pendingRecord;
+
+    /**
+     * @param inputStream input stream to read from
+     */
+    public IdTupleReader(InputStream inputStream) {
+        this.file = null;
+        this.codec = null;
+        this.index = null;
+        this.recordReader = new BinaryRecordReader(inputStream);
+    }
+
+    /**
+     * @param file sorted file to read from
+     * @param codec codec the file is encoded with
+     * @param index index of blocks in {@code file} (may be null)
+     * @throws IOException I/O error
+     */
+    public IdTupleReader(File file, TempFileCodec codec, SparseBlockIndex index) throws IOException {
+        this.file = file;
+        this.codec = codec;
+        this.index = index;
+        this.recordReader = openAt(0);
+    }
+
+    @Override
+    protected long[] computeNext() throws IOException {
+        byte[] record = readRecord();
+        if (record == null) {
+            return endOfData();
+        } else {
+            return IdTupleFormat.decodeTuple(record);
+        }
+    }
+
+    @Override
+    public boolean skipLessThan(long firstId) throws IOException {
+        if (hasNext() && peek()[0] < firstId) {
+            if (index != null) {
+                byte[] key = new byte[IdTupleFormat.ID_SIZE];
+                IdTupleFormat.writeId(key, 0, firstId);
+                int block = index.findLastBlockLessThan(key, IdTupleFirstIdComparator.INSTANCE);
+                // The block starts after the current tuple only if its first identifier is greater
+                if (block >= 0 && IdTupleFormat.readId(index.getFirstRecord(block), 0) > peek()[0]) {
+                    pendingSeekOffset = index.getOffset(block);
+                }
+            }
+            next(); // discard the current tuple
+
+            // skipped records are compared by the first identifier without decoding whole tuples
+            byte[] record;
+            while ((record = readRecord()) != null && IdTupleFormat.readFirstId(record) < firstId) {
+                // skip
+            }
+            pendingRecord = record;
+        }
+        return hasMatchingRecord(firstId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        recordReader.close();
+    }
+
+    private byte[] readRecord() throws IOException {
+        if (pendingRecord != null) {
+            byte[] record = pendingRecord;
+            pendingRecord = null;
+            return record;
+        }
+        if (pendingSeekOffset >= 0) {
+            recordReader.close();
+            recordReader = openAt(pendingSeekOffset);
+            pendingSeekOffset = -1;
+        }
+        byte[] record = recordReader.readRecord();
+        if (record != null && record.length == 0) {
+            throw new IOException("Invalid identifier tuple format, empty record");
+        }
+        return record;
+    }
+
+    private BinaryRecordReader openAt(long offset) throws IOException {
+        return BinaryRecordReader.open(file, offset, codec);
+    }
+}
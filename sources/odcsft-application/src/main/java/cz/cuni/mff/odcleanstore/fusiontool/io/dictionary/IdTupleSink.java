@@ -0,0 +1,19 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+
+import java.io.IOException;
+
+/**
+ * Destination of tuples of term identifiers.
+ * @see IdTupleWriter
+ * @see IdTupleBuffer
+ */
+public interface IdTupleSink extends Closeable<IOException> {
+    /**
+     * Writes a tuple of term identifiers; empty tuples are ignored.
+     * @param ids identifiers to write
+     * @throws IOException I/O error
+     */
+    void writeTuple(long... ids) throws IOException;
+}
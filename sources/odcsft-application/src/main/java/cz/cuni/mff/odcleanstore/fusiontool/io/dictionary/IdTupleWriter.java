@@ -0,0 +1,50 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.BinaryRecordWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes tuples of term identifiers as fixed-width binary records.
+ * Each tuple is written as a single record by {@link BinaryRecordWriter}, the encoding of identifiers is described
+ * in {@link IdTupleFormat}.
+ */
+public class IdTupleWriter implements IdTupleSink {
+    private final BinaryRecordWriter recordWriter;
+    private byte[] buffer = new byte[0];
+
+    /**
+     * @param outputStream output stream to write to
+     */
+    public IdTupleWriter(OutputStream outputStream) {
+        this(new BinaryRecordWriter(outputStream));
+    }
+
+    /**
+     * @param recordWriter writer of binary records to write tuples with
+     */
+    public IdTupleWriter(BinaryRecordWriter recordWriter) {
+        this.recordWriter = recordWriter;
+    }
+
+    @Override
+    public void writeTuple(long... ids) throws IOException {
+        if (ids == null || ids.length == 0) {
+            return;
+        }
+        int length = ids.length * IdTupleFormat.ID_SIZE;
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+        for (int i = 0; i < ids.length; i++) {
+            IdTupleFormat.writeId(buffer, i, ids[i]);
+        }
+        recordWriter.writeRecord(buffer, 0, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        recordWriter.close();
+    }
+}
@@ -0,0 +1,243 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.LDFusionToolUtils;
+import cz.cuni.mff.odcleanstore.fusiontool.util.StatementSizeEstimator;
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
+import org.openrdf.model.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Term dictionary keeping terms in memory up to a memory limit and the remaining terms in a temporary file.
+ * Current implementation uses MapDB (http://www.mapdb.org) for the temporary file, which is created only
+ * when the memory limit is exceeded. Recently used terms stored in the file are cached in memory so that
+ * repeated terms (e.g. predicates, named graphs or subjects of consecutive quads) do not need to be looked up
+ * in the file.
+ * The temporary file is deleted when the dictionary is closed.
+ *
+ * Terms kept in memory are encoded and decoded without locking. New terms are assigned identifiers
+ * under one of several locks selected by hash of the term, so that terms can be encoded by multiple threads
+ * in parallel.
+ */
+public class MapdbTermDictionary implements TermDictionary {
+    private static final String TEMP_FILE_PREFIX = "odcs-ft.dictionary.";
+    private static final int LOCK_COUNT = 64;
+
+    /** Estimated memory taken by entries of a term in the in-memory maps in addition to the term itself. */
+    private static final int IN_MEMORY_ENTRY_OVERHEAD = 128;
+
+    private final File workingDirectory;
+    private final long maxInMemorySize;
+    private final Map<Value, Long> inMemoryTermToId = new ConcurrentHashMap<>();
+    private final Map<Long, Value> inMemoryIdToTerm = new ConcurrentHashMap<>();
+    private final AtomicLong inMemorySize = new AtomicLong();
+    private final TermCache termCache;
+    private final Object[] locks;
+    private final AtomicLong nextId = new AtomicLong();
+    private volatile boolean isSpilled = false;
+    private DB db;
+    private Map<Value, Long> termToId;
+    private Map<Long, Value> idToTerm;
+
+    /**
+     * Creates a new empty dictionary which stores all terms in a temporary file.
+     * @param workingDirectory directory where the temporary file will be created
+     * @param cacheSize maximum number of terms (and identifiers, respectively) stored in the file cached in memory
+     * @throws IOException error creating temporary file
+     */
+    public MapdbTermDictionary(File workingDirectory, int cacheSize) throws IOException {
+        this(workingDirectory, cacheSize, 0);
+    }
+
+    /**
+     * Creates a new empty dictionary.
+     * @param workingDirectory directory where the temporary file will be created if the memory limit is exceeded
+     * @param cacheSize maximum number of terms (and identifiers, respectively) stored in the file cached in memory
+     * @param maxInMemorySize estimated memory in bytes which can be taken by terms kept in memory
+     * @throws IOException error creating temporary file
+     */
+    public MapdbTermDictionary(File workingDirectory, int cacheSize, long maxInMemorySize) throws IOException {
+        this.workingDirectory = workingDirectory;
+        this.maxInMemorySize = maxInMemorySize;
+        this.termCache = new TermCache(cacheSize);
+        this.locks = new Object[LOCK_COUNT];
+        for (int i = 0; i < LOCK_COUNT; i++) {
+            locks[i] = new Object();
+        }
+        if (maxInMemorySize <= 0) {
+            spill();
+        }
+    }
+
+    @Override
+    public long encode(Value value) throws IOException {
+        Long id = inMemoryTermToId.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (isSpilled) {
+            CachedTerm cachedTerm = termCache.getByTerm(value);
+            if (cachedTerm != null) {
+                return cachedTerm.id;
+            }
+        }
+
+        synchronized (locks[(value.hashCode() & Integer.MAX_VALUE) % LOCK_COUNT]) {
+            id = inMemoryTermToId.get(value);
+            if (id != null) {
+                return id;
+            }
+            if (!isSpilled) {
+                long size = StatementSizeEstimator.estimatedSizeOf(value) + IN_MEMORY_ENTRY_OVERHEAD;
+                if (inMemorySize.addAndGet(size) <= maxInMemorySize) {
+                    id = nextId.getAndIncrement();
+                    // the identifier must be decodable before it can be found by other threads
+                    inMemoryIdToTerm.put(id, value);
+                    inMemoryTermToId.put(value, id);
+                    return id;
+                }
+                spill();
+            }
+
+            id = termToId.get(value);
+            if (id == null) {
+                id = nextId.getAndIncrement();
+                idToTerm.put(id, value);
+                termToId.put(value, id);
+            }
+            termCache.put(new CachedTerm(value, id));
+            return id;
+        }
+    }
+
+    @Override
+    public Value decode(long id) throws IOException {
+        Value value = inMemoryIdToTerm.get(id);
+        if (value != null) {
+            return value;
+        }
+        if (isSpilled) {
+            CachedTerm cachedTerm = termCache.getById(id);
+            if (cachedTerm != null) {
+                return cachedTerm.term;
+            }
+            value = idToTerm.get(id);
+        }
+        if (value == null) {
+            throw new IOException("Unknown term identifier " + id);
+        }
+        termCache.put(new CachedTerm(value, id));
+        return value;
+    }
+
+    @Override
+    public long size() {
+        return nextId.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        inMemoryTermToId.clear();
+        inMemoryIdToTerm.clear();
+        termCache.clear();
+        if (db != null && !db.isClosed()) {
+            db.close();
+        }
+    }
+
+    /**
+     * Creates the temporary file for terms exceeding the memory limit.
+     * MapDB collections are thread-safe, so that they can be accessed under different locks.
+     * @throws IOException error creating temporary file
+     */
+    private synchronized void spill() throws IOException {
+        if (isSpilled) {
+            return;
+        }
+        File dbFile = LDFusionToolUtils.createTempFile(workingDirectory, TEMP_FILE_PREFIX);
+        db = DBMaker.newFileDB(dbFile)
+                .deleteFilesAfterClose()
+                .closeOnJvmShutdown()
+                .transactionDisable()
+                .make();
+        termToId = db.createHashMap("termToId")
+                .keySerializer(ValueSerializer.INSTANCE)
+                .valueSerializer(Serializer.LONG)
+                .make();
+        idToTerm = db.createTreeMap("idToTerm")
+                .keySerializer(BTreeKeySerializer.ZERO_OR_POSITIVE_LONG)
+                .valueSerializer(ValueSerializer.INSTANCE)
+                .make();
+        isSpilled = true;
+    }
+
+    /**
+     * Term with its identifier; instances are immutable so that they can be shared without locking.
+     */
+    private static final class CachedTerm {
+        private final Value term;
+        private final long id;
+
+        CachedTerm(Value term, long id) {
+            this.term = term;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Direct-mapped cache of terms stored in the temporary file indexed both by term and by identifier.
+     * Each slot holds the most recently cached term whose hash maps to the slot; slots are read and replaced
+     * without locking.
+     */
+    private static final class TermCache {
+        private final AtomicReferenceArray<CachedTerm> byTerm;
+        private final AtomicReferenceArray<CachedTerm> byId;
+        private final int mask;
+
+        TermCache(int maxSize) {
+            int capacity = Integer.highestOneBit(Math.max(1, maxSize));
+            this.byTerm = new AtomicReferenceArray<>(capacity);
+            this.byId = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        CachedTerm getByTerm(Value term) {
+            CachedTerm cachedTerm = byTerm.get(termSlot(term));
+            return cachedTerm != null && cachedTerm.term.equals(term) ? cachedTerm : null;
+        }
+
+        CachedTerm getById(long id) {
+            CachedTerm cachedTerm = byId.get(idSlot(id));
+            return cachedTerm != null && cachedTerm.id == id ? cachedTerm : null;
+        }
+
+        void put(CachedTerm cachedTerm) {
+            byTerm.set(termSlot(cachedTerm.term), cachedTerm);
+            byId.set(idSlot(cachedTerm.id), cachedTerm);
+        }
+
+        void clear() {
+            for (int i = 0; i <= mask; i++) {
+                byTerm.set(i, null);
+                byId.set(i, null);
+            }
+        }
+
+        private int termSlot(Value term) {
+            int hash = term.hashCode();
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private int idSlot(long id) {
+            return (int) (id ^ (id >>> 32)) & mask;
+        }
+    }
+}
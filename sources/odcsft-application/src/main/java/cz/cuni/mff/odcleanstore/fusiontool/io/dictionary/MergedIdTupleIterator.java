@@ -0,0 +1,49 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.MergedRecordIterator;
+
+import java.io.IOException;
+
+/**
+ * Iterator over tuples of term identifiers decoded from records merged on the fly
+ * by {@link cz.cuni.mff.odcleanstore.fusiontool.io.ExternalSorter#sortToIterator(java.util.List, long)}.
+ */
+public class MergedIdTupleIterator extends IdTupleIterator {
+    private final MergedRecordIterator mergedRecords;
+
+    /**
+     * @param mergedRecords merged records written by {@link IdTupleWriter}
+     */
+    public MergedIdTupleIterator(MergedRecordIterator mergedRecords) {
+        this.mergedRecords = mergedRecords;
+    }
+
+    @Override
+    protected long[] computeNext() throws IOException {
+        if (!mergedRecords.hasNext()) {
+            return endOfData();
+        }
+        byte[] record = mergedRecords.next();
+        if (record.length == 0) {
+            throw new IOException("Invalid identifier tuple format, empty record");
+        }
+        return IdTupleFormat.decodeTuple(record);
+    }
+
+    @Override
+    public boolean skipLessThan(long firstId) throws IOException {
+        if (hasNext() && peek()[0] < firstId) {
+            next();
+            // skipped records are compared by the first identifier without decoding whole tuples
+            while (mergedRecords.hasNext() && IdTupleFormat.readFirstId(mergedRecords.peek()) < firstId) {
+                mergedRecords.next();
+            }
+        }
+        return hasMatchingRecord(firstId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mergedRecords.close();
+    }
+}
@@ -0,0 +1,35 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+import org.openrdf.model.Value;
+
+import java.io.IOException;
+
+/**
+ * Dictionary assigning a unique numeric identifier to each distinct RDF term (URI, blank node or literal).
+ * Identifiers are non-negative and assigned in the order in which terms are first encoded.
+ * Implementations must be thread-safe.
+ */
+public interface TermDictionary extends Closeable<IOException> {
+    /**
+     * Returns identifier of the given term; a new identifier is assigned if the term has not been encoded yet.
+     * @param value RDF term
+     * @return identifier of the term
+     * @throws IOException error storing the term
+     */
+    long encode(Value value) throws IOException;
+
+    /**
+     * Returns the term with the given identifier.
+     * @param id identifier returned by {@link #encode(org.openrdf.model.Value)}
+     * @return RDF term
+     * @throws IOException the identifier is not known to the dictionary
+     */
+    Value decode(long id) throws IOException;
+
+    /**
+     * Returns the number of distinct terms in the dictionary.
+     * @return number of encoded terms
+     */
+    long size();
+}
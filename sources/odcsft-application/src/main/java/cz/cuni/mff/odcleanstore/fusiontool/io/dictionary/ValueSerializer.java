@@ -0,0 +1,107 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import org.mapdb.Serializer;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MapDB serializer of RDF terms.
+ * Each term is stored as its type followed by the UTF-8 encoded value and,
+ * for literals with a language tag or a datatype, the UTF-8 encoded language tag or datatype URI.
+ */
+final class ValueSerializer implements Serializer<Value>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final ValueSerializer INSTANCE = new ValueSerializer();
+
+    private static final byte TYPE_URI = 1;
+    private static final byte TYPE_BNODE = 2;
+    private static final byte TYPE_PLAIN_LITERAL = 3;
+    private static final byte TYPE_LANG_LITERAL = 4;
+    private static final byte TYPE_TYPED_LITERAL = 5;
+
+    private static final ValueFactory VF = ValueFactoryImpl.getInstance();
+
+    private ValueSerializer() {
+    }
+
+    @Override
+    public void serialize(DataOutput out, Value value) throws IOException {
+        if (value instanceof URI) {
+            out.writeByte(TYPE_URI);
+            writeString(out, value.stringValue());
+        } else if (value instanceof BNode) {
+            out.writeByte(TYPE_BNODE);
+            writeString(out, value.stringValue());
+        } else if (value instanceof Literal) {
+            Literal literal = (Literal) value;
+            if (literal.getLanguage() != null) {
+                out.writeByte(TYPE_LANG_LITERAL);
+                writeString(out, literal.getLabel());
+                writeString(out, literal.getLanguage());
+            } else if (literal.getDatatype() != null) {
+                out.writeByte(TYPE_TYPED_LITERAL);
+                writeString(out, literal.getLabel());
+                writeString(out, literal.getDatatype().stringValue());
+            } else {
+                out.writeByte(TYPE_PLAIN_LITERAL);
+                writeString(out, literal.getLabel());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value " + value);
+        }
+    }
+
+    @Override
+    public Value deserialize(DataInput in, int available) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+        case TYPE_URI:
+            return VF.createURI(readString(in));
+        case TYPE_BNODE:
+            return VF.createBNode(readString(in));
+        case TYPE_PLAIN_LITERAL:
+            return VF.createLiteral(readString(in));
+        case TYPE_LANG_LITERAL:
+            String label = readString(in);
+            return VF.createLiteral(label, readString(in));
+        case TYPE_TYPED_LITERAL:
+            String typedLabel = readString(in);
+            return VF.createLiteral(typedLabel, VF.createURI(readString(in)));
+        default:
+            throw new IOException("Invalid serialized term, unknown value type " + type);
+        }
+    }
+
+    @Override
+    public int fixedSize() {
+        return -1;
+    }
+
+    private static void writeString(DataOutput out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Preserve the singleton when deserialized from MapDB catalog. */
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,102 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads binary records written by {@link BinaryRecordWriter}.
+ */
+public class BinaryRecordReader implements Closeable<IOException> {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_LENGTH_SHIFT = 28;
+
+    private final InputStream inputStream;
+
+    /**
+     * @param inputStream underlying input stream; it is buffered by this class
+     */
+    public BinaryRecordReader(InputStream inputStream) {
+        this.inputStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor for subclasses which read records from another source than an input stream.
+     */
+    protected BinaryRecordReader() {
+        this.inputStream = null;
+    }
+
+    /**
+     * Opens a reader of records in a temporary file starting at the given offset.
+     * Files which are not encoded by the codec are memory-mapped (see {@link MappedBinaryRecordReader}),
+     * other files are read through {@link TempFileCodec#createInputStream(InputStream)}.
+     * @param file file written by {@link BinaryRecordWriter}
+     * @param offset offset in the file where records start
+     * @param codec codec the file is encoded with
+     * @return reader of records
+     * @throws IOException I/O error
+     */
+    public static BinaryRecordReader open(File file, long offset, TempFileCodec codec) throws IOException {
+        if (MappedBinaryRecordReader.isSupported(codec)) {
+            return new MappedBinaryRecordReader(file, offset, MappedBinaryRecordReader.DEFAULT_WINDOW_SIZE);
+        }
+        FileInputStream fileInputStream = new FileInputStream(file);
+        try {
+            if (offset > 0) {
+                fileInputStream.getChannel().position(offset);
+            }
+            return new BinaryRecordReader(codec.createInputStream(fileInputStream));
+        } catch (IOException | RuntimeException e) {
+            fileInputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     * @return bytes of the next record or null if the end of input has been reached
+     * @throws IOException I/O error or invalid input format
+     */
+    public byte[] readRecord() throws IOException {
+        int b = inputStream.read();
+        if (b < 0) {
+            return null;
+        }
+        int length = 0;
+        int shift = 0;
+        while ((b & 0x80) != 0) {
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+            b = inputStream.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of record length");
+            } else if (shift > MAX_LENGTH_SHIFT) {
+                throw new IOException("Invalid record length");
+            }
+        }
+        length |= b << shift;
+
+        byte[] record = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int read = inputStream.read(record, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of record");
+            }
+            offset += read;
+        }
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
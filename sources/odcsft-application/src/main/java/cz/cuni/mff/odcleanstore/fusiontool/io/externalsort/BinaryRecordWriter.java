@@ -0,0 +1,64 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes binary records to an output stream.
+ * Each record is written as its length encoded as a variable-length integer followed by the record bytes.
+ * Records can be read back by {@link BinaryRecordReader}.
+ */
+public class BinaryRecordWriter implements Closeable<IOException> {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream outputStream;
+
+    /**
+     * @param outputStream underlying output stream; it is buffered by this class
+     */
+    public BinaryRecordWriter(OutputStream outputStream) {
+        this.outputStream = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a single record.
+     * @param record record bytes
+     * @throws IOException I/O error
+     */
+    public void writeRecord(byte[] record) throws IOException {
+        writeRecord(record, 0, record.length);
+    }
+
+    /**
+     * Writes a single record.
+     * @param buffer buffer containing the record
+     * @param offset offset of the record in {@code buffer}
+     * @param length length of the record
+     * @throws IOException I/O error
+     */
+    public void writeRecord(byte[] buffer, int offset, int length) throws IOException {
+        int value = length;
+        while ((value & ~0x7F) != 0) {
+            outputStream.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        outputStream.write(value);
+        outputStream.write(buffer, offset, length);
+    }
+
+    /**
+     * Writes all buffered records to the underlying output stream.
+     * @throws IOException I/O error
+     */
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        outputStream.close();
+    }
+}
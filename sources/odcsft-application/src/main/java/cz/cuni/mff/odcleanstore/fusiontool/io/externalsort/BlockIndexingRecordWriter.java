@@ -0,0 +1,140 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import com.google.common.io.CountingOutputStream;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Writes sorted binary records to a file split into blocks, each encoded by the codec independently,
+ * and a {@link SparseBlockIndex} of the blocks next to the file.
+ * The file can be read as a whole as if it was written by {@link BinaryRecordWriter} over
+ * {@link TempFileCodec#createOutputStream(OutputStream)} if the codec supports concatenated streams
+ * (this holds for all codecs in {@link cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec}),
+ * or starting at offset of any block given by the index.
+ */
+public class BlockIndexingRecordWriter extends BinaryRecordWriter {
+    /** Default (approximate) size of uncompressed records in a block. */
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    private final File file;
+    private final SegmentedOutputStream segmentedOutputStream;
+    private final int blockSize;
+    private final List<byte[]> blockFirstRecords = new ArrayList<>();
+    private final List<Long> blockOffsets = new ArrayList<>();
+    private long currentBlockSize = 0;
+
+    /**
+     * @param file file to write records to; the index is written to {@link SparseBlockIndex#getIndexFile(File)}
+     * @param codec codec used to encode blocks
+     * @param blockSize (approximate) size of uncompressed records in a block
+     * @throws IOException I/O error
+     */
+    public BlockIndexingRecordWriter(File file, TempFileCodec codec, int blockSize) throws IOException {
+        this(file, new SegmentedOutputStream(new FileOutputStream(file), codec), blockSize);
+    }
+
+    private BlockIndexingRecordWriter(File file, SegmentedOutputStream segmentedOutputStream, int blockSize) {
+        super(segmentedOutputStream);
+        checkArgument(blockSize > 0);
+        this.file = file;
+        this.segmentedOutputStream = segmentedOutputStream;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void writeRecord(byte[] buffer, int offset, int length) throws IOException {
+        if (blockOffsets.isEmpty() || currentBlockSize >= blockSize) {
+            long blockOffset = 0;
+            if (!blockOffsets.isEmpty()) {
+                flush();
+                blockOffset = segmentedOutputStream.startSegment();
+            }
+            blockFirstRecords.add(Arrays.copyOfRange(buffer, offset, offset + length));
+            blockOffsets.add(blockOffset);
+            currentBlockSize = 0;
+        }
+        currentBlockSize += length + 1;
+        super.writeRecord(buffer, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        new SparseBlockIndex(blockFirstRecords, blockOffsets).writeIndex(file);
+    }
+
+    /**
+     * Output stream encoding data written between calls of {@link #startSegment()} as separate codec streams.
+     */
+    private static class SegmentedOutputStream extends OutputStream {
+        private final CountingOutputStream fileOutputStream;
+        private final TempFileCodec codec;
+        private OutputStream segmentOutputStream;
+
+        SegmentedOutputStream(OutputStream fileOutputStream, TempFileCodec codec) throws IOException {
+            this.fileOutputStream = new CountingOutputStream(fileOutputStream);
+            this.codec = codec;
+            this.segmentOutputStream = createSegmentOutputStream();
+        }
+
+        /**
+         * Finishes the current codec stream and starts a new one.
+         * @return file offset where the new segment starts
+         */
+        long startSegment() throws IOException {
+            segmentOutputStream.close();
+            long segmentOffset = fileOutputStream.getCount(); // before the codec writes any header
+            segmentOutputStream = createSegmentOutputStream();
+            return segmentOffset;
+        }
+
+        private OutputStream createSegmentOutputStream() throws IOException {
+            // closing the codec stream must finish the segment but keep the file open
+            return codec.createOutputStream(new FilterOutputStream(fileOutputStream) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            });
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            segmentOutputStream.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            segmentOutputStream.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            segmentOutputStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                segmentOutputStream.close();
+            } finally {
+                fileOutputStream.close();
+            }
+        }
+    }
+}
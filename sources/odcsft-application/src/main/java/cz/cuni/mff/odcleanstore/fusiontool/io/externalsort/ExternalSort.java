@@ -2,12 +2,19 @@ package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
 
 // filename: ExternalSort.java
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import cz.cuni.mff.odcleanstore.fusiontool.io.TempDirectories;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.util.ThrowingAbstractIterator;
+
 import java.io.*;
-import java.nio.charset.Charset;
 import java.util.*;
-import java.util.zip.Deflater;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Goal: offer a generic external-memory sorting program in Java.
@@ -17,15 +24,8 @@ import java.util.zip.GZIPOutputStream;
  * <p/>
  * This software is in the public domain.
  * <p/>
- * Usage: java com/google/code/externalsorting/ExternalSort somefile.txt out.txt
- * <p/>
- * You can change the default maximal number of temporary files with the -t
- * flag: java com/google/code/externalsorting/ExternalSort somefile.txt out.txt
- * -t 3
- * <p/>
- * For very large files, you might want to use an appropriate flag to allocate
- * more memory to the Java VM: java -Xms2G
- * com/google/code/externalsorting/ExternalSort somefile.txt out.txt
+ * This version is adapted to sort binary records read by {@link BinaryRecordReader}
+ * instead of lines of text so that the sorted data need not be encoded as text.
  * <p/>
  * By (in alphabetical order) Philippe Beaudoin, Eleftherios Chetzakis, Jon
  * Elsas, Christan Grant, Daniel Haran, Daniel Lemire, Sugumaran Harikrishnan,
@@ -33,15 +33,16 @@ import java.util.zip.GZIPOutputStream;
  * http://lemire.me/blog/archives/2010/04/01/external-memory-sorting-in-java/
  */
 public class ExternalSort {
+    /** Number of records read to a block between checks of available memory. */
+    private static final int MEMORY_CHECK_INTERVAL = 4096;
+
     /**
-     * This method calls the garbage collector and then returns the free
-     * memory. This avoids problems with applications where the GC hasn't
-     * reclaimed memory and reports no available memory.
+     * Returns the heap memory which can still be allocated.
      * @return available memory
+     * @see MemoryGovernor#estimateAvailableMemory()
      */
     public static long estimateAvailableMemory() {
-        System.gc();
-        return Runtime.getRuntime().freeMemory();
+        return MemoryGovernor.estimateAvailableMemory();
     }
 
     /**
@@ -72,54 +73,34 @@ public class ExternalSort {
     }
 
     /**
-     * This merges several BinaryFileBuffer to an output writer.
-     * @param fbw A buffer where we write the data.
+     * This merges several BinaryFileBuffer to an output writer using a {@link LoserTree}.
+     * @param output A writer where we write the data.
      * @param cmp A comparator object that tells us how to sort the
-     * lines.
-     * @param distinct Pass <code>true</code> if duplicate lines should be
+     * records.
+     * @param distinct Pass <code>true</code> if duplicate records should be
      * discarded. (elchetz@gmail.com)
      * @param buffers Where the data should be read.
-     * @return The number of lines sorted. (P. Beaudoin)
+     * @return The number of records sorted. (P. Beaudoin)
      * @throws IOException
      */
-    public static int mergeSortedFiles(BufferedWriter fbw,
-            final Comparator<String> cmp, boolean distinct,
+    public static int mergeSortedFiles(BinaryRecordWriter output,
+            final Comparator<byte[]> cmp, boolean distinct,
             List<BinaryFileBuffer> buffers) throws IOException {
-        PriorityQueue<BinaryFileBuffer> pq = new PriorityQueue<BinaryFileBuffer>(
-                11, new Comparator<BinaryFileBuffer>() {
-            @Override
-            public int compare(BinaryFileBuffer i,
-                    BinaryFileBuffer j) {
-                return cmp.compare(i.peek(), j.peek());
-            }
-        }
-        );
-        for (BinaryFileBuffer bfb : buffers) {
-            if (!bfb.empty()) {
-                pq.add(bfb);
-            }
-        }
         int rowcounter = 0;
-        String lastLine = null;
+        byte[] lastRecord = null;
         try {
-            while (pq.size() > 0) {
-                BinaryFileBuffer bfb = pq.poll();
-                String r = bfb.pop();
-                // Skip duplicate lines
-                if (!distinct || !r.equals(lastLine)) {
-                    fbw.write(r);
-                    fbw.newLine();
-                    lastLine = r;
+            LoserTree<byte[]> mergedRecords = new LoserTree<byte[]>(buffers, cmp);
+            while (mergedRecords.hasNext()) {
+                byte[] r = mergedRecords.next();
+                // Skip duplicate records
+                if (!distinct || !Arrays.equals(r, lastRecord)) {
+                    output.writeRecord(r);
+                    lastRecord = r;
                 }
                 ++rowcounter;
-                if (bfb.empty()) {
-                    bfb.fbr.close();
-                } else {
-                    pq.add(bfb); // add it back
-                }
             }
         } finally {
-            fbw.close();
+            output.close();
             for (BinaryFileBuffer bfb : buffers) {
                 bfb.close();
             }
@@ -129,97 +110,32 @@ public class ExternalSort {
     }
 
     /**
-     * This merges a bunch of temporary flat files
-     * @param files files to be merged
-     * @param outputfile output file
-     * @return The number of lines sorted. (P. Beaudoin)
-     * @throws IOException
-     */
-    public static int mergeSortedFiles(List<File> files, File outputfile)
-            throws IOException {
-        return mergeSortedFiles(files, outputfile, defaultcomparator,
-                Charset.defaultCharset());
-    }
-
-    /**
-     * This merges a bunch of temporary flat files
-     * @param files
-     * @param outputfile
-     * @param cmp
-     * @param cs character set to use to load the strings
-     * @return The number of lines sorted. (P. Beaudoin)
-     * @throws IOException
-     */
-    public static int mergeSortedFiles(List<File> files, File outputfile,
-            final Comparator<String> cmp, Charset cs) throws IOException {
-        return mergeSortedFiles(files, outputfile, cmp, cs, false);
-    }
-
-    /**
-     * This merges a bunch of temporary flat files
-     * @param files The {@link List} of sorted {@link File}s to be merged.
-     * @param distinct Pass <code>true</code> if duplicate lines should be
-     * discarded. (elchetz@gmail.com)
-     * @param outputfile The output {@link File} to merge the results to.
-     * @param cmp The {@link Comparator} to use to compare
-     * {@link String}s.
-     * @param cs The {@link Charset} to be used for the byte to
-     * character conversion.
-     * @return The number of lines sorted. (P. Beaudoin)
-     * @throws IOException
-     * @since v0.1.2
-     */
-    public static int mergeSortedFiles(List<File> files, File outputfile,
-            final Comparator<String> cmp, Charset cs, boolean distinct)
-            throws IOException {
-        return mergeSortedFiles(files, outputfile, cmp, cs, distinct,
-                false, false);
-    }
-
-    /**
-     * This merges a bunch of temporary flat files
-     * @param files The {@link List} of sorted {@link File}s to be merged.
-     * @param distinct Pass <code>true</code> if duplicate lines should be
+     * This merges a bunch of temporary files
+     * @param files The {@link java.util.List} of sorted {@link java.io.File}s to be merged.
+     * @param output The output writer to merge the results to.
+     * @param cmp The {@link java.util.Comparator} to use to compare records.
+     * @param distinct Pass <code>true</code> if duplicate records should be
      * discarded. (elchetz@gmail.com)
-     * @param outputfile The output {@link File} to merge the results to.
-     * @param cmp The {@link Comparator} to use to compare
-     * {@link String}s.
-     * @param cs The {@link Charset} to be used for the byte to
-     * character conversion.
-     * @param append Pass <code>true</code> if result should append to
-     * {@link File} instead of overwrite. Default to be false
-     * for overloading methods.
-     * @param usegzip assumes we used gzip compression for temporary files
-     * @return The number of lines sorted. (P. Beaudoin)
+     * @param codec codec used to encode the temporary files
+     * @return The number of records sorted. (P. Beaudoin)
      * @throws IOException
-     * @since v0.1.4
      */
-    public static int mergeSortedFiles(List<File> files, File outputfile,
-            final Comparator<String> cmp, Charset cs, boolean distinct,
-            boolean append, boolean usegzip) throws IOException {
+    public static int mergeSortedFiles(List<File> files, BinaryRecordWriter output,
+            final Comparator<byte[]> cmp, boolean distinct,
+            TempFileCodec codec) throws IOException {
         ArrayList<BinaryFileBuffer> bfbs = new ArrayList<BinaryFileBuffer>();
-        for (File f : files) {
-            final int BUFFERSIZE = 2048;
-            InputStream in = new FileInputStream(f);
-            BufferedReader br;
-            if (usegzip) {
-                br = new BufferedReader(
-                        new InputStreamReader(
-                                new GZIPInputStream(in,
-                                        BUFFERSIZE), cs
-                        )
-                );
-            } else {
-                br = new BufferedReader(new InputStreamReader(
-                        in, cs));
+        try {
+            for (File f : files) {
+                bfbs.add(new BinaryFileBuffer(BinaryRecordReader.open(f, 0, codec)));
             }
-
-            BinaryFileBuffer bfb = new BinaryFileBuffer(br);
-            bfbs.add(bfb);
+        } catch (IOException e) {
+            output.close();
+            for (BinaryFileBuffer bfb : bfbs) {
+                bfb.close();
+            }
+            throw e;
         }
-        BufferedWriter fbw = new BufferedWriter(new OutputStreamWriter(
-                new FileOutputStream(outputfile, append), cs));
-        int rowcounter = mergeSortedFiles(fbw, cmp, distinct, bfbs);
+        int rowcounter = mergeSortedFiles(output, cmp, distinct, bfbs);
         for (File f : files) {
             f.delete();
         }
@@ -227,312 +143,420 @@ public class ExternalSort {
     }
 
     /**
-     * This merges a bunch of temporary flat files
+     * This merges a bunch of temporary files, opening at most {@code maxFanIn}
+     * files at the same time. If there are more files, they are merged in
+     * groups of at most {@code maxFanIn} files to intermediate temporary files
+     * in one or more passes first; only the final pass writes to {@code output}.
      * @param files The {@link java.util.List} of sorted {@link java.io.File}s to be merged.
-     * @param outputWriter The output {@link java.io.Writer} to merge the results to.
-     * @param cmp The {@link java.util.Comparator} to use to compare
-     * {@link String}s.
-     * @param cs The {@link java.nio.charset.Charset} to be used for the byte to
-     * character conversion.
-     * @param distinct Pass <code>true</code> if duplicate lines should be
-     * discarded. (elchetz@gmail.com)
-     * @param usegzip assumes we used gzip compression for temporary files
-     * @return The number of lines sorted. (P. Beaudoin)
+     * @param output The output writer to merge the results to.
+     * @param cmp The {@link java.util.Comparator} to use to compare records.
+     * @param distinct Pass <code>true</code> if duplicate records should be
+     * discarded.
+     * @param codec codec used to encode the temporary files
+     * @param maxFanIn maximum number of files merged at once (at least 2)
+     * @param mergeThreadCount number of threads merging groups of files in
+     * intermediate passes in parallel
+     * @param tmpdirectories directories for the intermediate temporary files; files
+     * are created in the directories in round-robin order
+     * @return The number of records in the final merge.
      * @throws IOException
-     * @since v0.1.4
      */
-    public static int mergeSortedFiles(List<File> files, BufferedWriter outputWriter,
-            final Comparator<String> cmp, Charset cs, boolean distinct,
-            boolean usegzip) throws IOException {
-        ArrayList<BinaryFileBuffer> bfbs = new ArrayList<BinaryFileBuffer>();
-        for (File f : files) {
-            final int BUFFERSIZE = 2048;
-            InputStream in = new FileInputStream(f);
-            BufferedReader br;
-            if (usegzip) {
-                br = new BufferedReader(
-                        new InputStreamReader(
-                                new GZIPInputStream(in,
-                                        BUFFERSIZE), cs
-                        )
-                );
-            } else {
-                br = new BufferedReader(new InputStreamReader(
-                        in, cs));
-            }
-
-            BinaryFileBuffer bfb = new BinaryFileBuffer(br);
-            bfbs.add(bfb);
-        }
-        int rowcounter = mergeSortedFiles(outputWriter, cmp, distinct, bfbs);
-        for (File f : files) {
-            f.delete();
+    public static int mergeSortedFiles(List<File> files, BinaryRecordWriter output,
+            final Comparator<byte[]> cmp, final boolean distinct,
+            final TempFileCodec codec, int maxFanIn, int mergeThreadCount,
+            final TempDirectories tmpdirectories) throws IOException {
+        List<File> remainingFiles;
+        try {
+            remainingFiles = mergeToMaxFanIn(files, cmp, distinct, codec, maxFanIn, mergeThreadCount, tmpdirectories);
+        } catch (IOException | RuntimeException | Error e) {
+            output.close();
+            throw e;
         }
-        return rowcounter;
+        return mergeSortedFiles(remainingFiles, output, cmp, distinct, codec);
     }
 
-
     /**
-     * This sorts a file (input) to an output file (output) using default
-     * parameters
-     * @param input source file
-     * @param output output file
+     * Opens an iterator performing the final merge of a bunch of temporary files lazily,
+     * without writing the merged records to a file.
+     * If there are more than {@code maxFanIn} files, they are first merged to intermediate
+     * temporary files as in {@link #mergeSortedFiles(List, BinaryRecordWriter, Comparator, boolean, TempFileCodec, int, int, TempDirectories)}.
+     * The temporary files are deleted when the returned iterator is closed.
+     * @param files The {@link java.util.List} of sorted {@link java.io.File}s to be merged.
+     * @param cmp The {@link java.util.Comparator} to use to compare records.
+     * @param distinct Pass <code>true</code> if duplicate records should be
+     * discarded.
+     * @param codec codec used to encode the temporary files
+     * @param maxFanIn maximum number of files merged at once (at least 2)
+     * @param mergeThreadCount number of threads merging groups of files in
+     * intermediate passes in parallel
+     * @param tmpdirectories directories for the intermediate temporary files; files
+     * are created in the directories in round-robin order
+     * @return iterator over merged records
      * @throws IOException
      */
-    public static void sort(final File input, final File output)
-            throws IOException {
-        ExternalSort.mergeSortedFiles(ExternalSort.sortInBatch(input), output);
+    public static MergedRecordIterator openMergedFiles(List<File> files,
+            final Comparator<byte[]> cmp, final boolean distinct,
+            final TempFileCodec codec, int maxFanIn, int mergeThreadCount,
+            final TempDirectories tmpdirectories) throws IOException {
+        List<File> remainingFiles = mergeToMaxFanIn(files, cmp, distinct, codec, maxFanIn, mergeThreadCount, tmpdirectories);
+        ArrayList<BinaryFileBuffer> bfbs = new ArrayList<BinaryFileBuffer>();
+        try {
+            for (File f : remainingFiles) {
+                bfbs.add(new BinaryFileBuffer(BinaryRecordReader.open(f, 0, codec)));
+            }
+        } catch (IOException e) {
+            for (BinaryFileBuffer bfb : bfbs) {
+                bfb.close();
+            }
+            for (File f : remainingFiles) {
+                f.delete();
+            }
+            throw e;
+        }
+        return new MergedRecordIterator(remainingFiles, bfbs, cmp, distinct);
     }
 
     /**
-     * Sort a list and save it to a temporary file
-     * @param tmplist data to be sorted
-     * @param cmp string comparator
-     * @param cs charset to use for output (can use
-     * Charset.defaultCharset())
-     * @param tmpdirectory location of the temporary files (set to null for
-     * default location)
-     * @return the file containing the sorted data
-     * @throws IOException
+     * Merges groups of at most {@code maxFanIn} files to intermediate temporary files
+     * until at most {@code maxFanIn} files remain. Merged files are deleted.
+     * If merging fails, all intermediate temporary files are deleted.
+     * @return files remaining to be merged
      */
-    public static File sortAndSave(List<String> tmplist,
-            Comparator<String> cmp, Charset cs, File tmpdirectory)
-            throws IOException {
-        return sortAndSave(tmplist, cmp, cs, tmpdirectory, false, false);
+    private static List<File> mergeToMaxFanIn(List<File> files,
+            final Comparator<byte[]> cmp, final boolean distinct,
+            final TempFileCodec codec, int maxFanIn, int mergeThreadCount,
+            final TempDirectories tmpdirectories) throws IOException {
+        if (maxFanIn < 2) {
+            throw new IllegalArgumentException("Maximum merge fan-in must be at least 2");
+        }
+        List<File> remainingFiles = files;
+        if (remainingFiles.size() > maxFanIn) {
+            ExecutorService mergers = Executors.newFixedThreadPool(Math.max(1, mergeThreadCount), new ThreadFactoryBuilder()
+                    .setNameFormat("merge-worker-%d")
+                    .setDaemon(true)
+                    .build());
+            List<Future<File>> pendingMerges = new ArrayList<Future<File>>();
+            try {
+                while (remainingFiles.size() > maxFanIn) {
+                    pendingMerges.clear();
+                    for (int i = 0; i < remainingFiles.size(); i += maxFanIn) {
+                        final List<File> group = remainingFiles.subList(i, Math.min(i + maxFanIn, remainingFiles.size()));
+                        pendingMerges.add(mergers.submit(new Callable<File>() {
+                            @Override
+                            public File call() throws IOException {
+                                File mergedFile = createTempFile(tmpdirectories);
+                                try {
+                                    mergeSortedFiles(group, new BinaryRecordWriter(createOutputStream(mergedFile, codec)),
+                                            cmp, distinct, codec);
+                                } catch (IOException | RuntimeException | Error e) {
+                                    mergedFile.delete();
+                                    throw e;
+                                }
+                                return mergedFile;
+                            }
+                        }));
+                    }
+                    List<File> mergedFiles = new ArrayList<File>(pendingMerges.size());
+                    try {
+                        for (Future<File> pendingMerge : pendingMerges) {
+                            mergedFiles.add(getTaskResult(pendingMerge));
+                        }
+                    } catch (IOException | RuntimeException | Error e) {
+                        deleteFiles(mergedFiles);
+                        throw e;
+                    }
+                    pendingMerges.clear();
+                    remainingFiles = mergedFiles;
+                }
+            } catch (IOException | RuntimeException | Error e) {
+                // input files are left to the caller, intermediate files are ours
+                if (remainingFiles != files) {
+                    deleteFiles(remainingFiles);
+                }
+                throw e;
+            } finally {
+                deleteTaskResults(pendingMerges, mergers);
+            }
+        }
+        return remainingFiles;
     }
 
     /**
      * Sort a list and save it to a temporary file
      * @param tmplist data to be sorted
-     * @param cmp string comparator
-     * @param cs charset to use for output (can use
-     * Charset.defaultCharset())
-     * @param tmpdirectory location of the temporary files (set to null for
-     * default location)
-     * @param distinct Pass <code>true</code> if duplicate lines should be
+     * @param cmp record comparator
+     * @param tmpdirectories directories for the temporary files; files are created
+     * in the directories in round-robin order
+     * @param distinct Pass <code>true</code> if duplicate records should be
      * discarded.
-     * @param usegzip set to true if you are using gzip compression for the
-     * temporary files
+     * @param codec codec used to encode the temporary files
      * @return the file containing the sorted data
      * @throws IOException
      */
-    public static File sortAndSave(List<String> tmplist,
-            Comparator<String> cmp, Charset cs, File tmpdirectory,
-            boolean distinct, boolean usegzip) throws IOException {
+    public static File sortAndSave(List<byte[]> tmplist,
+            Comparator<byte[]> cmp, TempDirectories tmpdirectories,
+            boolean distinct, TempFileCodec codec) throws IOException {
         Collections.sort(tmplist, cmp);
-        File newtmpfile = File.createTempFile("sortInBatch",
-                "flatfile", tmpdirectory); // TODO: change filenames to match ODCSFT
-        newtmpfile.deleteOnExit();
-        OutputStream out = new FileOutputStream(newtmpfile);
-        int ZIPBUFFERSIZE = 2048;
-        if (usegzip) {
-            out = new GZIPOutputStream(out, ZIPBUFFERSIZE) {
-                {
-                    this.def.setLevel(Deflater.BEST_SPEED);
-                }
-            };
-        }
-        BufferedWriter fbw = new BufferedWriter(new OutputStreamWriter(
-                out, cs));
-        String lastLine = null;
+        File newtmpfile = createTempFile(tmpdirectories);
         try {
-            for (String r : tmplist) {
-                // Skip duplicate lines
-                if (!distinct || !r.equals(lastLine)) {
-                    fbw.write(r);
-                    fbw.newLine();
-                    lastLine = r;
+            BinaryRecordWriter fbw = new BinaryRecordWriter(createOutputStream(newtmpfile, codec));
+            byte[] lastRecord = null;
+            try {
+                for (byte[] r : tmplist) {
+                    // Skip duplicate records
+                    if (!distinct || !Arrays.equals(r, lastRecord)) {
+                        fbw.writeRecord(r);
+                        lastRecord = r;
+                    }
                 }
+            } finally {
+                fbw.close();
             }
-        } finally {
-            fbw.close();
+        } catch (IOException | RuntimeException | Error e) {
+            newtmpfile.delete();
+            throw e;
         }
         return newtmpfile;
     }
 
     /**
-     * @param fbr data source
+     * @param input data source
+     * @param datalength estimated data volume (in bytes)
+     * @param cmp record comparator
+     * @param maxtmpfiles maximal number of temporary files
+     * @param maxMemory maximum amount of memory to use (in bytes)
+     * @param tmpdirectories directories for the temporary files; files are created
+     * in the directories in round-robin order
+     * @param distinct Pass <code>true</code> if duplicate records should be
+     * discarded.
+     * @param codec codec used to encode the temporary files
+     * @return a list of temporary files
+     * @throws IOException
+     */
+    public static List<File> sortInBatch(final BinaryRecordReader input,
+            final long datalength, final Comparator<byte[]> cmp,
+            final int maxtmpfiles, long maxMemory,
+            final TempDirectories tmpdirectories, final boolean distinct,
+            final TempFileCodec codec) throws IOException {
+        return sortInBatch(input, datalength, cmp, maxtmpfiles, maxMemory,
+                tmpdirectories, distinct, codec, 1);
+    }
+
+    /**
+     * Splits the input to sorted temporary files. With more than one sort
+     * thread, blocks are read by the calling thread while previously read
+     * blocks are sorted and saved by a pool of sort threads. At most
+     * {@code sortThreadCount + 1} blocks are held in memory at the same time
+     * and the block size is reduced accordingly so that the total memory
+     * stays within {@code maxMemory}.
+     * @param input data source
      * @param datalength estimated data volume (in bytes)
-     * @param cmp string comparator
+     * @param cmp record comparator
      * @param maxtmpfiles maximal number of temporary files
      * @param maxMemory maximum amount of memory to use (in bytes)
-     * @param cs character set to use (can use
-     * Charset.defaultCharset())
-     * @param tmpdirectory location of the temporary files (set to null for
-     * default location)
-     * @param distinct Pass <code>true</code> if duplicate lines should be
+     * @param tmpdirectories directories for the temporary files; files are created
+     * in the directories in round-robin order
+     * @param distinct Pass <code>true</code> if duplicate records should be
      * discarded.
-     * @param numHeader number of lines to preclude before sorting starts
-     * @param usegzip use gzip compression for the temporary files
-     * @return a list of temporary flat files
+     * @param codec codec used to encode the temporary files
+     * @param sortThreadCount number of threads sorting and saving blocks;
+     * 1 means that everything is done in the calling thread
+     * @return a list of temporary files
      * @throws IOException
      */
-    public static List<File> sortInBatch(final BufferedReader fbr,
-            final long datalength, final Comparator<String> cmp,
-            final int maxtmpfiles, long maxMemory, final Charset cs,
-            final File tmpdirectory, final boolean distinct,
-            final int numHeader, final boolean usegzip) throws IOException {
+    public static List<File> sortInBatch(final BinaryRecordReader input,
+            final long datalength, final Comparator<byte[]> cmp,
+            final int maxtmpfiles, long maxMemory,
+            final TempDirectories tmpdirectories, final boolean distinct,
+            final TempFileCodec codec, int sortThreadCount) throws IOException {
+        if (sortThreadCount <= 1) {
+            return sortInBatchSequential(input, datalength, cmp, maxtmpfiles,
+                    maxMemory, tmpdirectories, distinct, codec);
+        } else {
+            return sortInBatchParallel(input, datalength, cmp, maxtmpfiles,
+                    maxMemory, tmpdirectories, distinct, codec, sortThreadCount);
+        }
+    }
+
+    private static List<File> sortInBatchSequential(final BinaryRecordReader input,
+            final long datalength, final Comparator<byte[]> cmp,
+            final int maxtmpfiles, long maxMemory,
+            final TempDirectories tmpdirectories, final boolean distinct,
+            final TempFileCodec codec) throws IOException {
         List<File> files = new ArrayList<File>();
         long blocksize = estimateBestSizeOfBlocks(datalength,
                 maxtmpfiles, maxMemory);// in
         // bytes
 
         try {
-            List<String> tmplist = new ArrayList<String>();
-            String line = "";
-            try {
-                int counter = 0;
-                while (line != null) {
-                    long currentblocksize = 0;// in bytes
-                    while ((currentblocksize < blocksize)
-                            && ((line = fbr.readLine()) != null)) {
-                        // as long as you have enough
-                        // memory
-                        if (counter < numHeader) {
-                            counter++;
-                            continue;
-                        }
-                        tmplist.add(line);
-                        currentblocksize += StringSizeEstimator
-                                .estimatedSizeOf(line);
-                    }
-                    files.add(sortAndSave(tmplist, cmp, cs,
-                            tmpdirectory, distinct, usegzip));
-                    tmplist.clear();
+            List<byte[]> tmplist = new ArrayList<byte[]>();
+            while (readBlock(input, MemoryGovernor.getBlockSize(blocksize, 1), tmplist)) {
+                files.add(sortAndSave(tmplist, cmp,
+                        tmpdirectories, distinct, codec));
+                tmplist.clear();
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            deleteFiles(files);
+            throw e;
+        } finally {
+            input.close();
+        }
+        return files;
+    }
+
+    private static List<File> sortInBatchParallel(final BinaryRecordReader input,
+            final long datalength, final Comparator<byte[]> cmp,
+            final int maxtmpfiles, long maxMemory,
+            final TempDirectories tmpdirectories, final boolean distinct,
+            final TempFileCodec codec, int sortThreadCount) throws IOException {
+        List<File> files = new ArrayList<File>();
+        // sortThreadCount blocks being sorted + one block being read
+        long blocksize = estimateBestSizeOfBlocks(datalength,
+                maxtmpfiles, maxMemory / (sortThreadCount + 1));
+
+        ExecutorService sorters = Executors.newFixedThreadPool(sortThreadCount, new ThreadFactoryBuilder()
+                .setNameFormat("sort-worker-%d")
+                .setDaemon(true)
+                .build());
+        Deque<Future<File>> pendingBlocks = new ArrayDeque<Future<File>>();
+        try {
+            while (true) {
+                if (pendingBlocks.size() >= sortThreadCount) {
+                    files.add(getTaskResult(pendingBlocks.removeFirst()));
                 }
-            } catch (EOFException oef) {
-                if (tmplist.size() > 0) {
-                    files.add(sortAndSave(tmplist, cmp, cs,
-                            tmpdirectory, distinct, usegzip));
-                    tmplist.clear();
+                final List<byte[]> tmplist = new ArrayList<byte[]>();
+                if (!readBlock(input, MemoryGovernor.getBlockSize(blocksize, sortThreadCount + 1), tmplist)) {
+                    break;
                 }
+                pendingBlocks.addLast(sorters.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws IOException {
+                        return sortAndSave(tmplist, cmp, tmpdirectories, distinct, codec);
+                    }
+                }));
+            }
+            while (!pendingBlocks.isEmpty()) {
+                files.add(getTaskResult(pendingBlocks.removeFirst()));
             }
+        } catch (IOException | RuntimeException | Error e) {
+            deleteFiles(files);
+            throw e;
         } finally {
-            fbr.close();
+            deleteTaskResults(pendingBlocks, sorters);
+            input.close();
         }
         return files;
     }
 
-    /**
-     * This will simply load the file by blocks of lines, then sort them
-     * in-memory, and write the result to temporary files that have to be
-     * merged later.
-     * @param file some flat file
-     * @return a list of temporary flat files
-     * @throws IOException
-     */
-    public static List<File> sortInBatch(File file) throws IOException {
-        return sortInBatch(file, defaultcomparator,
-                DEFAULTMAXTEMPFILES, Charset.defaultCharset(), null,
-                false);
+    private static File createTempFile(TempDirectories tmpdirectories) throws IOException {
+        File newtmpfile = File.createTempFile("sortInBatch",
+                "flatfile", tmpdirectories.nextDirectory()); // TODO: change filenames to match ODCSFT
+        newtmpfile.deleteOnExit();
+        return newtmpfile;
     }
 
-    /**
-     * This will simply load the file by blocks of lines, then sort them
-     * in-memory, and write the result to temporary files that have to be
-     * merged later. You can specify a bound on the number of temporary
-     * files that will be created.
-     * @param file some flat file
-     * @param cmp string comparator
-     * @param maxtmpfiles maximal number of temporary files
-     * @param cs character set to use (can use
-     * Charset.defaultCharset())
-     * @param tmpdirectory location of the temporary files (set to null for
-     * default location)
-     * @param distinct Pass <code>true</code> if duplicate lines should be
-     * discarded.
-     * @return a list of temporary flat files
-     * @throws IOException
-     */
-    public static List<File> sortInBatch(File file, Comparator<String> cmp,
-            int maxtmpfiles, Charset cs, File tmpdirectory, boolean distinct)
-            throws IOException {
-        return sortInBatch(file, cmp, maxtmpfiles, cs, tmpdirectory,
-                distinct, 0, false);
+    private static void deleteFiles(Collection<File> files) {
+        for (File file : files) {
+            file.delete();
+        }
     }
 
     /**
-     * This will simply load the file by blocks of lines, then sort them
-     * in-memory, and write the result to temporary files that have to be
-     * merged later. You can specify a bound on the number of temporary
-     * files that will be created.
-     * @param file some flat file
-     * @param cmp string comparator
-     * @param maxtmpfiles maximal number of temporary files
-     * @param cs character set to use (can use
-     * Charset.defaultCharset())
-     * @param tmpdirectory location of the temporary files (set to null for
-     * default location)
-     * @param distinct Pass <code>true</code> if duplicate lines should be
-     * discarded.
-     * @param numHeader number of lines to preclude before sorting starts
-     * @param usegzip use gzip compression for the temporary files
-     * @return a list of temporary flat files
-     * @throws IOException
+     * Stops the executor and deletes files created by tasks whose result has not been collected.
+     * Running tasks are interrupted and waited for, so that they cannot create files afterwards.
      */
-    public static List<File> sortInBatch(File file, Comparator<String> cmp,
-            int maxtmpfiles, Charset cs, File tmpdirectory,
-            boolean distinct, int numHeader, boolean usegzip)
-            throws IOException {
-        BufferedReader fbr = new BufferedReader(new InputStreamReader(
-                new FileInputStream(file), cs));
-        return sortInBatch(fbr, file.length(), cmp, maxtmpfiles,
-                estimateAvailableMemory(), cs, tmpdirectory, distinct,
-                numHeader, usegzip);
+    private static void deleteTaskResults(Collection<Future<File>> pendingTasks, ExecutorService executor) {
+        executor.shutdownNow();
+        if (pendingTasks.isEmpty()) {
+            return;
+        }
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Future<File> pendingTask : pendingTasks) {
+            if (pendingTask.isDone() && !pendingTask.isCancelled()) {
+                try {
+                    pendingTask.get().delete();
+                } catch (InterruptedException | ExecutionException e) {
+                    // failed tasks delete their files themselves
+                }
+            }
+        }
+        pendingTasks.clear();
     }
 
-    /**
-     * default comparator between strings.
-     */
-    public static Comparator<String> defaultcomparator = new Comparator<String>() {
-        @Override
-        public int compare(String r1, String r2) {
-            return r1.compareTo(r2);
-        }
-    };
+    private static OutputStream createOutputStream(File file, TempFileCodec codec) throws IOException {
+        return codec.createOutputStream(new FileOutputStream(file));
+    }
 
     /**
-     * Default maximal number of temporary files allowed.
+     * Reads records to {@code tmplist} until their estimated size exceeds {@code blocksize}.
+     * The block is finished early if heap memory gets low (see {@link MemoryGovernor#isMemoryLow()}).
+     * @return true if at least one record has been read
      */
-    public static final int DEFAULTMAXTEMPFILES = 1024;
+    private static boolean readBlock(BinaryRecordReader input, long blocksize,
+            List<byte[]> tmplist) throws IOException {
+        long currentblocksize = 0;// in bytes
+        byte[] record;
+        while ((currentblocksize < blocksize)
+                && ((record = input.readRecord()) != null)) {
+            // as long as you have enough
+            // memory
+            tmplist.add(record);
+            currentblocksize += StringSizeEstimator
+                    .estimatedSizeOf(record);
+            if (tmplist.size() % MEMORY_CHECK_INTERVAL == 0
+                    && currentblocksize >= MemoryGovernor.MIN_BLOCK_SIZE
+                    && MemoryGovernor.isMemoryLow()) {
+                // sort and save what we have so that the memory can be reclaimed
+                break;
+            }
+        }
+        return !tmplist.isEmpty();
+    }
 
+    private static File getTaskResult(Future<File> pendingBlock) throws IOException {
+        try {
+            return pendingBlock.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sorting");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+    }
 }
 
 /**
- * This is essentially a thin wrapper on top of a BufferedReader... which keeps
- * the last line in memory.
+ * This is essentially a thin wrapper on top of a BinaryRecordReader... which keeps
+ * the last record in memory.
  * @author Daniel Lemire
  */
-final class BinaryFileBuffer {
-    public BinaryFileBuffer(BufferedReader r) throws IOException {
+final class BinaryFileBuffer extends ThrowingAbstractIterator<byte[], IOException> {
+    private final BinaryRecordReader fbr;
+
+    public BinaryFileBuffer(BinaryRecordReader r) {
         this.fbr = r;
-        reload();
     }
 
     public void close() throws IOException {
         this.fbr.close();
     }
 
-    public boolean empty() {
-        return this.cache == null;
+    @Override
+    protected byte[] computeNext() throws IOException {
+        byte[] record = this.fbr.readRecord();
+        return record != null ? record : endOfData();
     }
-
-    public String peek() {
-        return this.cache;
-    }
-
-    public String pop() throws IOException {
-        String answer = peek().toString();// make a copy
-        reload();
-        return answer;
-    }
-
-    private void reload() throws IOException {
-        this.cache = this.fbr.readLine();
-    }
-
-    public BufferedReader fbr;
-
-    private String cache;
-
 }
@@ -0,0 +1,115 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.ThrowingAbstractIterator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * K-way merge of sorted sources using a tournament tree of losers.
+ * Each internal node of the tree holds the index of the source which lost the comparison at that node,
+ * so that after a record is taken from the winning source only the path from its leaf to the root
+ * needs to be replayed. This takes at most ceil(log2 k) comparisons per record
+ * (compared to about 2 log2 k for a binary heap) and the result of the previous comparisons
+ * is kept in the tree.
+ * Records with equal keys are returned in the order of their sources, i.e. the merge is stable.
+ * The tree is used by all k-way merges of sorted files in {@link ExternalSort}, including
+ * {@link MergedRecordIterator} which feeds the final merge of sorted quads in the input loader.
+ * @param <T> type of merged records
+ */
+public class LoserTree<T> extends ThrowingAbstractIterator<T, IOException> {
+    private final List<ThrowingAbstractIterator<? extends T, IOException>> sources;
+    private final Comparator<? super T> comparator;
+    /** tree[0] is the index of the winning source, tree[1..k-1] are losers at internal nodes. */
+    private final int[] tree;
+    private final int sourceCount;
+    private int nextSourceIndex = -1;
+
+    /**
+     * @param sources sources of records, each sorted by {@code comparator}
+     * @param comparator comparator of records
+     * @throws IOException error reading from a source
+     */
+    public LoserTree(List<? extends ThrowingAbstractIterator<? extends T, IOException>> sources, Comparator<? super T> comparator)
+            throws IOException {
+        this.sources = new ArrayList<ThrowingAbstractIterator<? extends T, IOException>>(sources);
+        this.comparator = comparator;
+        this.sourceCount = sources.size();
+        this.tree = new int[Math.max(1, sourceCount)];
+        if (sourceCount > 0) {
+            tree[0] = build(1);
+        }
+    }
+
+    /**
+     * Returns the index of the source from which the next record will be taken.
+     * @return index of a source in the list given in constructor or -1 if there are no more records
+     * @throws IOException error reading from a source
+     */
+    public int peekSourceIndex() throws IOException {
+        return hasNext() ? nextSourceIndex : -1;
+    }
+
+    @Override
+    protected T computeNext() throws IOException {
+        if (sourceCount == 0) {
+            return endOfData();
+        }
+        int winner = tree[0];
+        ThrowingAbstractIterator<? extends T, IOException> winnerSource = sources.get(winner);
+        if (!winnerSource.hasNext()) {
+            return endOfData(); // the winner is exhausted only if all sources are
+        }
+        T result = winnerSource.next();
+        nextSourceIndex = winner;
+
+        // Replay matches on the path from the winner's leaf to the root
+        for (int node = (winner + sourceCount) >>> 1; node > 0; node >>>= 1) {
+            if (isLess(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+        return result;
+    }
+
+    /**
+     * Plays the initial tournament in the subtree rooted at {@code node}.
+     * Internal nodes are numbered 1..k-1, leaf of source i has number k+i.
+     * @return index of the winning source in the subtree
+     */
+    private int build(int node) throws IOException {
+        if (node >= sourceCount) {
+            return node - sourceCount;
+        }
+        int left = build(2 * node);
+        int right = build(2 * node + 1);
+        if (isLess(right, left)) {
+            tree[node] = left;
+            return right;
+        } else {
+            tree[node] = right;
+            return left;
+        }
+    }
+
+    /**
+     * Returns true if the next record of source {@code i} should precede the next record of source {@code j}.
+     * Exhausted sources are greater than all other sources; ties are broken by source index.
+     */
+    private boolean isLess(int i, int j) throws IOException {
+        ThrowingAbstractIterator<? extends T, IOException> source1 = sources.get(i);
+        ThrowingAbstractIterator<? extends T, IOException> source2 = sources.get(j);
+        if (!source1.hasNext()) {
+            return false;
+        } else if (!source2.hasNext()) {
+            return true;
+        }
+        int cmp = comparator.compare(source1.peek(), source2.peek());
+        return cmp < 0 || (cmp == 0 && i < j);
+    }
+}
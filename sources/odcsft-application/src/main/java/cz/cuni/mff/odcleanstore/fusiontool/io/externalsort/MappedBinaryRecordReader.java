@@ -0,0 +1,128 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.AsyncIOTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.NoCompressionTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reads binary records written by {@link BinaryRecordWriter} to an unencoded file by mapping windows
+ * of the file to memory. Records are copied directly from the mapped pages, without read system calls
+ * and intermediate stream buffers.
+ * Memory mapping is not used on Windows where mapped files cannot be deleted until the mapping is garbage collected.
+ */
+public class MappedBinaryRecordReader extends BinaryRecordReader {
+    /** Default size of a mapped window of the file in bytes. */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_LENGTH_SHIFT = 28;
+    private static final boolean IS_MAPPING_SUPPORTED = !System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private long windowOffset;
+
+    /**
+     * @param file file written by {@link BinaryRecordWriter} without encoding
+     * @param offset offset in the file where records start
+     * @param windowSize size of a mapped window of the file in bytes; a larger window is mapped for longer records
+     * @throws IOException I/O error
+     */
+    public MappedBinaryRecordReader(File file, long offset, int windowSize) throws IOException {
+        checkArgument(offset >= 0, "Offset must not be negative");
+        checkArgument(windowSize > 0, "Window size must be positive");
+        this.file = new RandomAccessFile(file, "r");
+        try {
+            this.channel = this.file.getChannel();
+            this.fileSize = channel.size();
+            this.windowSize = windowSize;
+            mapWindow(Math.min(offset, fileSize), 0);
+        } catch (IOException | RuntimeException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns true if files encoded by the given codec can be read by this class.
+     * Asynchronous I/O doesn't change the encoding, so that the codec it decorates is checked instead.
+     * @param codec temporary file codec
+     * @return true if files encoded by {@code codec} can be memory-mapped
+     */
+    public static boolean isSupported(TempFileCodec codec) {
+        TempFileCodec encodingCodec = codec;
+        while (encodingCodec instanceof AsyncIOTempFileCodec) {
+            encodingCodec = ((AsyncIOTempFileCodec) encodingCodec).getDecoratedCodec();
+        }
+        return IS_MAPPING_SUPPORTED && encodingCodec instanceof NoCompressionTempFileCodec;
+    }
+
+    @Override
+    public byte[] readRecord() throws IOException {
+        if (!ensureAvailable(1)) {
+            return null;
+        }
+        int b = window.get() & 0xFF;
+        int length = 0;
+        int shift = 0;
+        while ((b & 0x80) != 0) {
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+            if (!ensureAvailable(1)) {
+                throw new EOFException("Unexpected end of record length");
+            } else if (shift > MAX_LENGTH_SHIFT) {
+                throw new IOException("Invalid record length");
+            }
+            b = window.get() & 0xFF;
+        }
+        length |= b << shift;
+
+        if (!ensureAvailable(length)) {
+            throw new EOFException("Unexpected end of record");
+        }
+        byte[] record = new byte[length];
+        window.get(record);
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        file.close();
+    }
+
+    /**
+     * Makes sure that at least {@code length} bytes from the current position are mapped.
+     * @return false if the file ends before
+     */
+    private boolean ensureAvailable(int length) throws IOException {
+        if (window == null) {
+            throw new IOException("Reader closed");
+        }
+        if (window.remaining() >= length) {
+            return true;
+        }
+        long position = windowOffset + window.position();
+        if (fileSize - position < length) {
+            return false;
+        }
+        mapWindow(position, length);
+        return true;
+    }
+
+    private void mapWindow(long position, int minSize) throws IOException {
+        long size = Math.min(Math.max(windowSize, minSize), fileSize - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        windowOffset = position;
+    }
+}
@@ -0,0 +1,120 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Watches heap usage through {@link MemoryPoolMXBean}s in order to size blocks of records held in memory.
+ * Long-lived objects such as blocks of records end up in tenured heap pools (pools supporting usage threshold),
+ * whose current usage is read, so that memory allocated since the last garbage collection is counted.
+ * Other heap pools (e.g. the eden space) are counted by their usage after the last garbage collection,
+ * so that short-lived garbage is not counted as used. No garbage collection needs to be forced.
+ */
+public final class MemoryGovernor {
+    /** Minimum size of a block of records in bytes; blocks are never reduced below this size. */
+    public static final long MIN_BLOCK_SIZE = 1024 * 1024;
+
+    /** Portion of a memory pool occupied by live objects above which memory is considered low. */
+    private static final double LOW_MEMORY_THRESHOLD = 0.9;
+
+    /** Portion of available memory which may be occupied by blocks of records. */
+    private static final double AVAILABLE_MEMORY_USAGE = 0.5;
+
+    /** Disable constructor for a utility class. */
+    private MemoryGovernor() {
+    }
+
+    /**
+     * Estimates the amount of heap memory that can still be allocated, i.e. the maximum heap size minus
+     * memory occupied by objects. Unlike {@link Runtime#freeMemory()}, this includes heap which has not been
+     * committed yet and excludes short-lived garbage in heap pools other than tenured pools.
+     * @return available memory in bytes
+     */
+    public static long estimateAvailableMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        if (runtime.maxMemory() == Long.MAX_VALUE) {
+            // heap size is not limited
+            return runtime.freeMemory();
+        }
+        return Math.max(0, runtime.maxMemory() - estimateLiveHeapUsage());
+    }
+
+    /**
+     * Returns true if some tenured heap memory pool is currently occupied almost completely
+     * and memory held by the caller should be released.
+     * Memory is no longer low once the garbage collector reclaims memory released by the caller.
+     * @return true if heap memory is low
+     */
+    public static boolean isMemoryLow() {
+        List<MemoryUsage> usages = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()) {
+                usages.add(pool.getUsage());
+            }
+        }
+        return isMemoryLow(usages);
+    }
+
+    /**
+     * Returns true if some of the given memory pool usages is above the low memory threshold.
+     * @param usages current usages of tenured heap memory pools
+     * @return true if heap memory is low
+     */
+    static boolean isMemoryLow(List<MemoryUsage> usages) {
+        for (MemoryUsage usage : usages) {
+            if (usage != null && usage.getMax() > 0 && usage.getUsed() > LOW_MEMORY_THRESHOLD * usage.getMax()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adjusts the size of the next block of records held in memory to the currently available memory.
+     * The block shrinks when memory gets scarce and grows back up to {@code preferredBlockSize} when memory is
+     * reclaimed, but is never smaller than {@link #MIN_BLOCK_SIZE}.
+     * @param preferredBlockSize block size in bytes computed from the configured memory limit
+     * @param concurrentBlockCount number of blocks held in memory at the same time
+     * @return size of the next block in bytes
+     */
+    public static long getBlockSize(long preferredBlockSize, int concurrentBlockCount) {
+        return getBlockSize(preferredBlockSize, concurrentBlockCount, estimateAvailableMemory());
+    }
+
+    /**
+     * Computes the size of the next block of records from the given available memory.
+     * @param preferredBlockSize block size in bytes computed from the configured memory limit
+     * @param concurrentBlockCount number of blocks held in memory at the same time
+     * @param availableMemory available heap memory in bytes
+     * @return size of the next block in bytes
+     * @see #getBlockSize(long, int)
+     */
+    static long getBlockSize(long preferredBlockSize, int concurrentBlockCount, long availableMemory) {
+        long availableBlockSize = (long) (availableMemory * AVAILABLE_MEMORY_USAGE) / Math.max(1, concurrentBlockCount);
+        return Math.max(Math.min(preferredBlockSize, availableBlockSize), Math.min(preferredBlockSize, MIN_BLOCK_SIZE));
+    }
+
+    private static long estimateLiveHeapUsage() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = null;
+            if (!pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported()) {
+                // short-lived objects, count only what survived the last collection
+                usage = pool.getCollectionUsage();
+            }
+            if (usage == null || usage.getCommitted() == 0) {
+                // tenured pool or not collected yet, count all current usage
+                usage = pool.getUsage();
+            }
+            used += usage.getUsed();
+        }
+        return used;
+    }
+}
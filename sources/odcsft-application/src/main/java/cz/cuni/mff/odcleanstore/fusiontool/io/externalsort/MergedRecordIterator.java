@@ -0,0 +1,63 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+import cz.cuni.mff.odcleanstore.fusiontool.util.ThrowingAbstractIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Iterator performing the final k-way merge of sorted temporary files lazily,
+ * as records are requested, instead of writing the merged records to a file.
+ * The merged temporary files are deleted when the iterator is closed.
+ * @see ExternalSort#openMergedFiles(List, Comparator, boolean, cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec, int, int, cz.cuni.mff.odcleanstore.fusiontool.io.TempDirectories)
+ */
+public class MergedRecordIterator extends ThrowingAbstractIterator<byte[], IOException> implements Closeable<IOException> {
+    private final List<File> files;
+    private final List<BinaryFileBuffer> buffers;
+    private final LoserTree<byte[]> mergedRecords;
+    private final boolean distinct;
+    private byte[] lastRecord = null;
+
+    MergedRecordIterator(List<File> files, List<BinaryFileBuffer> buffers, Comparator<byte[]> cmp, boolean distinct)
+            throws IOException {
+        this.files = files;
+        this.buffers = buffers;
+        this.distinct = distinct;
+        try {
+            this.mergedRecords = new LoserTree<byte[]>(buffers, cmp);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    protected byte[] computeNext() throws IOException {
+        while (mergedRecords.hasNext()) {
+            byte[] r = mergedRecords.next();
+            // Skip duplicate records
+            if (!distinct || !Arrays.equals(r, lastRecord)) {
+                lastRecord = r;
+                return r;
+            }
+        }
+        return endOfData();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (BinaryFileBuffer bfb : buffers) {
+                bfb.close();
+            }
+        } finally {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+    }
+}
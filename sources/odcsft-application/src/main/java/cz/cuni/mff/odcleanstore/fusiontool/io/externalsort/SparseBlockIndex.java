@@ -0,0 +1,143 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sparse index over a file of sorted records written by {@link BlockIndexingRecordWriter}.
+ * The file consists of blocks which can be decoded independently; the index contains
+ * the first record and file offset of each block so that readers can seek past whole blocks.
+ * The index is stored in a separate file next to the indexed file, see {@link #getIndexFile(File)}.
+ */
+public class SparseBlockIndex {
+    private static final String INDEX_FILE_SUFFIX = ".idx";
+
+    private final byte[][] firstRecords;
+    private final long[] offsets;
+
+    /**
+     * @param firstRecords first record of each block
+     * @param offsets file offset of each block
+     */
+    SparseBlockIndex(List<byte[]> firstRecords, List<Long> offsets) {
+        this.firstRecords = firstRecords.toArray(new byte[firstRecords.size()][]);
+        this.offsets = new long[offsets.size()];
+        for (int i = 0; i < this.offsets.length; i++) {
+            this.offsets[i] = offsets.get(i);
+        }
+    }
+
+    private SparseBlockIndex(byte[][] firstRecords, long[] offsets) {
+        this.firstRecords = firstRecords;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Returns the file where index of the given file is stored.
+     * @param indexedFile indexed file
+     * @return index file
+     */
+    public static File getIndexFile(File indexedFile) {
+        return new File(indexedFile.getPath() + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * Reads index of the given file.
+     * @param indexedFile indexed file
+     * @return index of {@code indexedFile} or null if the file has no index
+     * @throws IOException I/O error or invalid index format
+     */
+    public static SparseBlockIndex readIndex(File indexedFile) throws IOException {
+        File indexFile = getIndexFile(indexedFile);
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            int size = inputStream.readInt();
+            if (size < 0) {
+                throw new IOException("Invalid block index format, negative size");
+            }
+            byte[][] firstRecords = new byte[size][];
+            long[] offsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                offsets[i] = inputStream.readLong();
+                firstRecords[i] = new byte[inputStream.readInt()];
+                inputStream.readFully(firstRecords[i]);
+            }
+            return new SparseBlockIndex(firstRecords, offsets);
+        }
+    }
+
+    /**
+     * Writes this index for the given file.
+     * @param indexedFile indexed file
+     * @throws IOException I/O error
+     */
+    void writeIndex(File indexedFile) throws IOException {
+        File indexFile = getIndexFile(indexedFile);
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            outputStream.writeInt(size());
+            for (int i = 0; i < size(); i++) {
+                outputStream.writeLong(offsets[i]);
+                outputStream.writeInt(firstRecords[i].length);
+                outputStream.write(firstRecords[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of indexed blocks.
+     * @return number of blocks
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Returns the first record in a block.
+     * @param block index of the block
+     * @return first record of the block
+     */
+    public byte[] getFirstRecord(int block) {
+        return firstRecords[block];
+    }
+
+    /**
+     * Returns the file offset where a block starts.
+     * @param block index of the block
+     * @return offset of the block in the indexed file
+     */
+    public long getOffset(int block) {
+        return offsets[block];
+    }
+
+    /**
+     * Finds the last block whose first record is less than {@code key}.
+     * All records less than the first record of the returned block precede the block in the file,
+     * and no record greater or equal to {@code key} precedes the block.
+     * @param key searched key
+     * @param comparator comparator the indexed file is sorted by
+     * @return index of the block or -1 if there is no such block
+     */
+    public int findLastBlockLessThan(byte[] key, Comparator<byte[]> comparator) {
+        int low = 0;
+        int high = firstRecords.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(firstRecords[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -66,4 +66,14 @@ public final class StringSizeEstimator {
 		return (s.length() * 2) + OBJ_OVERHEAD;
 	}
 
+	/**
+	 * Estimates the size of a byte array held in a list in bytes.
+	 *
+	 * @param bytes The array to estimate memory footprint.
+	 * @return The <strong>estimated</strong> size in bytes.
+	 */
+	public static long estimatedSizeOf(byte[] bytes) {
+		return bytes.length + ARR_HEADER + OBJ_REF;
+	}
+
 }
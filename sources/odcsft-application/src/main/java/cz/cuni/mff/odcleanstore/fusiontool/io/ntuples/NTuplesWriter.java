@@ -1,6 +1,5 @@
 package cz.cuni.mff.odcleanstore.fusiontool.io.ntuples;
 
-import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
 import org.openrdf.model.Value;
 import org.openrdf.rio.ntriples.NTriplesUtil;
 
@@ -10,13 +9,14 @@ import java.io.Writer;
 /**
  * TODO
  */
-public class NTuplesWriter implements Closeable<IOException> {
+public class NTuplesWriter implements TupleWriter {
     protected final Writer writer;
 
     public NTuplesWriter(Writer outputWriter) {
         this.writer = outputWriter;
     }
 
+    @Override
     public void writeTuple(Value... values) throws IOException {
         if (values == null || values.length == 0) {
             return;
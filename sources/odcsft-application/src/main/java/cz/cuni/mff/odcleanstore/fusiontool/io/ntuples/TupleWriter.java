@@ -0,0 +1,19 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.ntuples;
+
+import cz.cuni.mff.odcleanstore.fusiontool.util.Closeable;
+import org.openrdf.model.Value;
+
+import java.io.IOException;
+
+/**
+ * Writer of tuples of RDF values to a file.
+ * @see NTuplesWriter
+ */
+public interface TupleWriter extends Closeable<IOException> {
+    /**
+     * Writes a single tuple.
+     * @param values values in the tuple
+     * @throws IOException I/O error
+     */
+    void writeTuple(Value... values) throws IOException;
+}
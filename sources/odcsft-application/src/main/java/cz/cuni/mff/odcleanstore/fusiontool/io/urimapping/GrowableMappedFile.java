@@ -0,0 +1,151 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.urimapping;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * File accessed through memory-mapped segments of fixed size.
+ * Segments are mapped on first access and the file grows as needed, so that the file can be used
+ * as a growable array of primitive values which the operating system pages in and out of memory.
+ * Values of primitive types must be aligned to their size.
+ * Concurrent reads are safe, writes must be synchronized externally.
+ */
+class GrowableMappedFile implements Closeable {
+    /** Size of a single mapped segment in bytes. */
+    static final int SEGMENT_SIZE = 1 << 26;
+    private static final int SEGMENT_SHIFT = 26;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel.MapMode mapMode;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /**
+     * Opens the given file for reading and writing.
+     * @param file file to map; created if it doesn't exist
+     * @throws IOException I/O error
+     */
+    GrowableMappedFile(File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * @param file file to map; created if it doesn't exist and opened for writing
+     * @param readOnly true if the file should be mapped only for reading
+     * @throws IOException I/O error
+     */
+    GrowableMappedFile(File file, boolean readOnly) throws IOException {
+        this.file = file;
+        this.randomAccessFile = new RandomAccessFile(file, readOnly ? "r" : "rw");
+        this.mapMode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+    }
+
+    /**
+     * Returns the mapped file.
+     * @return mapped file
+     */
+    File getFile() {
+        return file;
+    }
+
+    int getInt(long position) {
+        return getSegment(position).getInt((int) (position & SEGMENT_MASK));
+    }
+
+    void putInt(long position, int value) {
+        getSegment(position).putInt((int) (position & SEGMENT_MASK), value);
+    }
+
+    long getLong(long position) {
+        return getSegment(position).getLong((int) (position & SEGMENT_MASK));
+    }
+
+    void putLong(long position, long value) {
+        getSegment(position).putLong((int) (position & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Reads bytes starting at the given position; the bytes may span multiple segments.
+     * @param position file position
+     * @param dst destination array to fill
+     */
+    void get(long position, byte[] dst) {
+        int offset = 0;
+        while (offset < dst.length) {
+            long current = position + offset;
+            int segmentOffset = (int) (current & SEGMENT_MASK);
+            int length = Math.min(dst.length - offset, SEGMENT_SIZE - segmentOffset);
+            ByteBuffer buffer = getSegment(current).duplicate();
+            buffer.position(segmentOffset);
+            buffer.get(dst, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes bytes starting at the given position; the bytes may span multiple segments.
+     * @param position file position
+     * @param src bytes to write
+     */
+    void put(long position, byte[] src) {
+        int offset = 0;
+        while (offset < src.length) {
+            long current = position + offset;
+            int segmentOffset = (int) (current & SEGMENT_MASK);
+            int length = Math.min(src.length - offset, SEGMENT_SIZE - segmentOffset);
+            ByteBuffer buffer = getSegment(current).duplicate();
+            buffer.position(segmentOffset);
+            buffer.put(src, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Closes the file. Mapped segments are released by the garbage collector.
+     * @throws IOException I/O error
+     */
+    @Override
+    public void close() throws IOException {
+        segments = new MappedByteBuffer[0];
+        randomAccessFile.close();
+    }
+
+    private ByteBuffer getSegment(long position) {
+        int index = (int) (position >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] currentSegments = segments;
+        if (index < currentSegments.length) {
+            return currentSegments[index];
+        }
+        return mapSegment(index);
+    }
+
+    private synchronized ByteBuffer mapSegment(int index) {
+        MappedByteBuffer[] newSegments = segments;
+        try {
+            while (newSegments.length <= index) {
+                long segmentPosition = (long) newSegments.length << SEGMENT_SHIFT;
+                long size = mapMode == FileChannel.MapMode.READ_ONLY
+                        ? Math.min(SEGMENT_SIZE, randomAccessFile.length() - segmentPosition)
+                        : SEGMENT_SIZE;
+                if (size <= 0) {
+                    throw new IndexOutOfBoundsException("Position beyond the end of read-only file " + file);
+                }
+                // mapping for writing extends the (sparse) file as needed
+                newSegments = Arrays.copyOf(newSegments, newSegments.length + 1);
+                newSegments[newSegments.length - 1] = randomAccessFile.getChannel().map(mapMode, segmentPosition, size);
+            }
+        } catch (IOException e) {
+            // accessors of mapped memory don't throw checked exceptions either
+            throw new RuntimeException("Error mapping file " + file, e);
+        }
+        segments = newSegments;
+        return newSegments[index];
+    }
+}
@@ -0,0 +1,249 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.urimapping;
+
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.AbstractCompactUriMappingIterable;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.CompactUriMappingIterableImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.util.LDFusionToolUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * URI mapping for very large sets of owl:sameAs links whose data structures live outside of the JVM heap.
+ * Works the same way as {@link CompactUriMappingIterableImpl} but the interned URIs (encoded in UTF-8),
+ * the hash table and the disjoint-set arrays are stored in memory-mapped temporary files,
+ * so that the operating system page cache decides which parts are kept in memory.
+ * The temporary files are deleted when the mapping is closed.
+ *
+ * Reading the mapping modifies it by path halving; instances can be shared by multiple threads for reading
+ * only after {@link #compressPaths()} is called and provided that no links are added.
+ */
+public class MappedUriMappingIterableImpl extends AbstractCompactUriMappingIterable implements Closeable {
+    private static final String TEMP_FILE_PREFIX = "odcs-ft.sameas.";
+    private static final long INITIAL_TABLE_CAPACITY = 1 << 16;
+
+    /**
+     * Maximum number of URIs; identifiers are ints and the hash table stores identifier + 1.
+     * The hash table itself is addressed by long slots, so it can grow up to 2^32 slots (the range of URI hashes).
+     */
+    private static final int MAX_URI_COUNT = Integer.MAX_VALUE;
+    private static final int INT_BYTES = 4;
+    private static final int LONG_BYTES = 8;
+
+    private final File directory;
+    private final List<GrowableMappedFile> files = new ArrayList<>();
+
+    /** UTF-8 encoded interned URIs. */
+    private final GrowableMappedFile uriBytes;
+
+    /** End offset of each URI in {@link #uriBytes} (long per URI). */
+    private final GrowableMappedFile uriEndOffsets;
+
+    /** Hash of each URI (int per URI), used to compare URIs and rehash the table without decoding. */
+    private final GrowableMappedFile uriHashes;
+
+    /** DFU parents (int per URI), see {@link #getParent(int)}. */
+    private final GrowableMappedFile parents;
+
+    /** Sizes of DFU subtrees (int per URI). */
+    private final GrowableMappedFile sizes;
+
+    /** Open-addressing hash table of identifier + 1 or 0 for an empty slot (int per slot), at most half full. */
+    private GrowableMappedFile uriTable;
+    private long tableCapacity;
+
+    private int uriCount = 0;
+    private long uriBytesLength = 0;
+
+    /**
+     * @param preferredURIs set of URIs preferred as canonical URIs; can be null
+     * @param directory directory where memory-mapped temporary files are created
+     * @throws IOException error creating temporary files
+     */
+    public MappedUriMappingIterableImpl(Set<String> preferredURIs, File directory) throws IOException {
+        super(preferredURIs);
+        this.directory = directory;
+        try {
+            this.uriBytes = createMappedFile();
+            this.uriEndOffsets = createMappedFile();
+            this.uriHashes = createMappedFile();
+            this.parents = createMappedFile();
+            this.sizes = createMappedFile();
+            this.uriTable = createMappedFile();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        this.tableCapacity = INITIAL_TABLE_CAPACITY;
+    }
+
+    @Override
+    public int find(String uri) {
+        return findSlotValue(uri.getBytes(StandardCharsets.UTF_8), CompactUriMappingIterableImpl.hash(uri)) - 1;
+    }
+
+    @Override
+    protected int intern(String uri) {
+        byte[] encodedUri = uri.getBytes(StandardCharsets.UTF_8);
+        int hash = CompactUriMappingIterableImpl.hash(uri);
+        long mask = tableCapacity - 1;
+        long slot = getInitialSlot(hash, mask);
+        int value;
+        while ((value = uriTable.getInt(slot * INT_BYTES)) != 0) {
+            if (uriEquals(value - 1, encodedUri, hash)) {
+                return value - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (uriCount >= MAX_URI_COUNT) {
+            throw new IllegalStateException("Too many URIs in owl:sameAs links, at most " + MAX_URI_COUNT + " URIs are supported");
+        }
+        int id = uriCount++;
+        uriBytes.put(uriBytesLength, encodedUri);
+        uriBytesLength += encodedUri.length;
+        uriEndOffsets.putLong((long) id * LONG_BYTES, uriBytesLength);
+        uriHashes.putInt((long) id * INT_BYTES, hash);
+        initRoot(id);
+        uriTable.putInt(slot * INT_BYTES, id + 1);
+        if (uriCount > tableCapacity / 2) {
+            growTable();
+        }
+        return id;
+    }
+
+    @Override
+    public String getUri(int id) {
+        return new String(getEncodedUri(id), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getUriCount() {
+        return uriCount;
+    }
+
+    @Override
+    protected int getParent(int id) {
+        return parents.getInt((long) id * INT_BYTES);
+    }
+
+    @Override
+    protected void setParent(int id, int parent) {
+        parents.putInt((long) id * INT_BYTES, parent);
+    }
+
+    @Override
+    protected int getSize(int id) {
+        return sizes.getInt((long) id * INT_BYTES);
+    }
+
+    @Override
+    protected void setSize(int id, int size) {
+        sizes.putInt((long) id * INT_BYTES, size);
+    }
+
+    /**
+     * Closes and deletes the memory-mapped temporary files.
+     * @throws IOException I/O error
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (GrowableMappedFile file : files) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+            file.getFile().delete();
+        }
+        files.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private int findSlotValue(byte[] encodedUri, int hash) {
+        long mask = tableCapacity - 1;
+        long slot = getInitialSlot(hash, mask);
+        int value;
+        while ((value = uriTable.getInt(slot * INT_BYTES)) != 0) {
+            if (uriEquals(value - 1, encodedUri, hash)) {
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the first slot to probe for the given hash; the hash is treated as unsigned
+     * so that all its bits are used in tables with more than 2^31 slots.
+     */
+    private static long getInitialSlot(int hash, long mask) {
+        return (hash & 0xFFFFFFFFL) & mask;
+    }
+
+    private boolean uriEquals(int id, byte[] encodedUri, int hash) {
+        if (uriHashes.getInt((long) id * INT_BYTES) != hash) {
+            return false;
+        }
+        long start = getUriStartOffset(id);
+        long end = uriEndOffsets.getLong((long) id * LONG_BYTES);
+        return end - start == encodedUri.length && Arrays.equals(getEncodedUri(id), encodedUri);
+    }
+
+    private byte[] getEncodedUri(int id) {
+        long start = getUriStartOffset(id);
+        long end = uriEndOffsets.getLong((long) id * LONG_BYTES);
+        byte[] result = new byte[(int) (end - start)];
+        uriBytes.get(start, result);
+        return result;
+    }
+
+    private long getUriStartOffset(int id) {
+        return id == 0 ? 0 : uriEndOffsets.getLong((long) (id - 1) * LONG_BYTES);
+    }
+
+    private void growTable() {
+        long newCapacity = 2 * tableCapacity;
+        GrowableMappedFile newTable;
+        try {
+            newTable = createMappedFile();
+        } catch (IOException e) {
+            throw new RuntimeException("Error creating temporary file for owl:sameAs mapping", e);
+        }
+        long mask = newCapacity - 1;
+        for (int id = 0; id < uriCount; id++) {
+            long slot = getInitialSlot(uriHashes.getInt((long) id * INT_BYTES), mask);
+            while (newTable.getInt(slot * INT_BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable.putInt(slot * INT_BYTES, id + 1);
+        }
+
+        GrowableMappedFile oldTable = uriTable;
+        uriTable = newTable;
+        tableCapacity = newCapacity;
+        files.remove(oldTable);
+        try {
+            oldTable.close();
+        } catch (IOException e) {
+            // ignore, the file is not needed anymore
+        }
+        oldTable.getFile().delete();
+    }
+
+    private GrowableMappedFile createMappedFile() throws IOException {
+        File file = LDFusionToolUtils.createTempFile(directory, TEMP_FILE_PREFIX);
+        file.deleteOnExit();
+        GrowableMappedFile mappedFile = new GrowableMappedFile(file);
+        files.add(mappedFile);
+        return mappedFile;
+    }
+}
@@ -0,0 +1,116 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.urimapping;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import cz.cuni.mff.odcleanstore.fusiontool.config.ConfigParameters;
+import cz.cuni.mff.odcleanstore.fusiontool.config.ConstructSourceConfig;
+import cz.cuni.mff.odcleanstore.fusiontool.config.EnumDataSourceType;
+import cz.cuni.mff.odcleanstore.fusiontool.util.OutputParamReader;
+import org.openrdf.model.URI;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Computes fingerprint of inputs an owl:sameAs mapping is created from, i.e. of sameAs sources,
+ * sameAs link types and URIs preferred as canonical URIs.
+ * The fingerprint of file sources covers their configuration together with size and modification time
+ * of the files, so that the fingerprint changes whenever a file is modified.
+ * Contents of other than file sources cannot be fingerprinted; see {@link #isSupported(Collection)}.
+ */
+public final class SameAsFingerprint {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    // changes with the format of snapshots, see SnapshotUriMappingIterableImpl
+    private static final int VERSION = 2;
+
+    /** Disable constructor for a utility class. */
+    private SameAsFingerprint() {
+    }
+
+    /**
+     * Returns true if a fingerprint reflecting changes of the given sameAs sources can be computed,
+     * i.e. if all sources are files.
+     * @param sameAsSources sameAs sources
+     * @return true iff a fingerprint can be computed
+     */
+    public static boolean isSupported(Collection<? extends ConstructSourceConfig> sameAsSources) {
+        for (ConstructSourceConfig source : sameAsSources) {
+            if (source.getType() != EnumDataSourceType.FILE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes fingerprint of inputs of an owl:sameAs mapping.
+     * The order of sameAs sources is significant because it may affect selection of canonical URIs,
+     * the order of link types and preferred URIs is not.
+     * @param sameAsSources sameAs sources
+     * @param sameAsLinkTypes set of URIs that act as an owl:sameAs link
+     * @param preferredURIs set of URIs preferred as canonical URIs
+     * @param isOrderIndependent true if canonical URIs are selected independently of the order of links,
+     *      see {@link cz.cuni.mff.odcleanstore.fusiontool.config.ConfigProcessing#getSameAsThreadCount()}
+     * @return fingerprint
+     */
+    public static long compute(Collection<? extends ConstructSourceConfig> sameAsSources,
+            Collection<URI> sameAsLinkTypes, Collection<String> preferredURIs, boolean isOrderIndependent) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        hasher.putInt(VERSION);
+        hasher.putBoolean(isOrderIndependent);
+
+        hasher.putInt(sameAsSources.size());
+        for (ConstructSourceConfig source : sameAsSources) {
+            hasher.putString(source.getType().name(), StandardCharsets.UTF_8);
+            Map<String, String> sortedParams = new TreeMap<>(source.getParams());
+            for (Map.Entry<String, String> param : sortedParams.entrySet()) {
+                putNullableString(hasher, param.getKey());
+                putNullableString(hasher, param.getValue());
+            }
+            putNullableString(hasher, source.getConstructQuery());
+            if (source.getType() == EnumDataSourceType.FILE) {
+                String path = new OutputParamReader(source).getStringValue(ConfigParameters.DATA_SOURCE_FILE_PATH);
+                if (path != null) {
+                    File file = new File(path).getAbsoluteFile();
+                    hasher.putString(file.getPath(), StandardCharsets.UTF_8);
+                    hasher.putLong(file.length());
+                    hasher.putLong(file.lastModified());
+                }
+            }
+        }
+
+        TreeSet<String> sortedLinkTypes = new TreeSet<>();
+        for (URI linkType : sameAsLinkTypes) {
+            sortedLinkTypes.add(linkType.stringValue());
+        }
+        hasher.putInt(sortedLinkTypes.size());
+        for (String linkType : sortedLinkTypes) {
+            hasher.putString(linkType, StandardCharsets.UTF_8);
+        }
+
+        // the set of preferred URIs may be large, therefore hashes of individual URIs are combined in an
+        // order-independent way instead of sorting
+        long preferredURIsHash = 0;
+        for (String uri : preferredURIs) {
+            preferredURIsHash += HASH_FUNCTION.hashString(uri, StandardCharsets.UTF_8).asLong();
+        }
+        hasher.putInt(preferredURIs.size());
+        hasher.putLong(preferredURIsHash);
+
+        return hasher.hash().asLong();
+    }
+
+    private static void putNullableString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length());
+            hasher.putString(value, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.urimapping;
+
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.AbstractInternedUriMappingIterable;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.CompactUriMappingIterableImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Read-only URI mapping reloaded from a snapshot file saved by {@link #save(AbstractInternedUriMappingIterable, Set, long, File)}.
+ * The snapshot contains the interned URIs (encoded in UTF-8), the canonical URI of each URI,
+ * flags of preferred canonical URIs and a hash table for lookup of URIs, so that the mapping
+ * is memory-mapped as it is and no owl:sameAs links need to be resolved when it is reloaded.
+ *
+ * Each snapshot is labeled with a fingerprint of the inputs the mapping was created from;
+ * a snapshot with a different fingerprint is not loaded.
+ * Instances can be shared by multiple threads.
+ */
+public class SnapshotUriMappingIterableImpl extends AbstractInternedUriMappingIterable implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotUriMappingIterableImpl.class);
+
+    private static final long MAGIC = 0x4f44435346545341L; // "ODCSFTSA"
+    /** Version of the snapshot format; version 2 stores the hash table capacity as long. */
+    static final int VERSION = 2;
+    static final int VERSION_POSITION = 8;
+    private static final int HEADER_SIZE = 64;
+    private static final long MIN_TABLE_CAPACITY = 16;
+
+    /** Maximum capacity of the hash table; more slots would not be used by 32-bit hashes. */
+    private static final long MAX_TABLE_CAPACITY = 1L << 32;
+    private static final int INT_BYTES = 4;
+    private static final int LONG_BYTES = 8;
+
+    private static final int MAGIC_POSITION = 0;
+    private static final int URI_COUNT_POSITION = 12;
+    private static final int FINGERPRINT_POSITION = 16;
+    private static final int TABLE_CAPACITY_POSITION = 24;
+    private static final int URI_BYTES_LENGTH_POSITION = 32;
+
+    private final GrowableMappedFile file;
+    private final int uriCount;
+    private final long tableCapacity;
+    private final Layout layout;
+
+    private SnapshotUriMappingIterableImpl(GrowableMappedFile file, int uriCount, long tableCapacity) {
+        super(Collections.<String>emptySet());
+        this.file = file;
+        this.uriCount = uriCount;
+        this.tableCapacity = tableCapacity;
+        this.layout = new Layout(uriCount, tableCapacity);
+    }
+
+    /**
+     * Saves a resolved URI mapping to a snapshot file.
+     * The snapshot is written to a temporary file first which then replaces the target file,
+     * so that an interrupted run never leaves a partially written snapshot behind.
+     * @param uriMapping URI mapping to save
+     * @param preferredURIs set of URIs preferred as canonical URIs the mapping was created with
+     * @param fingerprint fingerprint of the inputs the mapping was created from
+     * @param snapshotFile target file
+     * @throws IOException I/O error
+     */
+    public static void save(AbstractInternedUriMappingIterable uriMapping, Set<String> preferredURIs, long fingerprint, File snapshotFile)
+            throws IOException {
+        File directory = snapshotFile.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        long startTime = System.currentTimeMillis();
+        int uriCount = uriMapping.getUriCount();
+        long tableCapacity = getTableCapacity(uriCount);
+        Layout layout = new Layout(uriCount, tableCapacity);
+        long uriBytesLength = 0;
+        try {
+            GrowableMappedFile mappedFile = new GrowableMappedFile(tempFile);
+            try {
+                long tableMask = tableCapacity - 1;
+                for (int id = 0; id < uriCount; id++) {
+                    String uri = uriMapping.getUri(id);
+                    byte[] encodedUri = uri.getBytes(StandardCharsets.UTF_8);
+                    int hash = CompactUriMappingIterableImpl.hash(uri);
+                    mappedFile.put(layout.uriBytesStart + uriBytesLength, encodedUri);
+                    uriBytesLength += encodedUri.length;
+                    mappedFile.putLong(layout.uriEndOffsetsStart + (long) id * LONG_BYTES, uriBytesLength);
+                    mappedFile.putInt(layout.canonicalIdsStart + (long) id * INT_BYTES, uriMapping.getCanonicalId(id));
+                    mappedFile.putInt(layout.hashesStart + (long) id * INT_BYTES, hash);
+
+                    long slot = getInitialSlot(hash, tableMask);
+                    while (mappedFile.getInt(layout.tableStart + slot * INT_BYTES) != 0) {
+                        slot = (slot + 1) & tableMask;
+                    }
+                    mappedFile.putInt(layout.tableStart + slot * INT_BYTES, id + 1);
+
+                    if (preferredURIs.contains(uri)) {
+                        long flagsPosition = layout.preferredFlagsStart + (long) (id >>> 6) * LONG_BYTES;
+                        mappedFile.putLong(flagsPosition, mappedFile.getLong(flagsPosition) | (1L << (id & 63)));
+                    }
+                }
+
+                // header is written last so that incomplete snapshots are never recognized
+                mappedFile.putInt(VERSION_POSITION, VERSION);
+                mappedFile.putInt(URI_COUNT_POSITION, uriCount);
+                mappedFile.putLong(FINGERPRINT_POSITION, fingerprint);
+                mappedFile.putLong(TABLE_CAPACITY_POSITION, tableCapacity);
+                mappedFile.putLong(URI_BYTES_LENGTH_POSITION, uriBytesLength);
+                mappedFile.putLong(MAGIC_POSITION, MAGIC);
+            } finally {
+                mappedFile.close();
+            }
+            truncate(tempFile, layout.uriBytesStart + uriBytesLength);
+            try {
+                Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            tempFile.delete();
+            throw e;
+        }
+        LOG.info(String.format("Saved snapshot of owl:sameAs mapping with %,d URIs to %s in %,d ms",
+                uriCount, snapshotFile.getPath(), System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * Loads URI mapping from a snapshot file.
+     * The file is memory-mapped, so that the mapping is available immediately and its parts are loaded
+     * to memory by the operating system only as needed.
+     * @param snapshotFile snapshot file
+     * @param fingerprint expected fingerprint of the inputs the mapping was created from
+     * @return the loaded mapping or null if the file does not exist, is not a valid snapshot,
+     *      or its fingerprint doesn't match
+     * @throws IOException I/O error
+     */
+    public static SnapshotUriMappingIterableImpl load(File snapshotFile, long fingerprint) throws IOException {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        if (snapshotFile.length() < HEADER_SIZE) {
+            LOG.info("Ignoring invalid snapshot of owl:sameAs mapping {}", snapshotFile.getPath());
+            return null;
+        }
+        GrowableMappedFile mappedFile = new GrowableMappedFile(snapshotFile, true);
+        try {
+            if (mappedFile.getLong(MAGIC_POSITION) != MAGIC || mappedFile.getInt(VERSION_POSITION) != VERSION) {
+                LOG.info("Ignoring invalid snapshot of owl:sameAs mapping {}", snapshotFile.getPath());
+                mappedFile.close();
+                return null;
+            }
+            if (mappedFile.getLong(FINGERPRINT_POSITION) != fingerprint) {
+                LOG.info("Ignoring outdated snapshot of owl:sameAs mapping {}", snapshotFile.getPath());
+                mappedFile.close();
+                return null;
+            }
+            int uriCount = mappedFile.getInt(URI_COUNT_POSITION);
+            long tableCapacity = mappedFile.getLong(TABLE_CAPACITY_POSITION);
+            long uriBytesLength = mappedFile.getLong(URI_BYTES_LENGTH_POSITION);
+            boolean isValidTable = tableCapacity >= MIN_TABLE_CAPACITY && tableCapacity <= MAX_TABLE_CAPACITY
+                    && Long.bitCount(tableCapacity) == 1;
+            if (uriCount < 0 || !isValidTable || uriBytesLength < 0
+                    || snapshotFile.length() < new Layout(uriCount, tableCapacity).uriBytesStart + uriBytesLength) {
+                LOG.info("Ignoring truncated snapshot of owl:sameAs mapping {}", snapshotFile.getPath());
+                mappedFile.close();
+                return null;
+            }
+            LOG.info(String.format("Loaded snapshot of owl:sameAs mapping with %,d URIs from %s", uriCount, snapshotFile.getPath()));
+            return new SnapshotUriMappingIterableImpl(mappedFile, uriCount, tableCapacity);
+        } catch (RuntimeException e) {
+            mappedFile.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int find(String uri) {
+        byte[] encodedUri = uri.getBytes(StandardCharsets.UTF_8);
+        int hash = CompactUriMappingIterableImpl.hash(uri);
+        long mask = tableCapacity - 1;
+        long slot = getInitialSlot(hash, mask);
+        int value;
+        while ((value = file.getInt(layout.tableStart + slot * INT_BYTES)) != 0) {
+            int id = value - 1;
+            if (file.getInt(layout.hashesStart + (long) id * INT_BYTES) == hash
+                    && Arrays.equals(getEncodedUri(id), encodedUri)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_ID;
+    }
+
+    @Override
+    public String getUri(int id) {
+        return new String(getEncodedUri(id), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getUriCount() {
+        return uriCount;
+    }
+
+    @Override
+    public int getCanonicalId(int id) {
+        return file.getInt(layout.canonicalIdsStart + (long) id * INT_BYTES);
+    }
+
+    @Override
+    protected boolean isPreferredURI(String uri) {
+        int id = find(uri);
+        return id != NO_ID
+                && (file.getLong(layout.preferredFlagsStart + (long) (id >>> 6) * LONG_BYTES) & (1L << (id & 63))) != 0;
+    }
+
+    /**
+     * Closes the snapshot file. The file itself is kept for later runs.
+     * @throws IOException I/O error
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private byte[] getEncodedUri(int id) {
+        long start = id == 0 ? 0 : file.getLong(layout.uriEndOffsetsStart + (long) (id - 1) * LONG_BYTES);
+        long end = file.getLong(layout.uriEndOffsetsStart + (long) id * LONG_BYTES);
+        byte[] result = new byte[(int) (end - start)];
+        file.get(layout.uriBytesStart + start, result);
+        return result;
+    }
+
+    private static long getTableCapacity(int uriCount) {
+        long requiredCapacity = 2L * uriCount;
+        long capacity = MIN_TABLE_CAPACITY;
+        while (capacity < requiredCapacity) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the first slot to probe for the given hash; the hash is treated as unsigned
+     * so that all its bits are used in tables with more than 2^31 slots.
+     */
+    private static long getInitialSlot(int hash, long mask) {
+        return (hash & 0xFFFFFFFFL) & mask;
+    }
+
+    private static void truncate(File file, long length) {
+        // mapped files are extended by whole segments; the file may be truncated only after unmapping on some platforms
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(length);
+        } catch (IOException e) {
+            LOG.debug("Cannot truncate snapshot of owl:sameAs mapping {}, the snapshot remains valid", file.getPath());
+        }
+    }
+
+    /**
+     * Positions of sections in the snapshot file; all sections are aligned to 8 bytes.
+     */
+    private static class Layout {
+        final long canonicalIdsStart;
+        final long hashesStart;
+        final long preferredFlagsStart;
+        final long uriEndOffsetsStart;
+        final long tableStart;
+        final long uriBytesStart;
+
+        Layout(int uriCount, long tableCapacity) {
+            canonicalIdsStart = HEADER_SIZE;
+            hashesStart = align(canonicalIdsStart + (long) uriCount * INT_BYTES);
+            preferredFlagsStart = align(hashesStart + (long) uriCount * INT_BYTES);
+            uriEndOffsetsStart = preferredFlagsStart + ((uriCount + 63L) >>> 6) * LONG_BYTES;
+            tableStart = uriEndOffsetsStart + (long) uriCount * LONG_BYTES;
+            uriBytesStart = align(tableStart + tableCapacity * INT_BYTES);
+        }
+
+        private static long align(long position) {
+            return (position + LONG_BYTES - 1) & ~(LONG_BYTES - 1L);
+        }
+    }
+}
@@ -1,18 +1,36 @@
 package cz.cuni.mff.odcleanstore.fusiontool.loaders;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import cz.cuni.mff.odcleanstore.conflictresolution.ResolvedStatement;
+import cz.cuni.mff.odcleanstore.fusiontool.config.LDFTConfigConstants;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.ResourceDescription;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.impl.ResourceDescriptionImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.MutableUriMapping;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingIterable;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolApplicationException;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolErrorCodes;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.NTupleMergeTransformException;
 import cz.cuni.mff.odcleanstore.fusiontool.io.ExternalSorter;
-import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesFileMerger;
-import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesParser;
-import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesParserUtils;
-import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.TempDirectories;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.BinaryStatementReader;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.BinaryStatementWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.DictionaryEncodingTupleWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleFileMerger;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleBuffer;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleFirstIdAndLengthComparator;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleIterator;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleLengthFilteringIterator;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleReader;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleSink;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.MapdbTermDictionary;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.MergedIdTupleIterator;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.TermDictionary;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.MergedRecordIterator;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.SparseBlockIndex;
+import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.TupleWriter;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.data.AllTriplesLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.extsort.AtributeIndexFileNTuplesWriter;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.extsort.DataFileAndAttributeIndexFileMerger;
@@ -24,19 +42,24 @@ import org.openrdf.model.*;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.rio.ParserConfig;
 import org.openrdf.rio.RDFHandler;
-import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.helpers.RDFHandlerBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.charset.Charset;
 import java.util.*;
-import java.util.zip.Deflater;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
 
 /**
  * Input loader performing an external sort on the input quads in order
@@ -45,42 +68,53 @@ import static com.google.common.base.Preconditions.checkState;
  * (3) sorts quads using external sort, (4) iterates over large chunks of the sorted quads.
  * Method {@link #next()} can return descriptions of multiple resources at the same time,
  * however it is guaranteed that all returned descriptions are complete and sorted.
+ * RDF terms are replaced by numeric identifiers from a {@link TermDictionary} in temporary files,
+ * so that sorting and merging works with fixed-width tuples; descriptions are therefore sorted by
+ * the identifier of the canonical resource and terms are decoded only when a description is built.
+ * If all tuples fit within the memory limit, they are sorted and joined in memory and no temporary files
+ * are written (except for the term dictionary); the disk-based processing is used only once the limit is exceeded.
  */
 public class ExternalSortingInputLoader implements InputLoader {
     private static final Logger LOG = LoggerFactory.getLogger(ExternalSortingInputLoader.class);
 
     private static final ValueFactory VF = ValueFactoryImpl.getInstance();
     private static final String TEMP_FILE_PREFIX = "odcs-ft.sort-loader.";
-    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final int DATA_TUPLE_LENGTH = 5;
+    private static final int ATTRIBUTE_INDEX_TUPLE_LENGTH = 2;
 
     /**
-     * Indicates whether to use gzip compression in temporary files.
-     * even though the performance is a little worse.
-     * Set to true to save spaces when deployed e.g. as a DPU running as part of ODCS/UnifiedViews framework.
+     * Maximum amount of memory occupied by tuples buffered in memory regardless of the memory limit (4 GB).
      */
-    public static final boolean USE_GZIP = true;
+    private static final long MAX_IN_MEMORY_TUPLES_SIZE = 4L * 1024 * LDFusionToolUtils.MB_BYTES;
 
     /**
-     * Buffer size for gzip compression.
+     * Maximum amount of memory occupied by terms of the term dictionary kept in memory regardless of the memory limit (2 GB);
+     * at most half of the memory limit is used for terms, the remaining terms are stored in a temporary file.
+     * Memory reserved for terms is subtracted from the memory limit for buffering and sorting of tuples.
      */
-    static final int GZIP_BUFFER_SIZE = 2048;
+    private static final long MAX_IN_MEMORY_TERMS_SIZE = 2L * 1024 * LDFusionToolUtils.MB_BYTES;
 
     private final Collection<AllTriplesLoader> dataSources;
-    private final File cacheDirectory;
+    private final TempDirectories tempDirectories;
     private final Long maxMemoryLimit;
-    private final ParserConfig parserConfig;
+    private final long termDictionaryMemoryLimit;
+    private final long tupleMemoryLimit;
     private final ExternalSorter externalSorter;
+    private final int dataSourceThreadCount;
+    private final TempFileCodec tempFileCodec;
     private final Set<URI> canonicalResourceDescriptionProperties = new HashSet<>();
     private final Set<URI> _resourceDescriptionProperties;
 
-    private NTuplesParser dataFileIterator;
-    private NTuplesParser mergedAttributeFileIterator;
-    private final Collection<File> temporaryFiles = new ArrayList<File>();
+    private TermDictionary dictionary;
+    private IdTupleIterator dataFileIterator;
+    private IdTupleIterator mergedAttributeFileIterator;
+    // temporary files are created also by threads loading data sources in parallel
+    private final List<File> temporaryFiles = Collections.synchronizedList(new ArrayList<File>());
 
     /**
      * @param dataSources initialized {@link cz.cuni.mff.odcleanstore.fusiontool.loaders.data.AllTriplesLoader} loaders
      * @param cacheDirectory directory for temporary files
-     * @param parserConfig RDF parser configuration
+     * @param parserConfig RDF parser configuration (not used for temporary files which are stored in a binary format)
      * @param maxMemoryLimit maximum memory amount to use for large operations;
 * if the limit is too high, it may cause OutOfMemory exceptions
      */
@@ -90,16 +124,66 @@ public class ExternalSortingInputLoader implements InputLoader {
             File cacheDirectory,
             ParserConfig parserConfig,
             long maxMemoryLimit) {
+        this(dataSources, resourceDescriptionProperties, cacheDirectory, parserConfig, maxMemoryLimit,
+                LDFTConfigConstants.DEFAULT_SORT_THREAD_COUNT,
+                LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION.createCodec(LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION_LEVEL, null));
+    }
+
+    /**
+     * @param dataSources initialized {@link cz.cuni.mff.odcleanstore.fusiontool.loaders.data.AllTriplesLoader} loaders
+     * @param cacheDirectory directory for temporary files
+     * @param parserConfig RDF parser configuration (not used for temporary files which are stored in a binary format)
+     * @param maxMemoryLimit maximum memory amount to use for large operations;
+* if the limit is too high, it may cause OutOfMemory exceptions
+     * @param sortThreadCount number of threads sorting blocks of temporary files in parallel
+     * @param tempFileCodec codec used to encode (compress) temporary files
+     */
+    public ExternalSortingInputLoader(
+            Collection<AllTriplesLoader> dataSources,
+            Set<URI> resourceDescriptionProperties,
+            File cacheDirectory,
+            ParserConfig parserConfig,
+            long maxMemoryLimit,
+            int sortThreadCount,
+            TempFileCodec tempFileCodec) {
+        this(dataSources, resourceDescriptionProperties, new TempDirectories(cacheDirectory), parserConfig, maxMemoryLimit,
+                sortThreadCount, LDFTConfigConstants.DEFAULT_DATA_SOURCE_THREAD_COUNT, tempFileCodec);
+    }
+
+    /**
+     * @param dataSources initialized {@link cz.cuni.mff.odcleanstore.fusiontool.loaders.data.AllTriplesLoader} loaders
+     * @param tempDirectories directories for temporary files; temporary files are spread across them
+     * @param parserConfig RDF parser configuration (not used for temporary files which are stored in a binary format)
+     * @param maxMemoryLimit maximum memory amount to use for large operations;
+     * if the limit is too high, it may cause OutOfMemory exceptions
+     * @param sortThreadCount number of threads sorting blocks of temporary files in parallel
+     * @param dataSourceThreadCount number of threads loading data sources in parallel
+     * @param tempFileCodec codec used to encode (compress) temporary files
+     */
+    public ExternalSortingInputLoader(
+            Collection<AllTriplesLoader> dataSources,
+            Set<URI> resourceDescriptionProperties,
+            TempDirectories tempDirectories,
+            ParserConfig parserConfig,
+            long maxMemoryLimit,
+            int sortThreadCount,
+            int dataSourceThreadCount,
+            TempFileCodec tempFileCodec) {
 
         checkNotNull(dataSources);
-        checkNotNull(cacheDirectory);
+        checkNotNull(tempDirectories);
         checkNotNull(resourceDescriptionProperties);
+        checkNotNull(tempFileCodec);
         this.dataSources = dataSources;
         this._resourceDescriptionProperties = resourceDescriptionProperties;
         this.maxMemoryLimit = maxMemoryLimit;
-        this.cacheDirectory = cacheDirectory;
-        this.parserConfig = parserConfig;
-        this.externalSorter = new ExternalSorter(getSortComparator(), cacheDirectory, USE_GZIP, maxMemoryLimit);
+        this.termDictionaryMemoryLimit = Math.min(maxMemoryLimit / 2, MAX_IN_MEMORY_TERMS_SIZE);
+        this.tupleMemoryLimit = maxMemoryLimit - termDictionaryMemoryLimit;
+        this.tempDirectories = tempDirectories;
+        this.dataSourceThreadCount = dataSourceThreadCount;
+        this.tempFileCodec = tempFileCodec;
+        this.externalSorter = new ExternalSorter(getSortComparator(), tempDirectories, tempFileCodec, tupleMemoryLimit, sortThreadCount,
+                ExternalSorter.DEFAULT_MAX_MERGE_FAN_IN);
     }
 
     @Override
@@ -117,29 +201,30 @@ public class ExternalSortingInputLoader implements InputLoader {
         }
 
         try {
-            // Will contain c(S) S P O G for input quads (S,P,O,G)
-            // c(x) means canonical version of x
-            File dataFile = createTempFile();
-            // Will contain c(O) c(S) for input quads (S,P,O,G) such that P is a resource description URI and O is a {@link org.openrdf.model.Resource}
-            File attributeIndexFile = createTempFile();
-
-            copyInputsToTempFiles(dataSources, uriMapping, dataFile, attributeIndexFile);
-
-            File sortedDataFile = sortAndDeleteFile(dataFile);
-            File sortedAttributeIndexFile = sortAndDeleteFile(attributeIndexFile);
-
-            // Will contain c(E) S P O G for input quads (E,P',S,G') (S,P,O,G) such that P' is a resource description URI
-            File mergedAttributeFile = createTempFile();
-            NTuplesFileMerger fileMerger = new NTuplesFileMerger(new DataFileAndAttributeIndexFileMerger(), parserConfig);
-            fileMerger.merge(
-                    createTempFileReader(sortedDataFile),
-                    createTempFileReader(sortedAttributeIndexFile),
-                    createTempFileWriter(mergedAttributeFile));
-            sortedAttributeIndexFile.delete();
-            File sortedMergedAttributeFile = sortAndDeleteFile(mergedAttributeFile); // TODO: test
-
-            dataFileIterator = createParserIteratorFromSortedFile(sortedDataFile);
-            mergedAttributeFileIterator = createParserIteratorFromSortedFile(sortedMergedAttributeFile);
+            dictionary = new MapdbTermDictionary(tempDirectories.getDirectoryWithMostSpace(), LDFTConfigConstants.TERM_DICTIONARY_CACHE_SIZE,
+                    termDictionaryMemoryLimit);
+
+            // Each data source is written to its own pair of sinks, see copyInputsToTempFiles()
+            List<SourceSinks> sourceSinks = copyInputsToTempFiles(dataSources, uriMapping);
+
+            if (isAnySpilled(sourceSinks)) {
+                List<File> dataFiles = new ArrayList<>();
+                List<File> attributeIndexFiles = new ArrayList<>();
+                for (SourceSinks sinks : sourceSinks) {
+                    sinks.group.spill();
+                    dataFiles.add(sinks.dataSink.getFile());
+                    attributeIndexFiles.add(sinks.attributeIndexSink.getFile());
+                }
+                initializeFromTempFiles(dataFiles, attributeIndexFiles);
+            } else {
+                IdTupleBuffer dataBuffer = new IdTupleBuffer();
+                IdTupleBuffer attributeIndexBuffer = new IdTupleBuffer();
+                for (SourceSinks sinks : sourceSinks) {
+                    appendAndClose(sinks.dataSink.getBuffer(), dataBuffer);
+                    appendAndClose(sinks.attributeIndexSink.getBuffer(), attributeIndexBuffer);
+                }
+                initializeInMemory(dataBuffer, attributeIndexBuffer);
+            }
 
             LOG.info("Input loader initialization finished");
         } catch (LDFusionToolException e) {
@@ -154,6 +239,72 @@ public class ExternalSortingInputLoader implements InputLoader {
         }
     }
 
+    private void initializeFromTempFiles(List<File> dataFiles, List<File> attributeIndexFiles)
+            throws LDFusionToolException, IOException, NTupleMergeTransformException {
+        if (canonicalResourceDescriptionProperties.isEmpty()) {
+            // No extended descriptions, attribute index files are empty
+            for (File attributeIndexFile : attributeIndexFiles) {
+                attributeIndexFile.delete();
+            }
+            dataFileIterator = createParserIteratorFromSortedFile(sortAndDeleteFiles(dataFiles));
+            mergedAttributeFileIterator = new IdTupleBuffer().iterator();
+            return;
+        }
+
+        // Data and attribute index tuples are sorted together by their first identifier in a single sort;
+        // attribute index tuples c(O) c(S) are shorter and precede data tuples c(S) S P O G of the resource c(O)
+        // in the sorted file
+        List<File> inputFiles = new ArrayList<>(dataFiles);
+        inputFiles.addAll(attributeIndexFiles);
+        File sortedFile = sortAndDeleteFiles(inputFiles);
+
+        // Will contain c(E) S P O G for input quads (E,P',S,G') (S,P,O,G) such that P' is a resource description URI
+        File mergedAttributeFile = createTempFile();
+        IdTupleFileMerger fileMerger = new IdTupleFileMerger(new DataFileAndAttributeIndexFileMerger());
+        fileMerger.mergeGrouped(
+                createIndexedTempFileReader(sortedFile),
+                ATTRIBUTE_INDEX_TUPLE_LENGTH,
+                new IdTupleWriter(createTempFileOutputStream(mergedAttributeFile)));
+
+        // The sorted file is read again for the primary data; merged attributes are read once and merged on the fly
+        dataFileIterator = new IdTupleLengthFilteringIterator(createParserIteratorFromSortedFile(sortedFile), DATA_TUPLE_LENGTH);
+        mergedAttributeFileIterator = sortAndDeleteFilesToIterator(Collections.singletonList(mergedAttributeFile));
+    }
+
+    private void initializeInMemory(IdTupleBuffer dataBuffer, IdTupleBuffer attributeIndexBuffer)
+            throws LDFusionToolException, IOException, NTupleMergeTransformException {
+        LOG.debug("Sorting {} quads in memory", dataBuffer.size());
+        dataBuffer.sortDistinct();
+        attributeIndexBuffer.sortDistinct();
+
+        // Will contain c(E) S P O G for input quads (E,P',S,G') (S,P,O,G) such that P' is a resource description URI
+        SpillableSinkGroup mergedSinks = new SpillableSinkGroup(
+                tupleMemoryLimit - dataBuffer.getMemorySize() - attributeIndexBuffer.getMemorySize());
+        SpillableSink mergedAttributeSink = mergedSinks.createSink();
+        IdTupleFileMerger fileMerger = new IdTupleFileMerger(new DataFileAndAttributeIndexFileMerger());
+        fileMerger.merge(dataBuffer.iterator(), attributeIndexBuffer.iterator(), mergedAttributeSink);
+        attributeIndexBuffer.close();
+
+        if (mergedSinks.isSpilled()) {
+            // Extended descriptions do not fit in memory, continue with temporary files
+            File sortedDataFile = createTempFile();
+            IdTupleWriter dataFileWriter = new IdTupleWriter(createTempFileOutputStream(sortedDataFile));
+            try {
+                dataBuffer.writeTo(dataFileWriter);
+            } finally {
+                dataFileWriter.close();
+                dataBuffer.close();
+            }
+            dataFileIterator = createParserIteratorFromSortedFile(sortedDataFile);
+            mergedAttributeFileIterator = sortAndDeleteFilesToIterator(Collections.singletonList(mergedAttributeSink.getFile()));
+        } else {
+            IdTupleBuffer mergedAttributeBuffer = mergedAttributeSink.getBuffer();
+            mergedAttributeBuffer.sortDistinct();
+            dataFileIterator = dataBuffer.iterator();
+            mergedAttributeFileIterator = mergedAttributeBuffer.iterator();
+        }
+    }
+
     @Override
     public boolean hasNext() throws LDFusionToolException {
         checkState(dataFileIterator != null);
@@ -178,21 +329,22 @@ public class ExternalSortingInputLoader implements InputLoader {
 
             // Read next record from dataFileIterator which represents the primary file
             // - the subject will determine the next cluster
-            List<Value> nextTuple = dataFileIterator.next();
+            long[] nextTuple = dataFileIterator.next();
             Statement firstStatement = createStatement(nextTuple);
-            Resource firstCanonicalSubject = (Resource) nextTuple.get(0);
+            long firstCanonicalSubjectId = nextTuple[0];
+            Resource firstCanonicalSubject = (Resource) dictionary.decode(firstCanonicalSubjectId);
 
             // Add quads for the cluster from primary data file
             describingStatements.add(firstStatement);
-            while (NTuplesParserUtils.hasMatchingRecord(dataFileIterator, firstCanonicalSubject)) {
+            while (dataFileIterator.hasMatchingRecord(firstCanonicalSubjectId)) {
                 describingStatements.add(createStatement(dataFileIterator.next()));
             }
 
             // Add additional quads from other files
             int extendedDescriptionCount = 0;
-            boolean foundMatch = NTuplesParserUtils.skipLessThan(mergedAttributeFileIterator, firstCanonicalSubject, NTuplesParserUtils.VALUE_COMPARATOR);
+            boolean foundMatch = mergedAttributeFileIterator.skipLessThan(firstCanonicalSubjectId);
             if (foundMatch) {
-                while (NTuplesParserUtils.hasMatchingRecord(mergedAttributeFileIterator, firstCanonicalSubject)) {
+                while (mergedAttributeFileIterator.hasMatchingRecord(firstCanonicalSubjectId)) {
                     describingStatements.add(createStatement(mergedAttributeFileIterator.next()));
                     extendedDescriptionCount++;
                 }
@@ -234,99 +386,249 @@ public class ExternalSortingInputLoader implements InputLoader {
                 // ignore
             }
         }
+        if (dictionary != null) {
+            try {
+                dictionary.close();
+                dictionary = null;
+            } catch (IOException e) {
+                LOG.error("Error closing term dictionary in input loader", e);
+            }
+        }
 
         // Delete temporary files
-        for (File temporaryFile : temporaryFiles) {
-            try {
-                if (temporaryFile.exists()) {
-                    temporaryFile.delete();
+        synchronized (temporaryFiles) {
+            for (File temporaryFile : temporaryFiles) {
+                try {
+                    if (temporaryFile.exists()) {
+                        temporaryFile.delete();
+                    }
+                } catch (Exception e) {
+                    LOG.error("Error deleting temporary file " + temporaryFile.getName(), e);
                 }
-            } catch (Exception e) {
-                LOG.error("Error deleting temporary file " + temporaryFile.getName(), e);
             }
+            temporaryFiles.clear();
         }
-        temporaryFiles.clear();
     }
 
     /**
-     * Reads all input quads and outputs them to temporary files.
-     * Data are written to temporary files in the following format:
+     * Reads all input quads and outputs them to temporary files (or memory buffers if they are small enough).
+     * Data are written as the following tuples of identifiers assigned by {@link #dictionary}:
      * <ul>
-     * <li> c(S) S P O G for input quads (S,P,O,G) to {@code dataFile}</li>
-     * <li> c(O) c(S) for input quads (S,P,O,G) such that P is a resource description URI to {@code attributeIndexFile} and O is a {@link org.openrdf.model.Resource}</li>
+     * <li> c(S) S P O G for input quads (S,P,O,G) to the data sink</li>
+     * <li> c(O) c(S) for input quads (S,P,O,G) such that P is a resource description URI to the attribute index sink and O is a {@link org.openrdf.model.Resource}</li>
      * </ul>
      * where c(x) is the canonical version of x.
+     * Each data source is written to its own pair of sinks; if there are multiple data sources and multiple threads
+     * are allowed, they are loaded in parallel.
+     * Terms are always encoded in the order of data sources so that identifiers (and therefore the order of output)
+     * are the same as with sequential loading.
+     * All sinks share the memory limit for tuples, i.e. the memory limit without the share of the term dictionary.
+     * @return sinks with data for each data source
      */
-    private void copyInputsToTempFiles(Collection<AllTriplesLoader> dataSources, UriMappingIterable uriMapping, File dataFile, File attributeIndexFile)
+    private List<SourceSinks> copyInputsToTempFiles(Collection<AllTriplesLoader> dataSources, UriMappingIterable uriMapping)
+            throws LDFusionToolException {
+        AtomicLong bufferedMemorySize = new AtomicLong();
+        List<SourceSinks> result = new ArrayList<>(dataSources.size());
+        for (int i = 0; i < dataSources.size(); i++) {
+            result.add(new SourceSinks(new SpillableSinkGroup(tupleMemoryLimit, bufferedMemorySize)));
+        }
+
+        if (dataSources.size() <= 1 || dataSourceThreadCount <= 1) {
+            int i = 0;
+            for (AllTriplesLoader dataSource : dataSources) {
+                copyInputToTempFiles(dataSource, uriMapping, result.get(i), null, i, new AtomicBoolean(false));
+                i++;
+            }
+        } else {
+            copyInputsToTempFilesInParallel(dataSources, uriMapping, result);
+        }
+        LOG.debug("... encoded {} distinct terms in temporary files", dictionary.size());
+        return result;
+    }
+
+    private void copyInputsToTempFilesInParallel(
+            Collection<AllTriplesLoader> dataSources, final UriMappingIterable uriMapping, List<SourceSinks> sourceSinks)
             throws LDFusionToolException {
-        NTuplesWriter dataFileWriter = null;
-        NTuplesWriter attributeIndexFileWriter = null;
+        // Make sure that URI mapping is not modified while accessed from multiple threads;
+        // it can modify its internal state (path compression) when a URI is mapped
+        if (uriMapping instanceof MutableUriMapping) {
+            ((MutableUriMapping) uriMapping).compressPaths();
+        }
+
+        int threadCount = Math.min(dataSources.size(), dataSourceThreadCount);
+        LOG.info("Loading {} data sources using {} threads", dataSources.size(), threadCount);
+        // Tasks start in the order of data sources, so a task waiting for its turn waits only for tasks already running
+        ExecutorService loaders = Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder()
+                .setNameFormat("input-loader-%d")
+                .setDaemon(true)
+                .build());
+        final AtomicBoolean loadingFailed = new AtomicBoolean(false);
+        final SourceTurns turns = new SourceTurns();
+        List<Future<Void>> pendingSources = new ArrayList<>(dataSources.size());
+        try {
+            int i = 0;
+            for (final AllTriplesLoader dataSource : dataSources) {
+                final SourceSinks sinks = sourceSinks.get(i);
+                final int sourceIndex = i++;
+                pendingSources.add(loaders.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws LDFusionToolException {
+                        copyInputToTempFiles(dataSource, uriMapping, sinks, turns, sourceIndex, loadingFailed);
+                        return null;
+                    }
+                }));
+            }
+        } finally {
+            // all submitted tasks run so that all data sources get closed
+            loaders.shutdown();
+        }
+
+        // Wait for all sources to finish even on error so that no thread writes to sinks after they are cleaned up
+        LDFusionToolException firstException = null;
+        for (Future<Void> pendingSource : pendingSources) {
+            try {
+                getUninterruptibly(pendingSource);
+            } catch (ExecutionException e) {
+                loadingFailed.set(true);
+                if (firstException == null) {
+                    firstException = e.getCause() instanceof LDFusionToolException
+                            ? (LDFusionToolException) e.getCause()
+                            : new LDFusionToolApplicationException(LDFusionToolErrorCodes.INPUT_LOADER_TMP_FILE_INIT,
+                                    "Error while writing quads to temporary file in input loader", e.getCause());
+                }
+            }
+        }
+        if (firstException != null) {
+            throw firstException;
+        }
+    }
+
+    /**
+     * Reads all quads from a single data source and writes them to the given sinks.
+     * The data source is closed afterwards.
+     * If the data source is loaded in parallel with other data sources, quads read before it is the turn
+     * of the data source to encode terms are buffered in a temporary file and encoded once its turn comes.
+     * @param turns turns of data sources loaded in parallel or null if data sources are loaded sequentially
+     * @param sourceIndex index of the data source in the order of data sources
+     * @param loadingFailed flag indicating that loading of another data source failed and this one should be aborted
+     */
+    private void copyInputToTempFiles(AllTriplesLoader dataSource, UriMappingIterable uriMapping, SourceSinks sinks,
+            SourceTurns turns, int sourceIndex, final AtomicBoolean loadingFailed) throws LDFusionToolException {
+        TupleWriter dataFileWriter = null;
+        TupleWriter attributeIndexFileWriter = null;
+        SourceOrderingRDFHandler sourceOrderingHandler = null;
         try {
-            dataFileWriter = new NTuplesWriter(createTempFileWriter(dataFile));
-            attributeIndexFileWriter = new NTuplesWriter(createTempFileWriter(attributeIndexFile));
+            if (loadingFailed.get()) {
+                return;
+            }
+            dataFileWriter = new DictionaryEncodingTupleWriter(sinks.dataSink, dictionary);
+            attributeIndexFileWriter = new DictionaryEncodingTupleWriter(sinks.attributeIndexSink, dictionary);
             RDFHandler tempFilesWriteHandler = new FederatedRDFHandler(
+                    new RDFHandlerBase() {
+                        @Override
+                        public void handleStatement(Statement st) throws RDFHandlerException {
+                            if (loadingFailed.get()) {
+                                throw new RDFHandlerException("Loading aborted because of an error in another data source");
+                            }
+                        }
+                    },
                     new DataFileNTuplesWriter(dataFileWriter, uriMapping),
                     new AtributeIndexFileNTuplesWriter(attributeIndexFileWriter, canonicalResourceDescriptionProperties, uriMapping));
 
+            RDFHandler encodingHandler = tempFilesWriteHandler;
+            if (turns != null) {
+                sourceOrderingHandler = new SourceOrderingRDFHandler(tempFilesWriteHandler, turns, sourceIndex, loadingFailed);
+                encodingHandler = sourceOrderingHandler;
+            }
+
             ExternalSortingInputLoaderPreprocessor inputLoaderPreprocessor = new ExternalSortingInputLoaderPreprocessor(
-                    tempFilesWriteHandler, VF);
+                    encodingHandler, VF);
+            inputLoaderPreprocessor.setDefaultContext(dataSource.getDefaultContext());
 
             tempFilesWriteHandler.startRDF();
-            for (AllTriplesLoader dataSource : dataSources) {
-                try {
-                    inputLoaderPreprocessor.setDefaultContext(dataSource.getDefaultContext());
-                    dataSource.loadAllTriples(inputLoaderPreprocessor);
-                    // TODO: Presort in memory (presort NTuples wrapper) & do not write to disc if small enough?
-                } finally {
-                    dataSource.close();
-                }
+            dataSource.loadAllTriples(inputLoaderPreprocessor);
+            if (sourceOrderingHandler != null && !sourceOrderingHandler.awaitTurn()) {
+                return;
             }
             tempFilesWriteHandler.endRDF();
         } catch (Exception e) {
+            loadingFailed.set(true);
             throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.INPUT_LOADER_TMP_FILE_INIT,
                     "Error while writing quads to temporary file in input loader", e);
         } finally {
             tryCloseWriter(dataFileWriter);
             tryCloseWriter(attributeIndexFileWriter);
+            if (sourceOrderingHandler != null) {
+                sourceOrderingHandler.close();
+            }
+            if (turns != null) {
+                turns.finishTurn(sourceIndex);
+            }
+            closeDataSource(dataSource);
+        }
+    }
+
+    private static void closeDataSource(AllTriplesLoader dataSource) {
+        try {
+            dataSource.close();
+        } catch (LDFusionToolException e) {
+            LOG.error("Error closing data source", e);
         }
     }
 
-    private Statement createStatement(List<Value> tuple) throws LDFusionToolException {
-        if (tuple == null || tuple.size() < 4) {
+    private static boolean isAnySpilled(List<SourceSinks> sourceSinks) {
+        for (SourceSinks sinks : sourceSinks) {
+            if (sinks.group.isSpilled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendAndClose(IdTupleBuffer source, IdTupleBuffer target) {
+        target.addAll(source);
+        source.close();
+    }
+
+    private Statement createStatement(long[] tuple) throws LDFusionToolException, IOException {
+        if (tuple == null || tuple.length < 4) {
             throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.INVALID_TMP_FILE_FORMAT_TUPLE,
-                    "Invalid format of temporary file, expected statement but found: " + tuple);
+                    "Invalid format of temporary file, expected statement but found: " + Arrays.toString(tuple));
         }
-        int size = tuple.size();
+        int size = tuple.length;
+        // Take the last four elements from the tuple
+        Value subject = dictionary.decode(tuple[size - 4]);
+        Value predicate = dictionary.decode(tuple[size - 3]);
+        Value object = dictionary.decode(tuple[size - 2]);
+        Value context = dictionary.decode(tuple[size - 1]);
         try {
-            // Take the last four elements from the tuple
-            return VF.createStatement(
-                    (Resource) tuple.get(size - 4),
-                    (URI) tuple.get(size - 3),
-                    tuple.get(size - 2),
-                    (Resource) tuple.get(size - 1));
+            return VF.createStatement((Resource) subject, (URI) predicate, object, (Resource) context);
         } catch (ClassCastException e) {
             String message = "Invalid format of temporary file, expected statement but found: "
-                    + tuple.subList(tuple.size() - 4, tuple.size());
+                    + Arrays.asList(subject, predicate, object, context);
             throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.INVALID_TMP_FILE_FORMAT, message);
         }
     }
 
-    private File sortAndDeleteFile(File inputFile) throws LDFusionToolException {
-        File sortedFile = sortFile(inputFile);
-        inputFile.delete();
+    private File sortAndDeleteFiles(List<File> inputFiles) throws LDFusionToolException {
+        File sortedFile = sortFiles(inputFiles);
+        for (File inputFile : inputFiles) {
+            inputFile.delete();
+        }
         return sortedFile;
     }
 
-    private File sortFile(File inputFile) throws LDFusionToolException {
-        // External sort the temporary file
+    private File sortFiles(List<File> inputFiles) throws LDFusionToolException {
+        // External sort the temporary files together
         LOG.debug("Sorting temporary file");
         try {
             long startTime = System.currentTimeMillis();
+            long inputSize = getTotalLength(inputFiles);
+            // sorted blocks and the sorted output file are written while the input files still exist
+            checkTempFileSpace(2 * inputSize);
             File sortedFile = createTempFile();
-            BufferedReader reader = createTempFileReader(inputFile);
-            BufferedWriter writer = createTempFileWriter(sortedFile);
-
-            externalSorter.sort(reader, inputFile.length(), writer);
+            temporaryFiles.add(SparseBlockIndex.getIndexFile(sortedFile));
+            externalSorter.sortToIndexedFile(createTempFileInputStreams(inputFiles), inputSize, sortedFile);
             LOG.debug("Sorting finished in {}", LDFusionToolUtils.formatTime(System.currentTimeMillis() - startTime));
             return sortedFile;
         } catch (IOException e) {
@@ -335,47 +637,99 @@ public class ExternalSortingInputLoader implements InputLoader {
         }
     }
 
-    private static Comparator<String> getSortComparator() {
-        return SortComparator.INSTANCE;
+    private IdTupleIterator sortAndDeleteFilesToIterator(List<File> inputFiles) throws LDFusionToolException {
+        // External sort the temporary files together, the final merge is done lazily while reading
+        LOG.debug("Sorting temporary file");
+        try {
+            long startTime = System.currentTimeMillis();
+            long inputSize = getTotalLength(inputFiles);
+            // only sorted blocks are written, the final merge is not
+            checkTempFileSpace(inputSize);
+            MergedRecordIterator mergedRecords = externalSorter.sortToIterator(createTempFileInputStreams(inputFiles), inputSize);
+            LOG.debug("Sorting finished in {}", LDFusionToolUtils.formatTime(System.currentTimeMillis() - startTime));
+            return new MergedIdTupleIterator(mergedRecords);
+        } catch (IOException e) {
+            throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.INPUT_LOADER_SORT,
+                    "Error while sorting quads in input loader", e);
+        } finally {
+            for (File inputFile : inputFiles) {
+                inputFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Checks that there is enough space for temporary files before an expensive sort is started.
+     * @param requiredSpace estimated space needed for temporary files in bytes
+     * @throws LDFusionToolException there is not enough usable space in the directories for temporary files
+     * @throws IOException error reading available space
+     */
+    private void checkTempFileSpace(long requiredSpace) throws LDFusionToolException, IOException {
+        long usableSpace = tempDirectories.getTotalUsableSpace();
+        if (usableSpace < requiredSpace) {
+            throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.INPUT_LOADER_TMP_FILE_SPACE,
+                    String.format("Not enough space for temporary files in %s: %,.2f MB required, %,.2f MB available",
+                            tempDirectories,
+                            requiredSpace / (double) LDFusionToolUtils.MB_BYTES,
+                            usableSpace / (double) LDFusionToolUtils.MB_BYTES));
+        }
+    }
+
+    private List<InputStream> createTempFileInputStreams(List<File> files) throws IOException {
+        List<InputStream> inputStreams = new ArrayList<>(files.size());
+        try {
+            for (File file : files) {
+                inputStreams.add(createTempFileInputStream(file));
+            }
+        } catch (IOException e) {
+            for (InputStream inputStream : inputStreams) {
+                inputStream.close();
+            }
+            throw e;
+        }
+        return inputStreams;
+    }
+
+    private static long getTotalLength(List<File> files) {
+        long totalLength = 0;
+        for (File file : files) {
+            totalLength += file.length();
+        }
+        return totalLength;
+    }
+
+    private static Comparator<byte[]> getSortComparator() {
+        return IdTupleFirstIdAndLengthComparator.INSTANCE;
     }
 
     private File createTempFile() throws IOException {
-        File tempFile = LDFusionToolUtils.createTempFile(cacheDirectory, TEMP_FILE_PREFIX);
+        File tempFile = tempDirectories.createTempFile(TEMP_FILE_PREFIX);
         temporaryFiles.add(tempFile); // register it so that we don't forget to delete it
         return tempFile;
     }
 
-    private static BufferedReader createTempFileReader(File file) throws IOException {
-        InputStream inputStream = new FileInputStream(file);
-        if (USE_GZIP) {
-            inputStream = new GZIPInputStream(inputStream, GZIP_BUFFER_SIZE);
-        }
-        // BOMInputStream ?
-        return new BufferedReader(new InputStreamReader(inputStream, CHARSET));
+    private InputStream createTempFileInputStream(File file) throws IOException {
+        return tempFileCodec.createInputStream(new FileInputStream(file));
     }
 
-    private static BufferedWriter createTempFileWriter(File file) throws IOException {
-        OutputStream outputStream = new FileOutputStream(file);
-        if (USE_GZIP) {
-            outputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE) {
-                {
-                    this.def.setLevel(Deflater.BEST_SPEED);
-                }
-            };
-        }
-        return new BufferedWriter(new OutputStreamWriter(outputStream, CHARSET));
+    private OutputStream createTempFileOutputStream(File file) throws IOException {
+        return tempFileCodec.createOutputStream(new FileOutputStream(file));
     }
 
-    private NTuplesParser createParserIteratorFromSortedFile(File sortedTempFile) throws LDFusionToolException {
+    private IdTupleReader createIndexedTempFileReader(File file) throws IOException {
+        return new IdTupleReader(file, tempFileCodec, SparseBlockIndex.readIndex(file));
+    }
+
+    private IdTupleIterator createParserIteratorFromSortedFile(File sortedTempFile) throws LDFusionToolException {
         try {
-            return new NTuplesParser(createTempFileReader(sortedTempFile), parserConfig);
+            return createIndexedTempFileReader(sortedTempFile);
         } catch (IOException e) {
             throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.INPUT_LOADER_PARSE_TEMP_FILE,
                     "Error while initializing temporary file reader in input loader", e);
         }
     }
 
-    private void tryCloseWriter(NTuplesWriter writer) {
+    private void tryCloseWriter(TupleWriter writer) {
         if (writer != null) {
             try {
                 writer.close();
@@ -393,18 +747,270 @@ public class ExternalSortingInputLoader implements InputLoader {
         }
     }
 
-    private static class SortComparator implements Comparator<String> {
-        public static final SortComparator INSTANCE = new SortComparator();
+    /**
+     * Group of tuple sinks buffering tuples in memory until the total size of their buffers exceeds the memory limit.
+     * Then all buffers of the group are written to temporary files and following tuples are written directly to the files.
+     */
+    private final class SpillableSinkGroup {
+        private final long memoryLimit;
+        private final AtomicLong totalMemorySize;
+        private final List<SpillableSink> sinks = new ArrayList<>();
+        private long memorySize = 0;
+        private boolean isSpilled = false;
+
+        SpillableSinkGroup(long memoryLimit) {
+            this(memoryLimit, new AtomicLong());
+        }
+
+        /**
+         * @param memoryLimit memory limit for all groups sharing {@code totalMemorySize}
+         * @param totalMemorySize memory occupied by buffers of all groups sharing the limit
+         */
+        SpillableSinkGroup(long memoryLimit, AtomicLong totalMemorySize) {
+            this.memoryLimit = Math.min(memoryLimit, MAX_IN_MEMORY_TUPLES_SIZE);
+            this.totalMemorySize = totalMemorySize;
+        }
+
+        SpillableSink createSink() {
+            SpillableSink sink = new SpillableSink(this);
+            sinks.add(sink);
+            return sink;
+        }
+
+        boolean isSpilled() {
+            return isSpilled;
+        }
+
+        void checkMemoryLimit() throws IOException {
+            long newMemorySize = 0;
+            for (SpillableSink sink : sinks) {
+                newMemorySize += sink.getBuffer().getMemorySize();
+            }
+            long newTotalMemorySize = totalMemorySize.addAndGet(newMemorySize - memorySize);
+            memorySize = newMemorySize;
+            if (newTotalMemorySize > memoryLimit) {
+                LOG.debug("Data exceed memory limit, using temporary files");
+                spill();
+            }
+        }
+
+        void spill() throws IOException {
+            if (isSpilled) {
+                return;
+            }
+            isSpilled = true;
+            for (SpillableSink sink : sinks) {
+                sink.spill();
+            }
+            totalMemorySize.addAndGet(-memorySize);
+            memorySize = 0;
+        }
+    }
+
+    /**
+     * Tuple sink writing to an in-memory buffer or, once its group exceeds the memory limit, to a temporary file.
+     */
+    private final class SpillableSink implements IdTupleSink {
+        private final SpillableSinkGroup group;
+        private IdTupleBuffer buffer = new IdTupleBuffer();
+        private File file;
+        private IdTupleWriter fileWriter;
+        private boolean isClosed = false;
+
+        SpillableSink(SpillableSinkGroup group) {
+            this.group = group;
+        }
+
+        @Override
+        public void writeTuple(long... ids) throws IOException {
+            if (fileWriter != null) {
+                fileWriter.writeTuple(ids);
+            } else {
+                buffer.writeTuple(ids);
+                group.checkMemoryLimit();
+            }
+        }
+
+        IdTupleBuffer getBuffer() {
+            return buffer;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        void spill() throws IOException {
+            file = createTempFile();
+            fileWriter = new IdTupleWriter(createTempFileOutputStream(file));
+            buffer.writeTo(fileWriter);
+            buffer.close();
+            if (isClosed) {
+                fileWriter.close();
+            }
+        }
 
         @Override
-        public int compare(String r1, String r2) {
+        public void close() throws IOException {
+            isClosed = true;
+            if (fileWriter != null) {
+                fileWriter.close();
+            }
+        }
+    }
+
+    /**
+     * Turns of data sources loaded in parallel to encode their terms with the shared {@link #dictionary}.
+     * Data sources take turns in their order so that terms are assigned the same identifiers as with sequential loading.
+     */
+    private static final class SourceTurns {
+        private volatile int currentSource = 0;
+
+        boolean isTurnOf(int sourceIndex) {
+            return currentSource == sourceIndex;
+        }
+
+        /**
+         * Waits until it is the turn of the given data source or loading of any data source fails.
+         * @return true if it is the turn of the given data source, false if loading failed
+         */
+        synchronized boolean awaitTurn(int sourceIndex, AtomicBoolean loadingFailed) throws InterruptedException {
+            while (currentSource != sourceIndex && !loadingFailed.get()) {
+                wait();
+            }
+            return currentSource == sourceIndex && !loadingFailed.get();
+        }
+
+        /**
+         * Passes the turn to the next data source if the given data source has it, and wakes up waiting data sources
+         * so that they can also notice a failure.
+         */
+        synchronized void finishTurn(int sourceIndex) {
+            if (currentSource == sourceIndex) {
+                currentSource++;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * RDF handler passing statements of a data source loaded in parallel to the encoding handler when it is
+     * the turn of the data source according to {@link SourceTurns}; until then, statements are buffered in a temporary file.
+     * Statements are passed to the encoding handler in the same order as they are read.
+     */
+    private final class SourceOrderingRDFHandler extends RDFHandlerBase {
+        private final RDFHandler encodingHandler;
+        private final SourceTurns turns;
+        private final int sourceIndex;
+        private final AtomicBoolean loadingFailed;
+        private boolean hasTurn = false;
+        private File bufferFile;
+        private BinaryStatementWriter bufferWriter;
+
+        SourceOrderingRDFHandler(RDFHandler encodingHandler, SourceTurns turns, int sourceIndex, AtomicBoolean loadingFailed) {
+            this.encodingHandler = encodingHandler;
+            this.turns = turns;
+            this.sourceIndex = sourceIndex;
+            this.loadingFailed = loadingFailed;
+        }
+
+        @Override
+        public void handleStatement(Statement statement) throws RDFHandlerException {
+            if (!hasTurn && turns.isTurnOf(sourceIndex)) {
+                takeTurn();
+            }
+            if (hasTurn) {
+                encodingHandler.handleStatement(statement);
+                return;
+            }
+            if (loadingFailed.get()) {
+                throw new RDFHandlerException("Loading aborted because of an error in another data source");
+            }
             try {
-                Resource resource1 = NTuplesParserUtils.parseValidResource(r1);
-                Resource resource2 = NTuplesParserUtils.parseValidResource(r2);
-                return NTuplesParserUtils.VALUE_COMPARATOR.compare(resource1, resource2);
-            } catch (RDFParseException e) {
-                throw new RuntimeException(e);
+                if (bufferWriter == null) {
+                    bufferFile = createTempFile();
+                    bufferWriter = new BinaryStatementWriter(createTempFileOutputStream(bufferFile));
+                }
+                bufferWriter.write(statement);
+            } catch (IOException e) {
+                throw new RDFHandlerException("Error while buffering quads in temporary file", e);
             }
         }
+
+        /**
+         * Waits until it is the turn of the data source and encodes all buffered statements.
+         * @return false if loading of any data source failed while waiting
+         */
+        boolean awaitTurn() throws InterruptedException, RDFHandlerException {
+            if (!hasTurn) {
+                if (!turns.awaitTurn(sourceIndex, loadingFailed)) {
+                    return false;
+                }
+                takeTurn();
+            }
+            return true;
+        }
+
+        private void takeTurn() throws RDFHandlerException {
+            hasTurn = true;
+            if (bufferWriter == null) {
+                return;
+            }
+            BinaryStatementReader bufferReader = null;
+            try {
+                bufferWriter.close();
+                bufferWriter = null;
+                bufferReader = new BinaryStatementReader(createTempFileInputStream(bufferFile));
+                while (bufferReader.hasNext()) {
+                    encodingHandler.handleStatement(bufferReader.next());
+                }
+            } catch (IOException e) {
+                throw new RDFHandlerException("Error while reading quads buffered in temporary file", e);
+            } finally {
+                if (bufferReader != null) {
+                    try {
+                        bufferReader.close();
+                    } catch (IOException e) {
+                        LOG.error("Error closing temporary file reader", e);
+                    }
+                }
+                deleteBufferFile();
+            }
+        }
+
+        void close() {
+            if (bufferWriter != null) {
+                try {
+                    bufferWriter.close();
+                } catch (IOException e) {
+                    LOG.error("Error closing temporary file writer", e);
+                }
+                bufferWriter = null;
+            }
+            deleteBufferFile();
+        }
+
+        private void deleteBufferFile() {
+            if (bufferFile != null && bufferFile.delete()) {
+                temporaryFiles.remove(bufferFile);
+            }
+            bufferFile = null;
+        }
+    }
+
+    /**
+     * Sinks for data of a single data source.
+     */
+    private final class SourceSinks {
+        private final SpillableSinkGroup group;
+        // Will contain c(S) S P O G for input quads (S,P,O,G)
+        private final SpillableSink dataSink;
+        // Will contain c(O) c(S) for input quads (S,P,O,G) such that P is a resource description URI and O is a {@link org.openrdf.model.Resource}
+        private final SpillableSink attributeIndexSink;
+
+        SourceSinks(SpillableSinkGroup group) {
+            this.group = group;
+            this.dataSink = group.createSink();
+            this.attributeIndexSink = group.createSink();
+        }
     }
 }
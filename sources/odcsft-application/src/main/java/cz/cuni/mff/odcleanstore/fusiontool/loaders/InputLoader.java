@@ -45,6 +45,9 @@ public interface InputLoader extends Closeable<LDFusionToolException> {
     /**
      * This method can be used to update state of quad loader with result of conflict resolution
      * on quads returned by {@link #next()}.
+     * With parallel conflict resolution, several further batches may be requested with {@link #next()}
+     * before resolved quads of a batch are passed to this method; {@link #hasNext()} is checked again
+     * after each call of this method, however.
      * @param resolvedStatements resolved quads produced by conflict resolver
      */
     void updateWithResolvedStatements(Collection<ResolvedStatement> resolvedStatements);
@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import cz.cuni.mff.odcleanstore.core.ODCSUtils;
 import cz.cuni.mff.odcleanstore.fusiontool.config.ConfigParameters;
 import cz.cuni.mff.odcleanstore.fusiontool.config.DataSourceConfig;
+import cz.cuni.mff.odcleanstore.fusiontool.config.LDFTConfigConstants;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolApplicationException;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolErrorCodes;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
@@ -34,9 +35,19 @@ public class AllTriplesFileLoader implements AllTriplesLoader {
      * Creates a new instance.
      */
     public AllTriplesFileLoader(DataSourceConfig dataSourceConfig, ParserConfig parserConfig) {
+        this(dataSourceConfig, parserConfig, LDFTConfigConstants.DEFAULT_PARSER_THREAD_COUNT);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param dataSourceConfig configuration of the file data source
+     * @param parserConfig configuration of the RDF parser
+     * @param parserThreadCount number of threads parsing the file in parallel if it is in a line-based format
+     */
+    public AllTriplesFileLoader(DataSourceConfig dataSourceConfig, ParserConfig parserConfig, int parserThreadCount) {
         Preconditions.checkNotNull(dataSourceConfig);
         Preconditions.checkNotNull(parserConfig);
-        this.fileLoader = new RdfFileLoader(dataSourceConfig, parserConfig);
+        this.fileLoader = new RdfFileLoader(dataSourceConfig, parserConfig, parserThreadCount);
         this.paramReader = new OutputParamReader(dataSourceConfig);
     }
 
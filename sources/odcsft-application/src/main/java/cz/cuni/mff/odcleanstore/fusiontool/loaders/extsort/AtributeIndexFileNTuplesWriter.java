@@ -1,7 +1,7 @@
 package cz.cuni.mff.odcleanstore.fusiontool.loaders.extsort;
 
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.UriMapping;
-import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.TupleWriter;
 import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
@@ -13,18 +13,18 @@ import java.util.Set;
 
 /**
  * Formatter of incoming statements to the format used in the attribute index temporary file.
- * Data are written to the underlying {@link cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesWriter} in the following format:
+ * Data are written to the underlying {@link cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.TupleWriter} in the following format:
  * <ul>
  *     <li> c(O) c(S) for input quads (S,P,O,G) such that P is a resource description URI to {@code tempAttributeFile} and O is a {@link org.openrdf.model.Resource}</li>
  * </ul>
  * where c(x) is the canonical version of x.
  */
 public class AtributeIndexFileNTuplesWriter extends RDFHandlerBase {
-    private final NTuplesWriter nTuplesWriter;
+    private final TupleWriter nTuplesWriter;
     private final Set<URI> resourceDescriptionUris;
     private final UriMapping uriMapping;
 
-    public AtributeIndexFileNTuplesWriter(NTuplesWriter nTuplesWriter, Set<URI> canonicalResourceDescriptionUris, UriMapping uriMapping) {
+    public AtributeIndexFileNTuplesWriter(TupleWriter nTuplesWriter, Set<URI> canonicalResourceDescriptionUris, UriMapping uriMapping) {
         this.nTuplesWriter = nTuplesWriter;
         this.resourceDescriptionUris = canonicalResourceDescriptionUris;
         this.uriMapping = uriMapping;
@@ -1,14 +1,12 @@
 package cz.cuni.mff.odcleanstore.fusiontool.loaders.extsort;
 
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.NTupleMergeTransformException;
-import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesFileMerger;
-import org.openrdf.model.Value;
-
-import java.util.List;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleFileMerger;
 
 /**
  * Merges records for primary data temporary file and attribute temporary file for
  * {@link cz.cuni.mff.odcleanstore.fusiontool.loaders.ExternalSortingInputLoader}.
+ * Records are tuples of term identifiers assigned by a {@link cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.TermDictionary}.
  * The expected format of files is
  * <dl>
  *     <dt>primary data file</dt><dd>c(S) S P O G for input quads (S,P,O,G)</dd>
@@ -18,23 +16,21 @@ import java.util.List;
  * The output is formatted as:
  * <dl><dt>output file</dt><dd>c(E) S P O G for input quads (E,P',S,G') (S,P,O,G) such that P' is a resource description URI</dd></dl>
  */
-public class DataFileAndAttributeIndexFileMerger implements NTuplesFileMerger.NTupleMergeTransform {
+public class DataFileAndAttributeIndexFileMerger implements IdTupleFileMerger.IdTupleMergeTransform {
 
     @Override
-    public Value[] transform(List<Value> dataFileValues, List<Value> attributeFileValues) throws NTupleMergeTransformException {
+    public long[] transform(long[] dataFileIds, long[] attributeFileIds) throws NTupleMergeTransformException {
         // c(S) S P O G + c(S) c(E) -> c(E) S P O G
-        if (dataFileValues.size() != 5) {
+        if (dataFileIds.length != 5) {
             throw new NTupleMergeTransformException("Unexpected format of input data in merge, expected 5 fields in primary data file.");
-        } else if (attributeFileValues.size() != 2) {
+        } else if (attributeFileIds.length != 2) {
             throw new NTupleMergeTransformException("Unexpected format of input data in merge, expected 2 fields in attribute file.");
         }
-        assert dataFileValues.get(0).equals(attributeFileValues.get(0));
+        assert dataFileIds[0] == attributeFileIds[0];
 
-        Value[] result = new Value[5];
-        result[0] = attributeFileValues.get(1);
-        for (int i = 1; i < dataFileValues.size(); i++) {
-            result[i] = dataFileValues.get(i);
-        }
+        long[] result = new long[5];
+        result[0] = attributeFileIds[1];
+        System.arraycopy(dataFileIds, 1, result, 1, dataFileIds.length - 1);
         return result;
     }
 }
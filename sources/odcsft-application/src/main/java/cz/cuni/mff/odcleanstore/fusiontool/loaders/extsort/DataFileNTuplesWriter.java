@@ -1,7 +1,7 @@
 package cz.cuni.mff.odcleanstore.fusiontool.loaders.extsort;
 
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.UriMapping;
-import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.TupleWriter;
 import org.openrdf.model.Statement;
 import org.openrdf.rio.RDFHandlerException;
 import org.openrdf.rio.helpers.RDFHandlerBase;
@@ -10,16 +10,16 @@ import java.io.IOException;
 
 /**
  * Formatter of incoming statements to the format required by the primary temporary data file.
- * Data are written to the underlying {@link cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.NTuplesWriter} in the following format:
+ * Data are written to the underlying {@link cz.cuni.mff.odcleanstore.fusiontool.io.ntuples.TupleWriter} in the following format:
  * <ul>
  *     <li> c(S) S P O G for all input quads (S,P,O,G)</li>
  * </ul>
  */
 public class DataFileNTuplesWriter extends RDFHandlerBase {
-    private final NTuplesWriter nTuplesWriter;
+    private final TupleWriter nTuplesWriter;
     private final UriMapping uriMapping;
 
-    public DataFileNTuplesWriter(NTuplesWriter nTuplesWriter, UriMapping uriMapping) {
+    public DataFileNTuplesWriter(TupleWriter nTuplesWriter, UriMapping uriMapping) {
         this.nTuplesWriter = nTuplesWriter;
         this.uriMapping = uriMapping;
     }
@@ -0,0 +1,94 @@
+package cz.cuni.mff.odcleanstore.fusiontool.loaders.sameas;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.MutableUriMapping;
+import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolApplicationException;
+import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolErrorCodes;
+import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Loader of sameAs links from multiple sources which runs the given loaders in parallel.
+ * The URI mapping the links are loaded to must support concurrent addition of links,
+ * e.g. {@link cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.ConcurrentUriMappingIterableImpl}.
+ */
+public class ParallelSameAsLinkLoader implements SameAsLinkLoader {
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelSameAsLinkLoader.class);
+
+    private final List<SameAsLinkLoader> loaders;
+    private final int threadCount;
+
+    /**
+     * @param loaders loaders of individual sources
+     * @param threadCount maximum number of loaders running in parallel
+     */
+    public ParallelSameAsLinkLoader(Collection<? extends SameAsLinkLoader> loaders, int threadCount) {
+        checkArgument(threadCount >= 1, "threadCount must be positive");
+        this.loaders = ImmutableList.copyOf(loaders);
+        this.threadCount = threadCount;
+    }
+
+    @Override
+    public long loadSameAsMappings(final MutableUriMapping uriMapping) throws LDFusionToolException {
+        if (loaders.isEmpty()) {
+            return 0;
+        }
+        long startTime = System.currentTimeMillis();
+        int poolSize = Math.min(threadCount, loaders.size());
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize,
+                new ThreadFactoryBuilder().setNameFormat("sameas-loader-%d").setDaemon(true).build());
+        try {
+            List<Future<Long>> futures = new ArrayList<>(loaders.size());
+            for (final SameAsLinkLoader loader : loaders) {
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws LDFusionToolException {
+                        return loader.loadSameAsMappings(uriMapping);
+                    }
+                }));
+            }
+
+            long linkCount = 0;
+            for (Future<Long> future : futures) {
+                linkCount += getResult(future);
+            }
+            LOG.info(String.format("Loaded & resolved %,d sameAs links from %d sources using %d threads in %,d ms",
+                    linkCount, loaders.size(), poolSize, System.currentTimeMillis() - startTime));
+            return linkCount;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long getResult(Future<Long> future) throws LDFusionToolException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof LDFusionToolException) {
+                throw (LDFusionToolException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.SAME_AS_LOAD, "Error loading sameAs links", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.SAME_AS_LOAD, "Interrupted while loading sameAs links", e);
+        }
+    }
+}
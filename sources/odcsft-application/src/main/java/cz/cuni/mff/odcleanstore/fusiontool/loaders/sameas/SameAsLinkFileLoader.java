@@ -3,7 +3,7 @@ package cz.cuni.mff.odcleanstore.fusiontool.loaders.sameas;
 import com.google.common.base.Preconditions;
 import cz.cuni.mff.odcleanstore.fusiontool.config.LDFTConfigConstants;
 import cz.cuni.mff.odcleanstore.fusiontool.config.SourceConfig;
-import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.MutableUriMapping;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolApplicationException;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolErrorCodes;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
@@ -41,7 +41,7 @@ public class SameAsLinkFileLoader implements SameAsLinkLoader {
     }
 
     @Override
-    public long loadSameAsMappings(UriMappingImpl uriMapping) throws LDFusionToolException {
+    public long loadSameAsMappings(MutableUriMapping uriMapping) throws LDFusionToolException {
         LOG.info("Parsing sameAs links from {}", paramReader.getLabel());
         try {
             long startTime = System.currentTimeMillis();
@@ -56,10 +56,10 @@ public class SameAsLinkFileLoader implements SameAsLinkLoader {
     }
 
     private class SameAsLinkHandler extends RDFHandlerBase {
-        private final UriMappingImpl uriMapping;
+        private final MutableUriMapping uriMapping;
         private long loadedCount = 0;
 
-        public SameAsLinkHandler(UriMappingImpl uriMapping) {
+        public SameAsLinkHandler(MutableUriMapping uriMapping) {
             this.uriMapping = uriMapping;
         }
 
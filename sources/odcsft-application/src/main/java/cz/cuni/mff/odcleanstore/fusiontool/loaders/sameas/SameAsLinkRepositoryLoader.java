@@ -1,6 +1,6 @@
 package cz.cuni.mff.odcleanstore.fusiontool.loaders.sameas;
 
-import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.MutableUriMapping;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolErrorCodes;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolQueryException;
@@ -39,7 +39,7 @@ public class SameAsLinkRepositoryLoader extends RepositoryLoaderBase implements
      * @return number of loaded owl:sameAs links
      * @throws cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException repository error
      */
-    public long loadSameAsMappings(UriMappingImpl uriMapping) throws LDFusionToolException {
+    public long loadSameAsMappings(MutableUriMapping uriMapping) throws LDFusionToolException {
         long startTime = System.currentTimeMillis();
         long linkCount = 0;
         
@@ -56,7 +56,7 @@ public class SameAsLinkRepositoryLoader extends RepositoryLoaderBase implements
         return linkCount;
     }
 
-    private long loadSameAsLinks(UriMappingImpl uriMapping, String query) throws OpenRDFException {
+    private long loadSameAsLinks(MutableUriMapping uriMapping, String query) throws OpenRDFException {
         long linkCount = 0;
         long startTime = System.currentTimeMillis();
         RepositoryConnection connection = constructSource.getRepository().getConnection();
@@ -80,6 +80,16 @@ public class ProfilingTimeCounter<E extends Enum<E>> {
         return LDFusionToolUtils.formatTime(timeInMs);
     }
 
+    /**
+     * Returns a new instance with zero counters which is enabled or disabled the same way as this instance.
+     * Useful for measurements in another thread whose results are later added by
+     * {@link #addProfilingTimeCounter(ProfilingTimeCounter)}.
+     * @return a new instance of {@link ProfilingTimeCounter}
+     */
+    public ProfilingTimeCounter<E> newInstance() {
+        return new ProfilingTimeCounter<E>(countersEnum);
+    }
+
     /**
      * Add lengths measured by {@code otherCounter} to this counter.
      * @param otherCounter counter with values to be added to this counter
@@ -98,6 +108,11 @@ public class ProfilingTimeCounter<E extends Enum<E>> {
         public DummyProfilingTimeCounter(Class<E> countersEnum) {
             super(countersEnum);
         }
+
+        @Override
+        public ProfilingTimeCounter<E> newInstance() {
+            return this;
+        }
         
         @Override
         public void startCounter(E counterId) {
@@ -59,25 +59,37 @@ public final class StatementSizeEstimator {
                 + StringSizeEstimator.estimatedSizeOf(statement.getPredicate().stringValue());
 
         // object
-        if (object instanceof Literal) {
-            Literal literal = (Literal) object;
-            result += LITERAL_OVERHEAD + StringSizeEstimator.estimatedSizeOf(literal.stringValue());
+        result += estimatedSizeOf(object);
+
+        // context
+        if (context != null) {
+            result += URI_BNODE_OVERHEAD + StringSizeEstimator.estimatedSizeOf(context.stringValue());
+        }
+
+        return result;
+    }
+
+    /**
+     * Estimates the size of a {@link org.openrdf.model.Value} object in bytes.
+     * We assume default Sesame implementation.
+     *
+     * @param value The Value to estimate memory footprint.
+     * @return The <strong>estimated</strong> size in bytes.
+     */
+    public static long estimatedSizeOf(Value value) {
+        if (value instanceof Literal) {
+            Literal literal = (Literal) value;
+            long result = LITERAL_OVERHEAD + StringSizeEstimator.estimatedSizeOf(literal.stringValue());
             if (literal.getLanguage() != null) {
                 result += StringSizeEstimator.estimatedSizeOf(literal.getLanguage());
             }
             if (literal.getDatatype() != null) {
                 result += URI_BNODE_OVERHEAD + StringSizeEstimator.estimatedSizeOf(literal.getDatatype().stringValue());
             }
+            return result;
         } else {
-            result += URI_BNODE_OVERHEAD + StringSizeEstimator.estimatedSizeOf(object.stringValue());
-        }
-
-        // context
-        if (context != null) {
-            result += URI_BNODE_OVERHEAD + StringSizeEstimator.estimatedSizeOf(context.stringValue());
+            return URI_BNODE_OVERHEAD + StringSizeEstimator.estimatedSizeOf(value.stringValue());
         }
-
-        return result;
     }
 }
 
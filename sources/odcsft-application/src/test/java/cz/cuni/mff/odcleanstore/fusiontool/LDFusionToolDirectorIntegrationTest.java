@@ -143,7 +143,7 @@ public class LDFusionToolDirectorIntegrationTest {
             throws LDFusionToolException, IOException, ConflictResolutionException, RDFParseException {
         File tempDirectory = new File(testDir.getRoot(), "temp");
         tempDirectory.getAbsoluteFile().mkdirs();
-        config.setTempDirectory(tempDirectory);
+        config.setTempDirectories(Collections.singletonList(tempDirectory));
 
         Map<String, String> dataSourceParams = config.getDataSources().get(0).getParams();
         dataSourceParams.put(ConfigParameters.DATA_SOURCE_FILE_PATH,
@@ -2,7 +2,9 @@ package cz.cuni.mff.odcleanstore.fusiontool;
 
 import com.google.common.collect.ImmutableList;
 import cz.cuni.mff.odcleanstore.conflictresolution.ResolvedStatement;
+import cz.cuni.mff.odcleanstore.conflictresolution.exceptions.ConflictResolutionException;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.ResourceDescription;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.ResourceDescriptionConflictResolver;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.impl.ResourceDescriptionImpl;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.InputLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.fiter.NoOpFilter;
@@ -21,8 +23,10 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.openrdf.model.Statement;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static cz.cuni.mff.odcleanstore.fusiontool.testutil.ContextAwareStatementIsEqual.contextAwareStatementIsEqual;
 import static cz.cuni.mff.odcleanstore.fusiontool.testutil.LDFusionToolTestUtils.createHttpStatement;
@@ -199,6 +203,97 @@ public class LDFusionToolExecutorTest {
         Mockito.verify(inputLoader, Mockito.times(1)).next();
     }
 
+    @Test
+    public void writesResolvedStatementsInInputOrderWhenParallel() throws Exception {
+        // Arrange
+        FusionExecutor executor = getParallelLDFusionToolExecutor(Long.MAX_VALUE);
+        List<Collection<Statement>> inputStatements = createInputClusters(100);
+        TestInputLoader inputLoader = new TestInputLoader(inputStatements);
+        TestRDFWriter rdfWriter = new TestRDFWriter();
+
+        // Act
+        executor.fuse(new DelayingTestConflictResolver(), inputLoader, rdfWriter);
+
+        // Assert
+        List<ResolvedStatement> resolvedStatements = rdfWriter.getCollectedResolvedStatements();
+        assertThat(resolvedStatements.size(), equalTo(2 * inputStatements.size()));
+        int i = 0;
+        for (Collection<Statement> cluster : inputStatements) {
+            for (Statement statement : cluster) {
+                assertThat(resolvedStatements.get(i++).getStatement(), contextAwareStatementIsEqual(statement));
+            }
+        }
+    }
+
+    @Test
+    public void respectsMaxOutputTriplesWhenParallel() throws Exception {
+        // Arrange
+        long maxOutputTriples = 5;
+        FusionExecutor executor = getParallelLDFusionToolExecutor(maxOutputTriples);
+        List<Collection<Statement>> inputStatements = createInputClusters(100);
+        TestInputLoader inputLoader = new TestInputLoader(inputStatements);
+        TestRDFWriter rdfWriter = new TestRDFWriter();
+
+        // Act
+        executor.fuse(new DelayingTestConflictResolver(), inputLoader, rdfWriter);
+
+        // Assert
+        List<ResolvedStatement> resolvedStatements = rdfWriter.getCollectedResolvedStatements();
+        assertThat(resolvedStatements.size(), equalTo(4)); // whole input clusters are processed
+        assertThat(resolvedStatements.get(0).getStatement(), contextAwareStatementIsEqual(createHttpStatement("s0", "p1", "o1", "g1")));
+        assertThat(resolvedStatements.get(3).getStatement(), contextAwareStatementIsEqual(createHttpStatement("s1", "p1", "o1", "g2")));
+    }
+
+    @Test
+    public void updatesInputLoaderWithResolvedStatementsWhenParallel() throws Exception {
+        // Arrange
+        FusionExecutor executor = getParallelLDFusionToolExecutor(Long.MAX_VALUE);
+        TestInputLoader inputLoader = new TestInputLoader(createInputClusters(100));
+        TestRDFWriter rdfWriter = new TestRDFWriter();
+
+        // Act
+        executor.fuse(new DelayingTestConflictResolver(), inputLoader, rdfWriter);
+
+        // Assert
+        assertThat(inputLoader.getCollectedResolvedStatements(), equalTo(rdfWriter.collectedResolvedStatements));
+    }
+
+    @Test
+    public void cancelsExecutionWhenParallel() throws Exception {
+        // Arrange
+        final TestIsCanceledCallback callback = new TestIsCanceledCallback();
+        LDFusionToolExecutor executor = getParallelLDFusionToolExecutor(Long.MAX_VALUE);
+        executor.setIsCanceledCallback(callback);
+        final InputLoader inputLoader = Mockito.mock(InputLoader.class);
+        Mockito.when(inputLoader.hasNext()).thenReturn(true);
+        Mockito.when(inputLoader.next()).thenAnswer(new Answer<ResourceDescription>() {
+            @Override
+            public ResourceDescription answer(InvocationOnMock invocation) throws Throwable {
+                callback.cancel();
+                return new ResourceDescriptionImpl(createHttpUri("a"), ImmutableList.of(createHttpStatement("a", "b", "c")));
+            }
+        });
+
+        // Act
+        executor.fuse(new TestConflictResolver(), inputLoader, new TestRDFWriter());
+
+        // Assert
+        Mockito.verify(inputLoader, Mockito.times(1)).next();
+    }
+
+    @Test(expected = ConflictResolutionException.class)
+    public void propagatesConflictResolutionExceptionWhenParallel() throws Exception {
+        // Arrange
+        FusionExecutor executor = getParallelLDFusionToolExecutor(Long.MAX_VALUE);
+        TestInputLoader inputLoader = new TestInputLoader(createInputClusters(10));
+        ResourceDescriptionConflictResolver conflictResolver = Mockito.mock(ResourceDescriptionConflictResolver.class);
+        Mockito.when(conflictResolver.resolveConflicts(Mockito.any(ResourceDescription.class)))
+                .thenThrow(Mockito.mock(ConflictResolutionException.class));
+
+        // Act
+        executor.fuse(conflictResolver, inputLoader, new TestRDFWriter());
+    }
+
     private LDFusionToolExecutor getLDFusionToolExecutor(long maxOutputTriples, boolean hasVirtuosoSource) {
         return new LDFusionToolExecutor(
                 hasVirtuosoSource,
@@ -207,4 +302,42 @@ public class LDFusionToolExecutorTest {
                 ProfilingTimeCounter.createInstance(EnumFusionCounters.class, false),
                 MemoryProfiler.createInstance(false));
     }
+
+    private LDFusionToolExecutor getParallelLDFusionToolExecutor(long maxOutputTriples) {
+        return new LDFusionToolExecutor(
+                false,
+                maxOutputTriples,
+                new NoOpFilter(),
+                ProfilingTimeCounter.createInstance(EnumFusionCounters.class, true),
+                MemoryProfiler.createInstance(false),
+                4);
+    }
+
+    private List<Collection<Statement>> createInputClusters(int count) {
+        List<Collection<Statement>> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(ImmutableList.of(
+                    createHttpStatement("s" + i, "p1", "o1", "g1"),
+                    createHttpStatement("s" + i, "p1", "o1", "g2")));
+        }
+        return result;
+    }
+
+    /** Resolves earlier resource descriptions slower so that workers finish in a different order. */
+    private static class DelayingTestConflictResolver extends TestConflictResolver {
+        private final AtomicInteger remainingDelay = new AtomicInteger(20);
+
+        @Override
+        public Collection<ResolvedStatement> resolveConflicts(ResourceDescription resourceDescription) throws ConflictResolutionException {
+            int delay = remainingDelay.getAndDecrement();
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.resolveConflicts(resourceDescription);
+        }
+    }
 }
\ No newline at end of file
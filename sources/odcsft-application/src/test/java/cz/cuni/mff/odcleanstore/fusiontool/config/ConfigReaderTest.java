@@ -5,6 +5,7 @@ import cz.cuni.mff.odcleanstore.conflictresolution.EnumAggregationErrorStrategy;
 import cz.cuni.mff.odcleanstore.conflictresolution.EnumCardinality;
 import cz.cuni.mff.odcleanstore.conflictresolution.ResolutionStrategy;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.InvalidInputException;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
 import org.junit.Test;
 import org.openrdf.model.URI;
 import org.openrdf.model.impl.URIImpl;
@@ -12,6 +13,7 @@ import org.openrdf.model.vocabulary.RDFS;
 
 import java.io.File;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 
@@ -35,6 +37,7 @@ public class ConfigReaderTest {
         // Assert
         assertThat(config.getCanonicalURIsInputFile(), nullValue());
         assertThat(config.getCanonicalURIsOutputFile(), nullValue());
+        assertThat(config.getSameAsSnapshotFile(), nullValue());
         assertThat(config.getDefaultResolutionStrategy(), notNullValue());
         assertThat(config.getDefaultResolutionStrategy().getResolutionFunctionName(), nullValue());
         assertThat(config.getDefaultResolutionStrategy().getAggregationErrorStrategy(), nullValue());
@@ -75,7 +78,7 @@ public class ConfigReaderTest {
         //assertThat(config.getOutputConflictsOnly(), equalTo(false));
         assertThat(config.getOutputMappedSubjectsOnly(), equalTo(false));
         assertThat(config.getPreferredCanonicalURIs(), equalTo(LDFTConfigConstants.DEFAULT_PREFERRED_CANONICAL_URIS));
-        assertThat(config.getTempDirectory(), equalTo(LDFTConfigConstants.DEFAULT_TEMP_DIRECTORY));
+        assertThat(config.getTempDirectories(), equalTo(Collections.singletonList(LDFTConfigConstants.DEFAULT_TEMP_DIRECTORY)));
         assertThat(config.getResultDataURIPrefix(), notNullValue());
         assertThat(config.getPublisherScoreWeight(), equalTo(LDFTConfigConstants.PUBLISHER_SCORE_WEIGHT));
         assertThat(config.getAgreeCoefficient(), equalTo(LDFTConfigConstants.AGREE_COEFFICIENT));
@@ -86,6 +89,17 @@ public class ConfigReaderTest {
         assertThat(config.getMemoryLimit(), equalTo(null));
         assertThat(config.getParserConfig(), equalTo(LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG));
         assertThat(config.getSameAsLinkTypes(), is(LDFTConfigConstants.SAME_AS_LINK_TYPES));
+        assertThat(config.getFusionThreadCount(), equalTo(LDFTConfigConstants.DEFAULT_FUSION_THREAD_COUNT));
+        assertThat(config.getSortThreadCount(), equalTo(LDFTConfigConstants.DEFAULT_SORT_THREAD_COUNT));
+        assertThat(config.getParserThreadCount(), equalTo(LDFTConfigConstants.DEFAULT_PARSER_THREAD_COUNT));
+        assertThat(config.getTempFileCompression(), equalTo(LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION));
+        assertThat(config.getTempFileCompressionLevel(), equalTo(LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION_LEVEL));
+        assertThat(config.getTempFileBufferSize(), equalTo(null));
+        assertThat(config.getTempFileIOThreadCount(), equalTo(LDFTConfigConstants.DEFAULT_TEMP_FILE_IO_THREAD_COUNT));
+        assertThat(config.getTempFileIOBufferSize(), equalTo(LDFTConfigConstants.DEFAULT_TEMP_FILE_IO_BUFFER_SIZE));
+        assertThat(config.isMemoryMappedUriMapping(), equalTo(false));
+        assertThat(config.getSameAsThreadCount(), equalTo(LDFTConfigConstants.DEFAULT_SAME_AS_THREAD_COUNT));
+        assertThat(config.getDataSourceThreadCount(), equalTo(LDFTConfigConstants.DEFAULT_DATA_SOURCE_THREAD_COUNT));
     }
 
     @Test
@@ -148,10 +162,22 @@ public class ConfigReaderTest {
 
         assertThat(config.getCanonicalURIsInputFile(), equalTo(new File("output/canonicalUris.txt")));
         assertThat(config.getCanonicalURIsOutputFile(), equalTo(new File("output/canonicalUris2.txt")));
+        assertThat(config.getSameAsSnapshotFile(), equalTo(new File("output/sameAs.snapshot")));
         assertThat(config.getMaxOutputTriples(), equalTo(999l));
         assertThat(config.getEnableFileCache(), equalTo(true));
         assertThat(config.isLocalCopyProcessing(), equalTo(true));
         assertThat(config.getRequiredClassOfProcessedResources(), equalTo((URI) new URIImpl("http://purl.org/procurement/public-contracts#Contract")));
+        assertThat(config.getFusionThreadCount(), equalTo(4));
+        assertThat(config.getSortThreadCount(), equalTo(2));
+        assertThat(config.getParserThreadCount(), equalTo(3));
+        assertThat(config.getTempFileCompression(), equalTo(EnumTempFileCodec.BLOCK));
+        assertThat(config.getTempFileCompressionLevel(), equalTo(6));
+        assertThat(config.getTempFileBufferSize(), equalTo(65536));
+        assertThat(config.getTempFileIOThreadCount(), equalTo(2));
+        assertThat(config.getTempFileIOBufferSize(), equalTo(131072));
+        assertThat(config.isMemoryMappedUriMapping(), equalTo(true));
+        assertThat(config.getSameAsThreadCount(), equalTo(4));
+        assertThat(config.getDataSourceThreadCount(), equalTo(3));
 
         assertThat(config.getDefaultResolutionStrategy(), notNullValue());
         assertThat(config.getDefaultResolutionStrategy().getResolutionFunctionName(), equalTo("ALL"));
@@ -191,7 +217,7 @@ public class ConfigReaderTest {
         //assertThat(config.getOutputConflictsOnly(), equalTo(false));
         assertThat(config.getOutputMappedSubjectsOnly(), equalTo(false));
         assertThat(config.getPreferredCanonicalURIs(), equalTo(LDFTConfigConstants.DEFAULT_PREFERRED_CANONICAL_URIS));
-        assertThat(config.getTempDirectory(), equalTo(LDFTConfigConstants.DEFAULT_TEMP_DIRECTORY));
+        assertThat(config.getTempDirectories(), equalTo(Arrays.asList(new File("tmp1"), new File("tmp2"))));
         assertThat(config.getResultDataURIPrefix(), notNullValue());
         assertThat(config.getPublisherScoreWeight(), equalTo(LDFTConfigConstants.PUBLISHER_SCORE_WEIGHT));
         assertThat(config.getAgreeCoefficient(), equalTo(LDFTConfigConstants.AGREE_COEFFICIENT));
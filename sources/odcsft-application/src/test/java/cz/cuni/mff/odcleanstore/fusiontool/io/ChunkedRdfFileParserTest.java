@@ -0,0 +1,234 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io;
+
+import cz.cuni.mff.odcleanstore.fusiontool.config.LDFTConfigConstants;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.ParserConfig;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFWriter;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.openrdf.rio.helpers.StatementCollector;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static cz.cuni.mff.odcleanstore.fusiontool.testutil.LDFusionToolTestUtils.createHttpStatement;
+import static cz.cuni.mff.odcleanstore.fusiontool.testutil.LDFusionToolTestUtils.createHttpUri;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkedRdfFileParserTest {
+    private static final ValueFactoryImpl VALUE_FACTORY = ValueFactoryImpl.getInstance();
+    private static final int THREAD_COUNT = 4;
+    private static final long SMALL_CHUNK_SIZE = 1;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void parsesAllStatementsFromAllParts() throws Exception {
+        // Arrange
+        List<Statement> input = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            input.add(createHttpStatement("s" + i, "p" + (i % 7), "o" + i, "g" + (i % 3)));
+        }
+        File file = writeFile(input, RDFFormat.NQUADS);
+
+        // Act
+        List<Statement> result = new ArrayList<>();
+        createParser().parse(file, file.toURI().toString(), RDFFormat.NQUADS, new StatementCollector(result));
+
+        // Assert
+        assertThat(result.size(), equalTo(input.size()));
+        assertThat(new HashSet<>(result), equalTo((Set<Statement>) new HashSet<>(input)));
+    }
+
+    @Test
+    public void parsesAllStatementsWhenFileIsSmallerThanMinChunkSize() throws Exception {
+        // Arrange
+        List<Statement> input = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            input.add(VALUE_FACTORY.createStatement(createHttpUri("s" + i), createHttpUri("p"), createHttpUri("o")));
+        }
+        File file = writeFile(input, RDFFormat.NTRIPLES);
+
+        // Act
+        List<Statement> result = new ArrayList<>();
+        new ChunkedRdfFileParser(LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG, THREAD_COUNT, Long.MAX_VALUE)
+                .parse(file, file.toURI().toString(), RDFFormat.NTRIPLES, new StatementCollector(result));
+
+        // Assert
+        assertThat(new HashSet<>(result), equalTo((Set<Statement>) new HashSet<>(input)));
+    }
+
+    @Test
+    public void parsesEmptyFile() throws Exception {
+        // Arrange
+        File file = testDir.newFile("empty.nq");
+
+        // Act
+        List<Statement> result = new ArrayList<>();
+        createParser().parse(file, file.toURI().toString(), RDFFormat.NQUADS, new StatementCollector(result));
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void keepsBlankNodeIdentifiersConsistentAcrossParts() throws Exception {
+        // Arrange
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append("_:b").append(i % 2).append(" <http://example.com/p> \"").append(i).append("\" .\n");
+        }
+        File file = writeFile(input.toString(), "bnodes.nt");
+
+        // Act
+        List<Statement> result1 = new ArrayList<>();
+        createParser().parse(file, file.toURI().toString(), RDFFormat.NTRIPLES, new StatementCollector(result1));
+        List<Statement> result2 = new ArrayList<>();
+        createParser().parse(file, file.toURI().toString(), RDFFormat.NTRIPLES, new StatementCollector(result2));
+
+        // Assert
+        Set<Resource> subjects1 = getSubjects(result1);
+        Set<Resource> subjects2 = getSubjects(result2);
+        assertThat(result1.size(), equalTo(1000));
+        assertThat(subjects1.size(), equalTo(2));
+        assertThat(subjects2.size(), equalTo(2));
+        subjects1.retainAll(subjects2);
+        assertTrue(subjects1.isEmpty()); // blank nodes from different parser runs are distinct
+    }
+
+    @Test
+    public void neverCallsHandlerConcurrently() throws Exception {
+        // Arrange
+        List<Statement> input = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            input.add(createHttpStatement("s" + i, "p", "o", "g"));
+        }
+        File file = writeFile(input, RDFFormat.NQUADS);
+        final AtomicInteger activeCalls = new AtomicInteger();
+        final AtomicInteger maxActiveCalls = new AtomicInteger();
+        final AtomicInteger statementCount = new AtomicInteger();
+
+        // Act
+        createParser().parse(file, file.toURI().toString(), RDFFormat.NQUADS, new RDFHandlerBase() {
+            @Override
+            public void handleStatement(Statement st) throws RDFHandlerException {
+                int active = activeCalls.incrementAndGet();
+                maxActiveCalls.set(Math.max(maxActiveCalls.get(), active));
+                statementCount.incrementAndGet();
+                activeCalls.decrementAndGet();
+            }
+        });
+
+        // Assert
+        assertThat(statementCount.get(), equalTo(input.size()));
+        assertThat(maxActiveCalls.get(), equalTo(1));
+    }
+
+    @Test(expected = RDFParseException.class)
+    public void throwsParseExceptionFromAnyPartWhenInvalidLinesAreFatal() throws Exception {
+        // Arrange
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append("<http://example.com/s> <http://example.com/p> \"").append(i).append("\" .\n");
+        }
+        input.append("<http://example.com/s> invalid .\n");
+        File file = writeFile(input.toString(), "invalid.nt");
+
+        // Act
+        new ChunkedRdfFileParser(new ParserConfig(), THREAD_COUNT, SMALL_CHUNK_SIZE)
+                .parse(file, file.toURI().toString(), RDFFormat.NTRIPLES, new StatementCollector());
+    }
+
+    @Test(expected = RDFHandlerException.class)
+    public void throwsHandlerException() throws Exception {
+        // Arrange
+        List<Statement> input = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            input.add(createHttpStatement("s" + i, "p", "o", "g"));
+        }
+        File file = writeFile(input, RDFFormat.NQUADS);
+
+        // Act
+        createParser().parse(file, file.toURI().toString(), RDFFormat.NQUADS, new RDFHandlerBase() {
+            @Override
+            public void handleStatement(Statement st) throws RDFHandlerException {
+                throw new RDFHandlerException("test");
+            }
+        });
+    }
+
+    @Test
+    public void onlyUncompressedLineBasedFormatsAreSplittable() throws Exception {
+        // Arrange
+        List<Statement> input = new ArrayList<>();
+        input.add(createHttpStatement("s", "p", "o", "g"));
+        File nquadsFile = writeFile(input, RDFFormat.NQUADS);
+        File trigFile = writeFile(input, RDFFormat.TRIG);
+        File gzipFile = testDir.newFile("input.nq.gz");
+        try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(gzipFile))) {
+            outputStream.write("<http://example.com/s> <http://example.com/p> <http://example.com/o> .\n"
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Act & Assert
+        assertTrue(ChunkedRdfFileParser.isSplittable(nquadsFile, RDFFormat.NQUADS));
+        assertFalse(ChunkedRdfFileParser.isSplittable(trigFile, RDFFormat.TRIG));
+        assertFalse(ChunkedRdfFileParser.isSplittable(gzipFile, RDFFormat.NQUADS));
+    }
+
+    private ChunkedRdfFileParser createParser() {
+        return new ChunkedRdfFileParser(LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG, THREAD_COUNT, SMALL_CHUNK_SIZE);
+    }
+
+    private static Set<Resource> getSubjects(List<Statement> statements) {
+        Set<Resource> result = new HashSet<>();
+        for (Statement statement : statements) {
+            result.add(statement.getSubject());
+        }
+        return result;
+    }
+
+    private File writeFile(List<Statement> statements, RDFFormat format) throws IOException, RDFHandlerException {
+        File file = testDir.newFile("input" + testDir.getRoot().list().length + "." + format.getDefaultFileExtension());
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            RDFWriter rdfWriter = Rio.createWriter(format, writer);
+            rdfWriter.startRDF();
+            for (Statement statement : statements) {
+                rdfWriter.handleStatement(statement);
+            }
+            rdfWriter.endRDF();
+        }
+        return file;
+    }
+
+    private File writeFile(String content, String fileName) throws IOException {
+        File file = testDir.newFile(fileName);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        return file;
+    }
+}
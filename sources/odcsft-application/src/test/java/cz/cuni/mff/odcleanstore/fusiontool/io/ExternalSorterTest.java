@@ -0,0 +1,250 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io;
+
+import com.google.common.primitives.UnsignedBytes;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.AsyncIOTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.BinaryRecordReader;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.BinaryRecordWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.MergedRecordIterator;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.SparseBlockIndex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ExternalSorterTest {
+    private static final Comparator<byte[]> COMPARATOR = UnsignedBytes.lexicographicalComparator();
+    private static final long SMALL_MEMORY_LIMIT = 4 * 1024;
+    private static final TempFileCodec DEFAULT_CODEC = EnumTempFileCodec.GZIP.createCodec(Deflater.BEST_SPEED, null);
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void sortsAndRemovesDuplicatesSequentially() throws Exception {
+        assertSortsRandomInput(1);
+    }
+
+    @Test
+    public void sortsAndRemovesDuplicatesWithParallelSortThreads() throws Exception {
+        assertSortsRandomInput(4);
+    }
+
+    @Test
+    public void mergesInMultiplePassesWithSmallFanIn() throws Exception {
+        assertSortsRandomInput(1, 2);
+    }
+
+    @Test
+    public void mergesInMultiplePassesWithSmallFanInAndParallelThreads() throws Exception {
+        assertSortsRandomInput(4, 3);
+    }
+
+    @Test
+    public void sortsWithUncompressedTempFiles() throws Exception {
+        assertSortsRandomInput(4, 3, EnumTempFileCodec.NONE.createCodec(0, null));
+    }
+
+    @Test
+    public void sortsWithBlockCompressedTempFiles() throws Exception {
+        assertSortsRandomInput(4, 3, EnumTempFileCodec.BLOCK.createCodec(0, 1024));
+    }
+
+    @Test
+    public void sortsWithAsyncIOTempFiles() throws Exception {
+        assertSortsRandomInput(4, 3, new AsyncIOTempFileCodec(DEFAULT_CODEC, 2, 512));
+    }
+
+    @Test
+    public void sortsEmptyInput() throws Exception {
+        // Act
+        List<String> result = sort(new ArrayList<String>(), 4, 2, DEFAULT_CODEC);
+
+        // Assert
+        assertThat(result.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void sortsToIndexedFile() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            input.add(String.format("record%06d", random.nextInt(50_000)));
+        }
+        ByteArrayOutputStream inputBytes = new ByteArrayOutputStream();
+        BinaryRecordWriter writer = new BinaryRecordWriter(inputBytes);
+        for (String record : input) {
+            writer.writeRecord(record.getBytes(StandardCharsets.UTF_8));
+        }
+        writer.close();
+        File sortDir = testDir.newFolder();
+        File outputFile = testDir.newFile();
+
+        // Act
+        ExternalSorter sorter = new ExternalSorter(COMPARATOR, sortDir, DEFAULT_CODEC, SMALL_MEMORY_LIMIT);
+        sorter.sortToIndexedFile(Collections.<InputStream>singletonList(new ByteArrayInputStream(inputBytes.toByteArray())),
+                inputBytes.size(), outputFile);
+
+        // Assert
+        List<String> result = new ArrayList<>();
+        BinaryRecordReader reader = new BinaryRecordReader(DEFAULT_CODEC.createInputStream(new FileInputStream(outputFile)));
+        byte[] record;
+        while ((record = reader.readRecord()) != null) {
+            result.add(new String(record, StandardCharsets.UTF_8));
+        }
+        reader.close();
+        assertThat(result, equalTo((List<String>) new ArrayList<>(new TreeSet<>(input))));
+
+        SparseBlockIndex index = SparseBlockIndex.readIndex(outputFile);
+        assertThat(index.size() > 1, equalTo(true));
+        assertThat(new String(index.getFirstRecord(0), StandardCharsets.UTF_8), equalTo(result.get(0)));
+        assertThat(sortDir.list().length, equalTo(0));
+    }
+
+    @Test
+    public void sortsToIteratorWithMultipleMergePasses() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            input.add("record" + random.nextInt(5000));
+        }
+        ByteArrayOutputStream inputBytes = new ByteArrayOutputStream();
+        BinaryRecordWriter writer = new BinaryRecordWriter(inputBytes);
+        for (String record : input) {
+            writer.writeRecord(record.getBytes(StandardCharsets.UTF_8));
+        }
+        writer.close();
+
+        // Act
+        ExternalSorter sorter = new ExternalSorter(COMPARATOR, testDir.getRoot(), DEFAULT_CODEC, SMALL_MEMORY_LIMIT, 2, 3);
+        MergedRecordIterator iterator = sorter.sortToIterator(
+                Collections.<InputStream>singletonList(new ByteArrayInputStream(inputBytes.toByteArray())), inputBytes.size());
+        List<String> result = new ArrayList<>();
+        int openTempFileCount;
+        try {
+            openTempFileCount = testDir.getRoot().list().length;
+            while (iterator.hasNext()) {
+                result.add(new String(iterator.next(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            iterator.close();
+        }
+
+        // Assert
+        assertThat(result, equalTo((List<String>) new ArrayList<>(new TreeSet<>(input))));
+        assertThat(openTempFileCount <= 3, equalTo(true));
+        assertThat(testDir.getRoot().list().length, equalTo(0));
+    }
+
+    @Test
+    public void spreadsTempFilesAcrossTempDirectories() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            input.add("record" + random.nextInt(5000));
+        }
+        ByteArrayOutputStream inputBytes = new ByteArrayOutputStream();
+        BinaryRecordWriter writer = new BinaryRecordWriter(inputBytes);
+        for (String record : input) {
+            writer.writeRecord(record.getBytes(StandardCharsets.UTF_8));
+        }
+        writer.close();
+        File tempDirectory1 = testDir.newFolder("temp1");
+        File tempDirectory2 = testDir.newFolder("temp2");
+
+        // Act
+        ExternalSorter sorter = new ExternalSorter(COMPARATOR, new TempDirectories(Arrays.asList(tempDirectory1, tempDirectory2)),
+                DEFAULT_CODEC, SMALL_MEMORY_LIMIT, 1, ExternalSorter.DEFAULT_MAX_MERGE_FAN_IN);
+        MergedRecordIterator iterator = sorter.sortToIterator(
+                Collections.<InputStream>singletonList(new ByteArrayInputStream(inputBytes.toByteArray())), inputBytes.size());
+        List<String> result = new ArrayList<>();
+        int tempFileCount1;
+        int tempFileCount2;
+        try {
+            tempFileCount1 = tempDirectory1.list().length;
+            tempFileCount2 = tempDirectory2.list().length;
+            while (iterator.hasNext()) {
+                result.add(new String(iterator.next(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            iterator.close();
+        }
+
+        // Assert
+        assertThat(result, equalTo((List<String>) new ArrayList<>(new TreeSet<>(input))));
+        assertThat(Math.abs(tempFileCount1 - tempFileCount2) <= 1, equalTo(true));
+        assertThat(tempFileCount1 > 0, equalTo(true));
+        assertThat(tempDirectory1.list().length + tempDirectory2.list().length, equalTo(0));
+    }
+
+    private void assertSortsRandomInput(int sortThreadCount) throws IOException {
+        assertSortsRandomInput(sortThreadCount, ExternalSorter.DEFAULT_MAX_MERGE_FAN_IN);
+    }
+
+    private void assertSortsRandomInput(int sortThreadCount, int maxMergeFanIn) throws IOException {
+        assertSortsRandomInput(sortThreadCount, maxMergeFanIn, DEFAULT_CODEC);
+    }
+
+    private void assertSortsRandomInput(int sortThreadCount, int maxMergeFanIn, TempFileCodec codec) throws IOException {
+        // Arrange
+        Random random = new Random(0);
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            input.add("record" + random.nextInt(5000));
+        }
+
+        // Act
+        List<String> result = sort(input, sortThreadCount, maxMergeFanIn, codec);
+
+        // Assert
+        SortedSet<String> expectedResult = new TreeSet<>(input);
+        assertThat(result, equalTo((List<String>) new ArrayList<>(expectedResult)));
+        assertThat(testDir.getRoot().list().length, equalTo(0));
+    }
+
+    private List<String> sort(List<String> input, int sortThreadCount, int maxMergeFanIn, TempFileCodec codec) throws IOException {
+        ByteArrayOutputStream inputBytes = new ByteArrayOutputStream();
+        BinaryRecordWriter writer = new BinaryRecordWriter(inputBytes);
+        for (String record : input) {
+            writer.writeRecord(record.getBytes(StandardCharsets.UTF_8));
+        }
+        writer.close();
+
+        ByteArrayOutputStream outputBytes = new ByteArrayOutputStream();
+        ExternalSorter sorter = new ExternalSorter(COMPARATOR, testDir.getRoot(), codec, SMALL_MEMORY_LIMIT, sortThreadCount,
+                maxMergeFanIn);
+        sorter.sort(new ByteArrayInputStream(inputBytes.toByteArray()), inputBytes.size(), outputBytes);
+
+        List<String> result = new ArrayList<>();
+        BinaryRecordReader reader = new BinaryRecordReader(new ByteArrayInputStream(outputBytes.toByteArray()));
+        byte[] record;
+        while ((record = reader.readRecord()) != null) {
+            result.add(new String(record, StandardCharsets.UTF_8));
+        }
+        reader.close();
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class TempDirectoriesTest {
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void returnsDirectoriesInRoundRobinOrder() throws Exception {
+        // Arrange
+        File directory1 = new File("dir1");
+        File directory2 = new File("dir2");
+        File directory3 = new File("dir3");
+        TempDirectories tempDirectories = new TempDirectories(Arrays.asList(directory1, directory2, directory3));
+
+        // Act
+        List<File> result = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            result.add(tempDirectories.nextDirectory());
+        }
+
+        // Assert
+        assertThat(result, equalTo(Arrays.asList(directory1, directory2, directory3, directory1, directory2)));
+    }
+
+    @Test
+    public void createsTempFilesInAllDirectories() throws Exception {
+        // Arrange
+        File directory1 = testDir.newFolder("dir1");
+        File directory2 = testDir.newFolder("dir2");
+        TempDirectories tempDirectories = new TempDirectories(Arrays.asList(directory1, directory2));
+
+        // Act
+        File file1 = tempDirectories.createTempFile("test");
+        File file2 = tempDirectories.createTempFile("test");
+
+        // Assert
+        assertThat(file1.getParentFile(), equalTo(directory1));
+        assertThat(file2.getParentFile(), equalTo(directory2));
+    }
+
+    @Test
+    public void countsSpaceOfSameFileStoreOnce() throws Exception {
+        // Arrange
+        File directory1 = testDir.newFolder("dir1");
+        File directory2 = new File(testDir.getRoot(), "not-created-yet");
+
+        // Act
+        long singleDirectorySpace = new TempDirectories(directory1).getTotalUsableSpace();
+        long result = new TempDirectories(Arrays.asList(directory1, directory2)).getTotalUsableSpace();
+
+        // Assert
+        assertThat(result < 2 * singleDirectorySpace, equalTo(true));
+    }
+}
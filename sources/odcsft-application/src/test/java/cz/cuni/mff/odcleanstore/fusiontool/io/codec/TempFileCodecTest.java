@@ -0,0 +1,227 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.codec;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class TempFileCodecTest {
+    private static final int SMALL_BLOCK_SIZE = 1000;
+
+    @Test
+    public void roundTripsEmptyData() throws Exception {
+        for (EnumTempFileCodec codecType : EnumTempFileCodec.values()) {
+            assertRoundTrips(codecType.createCodec(1, SMALL_BLOCK_SIZE), new byte[0]);
+        }
+    }
+
+    @Test
+    public void roundTripsRandomData() throws Exception {
+        // Arrange
+        byte[] data = new byte[10_000];
+        new Random(0).nextBytes(data);
+
+        // Act & Assert
+        for (EnumTempFileCodec codecType : EnumTempFileCodec.values()) {
+            assertRoundTrips(codecType.createCodec(1, SMALL_BLOCK_SIZE), data);
+            assertRoundTrips(codecType.createCodec(1, null), data);
+        }
+    }
+
+    @Test
+    public void roundTripsCompressibleData() throws Exception {
+        // Arrange
+        byte[] data = createCompressibleData(100_000);
+
+        // Act & Assert
+        for (EnumTempFileCodec codecType : EnumTempFileCodec.values()) {
+            assertRoundTrips(codecType.createCodec(1, SMALL_BLOCK_SIZE), data);
+            assertRoundTrips(codecType.createCodec(1, null), data);
+        }
+    }
+
+    @Test
+    public void roundTripsLongRunsOfRepeatedBytes() throws Exception {
+        // Arrange
+        byte[] data = new byte[300_000];
+        Arrays.fill(data, 0, 150_000, (byte) 'a');
+        Arrays.fill(data, 150_000, data.length, (byte) 'b');
+
+        // Act & Assert
+        assertRoundTrips(new BlockTempFileCodec(BlockTempFileCodec.DEFAULT_BLOCK_SIZE), data);
+    }
+
+    @Test
+    public void blockCodecCompressesRepetitiveData() throws Exception {
+        // Arrange
+        byte[] data = createCompressibleData(100_000);
+
+        // Act
+        byte[] encoded = encode(new BlockTempFileCodec(BlockTempFileCodec.DEFAULT_BLOCK_SIZE), data);
+
+        // Assert
+        assertTrue(encoded.length < data.length / 2);
+    }
+
+    @Test(expected = IOException.class)
+    public void blockCodecThrowsExceptionOnTruncatedData() throws Exception {
+        // Arrange
+        TempFileCodec codec = new BlockTempFileCodec(BlockTempFileCodec.DEFAULT_BLOCK_SIZE);
+        byte[] encoded = encode(codec, createCompressibleData(10_000));
+
+        // Act
+        decode(codec, Arrays.copyOf(encoded, encoded.length - 10));
+    }
+
+    @Test
+    public void asyncIOCodecRoundTripsData() throws Exception {
+        // Arrange
+        byte[] data = createCompressibleData(100_000);
+
+        // Act & Assert
+        for (EnumTempFileCodec codecType : EnumTempFileCodec.values()) {
+            assertRoundTrips(new AsyncIOTempFileCodec(codecType.createCodec(1, SMALL_BLOCK_SIZE), 2, SMALL_BLOCK_SIZE), data);
+            assertRoundTrips(new AsyncIOTempFileCodec(codecType.createCodec(1, null), 1, 4096), new byte[0]);
+            assertRoundTrips(new AsyncIOTempFileCodec(codecType.createCodec(1, null), 1, data.length), data);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void asyncIOCodecThrowsExceptionOfBackgroundRead() throws Exception {
+        // Arrange
+        TempFileCodec codec = new AsyncIOTempFileCodec(new BlockTempFileCodec(BlockTempFileCodec.DEFAULT_BLOCK_SIZE), 1, 100);
+        byte[] encoded = encode(codec, createCompressibleData(10_000));
+
+        // Act
+        decode(codec, Arrays.copyOf(encoded, encoded.length - 10));
+    }
+
+    @Test(expected = IOException.class)
+    public void asyncIOCodecThrowsExceptionOfBackgroundWrite() throws Exception {
+        // Arrange
+        TempFileCodec codec = new AsyncIOTempFileCodec(EnumTempFileCodec.NONE.createCodec(0, null), 1, 100);
+        OutputStream outputStream = codec.createOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+        });
+
+        // Act
+        outputStream.write(createCompressibleData(10_000));
+        outputStream.close();
+    }
+
+    @Test
+    public void readAheadStreamClosesUnderlyingStreamAfterPendingReadFinishes() throws Exception {
+        // Arrange
+        final CountDownLatch readStarted = new CountDownLatch(1);
+        final AtomicBoolean isReading = new AtomicBoolean();
+        final AtomicBoolean isClosedWhileReading = new AtomicBoolean();
+        InputStream slowInputStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                isReading.set(true);
+                readStarted.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                isReading.set(false);
+                return 0;
+            }
+
+            @Override
+            public void close() {
+                isClosedWhileReading.set(isReading.get());
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            InputStream inputStream = new ReadAheadInputStream(slowInputStream, 1, executor);
+            readStarted.await();
+
+            // Act
+            inputStream.close();
+
+            // Assert
+            assertThat(isClosedWhileReading.get(), equalTo(false));
+            assertThat(isReading.get(), equalTo(false));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] createCompressibleData(int size) {
+        Random random = new Random(0);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        while (data.size() < size) {
+            byte[] record = ("<http://example.com/resource/" + random.nextInt(1000) + "> "
+                    + "<http://example.com/property/" + random.nextInt(10) + "> \"value\" .\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            data.write(record, 0, record.length);
+        }
+        return data.toByteArray();
+    }
+
+    private static void assertRoundTrips(TempFileCodec codec, byte[] data) throws IOException {
+        byte[] decoded = decode(codec, encode(codec, data));
+        assertThat(codec.toString(), decoded, equalTo(data));
+    }
+
+    private static byte[] encode(TempFileCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        OutputStream outputStream = codec.createOutputStream(encoded);
+        // write single bytes and chunks of various sizes
+        int offset = 0;
+        int chunkSize = 0;
+        while (offset < data.length) {
+            int length = Math.min(chunkSize, data.length - offset);
+            if (length == 0) {
+                outputStream.write(data[offset]);
+                length = 1;
+            } else {
+                outputStream.write(data, offset, length);
+            }
+            offset += length;
+            chunkSize = (chunkSize * 7 + 13) % 3000;
+        }
+        outputStream.close();
+        return encoded.toByteArray();
+    }
+
+    private static byte[] decode(TempFileCodec codec, byte[] encoded) throws IOException {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        InputStream inputStream = codec.createInputStream(new ByteArrayInputStream(encoded));
+        try {
+            byte[] buffer = new byte[777];
+            int b;
+            while ((b = inputStream.read()) >= 0) {
+                decoded.write(b);
+                int read = inputStream.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                decoded.write(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+        return decoded.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class IdTupleBufferTest {
+    @Test
+    public void sortsTuplesAndRemovesDuplicates() throws Exception {
+        // Arrange
+        IdTupleBuffer buffer = new IdTupleBuffer();
+        buffer.writeTuple(3, 1);
+        buffer.writeTuple(1, 2);
+        buffer.writeTuple(3, 0);
+        buffer.writeTuple(1, 2);
+        buffer.writeTuple(2, 5);
+
+        // Act
+        buffer.sortDistinct();
+
+        // Assert
+        long[][] expected = {{1, 2}, {2, 5}, {3, 0}, {3, 1}};
+        List<long[]> actual = readAll(buffer.iterator());
+        assertThat(buffer.size(), is(expected.length));
+        assertThat(actual.size(), is(expected.length));
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(actual.get(i), is(expected[i]));
+        }
+    }
+
+    @Test
+    public void sortsLargeInputWithManyDuplicates() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        IdTupleBuffer buffer = new IdTupleBuffer();
+        SortedSet<List<Long>> expected = new TreeSet<>(new TupleComparator());
+        for (int i = 0; i < 20_000; i++) {
+            long[] tuple = {random.nextInt(500), random.nextInt(5), random.nextInt(3)};
+            buffer.writeTuple(tuple);
+            expected.add(toList(tuple));
+        }
+
+        // Act
+        buffer.sortDistinct();
+
+        // Assert
+        List<List<Long>> actual = new ArrayList<>();
+        for (long[] tuple : readAll(buffer.iterator())) {
+            actual.add(toList(tuple));
+        }
+        assertThat(actual, is((List<List<Long>>) new ArrayList<>(expected)));
+    }
+
+    @Test
+    public void iteratorSupportsSkippingLikeTupleReader() throws Exception {
+        // Arrange
+        IdTupleBuffer buffer = new IdTupleBuffer();
+        buffer.writeTuple(1, 11);
+        buffer.writeTuple(3, 31);
+        buffer.writeTuple(3, 32);
+        buffer.writeTuple(5, 51);
+
+        // Act
+        IdTupleIterator iterator = buffer.iterator();
+        boolean found2 = iterator.skipLessThan(2);
+        boolean found3 = iterator.skipLessThan(3);
+
+        // Assert
+        assertThat(found2, is(false));
+        assertThat(found3, is(true));
+        assertThat(iterator.next(), is(new long[]{3, 31}));
+        assertThat(iterator.hasMatchingRecord(3), is(true));
+    }
+
+    @Test
+    public void writesTuplesToSink() throws Exception {
+        // Arrange
+        IdTupleBuffer buffer = new IdTupleBuffer();
+        buffer.writeTuple(2, 21, 22);
+        buffer.writeTuple(1, 11, 12);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        IdTupleWriter writer = new IdTupleWriter(output);
+        buffer.writeTo(writer);
+        writer.close();
+
+        // Assert
+        List<long[]> actual = readAll(new IdTupleReader(new ByteArrayInputStream(output.toByteArray())));
+        assertThat(actual.size(), is(2));
+        assertThat(actual.get(0), is(new long[]{2, 21, 22}));
+        assertThat(actual.get(1), is(new long[]{1, 11, 12}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsExceptionForTuplesOfDifferentLength() throws Exception {
+        IdTupleBuffer buffer = new IdTupleBuffer();
+        buffer.writeTuple(1, 2);
+        buffer.writeTuple(1, 2, 3);
+    }
+
+    private static List<long[]> readAll(IdTupleIterator iterator) throws Exception {
+        List<long[]> result = new ArrayList<>();
+        try {
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        return result;
+    }
+
+    private static List<Long> toList(long[] tuple) {
+        List<Long> result = new ArrayList<>(tuple.length);
+        for (long id : tuple) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static class TupleComparator implements Comparator<List<Long>> {
+        @Override
+        public int compare(List<Long> o1, List<Long> o2) {
+            for (int i = 0; i < Math.min(o1.size(), o2.size()); i++) {
+                int cmp = o1.get(i).compareTo(o2.get(i));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return o1.size() - o2.size();
+        }
+    }
+}
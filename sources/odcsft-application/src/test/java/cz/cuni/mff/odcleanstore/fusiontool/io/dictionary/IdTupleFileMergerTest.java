@@ -0,0 +1,133 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class IdTupleFileMergerTest {
+    private IdTupleFileMerger.IdTupleMergeTransform transform = new IdTupleFileMerger.IdTupleMergeTransform() {
+        @Override
+        public long[] transform(long[] leftIds, long[] rightIds) {
+            long[] result = Arrays.copyOf(leftIds, leftIds.length + rightIds.length);
+            System.arraycopy(rightIds, 0, result, leftIds.length, rightIds.length);
+            return result;
+        }
+    };
+
+    @Test
+    public void mergesMatchingRecords() throws Exception {
+        // Arrange
+        byte[] leftInput = writeTuples(new long[][] {
+                {1, 11}, {2, 21}, {4, 41}, {5, 51}, {5, 52}, {6, 61}, {6, 62}});
+        byte[] rightInput = writeTuples(new long[][] {
+                {2, 21}, {3, 31}, {4, 41}, {4, 42}, {5, 51}, {6, 61}, {6, 62}});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        IdTupleFileMerger merger = new IdTupleFileMerger(transform);
+        merger.merge(
+                new IdTupleReader(new ByteArrayInputStream(leftInput)),
+                new IdTupleReader(new ByteArrayInputStream(rightInput)),
+                new IdTupleWriter(output));
+
+        // Assert
+        long[][] expectedOutput = {
+                {2, 21, 2, 21},
+                {4, 41, 4, 41},
+                {4, 41, 4, 42},
+                {5, 51, 5, 51},
+                {5, 52, 5, 51},
+                {6, 61, 6, 61},
+                {6, 61, 6, 62},
+                {6, 62, 6, 61},
+                {6, 62, 6, 62}};
+        List<long[]> actualOutput = readTuples(output.toByteArray());
+        assertThat(actualOutput.size(), is(expectedOutput.length));
+        for (int i = 0; i < expectedOutput.length; i++) {
+            assertThat(actualOutput.get(i), is(expectedOutput[i]));
+        }
+    }
+
+    @Test
+    public void mergesGroupedRecordsFromSingleInput() throws Exception {
+        // Arrange
+        // right tuples have two identifiers and precede left tuples with the same first identifier
+        byte[] input = writeTuples(new long[][] {
+                {1, 11, 111},
+                {2, 21}, {2, 21, 211},
+                {3, 31},
+                {4, 41}, {4, 42}, {4, 41, 411},
+                {5, 51, 511}, {5, 52, 521},
+                {6, 61}, {6, 62}, {6, 61, 611}, {6, 62, 621}});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        IdTupleFileMerger merger = new IdTupleFileMerger(transform);
+        merger.mergeGrouped(new IdTupleReader(new ByteArrayInputStream(input)), 2, new IdTupleWriter(output));
+
+        // Assert
+        long[][] expectedOutput = {
+                {2, 21, 211, 2, 21},
+                {4, 41, 411, 4, 41},
+                {4, 41, 411, 4, 42},
+                {6, 61, 611, 6, 61},
+                {6, 61, 611, 6, 62},
+                {6, 62, 621, 6, 61},
+                {6, 62, 621, 6, 62}};
+        List<long[]> actualOutput = readTuples(output.toByteArray());
+        assertThat(actualOutput.size(), is(expectedOutput.length));
+        for (int i = 0; i < expectedOutput.length; i++) {
+            assertThat(actualOutput.get(i), is(expectedOutput[i]));
+        }
+    }
+
+    @Test
+    public void skipLessThanStopsAtFirstGreaterOrEqualRecord() throws Exception {
+        // Arrange
+        IdTupleReader reader = new IdTupleReader(new ByteArrayInputStream(writeTuples(new long[][] {
+                {1, 0}, {3, 0}, {Long.MAX_VALUE, 0}})));
+
+        // Act & assert
+        assertThat(reader.skipLessThan(2), is(false));
+        assertThat(reader.peek()[0], is(3L));
+        assertThat(reader.skipLessThan(3), is(true));
+        assertThat(reader.hasMatchingRecord(3), is(true));
+        reader.next();
+        assertThat(reader.skipLessThan(Long.MAX_VALUE), is(true));
+        reader.next();
+        assertThat(reader.skipLessThan(Long.MAX_VALUE), is(false));
+        assertThat(reader.hasNext(), is(false));
+        reader.close();
+    }
+
+    private static byte[] writeTuples(long[][] tuples) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        IdTupleWriter writer = new IdTupleWriter(outputStream);
+        for (long[] tuple : tuples) {
+            writer.writeTuple(tuple);
+        }
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    private static List<long[]> readTuples(byte[] data) throws IOException {
+        IdTupleReader reader = new IdTupleReader(new ByteArrayInputStream(data));
+        List<long[]> result = new ArrayList<>();
+        try {
+            while (reader.hasNext()) {
+                result.add(reader.next());
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.BlockIndexingRecordWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.io.externalsort.SparseBlockIndex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class IdTupleReaderTest {
+    private static final TempFileCodec CODEC = EnumTempFileCodec.GZIP.createCodec(Deflater.BEST_SPEED, null);
+    private static final int BLOCK_SIZE = 256;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void skipsToMatchingTuplesUsingBlockIndex() throws Exception {
+        assertSkipsToMatchingTuples(CODEC);
+    }
+
+    @Test
+    public void skipsToMatchingTuplesInUnencodedFile() throws Exception {
+        assertSkipsToMatchingTuples(EnumTempFileCodec.NONE.createCodec(0, null));
+    }
+
+    private void assertSkipsToMatchingTuples(TempFileCodec codec) throws Exception {
+        // Arrange
+        // first identifiers 0, 3, 6, ...; each first identifier is repeated in (id % 5 + 1) tuples
+        List<long[]> tuples = new ArrayList<>();
+        for (long id = 0; id < 3000; id += 3) {
+            for (long j = 0; j <= id % 5; j++) {
+                tuples.add(new long[] {id, j, id + j});
+            }
+        }
+        File file = writeIndexedFile(tuples, codec);
+        SparseBlockIndex index = SparseBlockIndex.readIndex(file);
+
+        // Act
+        List<long[]> matched = new ArrayList<>();
+        IdTupleReader reader = new IdTupleReader(file, codec, index);
+        try {
+            for (long id = 0; id < 3100; id += 7) {
+                if (reader.skipLessThan(id)) {
+                    while (reader.hasMatchingRecord(id)) {
+                        matched.add(reader.next());
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        // Assert
+        List<long[]> expected = new ArrayList<>();
+        for (long[] tuple : tuples) {
+            if (tuple[0] % 7 == 0) {
+                expected.add(tuple);
+            }
+        }
+        assertThat(index.size() > 10, is(true));
+        assertThat(matched.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(matched.get(i), is(expected.get(i)));
+        }
+    }
+
+    @Test
+    public void readsAllTuplesWithoutIndex() throws Exception {
+        // Arrange
+        List<long[]> tuples = new ArrayList<>();
+        for (long id = 0; id < 1000; id++) {
+            tuples.add(new long[] {id, id * 2});
+        }
+        File file = writeIndexedFile(tuples, CODEC);
+
+        // Act
+        List<long[]> result = new ArrayList<>();
+        IdTupleReader reader = new IdTupleReader(file, CODEC, null);
+        try {
+            assertThat(reader.skipLessThan(500), is(true));
+            while (reader.hasNext()) {
+                result.add(reader.next());
+            }
+        } finally {
+            reader.close();
+        }
+
+        // Assert
+        assertThat(result.size(), is(500));
+        assertThat(result.get(0), is(new long[] {500, 1000}));
+    }
+
+    private File writeIndexedFile(List<long[]> tuples, TempFileCodec codec) throws Exception {
+        File file = testDir.newFile();
+        IdTupleWriter writer = new IdTupleWriter(new BlockIndexingRecordWriter(file, codec, BLOCK_SIZE));
+        try {
+            for (long[] tuple : tuples) {
+                writer.writeTuple(tuple);
+            }
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,172 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.dictionary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.XMLSchema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class MapdbTermDictionaryTest {
+    private static final ValueFactory VF = ValueFactoryImpl.getInstance();
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private static final List<Value> TERMS = Arrays.<Value>asList(
+            VF.createURI("http://example.com/a"),
+            VF.createBNode("a"),
+            VF.createLiteral("http://example.com/a"),
+            VF.createLiteral("a", "en"),
+            VF.createLiteral("a", XMLSchema.STRING),
+            VF.createLiteral("é中😀"),
+            VF.createURI("http://example.com/b"));
+
+    @Test
+    public void assignsSameIdentifierToEqualTermsAndDecodesThem() throws Exception {
+        // Arrange
+        MapdbTermDictionary dictionary = new MapdbTermDictionary(testDir.getRoot(), 2);
+        try {
+            // Act
+            long[] ids = new long[TERMS.size()];
+            for (int i = 0; i < TERMS.size(); i++) {
+                ids[i] = dictionary.encode(TERMS.get(i));
+            }
+
+            // Assert
+            assertThat(dictionary.size(), equalTo((long) TERMS.size()));
+            for (int i = 0; i < TERMS.size(); i++) {
+                assertThat(dictionary.encode(TERMS.get(i)), equalTo(ids[i]));
+                assertThat(dictionary.decode(ids[i]), equalTo(TERMS.get(i)));
+                for (int j = 0; j < i; j++) {
+                    assertThat(ids[i], not(equalTo(ids[j])));
+                }
+            }
+            assertThat(dictionary.encode(VF.createURI("http://example.com/a")), equalTo(ids[0]));
+            assertThat(dictionary.size(), equalTo((long) TERMS.size()));
+        } finally {
+            dictionary.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void throwsWhenIdentifierIsUnknown() throws Exception {
+        MapdbTermDictionary dictionary = new MapdbTermDictionary(testDir.getRoot(), 2);
+        try {
+            dictionary.encode(TERMS.get(0));
+            dictionary.decode(1);
+        } finally {
+            dictionary.close();
+        }
+    }
+
+    @Test
+    public void deletesTemporaryFilesWhenClosed() throws Exception {
+        // Arrange
+        MapdbTermDictionary dictionary = new MapdbTermDictionary(testDir.getRoot(), 2);
+        for (Value term : TERMS) {
+            dictionary.encode(term);
+        }
+
+        // Act
+        dictionary.close();
+
+        // Assert
+        assertThat(testDir.getRoot().list().length, equalTo(0));
+    }
+
+    @Test
+    public void keepsTermsWithinMemoryLimitOutOfTemporaryFile() throws Exception {
+        // Arrange
+        MapdbTermDictionary dictionary = new MapdbTermDictionary(testDir.getRoot(), 2, 1024 * 1024);
+        try {
+            // Act
+            long[] ids = new long[TERMS.size()];
+            for (int i = 0; i < TERMS.size(); i++) {
+                ids[i] = dictionary.encode(TERMS.get(i));
+            }
+
+            // Assert
+            assertThat(testDir.getRoot().list().length, equalTo(0));
+            for (int i = 0; i < TERMS.size(); i++) {
+                assertThat(dictionary.decode(ids[i]), equalTo(TERMS.get(i)));
+            }
+        } finally {
+            dictionary.close();
+        }
+    }
+
+    @Test
+    public void storesTermsExceedingMemoryLimitInTemporaryFile() throws Exception {
+        // Arrange
+        MapdbTermDictionary dictionary = new MapdbTermDictionary(testDir.getRoot(), 2, 1000);
+        try {
+            // Act
+            long[] ids = new long[1000];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = dictionary.encode(VF.createURI("http://example.com/" + i));
+            }
+
+            // Assert
+            assertThat(testDir.getRoot().list().length, not(equalTo(0)));
+            assertThat(dictionary.size(), equalTo((long) ids.length));
+            for (int i = 0; i < ids.length; i++) {
+                assertThat(dictionary.encode(VF.createURI("http://example.com/" + i)), equalTo(ids[i]));
+                assertThat(dictionary.decode(ids[i]), equalTo((Value) VF.createURI("http://example.com/" + i)));
+            }
+        } finally {
+            dictionary.close();
+        }
+    }
+
+    @Test
+    public void assignsConsistentIdentifiersWhenEncodingInParallel() throws Exception {
+        // Arrange
+        final int termCount = 20_000;
+        final MapdbTermDictionary dictionary = new MapdbTermDictionary(testDir.getRoot(), 100, 500_000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // Act
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() throws Exception {
+                        long[] ids = new long[termCount];
+                        for (int i = 0; i < termCount; i++) {
+                            ids[i] = dictionary.encode(VF.createURI("http://example.com/" + i));
+                        }
+                        return ids;
+                    }
+                }));
+            }
+
+            // Assert
+            long[] ids = results.get(0).get();
+            for (Future<long[]> result : results) {
+                assertThat(result.get(), equalTo(ids));
+            }
+            assertThat(dictionary.size(), equalTo((long) termCount));
+            for (int i = 0; i < termCount; i++) {
+                assertThat(dictionary.decode(ids[i]), equalTo((Value) VF.createURI("http://example.com/" + i)));
+            }
+        } finally {
+            executor.shutdown();
+            dictionary.close();
+        }
+    }
+}
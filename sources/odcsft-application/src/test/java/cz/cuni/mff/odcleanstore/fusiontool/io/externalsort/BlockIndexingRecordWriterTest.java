@@ -0,0 +1,120 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.UnsignedBytes;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+public class BlockIndexingRecordWriterTest {
+    private static final Comparator<byte[]> COMPARATOR = UnsignedBytes.lexicographicalComparator();
+    private static final int RECORD_COUNT = 5000;
+    private static final int BLOCK_SIZE = 512;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void writesReadableFileAndIndexWithoutCompression() throws Exception {
+        assertWritesIndexedFile(EnumTempFileCodec.NONE.createCodec(0, null));
+    }
+
+    @Test
+    public void writesReadableFileAndIndexWithGzipCompression() throws Exception {
+        assertWritesIndexedFile(EnumTempFileCodec.GZIP.createCodec(Deflater.BEST_SPEED, null));
+    }
+
+    @Test
+    public void writesReadableFileAndIndexWithBlockCompression() throws Exception {
+        assertWritesIndexedFile(EnumTempFileCodec.BLOCK.createCodec(0, null));
+    }
+
+    @Test
+    public void findsLastBlockLessThanKey() throws Exception {
+        // Arrange
+        TempFileCodec codec = EnumTempFileCodec.NONE.createCodec(0, null);
+        File file = writeSortedRecords(codec);
+
+        // Act
+        SparseBlockIndex index = SparseBlockIndex.readIndex(file);
+
+        // Assert
+        assertThat(index.findLastBlockLessThan(record(0), COMPARATOR), equalTo(-1));
+        assertThat(index.findLastBlockLessThan(index.getFirstRecord(0), COMPARATOR), equalTo(-1));
+        assertThat(index.findLastBlockLessThan(record(RECORD_COUNT), COMPARATOR), equalTo(index.size() - 1));
+        for (int block = 1; block < index.size(); block++) {
+            assertThat(index.findLastBlockLessThan(index.getFirstRecord(block), COMPARATOR), equalTo(block - 1));
+        }
+    }
+
+    @Test
+    public void returnsNullWhenFileHasNoIndex() throws Exception {
+        assertThat(SparseBlockIndex.readIndex(testDir.newFile()), equalTo(null));
+    }
+
+    private void assertWritesIndexedFile(TempFileCodec codec) throws Exception {
+        // Act
+        File file = writeSortedRecords(codec);
+
+        // Assert
+        List<byte[]> allRecords = readRecords(codec, file, 0, Integer.MAX_VALUE);
+        assertThat(allRecords.size(), equalTo(RECORD_COUNT));
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            assertThat(allRecords.get(i), equalTo(record(i)));
+        }
+
+        SparseBlockIndex index = SparseBlockIndex.readIndex(file);
+        assertThat(index.size(), greaterThan(1));
+        assertThat(index.getOffset(0), equalTo(0L));
+        for (int block = 0; block < index.size(); block++) {
+            List<byte[]> blockStart = readRecords(codec, file, index.getOffset(block), 2);
+            assertThat(blockStart.get(0), equalTo(index.getFirstRecord(block)));
+        }
+    }
+
+    private File writeSortedRecords(TempFileCodec codec) throws Exception {
+        File file = testDir.newFile();
+        BlockIndexingRecordWriter writer = new BlockIndexingRecordWriter(file, codec, BLOCK_SIZE);
+        try {
+            for (int i = 0; i < RECORD_COUNT; i++) {
+                writer.writeRecord(record(i));
+            }
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private static List<byte[]> readRecords(TempFileCodec codec, File file, long offset, int limit) throws Exception {
+        FileInputStream fileInputStream = new FileInputStream(file);
+        fileInputStream.getChannel().position(offset);
+        BinaryRecordReader reader = new BinaryRecordReader(codec.createInputStream(fileInputStream));
+        List<byte[]> result = new ArrayList<>();
+        try {
+            byte[] record;
+            while (result.size() < limit && (record = reader.readRecord()) != null) {
+                result.add(record);
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    private static byte[] record(int i) {
+        return Ints.toByteArray(i * 2 + 1);
+    }
+}
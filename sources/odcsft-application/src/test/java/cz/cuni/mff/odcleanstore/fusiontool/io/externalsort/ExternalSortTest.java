@@ -0,0 +1,116 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import com.google.common.primitives.UnsignedBytes;
+import cz.cuni.mff.odcleanstore.fusiontool.io.TempDirectories;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ExternalSortTest {
+    private static final Comparator<byte[]> COMPARATOR = UnsignedBytes.lexicographicalComparator();
+    private static final TempFileCodec CODEC = EnumTempFileCodec.NONE.createCodec(1, 4096);
+    private static final int RECORD_COUNT = 1_000;
+    private static final long SMALL_MEMORY = 2_000;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void deletesTemporaryFilesWhenSortingFails() throws Exception {
+        for (int sortThreadCount : new int[] {1, 4}) {
+            // Arrange
+            File directory = testDir.newFolder();
+            BinaryRecordReader input = new FailingRecordReader(createRecords(), RECORD_COUNT / 2);
+
+            // Act
+            try {
+                ExternalSort.sortInBatch(input, RECORD_COUNT * 10, COMPARATOR, 1024, SMALL_MEMORY,
+                        new TempDirectories(directory), false, CODEC, sortThreadCount);
+                fail("Expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+
+            // Assert
+            assertThat(Arrays.asList(directory.list()), equalTo(Collections.<String>emptyList()));
+        }
+    }
+
+    @Test
+    public void deletesIntermediateFilesWhenMergingFails() throws Exception {
+        // Arrange
+        File directory = testDir.newFolder();
+        TempDirectories tempDirectories = new TempDirectories(directory);
+        List<File> files = ExternalSort.sortInBatch(new BinaryRecordReader(new ByteArrayInputStream(createRecords())),
+                RECORD_COUNT * 10, COMPARATOR, 1024, SMALL_MEMORY, tempDirectories, false, CODEC);
+        File missingFile = files.get(files.size() - 1);
+        missingFile.delete();
+        List<String> inputFileNames = new ArrayList<>();
+        for (File file : files) {
+            inputFileNames.add(file.getName());
+        }
+
+        // Act
+        try {
+            ExternalSort.mergeSortedFiles(files, new BinaryRecordWriter(new ByteArrayOutputStream()), COMPARATOR, false,
+                    CODEC, 2, 2, tempDirectories);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // Assert
+        assertThat(files.size() > 4, equalTo(true));
+        for (String fileName : directory.list()) {
+            assertThat(inputFileNames.contains(fileName), equalTo(true));
+        }
+    }
+
+    private static byte[] createRecords() throws IOException {
+        Random random = new Random(0);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryRecordWriter writer = new BinaryRecordWriter(outputStream);
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            byte[] record = new byte[10];
+            random.nextBytes(record);
+            writer.writeRecord(record);
+        }
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    private static class FailingRecordReader extends BinaryRecordReader {
+        private final int failAfter;
+        private int readCount = 0;
+
+        public FailingRecordReader(byte[] data, int failAfter) {
+            super(new ByteArrayInputStream(data));
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public byte[] readRecord() throws IOException {
+            if (readCount++ >= failAfter) {
+                throw new IOException("Test failure");
+            }
+            return super.readRecord();
+        }
+    }
+}
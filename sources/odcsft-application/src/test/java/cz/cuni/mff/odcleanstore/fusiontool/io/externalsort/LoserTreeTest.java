@@ -0,0 +1,117 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import com.google.common.collect.Ordering;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleReader;
+import cz.cuni.mff.odcleanstore.fusiontool.io.dictionary.IdTupleWriter;
+import cz.cuni.mff.odcleanstore.fusiontool.util.ThrowingAbstractIterator;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class LoserTreeTest {
+    private static final Comparator<int[]> FIRST_ITEM_COMPARATOR = new Comparator<int[]>() {
+        @Override
+        public int compare(int[] o1, int[] o2) {
+            return Integer.compare(o1[0], o2[0]);
+        }
+    };
+
+    @Test
+    public void mergesSortedSourcesStably() throws Exception {
+        Random random = new Random(0);
+        for (int sourceCount : new int[] {0, 1, 2, 3, 5, 8, 17}) {
+            // Arrange
+            List<ListIterator<int[]>> sources = new ArrayList<>();
+            List<int[]> expectedResult = new ArrayList<>();
+            for (int i = 0; i < sourceCount; i++) {
+                List<int[]> records = new ArrayList<>();
+                int recordCount = random.nextInt(50);
+                for (int j = 0; j < recordCount; j++) {
+                    records.add(new int[] {random.nextInt(20), i});
+                }
+                Collections.sort(records, FIRST_ITEM_COMPARATOR);
+                sources.add(new ListIterator<>(records));
+                expectedResult.addAll(records);
+            }
+            // stable sort keeps records with equal keys in the order of sources
+            Collections.sort(expectedResult, FIRST_ITEM_COMPARATOR);
+
+            // Act
+            List<int[]> result = new ArrayList<>();
+            LoserTree<int[]> loserTree = new LoserTree<>(sources, FIRST_ITEM_COMPARATOR);
+            while (loserTree.hasNext()) {
+                result.add(loserTree.next());
+            }
+
+            // Assert
+            assertThat(result.size(), equalTo(expectedResult.size()));
+            for (int i = 0; i < result.size(); i++) {
+                assertThat(result.get(i), equalTo(expectedResult.get(i)));
+            }
+            assertThat(loserTree.peekSourceIndex(), equalTo(-1));
+        }
+    }
+
+    @Test
+    public void mergesTupleReaders() throws Exception {
+        // Arrange
+        List<IdTupleReader> sources = Arrays.asList(
+                new IdTupleReader(new ByteArrayInputStream(writeTuples(new long[][] {{1, 11}, {3, 11}}))),
+                new IdTupleReader(new ByteArrayInputStream(writeTuples(new long[][] {{2, 12}, {3, 12}}))));
+        Comparator<long[]> comparator = new Comparator<long[]>() {
+            @Override
+            public int compare(long[] o1, long[] o2) {
+                return Long.compare(o1[0], o2[0]);
+            }
+        };
+
+        // Act
+        List<long[]> result = new ArrayList<>();
+        LoserTree<long[]> loserTree = new LoserTree<>(sources, comparator);
+        List<Integer> sourceIndexes = new ArrayList<>();
+        while (loserTree.hasNext()) {
+            sourceIndexes.add(loserTree.peekSourceIndex());
+            result.add(loserTree.next());
+        }
+
+        // Assert
+        assertThat(result.size(), equalTo(4));
+        assertThat(Ordering.from(comparator).isOrdered(result), equalTo(true));
+        assertThat(sourceIndexes, equalTo(Arrays.asList(0, 1, 0, 1)));
+    }
+
+    private static byte[] writeTuples(long[][] tuples) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        IdTupleWriter writer = new IdTupleWriter(outputStream);
+        for (long[] tuple : tuples) {
+            writer.writeTuple(tuple);
+        }
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    private static class ListIterator<T> extends ThrowingAbstractIterator<T, IOException> {
+        private final Iterator<T> iterator;
+
+        public ListIterator(List<T> list) {
+            this.iterator = list.iterator();
+        }
+
+        @Override
+        protected T computeNext() {
+            return iterator.hasNext() ? iterator.next() : endOfData();
+        }
+    }
+}
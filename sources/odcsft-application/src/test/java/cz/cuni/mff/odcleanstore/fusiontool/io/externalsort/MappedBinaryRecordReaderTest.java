@@ -0,0 +1,146 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.AsyncIOTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.EnumTempFileCodec;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class MappedBinaryRecordReaderTest {
+    private static final int SMALL_WINDOW_SIZE = 100;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void readsRecordsSpanningWindowBoundaries() throws Exception {
+        // Arrange
+        List<byte[]> records = createRecords();
+        File file = writeRecords(records);
+
+        // Act
+        List<byte[]> result = readAll(new MappedBinaryRecordReader(file, 0, SMALL_WINDOW_SIZE));
+
+        // Assert
+        assertThat(result.size(), equalTo(records.size()));
+        for (int i = 0; i < records.size(); i++) {
+            assertThat(result.get(i), equalTo(records.get(i)));
+        }
+    }
+
+    @Test
+    public void readsRecordsFromOffset() throws Exception {
+        // Arrange
+        List<byte[]> records = createRecords();
+        File file = writeRecords(records);
+        long offset = writeRecords(records.subList(0, 10)).length();
+
+        // Act
+        List<byte[]> result = readAll(new MappedBinaryRecordReader(file, offset, SMALL_WINDOW_SIZE));
+
+        // Assert
+        assertThat(result.size(), equalTo(records.size() - 10));
+        assertThat(result.get(0), equalTo(records.get(10)));
+    }
+
+    @Test
+    public void readsEmptyFile() throws Exception {
+        MappedBinaryRecordReader reader = new MappedBinaryRecordReader(testDir.newFile(), 0, SMALL_WINDOW_SIZE);
+        assertThat(reader.readRecord(), nullValue());
+        reader.close();
+    }
+
+    @Test(expected = EOFException.class)
+    public void throwsExceptionOnTruncatedRecord() throws Exception {
+        // Arrange
+        File file = writeRecords(createRecords());
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(file.length() - 1);
+        randomAccessFile.close();
+
+        // Act
+        readAll(new MappedBinaryRecordReader(file, 0, SMALL_WINDOW_SIZE));
+    }
+
+    @Test
+    public void opensMappedReaderForUnencodedFiles() throws Exception {
+        // Arrange
+        List<byte[]> records = createRecords();
+        File file = writeRecords(records);
+
+        // Act
+        BinaryRecordReader reader = BinaryRecordReader.open(file, 0, EnumTempFileCodec.NONE.createCodec(0, null));
+        List<byte[]> result = readAll(reader);
+
+        // Assert
+        assertThat(reader instanceof MappedBinaryRecordReader,
+                equalTo(MappedBinaryRecordReader.isSupported(EnumTempFileCodec.NONE.createCodec(0, null))));
+        assertThat(result.size(), equalTo(records.size()));
+        assertThat(MappedBinaryRecordReader.isSupported(EnumTempFileCodec.GZIP.createCodec(1, null)), equalTo(false));
+    }
+
+    @Test
+    public void supportsUncompressedFilesWithAsynchronousIO() throws Exception {
+        // Arrange
+        TempFileCodec plainCodec = EnumTempFileCodec.NONE.createCodec(0, null);
+        TempFileCodec asyncCodec = new AsyncIOTempFileCodec(plainCodec, 1, 1024);
+        TempFileCodec asyncGzipCodec = new AsyncIOTempFileCodec(EnumTempFileCodec.GZIP.createCodec(1, null), 1, 1024);
+
+        // Act
+        boolean isAsyncSupported = MappedBinaryRecordReader.isSupported(asyncCodec);
+        boolean isAsyncGzipSupported = MappedBinaryRecordReader.isSupported(asyncGzipCodec);
+
+        // Assert
+        assertThat(isAsyncSupported, equalTo(MappedBinaryRecordReader.isSupported(plainCodec)));
+        assertThat(isAsyncGzipSupported, equalTo(false));
+    }
+
+    private static List<byte[]> createRecords() {
+        Random random = new Random(0);
+        List<byte[]> records = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // include records longer than the window and empty records
+            byte[] record = new byte[i % 50 == 0 ? 3 * SMALL_WINDOW_SIZE : random.nextInt(40)];
+            random.nextBytes(record);
+            records.add(record);
+        }
+        records.add(5, new byte[0]);
+        return records;
+    }
+
+    private File writeRecords(List<byte[]> records) throws Exception {
+        File file = testDir.newFile();
+        BinaryRecordWriter writer = new BinaryRecordWriter(new FileOutputStream(file));
+        for (byte[] record : records) {
+            writer.writeRecord(record);
+        }
+        writer.close();
+        return file;
+    }
+
+    private static List<byte[]> readAll(BinaryRecordReader reader) throws Exception {
+        List<byte[]> result = new ArrayList<>();
+        try {
+            byte[] record;
+            while ((record = reader.readRecord()) != null) {
+                result.add(record);
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+}
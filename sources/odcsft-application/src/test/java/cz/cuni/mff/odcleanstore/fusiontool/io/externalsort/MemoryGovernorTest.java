@@ -0,0 +1,91 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.externalsort;
+
+import org.junit.Test;
+
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class MemoryGovernorTest {
+    @Test
+    public void estimatesAvailableMemoryWithinMaxHeapSize() throws Exception {
+        // Act
+        long result = MemoryGovernor.estimateAvailableMemory();
+
+        // Assert
+        assertThat(result, greaterThan(0L));
+        assertThat(result, lessThanOrEqualTo(Runtime.getRuntime().maxMemory()));
+    }
+
+    @Test
+    public void neverReturnsBlockSizeAbovePreferredSize() throws Exception {
+        // Arrange
+        long preferredBlockSize = 1000;
+
+        // Act
+        long result = MemoryGovernor.getBlockSize(preferredBlockSize, 4);
+
+        // Assert
+        assertThat(result, lessThanOrEqualTo(preferredBlockSize));
+        assertThat(result, greaterThan(0L));
+    }
+
+    @Test
+    public void neverReturnsBlockSizeBelowMinimumSize() throws Exception {
+        // Act
+        long result = MemoryGovernor.getBlockSize(Long.MAX_VALUE, Integer.MAX_VALUE);
+
+        // Assert
+        assertThat(result, greaterThan(MemoryGovernor.MIN_BLOCK_SIZE - 1));
+    }
+
+    @Test
+    public void reportsLowMemoryWhenTenuredPoolIsAlmostFull() throws Exception {
+        // Arrange
+        MemoryUsage emptyPool = new MemoryUsage(0, 100, 1000, 1000);
+        MemoryUsage fullPool = new MemoryUsage(0, 950, 1000, 1000);
+
+        // Act
+        boolean lowWhenFull = MemoryGovernor.isMemoryLow(Arrays.asList(emptyPool, fullPool));
+        boolean lowWhenReleased = MemoryGovernor.isMemoryLow(Arrays.asList(emptyPool, emptyPool));
+
+        // Assert
+        assertThat(lowWhenFull, equalTo(true));
+        assertThat(lowWhenReleased, equalTo(false));
+    }
+
+    @Test
+    public void ignoresPoolsWithUndefinedMaximum() throws Exception {
+        // Arrange
+        MemoryUsage unboundedPool = new MemoryUsage(0, 950, 1000, -1);
+
+        // Act
+        boolean result = MemoryGovernor.isMemoryLow(Collections.singletonList(unboundedPool));
+
+        // Assert
+        assertThat(result, equalTo(false));
+    }
+
+    @Test
+    public void shrinksBlockSizeWhenMemoryIsScarceAndGrowsItBackWhenReleased() throws Exception {
+        // Arrange
+        long preferredBlockSize = 64 * MemoryGovernor.MIN_BLOCK_SIZE;
+
+        // Act
+        long plentyOfMemory = MemoryGovernor.getBlockSize(preferredBlockSize, 2, 1024 * MemoryGovernor.MIN_BLOCK_SIZE);
+        long scarceMemory = MemoryGovernor.getBlockSize(preferredBlockSize, 2, 32 * MemoryGovernor.MIN_BLOCK_SIZE);
+        long noMemory = MemoryGovernor.getBlockSize(preferredBlockSize, 2, 0);
+        long releasedMemory = MemoryGovernor.getBlockSize(preferredBlockSize, 2, 1024 * MemoryGovernor.MIN_BLOCK_SIZE);
+
+        // Assert
+        assertThat(plentyOfMemory, equalTo(preferredBlockSize));
+        assertThat(scarceMemory, equalTo(8 * MemoryGovernor.MIN_BLOCK_SIZE));
+        assertThat(noMemory, equalTo(MemoryGovernor.MIN_BLOCK_SIZE));
+        assertThat(releasedMemory, equalTo(preferredBlockSize));
+    }
+}
@@ -0,0 +1,78 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.urimapping;
+
+import com.google.common.collect.ImmutableSet;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingIterableImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openrdf.model.Resource;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class MappedUriMappingIterableImplTest {
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void producesSameMappingAsUriMappingIterableImpl() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        Set<String> preferredUris = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            preferredUris.add("http://example.com/uri/\u00e9" + random.nextInt(100_000));
+        }
+        UriMappingIterableImpl expectedMapping = new UriMappingIterableImpl(preferredUris);
+
+        try (MappedUriMappingIterableImpl mappedMapping = new MappedUriMappingIterableImpl(preferredUris, testDir.getRoot())) {
+            // Act
+            for (int i = 0; i < 60_000; i++) {
+                String subject = "http://example.com/uri/\u00e9" + random.nextInt(100_000);
+                String object = "http://example.com/uri/\u00e9" + random.nextInt(100_000);
+                mappedMapping.addLink(subject, object);
+                expectedMapping.addLink(subject, object);
+            }
+
+            // Assert
+            for (int i = 0; i < 100_000; i++) {
+                String uri = "http://example.com/uri/\u00e9" + i;
+                assertThat(mappedMapping.getCanonicalURI(uri), equalTo(expectedMapping.getCanonicalURI(uri)));
+            }
+            assertThat(ImmutableSet.copyOf(mappedMapping), equalTo(ImmutableSet.copyOf(expectedMapping)));
+        }
+    }
+
+    @Test
+    public void mapsResourcesToCanonicalUri() throws Exception {
+        // Arrange
+        try (MappedUriMappingIterableImpl mapping = new MappedUriMappingIterableImpl(ImmutableSet.of("http://a2"), testDir.getRoot())) {
+            mapping.addLink("http://a1", "http://a2");
+            mapping.addLink("http://a3", "http://a1");
+
+            // Act
+            Resource result = mapping.mapResource(ValueFactoryImpl.getInstance().createURI("http://a3"));
+
+            // Assert
+            assertThat(result, equalTo((Resource) ValueFactoryImpl.getInstance().createURI("http://a2")));
+            assertThat(mapping.getCanonicalURI("http://b1"), equalTo("http://b1"));
+        }
+    }
+
+    @Test
+    public void deletesFilesWhenClosed() throws Exception {
+        // Arrange
+        MappedUriMappingIterableImpl mapping = new MappedUriMappingIterableImpl(null, testDir.getRoot());
+        mapping.addLink("http://a1", "http://a2");
+
+        // Act
+        mapping.close();
+
+        // Assert
+        assertThat(testDir.getRoot().list().length, equalTo(0));
+    }
+}
@@ -0,0 +1,82 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.urimapping;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import cz.cuni.mff.odcleanstore.fusiontool.config.ConfigParameters;
+import cz.cuni.mff.odcleanstore.fusiontool.config.ConstructSourceConfig;
+import cz.cuni.mff.odcleanstore.fusiontool.config.ConstructSourceConfigImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.config.EnumDataSourceType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openrdf.model.URI;
+import org.openrdf.model.vocabulary.OWL;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class SameAsFingerprintTest {
+    private static final Set<URI> SAME_AS_LINK_TYPES = Collections.singleton(OWL.SAMEAS);
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void changesWhenSameAsFileChanges() throws Exception {
+        // Arrange
+        File sameAsFile = testDir.newFile("sameAs.ttl");
+        Files.write(sameAsFile.toPath(), "<http://a1> <http://www.w3.org/2002/07/owl#sameAs> <http://a2> .\n".getBytes(StandardCharsets.UTF_8));
+        List<ConstructSourceConfig> sources = ImmutableList.of(createFileSource(sameAsFile));
+        Set<String> preferredUris = ImmutableSet.of("http://a1");
+        long originalFingerprint = SameAsFingerprint.compute(sources, SAME_AS_LINK_TYPES, preferredUris, false);
+
+        // Act
+        Files.write(sameAsFile.toPath(), "<http://a1> <http://www.w3.org/2002/07/owl#sameAs> <http://a3> .\n".getBytes(StandardCharsets.UTF_8));
+        sameAsFile.setLastModified(sameAsFile.lastModified() + 2000);
+        long modifiedFingerprint = SameAsFingerprint.compute(sources, SAME_AS_LINK_TYPES, preferredUris, false);
+
+        // Assert
+        assertThat(modifiedFingerprint, not(equalTo(originalFingerprint)));
+    }
+
+    @Test
+    public void dependsOnPreferredUrisButNotTheirOrder() throws Exception {
+        // Arrange
+        File sameAsFile = testDir.newFile("sameAs.ttl");
+        List<ConstructSourceConfig> sources = ImmutableList.of(createFileSource(sameAsFile));
+
+        // Act
+        long fingerprint1 = SameAsFingerprint.compute(sources, SAME_AS_LINK_TYPES, ImmutableList.of("http://a1", "http://a2"), false);
+        long fingerprint2 = SameAsFingerprint.compute(sources, SAME_AS_LINK_TYPES, ImmutableList.of("http://a2", "http://a1"), false);
+        long fingerprint3 = SameAsFingerprint.compute(sources, SAME_AS_LINK_TYPES, ImmutableList.of("http://a1", "http://a3"), false);
+
+        // Assert
+        assertThat(fingerprint1, equalTo(fingerprint2));
+        assertThat(fingerprint1, not(equalTo(fingerprint3)));
+    }
+
+    @Test
+    public void isSupportedOnlyForFileSources() throws Exception {
+        // Arrange
+        ConstructSourceConfig fileSource = createFileSource(testDir.newFile("sameAs.ttl"));
+        ConstructSourceConfig sparqlSource = new ConstructSourceConfigImpl(EnumDataSourceType.SPARQL, "sparql", "CONSTRUCT {?s ?p ?o} WHERE {?s ?p ?o}");
+
+        // Act & Assert
+        assertThat(SameAsFingerprint.isSupported(ImmutableList.of(fileSource)), equalTo(true));
+        assertThat(SameAsFingerprint.isSupported(ImmutableList.of(fileSource, sparqlSource)), equalTo(false));
+    }
+
+    private static ConstructSourceConfig createFileSource(File file) {
+        ConstructSourceConfigImpl source = new ConstructSourceConfigImpl(EnumDataSourceType.FILE, "sameAs", "");
+        source.getParams().put(ConfigParameters.DATA_SOURCE_FILE_PATH, file.getPath());
+        return source;
+    }
+}
@@ -0,0 +1,136 @@
+package cz.cuni.mff.odcleanstore.fusiontool.io.urimapping;
+
+import com.google.common.collect.ImmutableSet;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.CompactUriMappingIterableImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.MutableUriMapping;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SnapshotUriMappingIterableImplTest {
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void reloadsSavedMapping() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        Set<String> preferredUris = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            preferredUris.add("http://example.com/uri/\u00e9" + random.nextInt(100_000));
+        }
+        CompactUriMappingIterableImpl mapping = new CompactUriMappingIterableImpl(preferredUris);
+        for (int i = 0; i < 60_000; i++) {
+            mapping.addLink("http://example.com/uri/\u00e9" + random.nextInt(100_000), "http://example.com/uri/\u00e9" + random.nextInt(100_000));
+        }
+        File snapshotFile = new File(testDir.getRoot(), "sameAs.snapshot");
+
+        // Act
+        SnapshotUriMappingIterableImpl.save(mapping, preferredUris, 123, snapshotFile);
+        try (SnapshotUriMappingIterableImpl snapshot = SnapshotUriMappingIterableImpl.load(snapshotFile, 123)) {
+
+            // Assert
+            assertThat(snapshot, notNullValue());
+            for (int i = 0; i < 100_000; i++) {
+                String uri = "http://example.com/uri/\u00e9" + i;
+                assertThat(snapshot.getCanonicalURI(uri), equalTo(mapping.getCanonicalURI(uri)));
+            }
+            assertThat(ImmutableSet.copyOf(snapshot), equalTo(ImmutableSet.copyOf(mapping)));
+        }
+        assertThat(snapshotFile.exists(), equalTo(true));
+    }
+
+    @Test
+    public void reloadsEmptyMapping() throws Exception {
+        // Arrange
+        File snapshotFile = new File(testDir.getRoot(), "sameAs.snapshot");
+
+        // Act
+        SnapshotUriMappingIterableImpl.save(new CompactUriMappingIterableImpl(), Collections.<String>emptySet(), 1, snapshotFile);
+        try (SnapshotUriMappingIterableImpl snapshot = SnapshotUriMappingIterableImpl.load(snapshotFile, 1)) {
+
+            // Assert
+            assertThat(snapshot.getCanonicalURI("http://a1"), equalTo("http://a1"));
+            assertThat(snapshot.iterator().hasNext(), equalTo(false));
+        }
+    }
+
+    @Test
+    public void ignoresSnapshotWithDifferentFingerprint() throws Exception {
+        // Arrange
+        CompactUriMappingIterableImpl mapping = new CompactUriMappingIterableImpl();
+        mapping.addLink("http://a1", "http://a2");
+        File snapshotFile = new File(testDir.getRoot(), "sameAs.snapshot");
+        SnapshotUriMappingIterableImpl.save(mapping, Collections.<String>emptySet(), 1, snapshotFile);
+
+        // Act
+        SnapshotUriMappingIterableImpl result = SnapshotUriMappingIterableImpl.load(snapshotFile, 2);
+
+        // Assert
+        assertThat(result, nullValue());
+    }
+
+    @Test
+    public void ignoresInvalidSnapshot() throws Exception {
+        // Arrange
+        File snapshotFile = testDir.newFile("sameAs.snapshot");
+        Files.write(snapshotFile.toPath(), "http://a1 http://a2\n".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        SnapshotUriMappingIterableImpl result = SnapshotUriMappingIterableImpl.load(snapshotFile, 1);
+
+        // Assert
+        assertThat(result, nullValue());
+        assertThat(SnapshotUriMappingIterableImpl.load(new File(testDir.getRoot(), "missing"), 1), nullValue());
+    }
+
+    @Test
+    public void ignoresSnapshotOfPreviousVersion() throws Exception {
+        // Arrange
+        CompactUriMappingIterableImpl mapping = new CompactUriMappingIterableImpl();
+        mapping.addLink("http://a1", "http://a2");
+        File snapshotFile = new File(testDir.getRoot(), "sameAs.snapshot");
+        SnapshotUriMappingIterableImpl.save(mapping, Collections.<String>emptySet(), 1, snapshotFile);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(snapshotFile, "rw")) {
+            randomAccessFile.seek(SnapshotUriMappingIterableImpl.VERSION_POSITION);
+            randomAccessFile.writeInt(SnapshotUriMappingIterableImpl.VERSION - 1);
+        }
+
+        // Act
+        SnapshotUriMappingIterableImpl result = SnapshotUriMappingIterableImpl.load(snapshotFile, 1);
+
+        // Assert
+        assertThat(result, nullValue());
+    }
+
+    @Test
+    public void isReadOnly() throws Exception {
+        // Arrange
+        CompactUriMappingIterableImpl mapping = new CompactUriMappingIterableImpl();
+        mapping.addLink("http://a1", "http://a2");
+        File snapshotFile = new File(testDir.getRoot(), "sameAs.snapshot");
+        SnapshotUriMappingIterableImpl.save(mapping, Collections.<String>emptySet(), 1, snapshotFile);
+
+        try (SnapshotUriMappingIterableImpl snapshot = SnapshotUriMappingIterableImpl.load(snapshotFile, 1)) {
+            // Act
+            boolean isMutable = snapshot instanceof MutableUriMapping;
+
+            // Assert
+            assertThat(isMutable, equalTo(false));
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.base.Stopwatch;
 import cz.cuni.mff.odcleanstore.fusiontool.config.*;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingIterableImpl;
 import cz.cuni.mff.odcleanstore.fusiontool.io.EnumSerializationFormat;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.data.AllTriplesFileLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.data.AllTriplesLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.util.LDFusionToolUtils;
@@ -72,7 +73,9 @@ public class ExternalSortingInputLoaderPerformanceTest {
                 (AllTriplesLoader) new AllTriplesFileLoader(dataSourceConfig, LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG));
 
         System.out.printf("Initialized with %,d triples in %s\n", tripleCount, initStopwatch);
-        System.out.printf("Using GZIP compression: %s (block size %d)\n", ExternalSortingInputLoader.USE_GZIP ? "yes" : "no", ExternalSortingInputLoader.GZIP_BUFFER_SIZE);
+        TempFileCodec tempFileCodec = LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION.createCodec(
+                LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION_LEVEL, null);
+        System.out.printf("Using temporary file compression: %s\n", tempFileCodec);
 
         // Act
         int actualTripleCount = 0;
@@ -80,7 +83,8 @@ public class ExternalSortingInputLoaderPerformanceTest {
         ExternalSortingInputLoader inputLoader = null;
         executionStopwatch = Stopwatch.createStarted();
         inputLoader = new ExternalSortingInputLoader(dataSources, Collections.<URI>emptySet(), testDir.getRoot(),
-                LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG, maxMemorySize);
+                LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG, maxMemorySize, LDFTConfigConstants.DEFAULT_SORT_THREAD_COUNT,
+                tempFileCodec);
         try {
             inputLoader.initialize(new UriMappingIterableImpl());
             while (inputLoader.hasNext()) {
@@ -0,0 +1,12 @@
+package cz.cuni.mff.odcleanstore.fusiontool.loaders;
+
+/**
+ * Runs {@link ExternalSortingInputLoaderTest} with a memory limit so low that all data are processed
+ * using temporary files.
+ */
+public class ExternalSortingInputLoaderSpillingTest extends ExternalSortingInputLoaderTest {
+    @Override
+    protected long getMaxMemoryLimit() {
+        return 1;
+    }
+}
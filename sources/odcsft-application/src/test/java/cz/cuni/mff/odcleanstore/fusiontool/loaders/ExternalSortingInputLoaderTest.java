@@ -10,8 +10,12 @@ import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.ResourceDescriptio
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.UriMapping;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingIterable;
 import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping.UriMappingIterableImpl;
+import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolApplicationException;
+import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolErrorCodes;
 import cz.cuni.mff.odcleanstore.fusiontool.exceptions.LDFusionToolException;
 import cz.cuni.mff.odcleanstore.fusiontool.io.EnumSerializationFormat;
+import cz.cuni.mff.odcleanstore.fusiontool.io.TempDirectories;
+import cz.cuni.mff.odcleanstore.fusiontool.io.codec.TempFileCodec;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.data.AllTriplesFileLoader;
 import cz.cuni.mff.odcleanstore.fusiontool.loaders.data.AllTriplesLoader;
 import org.hamcrest.Matcher;
@@ -28,15 +32,19 @@ import org.openrdf.model.URI;
 import org.openrdf.model.impl.TreeModel;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandler;
 import org.openrdf.rio.RDFHandlerException;
 import org.openrdf.rio.RDFWriter;
 import org.openrdf.rio.Rio;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilenameFilter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static cz.cuni.mff.odcleanstore.fusiontool.testutil.ContextAwareStatementIsEqual.contextAwareStatementIsEqual;
@@ -295,6 +303,30 @@ public class ExternalSortingInputLoaderTest {
         assertThat(filesInWorkingDir.length, equalTo(1)); // only the input file should remain
     }
 
+    @Test
+    public void writesTemporaryFilesOnlyWhenMemoryLimitIsExceeded() throws Exception {
+        // Act
+        int temporaryFileCount;
+        ExternalSortingInputLoader inputLoader = createExternalSortingInputLoader(testInput3, false);
+        try {
+            inputLoader.initialize(uriMapping);
+            temporaryFileCount = testDir.getRoot().list(new FilenameFilter() {
+                @Override
+                public boolean accept(File dir, String name) {
+                    return name.startsWith("odcs-ft.sort-loader.");
+                }
+            }).length;
+            while (inputLoader.hasNext()) {
+                inputLoader.next();
+            }
+        } finally {
+            inputLoader.close();
+        }
+
+        // Assert
+        assertThat(temporaryFileCount > 0, equalTo(getMaxMemoryLimit() < Long.MAX_VALUE));
+    }
+
     @Test
     public void clearsTemporaryFilesOnError() throws Exception {
         // Act
@@ -310,7 +342,7 @@ public class ExternalSortingInputLoaderTest {
             Set<AllTriplesLoader> dataSources = Collections.singleton(
                     (AllTriplesLoader) new AllTriplesFileLoader(dataSource, LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG));
             inputLoader = new ExternalSortingInputLoader(dataSources, Collections.singleton(resourceDescriptionProperty), testDir.getRoot(),
-                    LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG, Long.MAX_VALUE);
+                    LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG, getMaxMemoryLimit());
             inputLoader.initialize(uriMapping);
             if (inputLoader.hasNext()) {
                 // call only once
@@ -345,6 +377,101 @@ public class ExternalSortingInputLoaderTest {
         }
     }
 
+    @Test
+    public void fillsDefaultContextOfEachDataSourceWhenLoadingInParallel() throws Exception {
+        // Arrange
+        InMemoryAllTriplesLoader source1 = new InMemoryAllTriplesLoader(createHttpUri("default1"),
+                createHttpStatement("s1", "p1", "o1"));
+        InMemoryAllTriplesLoader source2 = new InMemoryAllTriplesLoader(createHttpUri("default2"),
+                createHttpStatement("s2", "p2", "o2"),
+                createHttpStatement("s1", "p1", "o1", "g1"));
+        InMemoryAllTriplesLoader source3 = new InMemoryAllTriplesLoader(createHttpUri("default3"));
+
+        // Act
+        SortedSet<Statement> result = new TreeSet<>(SPOG_COMPARATOR);
+        ExternalSortingInputLoader inputLoader = new ExternalSortingInputLoader(
+                Arrays.<AllTriplesLoader>asList(source1, source2, source3),
+                Collections.singleton(resourceDescriptionProperty),
+                new TempDirectories(testDir.getRoot()),
+                LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG,
+                getMaxMemoryLimit(),
+                LDFTConfigConstants.DEFAULT_SORT_THREAD_COUNT,
+                3,
+                createTempFileCodec());
+        try {
+            collectResult(inputLoader, result);
+        } finally {
+            inputLoader.close();
+        }
+
+        // Assert
+        assertThat(result, Matchers.containsInAnyOrder(toContextAwareEqualMatchers(Arrays.asList(
+                createHttpStatement("s1", "p1", "o1", "default1"),
+                createHttpStatement("s1", "p1", "o1", "g1"),
+                createHttpStatement("s2", "p2", "o2", "default2")))));
+        assertTrue(source1.isClosed && source2.isClosed && source3.isClosed);
+    }
+
+    @Test
+    public void closesAllDataSourcesWhenOneOfThemFails() throws Exception {
+        // Arrange
+        InMemoryAllTriplesLoader source1 = new InMemoryAllTriplesLoader(createHttpUri("default1"),
+                createHttpStatement("s1", "p1", "o1"));
+        InMemoryAllTriplesLoader source2 = new InMemoryAllTriplesLoader(createHttpUri("default2"));
+        source2.failure = new LDFusionToolApplicationException(LDFusionToolErrorCodes.ALL_TRIPLES_QUERY_QUADS, "test error");
+        InMemoryAllTriplesLoader source3 = new InMemoryAllTriplesLoader(createHttpUri("default3"),
+                createHttpStatement("s3", "p3", "o3"));
+
+        // Act
+        Exception caughtException = null;
+        ExternalSortingInputLoader inputLoader = new ExternalSortingInputLoader(
+                Arrays.<AllTriplesLoader>asList(source1, source2, source3),
+                Collections.singleton(resourceDescriptionProperty),
+                new TempDirectories(testDir.getRoot()),
+                LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG,
+                getMaxMemoryLimit(),
+                LDFTConfigConstants.DEFAULT_SORT_THREAD_COUNT,
+                3,
+                createTempFileCodec());
+        try {
+            inputLoader.initialize(uriMapping);
+        } catch (Exception e) {
+            caughtException = e;
+        } finally {
+            inputLoader.close();
+        }
+
+        // Assert
+        assertThat(caughtException, instanceOf(LDFusionToolException.class));
+        assertTrue(source1.isClosed && source2.isClosed && source3.isClosed);
+        assertThat(testDir.getRoot().listFiles().length, equalTo(0));
+    }
+
+    @Test
+    public void producesTheSameOrderWhenLoadingDataSourcesInParallel() throws Exception {
+        // Arrange
+        List<Statement> statements1 = new ArrayList<>();
+        List<Statement> statements2 = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            statements1.add(createHttpStatement("s" + (100 - i), "p1", "o" + i, "g1"));
+            statements2.add(createHttpStatement("s" + i, "p2", "o" + (100 - i), "g2"));
+        }
+
+        // Act
+        List<List<String>> sequentialResult = collectDescribingStatements(
+                createInMemoryAllTriplesLoaders(statements1, statements2, null), getMaxMemoryLimit(), 1);
+        // the first data source is read only after the second one has been read completely
+        CountDownLatch secondSourceRead = new CountDownLatch(1);
+        List<List<String>> parallelResult1 = collectDescribingStatements(
+                createInMemoryAllTriplesLoaders(statements1, statements2, secondSourceRead), getMaxMemoryLimit(), 2);
+        List<List<String>> parallelResult2 = collectDescribingStatements(
+                createInMemoryAllTriplesLoaders(statements1, statements2, null), getMaxMemoryLimit(), 2);
+
+        // Assert
+        assertThat(parallelResult1, equalTo(sequentialResult));
+        assertThat(parallelResult2, equalTo(sequentialResult));
+    }
+
     @Test
     public void readsMultipleInputFiles() throws Exception {
         // Act
@@ -354,7 +481,7 @@ public class ExternalSortingInputLoaderTest {
                 Collections.singleton(resourceDescriptionProperty),
                 testDir.getRoot(),
                 LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG,
-                Long.MAX_VALUE);
+                getMaxMemoryLimit());
         try {
             collectResult(inputLoader, result);
         } finally {
@@ -375,6 +502,35 @@ public class ExternalSortingInputLoaderTest {
         }
     }
 
+    @Test
+    public void removesDuplicateQuadsTheSameWayInMemoryAndInTemporaryFiles() throws Exception {
+        // Arrange
+        Statement[] statements = new Statement[] {
+                createHttpStatement("s1", "p1", "o1", "g1"),
+                createHttpStatement("s1", "p2", "o2", "g1"),
+                createHttpStatement("s1", "p1", "o1", "g1"),
+                createHttpStatement("s1", "p3", "o3", "g1"),
+                createHttpStatement("s1", "p2", "o2", "g1"),
+                createHttpStatement("s2", "p1", "o1", "g1"),
+                createHttpStatement("s1", "p1", "o1", "g1")
+        };
+
+        // Act
+        List<List<String>> inMemoryResult = collectDescribingStatements(statements, Long.MAX_VALUE);
+        List<List<String>> spilledResult = collectDescribingStatements(statements, 1);
+        List<List<String>> result = collectDescribingStatements(statements, getMaxMemoryLimit());
+
+        // Assert
+        assertThat(inMemoryResult, equalTo(Arrays.<List<String>>asList(
+                Arrays.asList(
+                        createHttpStatement("s1", "p1", "o1", "g1").toString(),
+                        createHttpStatement("s1", "p2", "o2", "g1").toString(),
+                        createHttpStatement("s1", "p3", "o3", "g1").toString()),
+                Collections.singletonList(createHttpStatement("s2", "p1", "o1", "g1").toString()))));
+        assertThat(spilledResult, equalTo(inMemoryResult));
+        assertThat(result, equalTo(inMemoryResult));
+    }
+
     @Ignore // TODO
     @Test
     public void filtersUnmappedSubjectsWhenOutputMappedSubjectsOnlyIsTrue() throws Exception {
@@ -586,13 +742,20 @@ public class ExternalSortingInputLoaderTest {
     }
 
 
+    /**
+     * Memory limit for tested input loaders; with no limit, all data are processed in memory.
+     */
+    protected long getMaxMemoryLimit() {
+        return Long.MAX_VALUE;
+    }
+
     private ExternalSortingInputLoader createExternalSortingInputLoader(Collection<Statement> testInput, boolean outputMappedSubjectsOnly) throws IOException, RDFHandlerException {
         return new ExternalSortingInputLoader(
                 createFileAllTriplesLoader(testInput),
                 Collections.singleton(resourceDescriptionProperty),
                 testDir.getRoot(),
                 LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG,
-                Long.MAX_VALUE
+                getMaxMemoryLimit()
         );
     }
 
@@ -641,6 +804,58 @@ public class ExternalSortingInputLoaderTest {
         }
     }
 
+    private List<List<String>> collectDescribingStatements(Statement[] statements, long maxMemoryLimit) throws LDFusionToolException {
+        return collectDescribingStatements(
+                Collections.<AllTriplesLoader>singletonList(new InMemoryAllTriplesLoader(createHttpUri("default"), statements)),
+                maxMemoryLimit,
+                LDFTConfigConstants.DEFAULT_DATA_SOURCE_THREAD_COUNT);
+    }
+
+    private List<List<String>> collectDescribingStatements(List<AllTriplesLoader> dataSources, long maxMemoryLimit, int dataSourceThreadCount)
+            throws LDFusionToolException {
+        List<List<String>> result = new ArrayList<>();
+        ExternalSortingInputLoader inputLoader = new ExternalSortingInputLoader(
+                dataSources,
+                Collections.singleton(resourceDescriptionProperty),
+                new TempDirectories(testDir.getRoot()),
+                LDFTConfigConstants.DEFAULT_FILE_PARSER_CONFIG,
+                maxMemoryLimit,
+                LDFTConfigConstants.DEFAULT_SORT_THREAD_COUNT,
+                dataSourceThreadCount,
+                createTempFileCodec());
+        try {
+            inputLoader.initialize(uriMapping);
+            while (inputLoader.hasNext()) {
+                List<String> describingStatements = new ArrayList<>();
+                for (Statement statement : inputLoader.next().getDescribingStatements()) {
+                    describingStatements.add(statement.toString());
+                }
+                result.add(describingStatements);
+            }
+        } finally {
+            inputLoader.close();
+        }
+        return result;
+    }
+
+    /**
+     * @param secondSourceRead if not null, the first data source starts reading only after the second one has been read
+     */
+    private static List<AllTriplesLoader> createInMemoryAllTriplesLoaders(
+            List<Statement> statements1, List<Statement> statements2, CountDownLatch secondSourceRead) {
+        InMemoryAllTriplesLoader source1 = new InMemoryAllTriplesLoader(createHttpUri("default1"),
+                statements1.toArray(new Statement[statements1.size()]));
+        InMemoryAllTriplesLoader source2 = new InMemoryAllTriplesLoader(createHttpUri("default2"),
+                statements2.toArray(new Statement[statements2.size()]));
+        source1.awaitBeforeLoading = secondSourceRead;
+        source2.countDownAfterLoading = secondSourceRead;
+        return Arrays.<AllTriplesLoader>asList(source1, source2);
+    }
+
+    private static TempFileCodec createTempFileCodec() {
+        return LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION.createCodec(LDFTConfigConstants.DEFAULT_TEMP_FILE_COMPRESSION_LEVEL, null);
+    }
+
     private static Map<Resource, Map<URI, Set<Statement>>> createConflictClusterMap(Collection<Statement> statements, UriMapping uriMapping) {
         Map<Resource, Map<URI, Set<Statement>>> result = new HashMap<>();
         for (Statement st : statements) {
@@ -662,4 +877,50 @@ public class ExternalSortingInputLoaderTest {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    private static class InMemoryAllTriplesLoader implements AllTriplesLoader {
+        private final URI defaultContext;
+        private final List<Statement> statements;
+        private LDFusionToolException failure;
+        private CountDownLatch awaitBeforeLoading;
+        private CountDownLatch countDownAfterLoading;
+        private volatile boolean isClosed = false;
+
+        InMemoryAllTriplesLoader(URI defaultContext, Statement... statements) {
+            this.defaultContext = defaultContext;
+            this.statements = Arrays.asList(statements);
+        }
+
+        @Override
+        public void loadAllTriples(RDFHandler rdfHandler) throws LDFusionToolException {
+            if (failure != null) {
+                throw failure;
+            }
+            try {
+                if (awaitBeforeLoading != null && !awaitBeforeLoading.await(10, TimeUnit.SECONDS)) {
+                    throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.ALL_TRIPLES_QUERY_QUADS, "test timeout");
+                }
+                rdfHandler.startRDF();
+                for (Statement statement : statements) {
+                    rdfHandler.handleStatement(statement);
+                }
+                rdfHandler.endRDF();
+                if (countDownAfterLoading != null) {
+                    countDownAfterLoading.countDown();
+                }
+            } catch (RDFHandlerException | InterruptedException e) {
+                throw new LDFusionToolApplicationException(LDFusionToolErrorCodes.ALL_TRIPLES_QUERY_QUADS, "test error", e);
+            }
+        }
+
+        @Override
+        public URI getDefaultContext() {
+            return defaultContext;
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+    }
+}
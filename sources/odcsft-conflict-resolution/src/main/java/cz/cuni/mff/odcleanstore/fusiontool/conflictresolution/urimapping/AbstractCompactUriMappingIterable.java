@@ -0,0 +1,201 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.vocabulary.OWL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Base class for memory efficient URI mappings where URIs are interned to consecutive int identifiers
+ * and the disjoint-set data structure (DFU) is kept in int arrays indexed by these identifiers.
+ * Subclasses decide where the interned URIs and the arrays are stored.
+ *
+ * The DFU uses union by size and iterative find with path halving, so that long chains of links
+ * do not cause deep recursion. Because the root of a DFU subtree is selected by size, the canonical URI
+ * of each component is stored with its root and selected by {@link #chooseCanonicalURI(String, String)}
+ * the same way as in {@link UriMappingImpl}.
+ *
+ * Path halving modifies the DFU when the mapping is read. Once all links are added, {@link #compressPaths()}
+ * links every URI directly to its root; reading the mapping doesn't modify it afterwards and instances
+ * can be shared by multiple threads for reading until more links are added.
+ */
+public abstract class AbstractCompactUriMappingIterable extends AbstractInternedUriMappingIterable implements MutableUriMapping {
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractCompactUriMappingIterable.class);
+
+    /**
+     * Creates an instance with the selected preferred URIs.
+     * @param preferredURIs set of URIs preferred as canonical URIs; can be null
+     */
+    protected AbstractCompactUriMappingIterable(Set<String> preferredURIs) {
+        super(preferredURIs);
+    }
+
+    /**
+     * Returns the identifier of the given URI, interning it if necessary.
+     * Newly interned URIs must be initialized as DFU roots with {@link #initRoot(int)}.
+     * @param uri URI
+     * @return identifier of the URI
+     */
+    protected abstract int intern(String uri);
+
+    /**
+     * Returns the DFU parent of the given URI.
+     * A non-negative value is the identifier of the parent, a negative value {@code -1 - c} denotes
+     * the root of a subtree whose canonical URI has identifier {@code c}.
+     * @param id URI identifier
+     * @return parent value
+     */
+    protected abstract int getParent(int id);
+
+    /**
+     * Sets value for {@link #getParent(int)}.
+     * @param id URI identifier
+     * @param parent see {@link #getParent(int)}
+     */
+    protected abstract void setParent(int id, int parent);
+
+    /**
+     * Returns the number of URIs in subtree; valid only for roots.
+     * @param id URI identifier
+     * @return size of the subtree
+     */
+    protected abstract int getSize(int id);
+
+    /**
+     * Sets value for {@link #getSize(int)}.
+     * @param id URI identifier
+     * @param size see {@link #getSize(int)}
+     */
+    protected abstract void setSize(int id, int size);
+
+    /**
+     * Initializes a newly interned URI as a root of a new DFU subtree which is its own canonical URI.
+     * @param id URI identifier
+     */
+    protected void initRoot(int id) {
+        setParent(id, -1 - id);
+        setSize(id, 1);
+    }
+
+    /**
+     * Adds owl:sameAs mappings as RDF triples.
+     * @param sameAsLinks iterator over triples with owl:sameAs as a predicate
+     */
+    public void addLinks(Iterator<Statement> sameAsLinks) {
+        while (sameAsLinks.hasNext()) {
+            addLink(sameAsLinks.next());
+        }
+    }
+
+    @Override
+    public void addLink(Statement link) {
+        if (!(link.getSubject() instanceof URI) || !(link.getObject() instanceof URI)) {
+            // Ignore sameAs links between everything but URI resources; see owl:sameAs syntax
+            // at see http://www.w3.org/TR/2004/REC-owl-semantics-20040210/syntax.html
+            return;
+        }
+        if (!OWL.SAMEAS.equals(link.getPredicate())) {
+            LOG.warn("A triple with predicate {} passed as a sameAs link", link.getPredicate());
+        }
+        addLink(link.getSubject().stringValue(), link.getObject().stringValue());
+    }
+
+    @Override
+    public void addLink(String subjectURI, String objectURI) {
+        dfuUnion(intern(subjectURI), intern(objectURI));
+    }
+
+    /**
+     * Add an owl:sameAs mapping for the given two URIs.
+     * @param subjectUri subject of a triple with the owl:sameAs predicate
+     * @param objectUri object of a triple with the owl:sameAs predicate
+     */
+    public void addLink(URI subjectUri, URI objectUri) {
+        addLink(subjectUri.stringValue(), objectUri.stringValue());
+    }
+
+    /**
+     * Chooses the preferred canonical URI from two options.
+     * @param uri1 first candidate for canonical URI
+     * @param uri2 second candidate for canonical URI
+     * @return either uri1 or uri2 (must be exactly one of these two objects)
+     */
+    protected String chooseCanonicalURI(String uri1, String uri2) {
+        return isPreferredURI(uri2) ? uri2 : uri1;
+    }
+
+    /**
+     * Links every URI directly to the root of its DFU subtree.
+     * Reading the mapping doesn't modify it afterwards, until more links are added.
+     */
+    @Override
+    public void compressPaths() {
+        int uriCount = getUriCount();
+        for (int id = 0; id < uriCount; id++) {
+            int root = dfuRoot(id);
+            if (root != id && getParent(id) != root) {
+                setParent(id, root);
+            }
+        }
+    }
+
+    @Override
+    public int getCanonicalId(int id) {
+        return -1 - getParent(dfuRoot(id));
+    }
+
+    /**
+     * Returns the root of the DFU subtree containing the given URI.
+     * Path halving is used to shorten paths: every other node on the path is linked to its grandparent.
+     * Nothing is modified if the parent of the given URI is a root.
+     * @param id URI identifier
+     * @return identifier of the root
+     */
+    private int dfuRoot(int id) {
+        int current = id;
+        int currentParent;
+        while ((currentParent = getParent(current)) >= 0) {
+            int grandParent = getParent(currentParent);
+            if (grandParent >= 0) {
+                setParent(current, grandParent);
+                current = grandParent;
+            } else {
+                current = currentParent;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Adds a sameAs mapping between URIs by joining the respective subtrees in DFU.
+     * The smaller subtree is attached to the root of the larger one.
+     * @param id1 a URI identifier
+     * @param id2 a URI identifier
+     */
+    private void dfuUnion(int id1, int id2) {
+        int root1 = dfuRoot(id1);
+        int root2 = dfuRoot(id2);
+        if (root1 == root2) {
+            return;
+        }
+        int canonicalId1 = -1 - getParent(root1);
+        int canonicalId2 = -1 - getParent(root2);
+        String canonical1 = getUri(canonicalId1);
+        String canonical2 = getUri(canonicalId2);
+        int canonicalId = chooseCanonicalURI(canonical1, canonical2) == canonical1 // intentionally ==
+                ? canonicalId1
+                : canonicalId2;
+        if (getSize(root1) < getSize(root2)) {
+            int swap = root1;
+            root1 = root2;
+            root2 = swap;
+        }
+        setParent(root2, root1);
+        setSize(root1, getSize(root1) + getSize(root2));
+        setParent(root1, -1 - canonicalId);
+    }
+}
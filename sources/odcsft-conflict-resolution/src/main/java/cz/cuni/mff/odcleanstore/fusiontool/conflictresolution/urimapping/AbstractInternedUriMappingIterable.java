@@ -0,0 +1,124 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import com.google.common.collect.AbstractIterator;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Base class for URI mappings where URIs are interned to consecutive int identifiers and the canonical URI
+ * of each URI is available by identifier.
+ * This class only reads the mapping; subclasses decide how the mapping is built and stored.
+ * @see AbstractCompactUriMappingIterable
+ */
+public abstract class AbstractInternedUriMappingIterable implements UriMappingIterable {
+    private static final ValueFactory VF = ValueFactoryImpl.getInstance();
+
+    /** Identifier returned by {@link #find(String)} for URIs which are not interned. */
+    public static final int NO_ID = -1;
+
+    /** Set of URIs preferred as canonical URIs. */
+    private final Set<String> preferredURIs;
+
+    /**
+     * Creates an instance with the selected preferred URIs.
+     * @param preferredURIs set of URIs preferred as canonical URIs; can be null
+     */
+    protected AbstractInternedUriMappingIterable(Set<String> preferredURIs) {
+        this.preferredURIs = (preferredURIs != null)
+                ? preferredURIs
+                : Collections.<String>emptySet();
+    }
+
+    /**
+     * Returns the identifier of an interned URI.
+     * @param uri URI
+     * @return identifier of the URI or {@link #NO_ID} if the URI is not interned
+     */
+    public abstract int find(String uri);
+
+    /**
+     * Returns the interned URI with the given identifier.
+     * @param id URI identifier
+     * @return URI
+     */
+    public abstract String getUri(int id);
+
+    /**
+     * Returns the number of interned URIs; identifiers are numbers from 0 to the returned value (exclusive).
+     * @return number of interned URIs
+     */
+    public abstract int getUriCount();
+
+    /**
+     * Returns the identifier of the canonical URI for the given URI.
+     * @param id URI identifier
+     * @return identifier of the canonical URI
+     */
+    public abstract int getCanonicalId(int id);
+
+    @Override
+    public String getCanonicalURI(String uri) {
+        int id = find(uri);
+        return id == NO_ID ? uri : getUri(getCanonicalId(id));
+    }
+
+    @Override
+    public URI mapURI(URI uriNode) {
+        int id = find(uriNode.stringValue());
+        if (id == NO_ID) {
+            return uriNode;
+        }
+        int canonicalId = getCanonicalId(id);
+        return canonicalId == id ? uriNode : VF.createURI(getUri(canonicalId));
+    }
+
+    @Override
+    public Resource mapResource(Resource resource) {
+        if (resource instanceof URI) {
+            int id = find(resource.stringValue());
+            if (id != NO_ID) {
+                int canonicalId = getCanonicalId(id);
+                return canonicalId == id ? resource : VF.createURI(getUri(canonicalId));
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * Returns iterator over URIs for which a mapping is explicitly defined, i.e. URIs mapped to a canonical URI
+     * other than themselves.
+     * @return iterator over contained URIs
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new AbstractIterator<String>() {
+            private int nextId = 0;
+
+            @Override
+            protected String computeNext() {
+                while (nextId < getUriCount()) {
+                    int id = nextId++;
+                    if (getCanonicalId(id) != id) {
+                        return getUri(id);
+                    }
+                }
+                return endOfData();
+            }
+        };
+    }
+
+    /**
+     * Returns true if the given URI is a preferred canonical URI.
+     * @param uri URI to check
+     * @return true if the given URI is a preferred canonical URI
+     */
+    protected boolean isPreferredURI(String uri) {
+        return preferredURIs.contains(uri);
+    }
+}
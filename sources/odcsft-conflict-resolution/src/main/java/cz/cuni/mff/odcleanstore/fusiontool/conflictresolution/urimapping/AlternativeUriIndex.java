@@ -0,0 +1,154 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable index of sets of equivalent URIs in compressed sparse row format over identifiers of URIs
+ * interned by an {@link AbstractInternedUriMappingIterable}.
+ * Sets of equivalent URIs (classes) are identified by the identifier of their canonical URI; members of class
+ * {@code c} are stored in {@link #members} between {@code classOffsets[c]} and {@code classOffsets[c + 1]},
+ * the canonical URI first.
+ * The index takes three ints and one reference per URI. Alternative URIs can be enumerated as strings without
+ * any allocation other than what the URI mapping needs to return an interned URI; {@link URI} instances are
+ * created on first access and cached in the index.
+ *
+ * Instances can be safely shared by multiple threads.
+ */
+public final class AlternativeUriIndex {
+    private static final ValueFactory VF = ValueFactoryImpl.getInstance();
+
+    /** Class identifier returned by {@link #getClassId(String)} for URIs that are not mapped. */
+    public static final int NO_CLASS = -1;
+
+    private final AbstractInternedUriMappingIterable uriMapping;
+
+    /** Class identifier (i.e. canonical URI identifier) of each URI. */
+    private final int[] classIds;
+
+    /** Start offsets of classes in {@link #members} indexed by class identifier; has one extra element at the end. */
+    private final int[] classOffsets;
+
+    /** URI identifiers grouped by class. */
+    private final int[] members;
+
+    /** {@link URI} instances indexed by URI identifier, created on first access. */
+    private final AtomicReferenceArray<URI> uriNodes;
+
+    private AlternativeUriIndex(AbstractInternedUriMappingIterable uriMapping, int[] classIds, int[] classOffsets, int[] members) {
+        this.uriMapping = uriMapping;
+        this.classIds = classIds;
+        this.classOffsets = classOffsets;
+        this.members = members;
+        this.uriNodes = new AtomicReferenceArray<>(members.length);
+    }
+
+    /**
+     * Builds the index for the given URI mapping in O(N) time where N is the number of mapped URIs.
+     * Mappings other than {@link AbstractInternedUriMappingIterable} are copied to a {@link CompactUriMappingIterableImpl} first.
+     * The URI mapping must not be modified afterwards.
+     * @param uriMapping mapping of URIs to their canonical equivalent
+     * @return the index
+     */
+    public static AlternativeUriIndex build(UriMappingIterable uriMapping) {
+        AbstractInternedUriMappingIterable compactMapping = uriMapping instanceof AbstractInternedUriMappingIterable
+                ? (AbstractInternedUriMappingIterable) uriMapping
+                : copyToCompactMapping(uriMapping);
+
+        int uriCount = compactMapping.getUriCount();
+        int[] classIds = new int[uriCount];
+        int[] classOffsets = new int[uriCount + 1];
+        for (int id = 0; id < uriCount; id++) {
+            int classId = compactMapping.getCanonicalId(id);
+            classIds[id] = classId;
+            classOffsets[classId + 1]++;
+        }
+        for (int classId = 0; classId < uriCount; classId++) {
+            classOffsets[classId + 1] += classOffsets[classId];
+        }
+
+        int[] members = new int[uriCount];
+        int[] nextPositions = new int[uriCount];
+        for (int classId = 0; classId < uriCount; classId++) {
+            nextPositions[classId] = classOffsets[classId] + 1; // the first position is reserved for the canonical URI
+        }
+        for (int id = 0; id < uriCount; id++) {
+            int classId = classIds[id];
+            if (classId == id) {
+                members[classOffsets[classId]] = id;
+            } else {
+                members[nextPositions[classId]++] = id;
+            }
+        }
+        return new AlternativeUriIndex(compactMapping, classIds, classOffsets, members);
+    }
+
+    /**
+     * Returns identifier of the set of URIs equivalent with the given URI.
+     * @param uri URI
+     * @return class identifier or {@link #NO_CLASS} if the URI is not mapped
+     */
+    public int getClassId(String uri) {
+        int id = uriMapping.find(uri);
+        return id == AbstractInternedUriMappingIterable.NO_ID ? NO_CLASS : classIds[id];
+    }
+
+    /**
+     * Returns the number of URIs in the given class, including the canonical URI.
+     * @param classId class identifier
+     * @return number of equivalent URIs
+     */
+    public int getClassSize(int classId) {
+        return classOffsets[classId + 1] - classOffsets[classId];
+    }
+
+    /**
+     * Returns a URI from the given class.
+     * @param classId class identifier
+     * @param index index of the URI within the class, from 0 (the canonical URI) to {@link #getClassSize(int)} (exclusive)
+     * @return URI
+     */
+    public String getUri(int classId, int index) {
+        return uriMapping.getUri(members[classOffsets[classId] + index]);
+    }
+
+    /**
+     * Returns a URI from the given class as a {@link URI}.
+     * The instance is created on first access and the same instance is returned afterwards.
+     * @param classId class identifier
+     * @param index index of the URI within the class, from 0 (the canonical URI) to {@link #getClassSize(int)} (exclusive)
+     * @return URI
+     */
+    public URI getUriNode(int classId, int index) {
+        int id = members[classOffsets[classId] + index];
+        URI result = uriNodes.get(id);
+        if (result == null) {
+            // concurrent callers may create equal instances, any of them can be cached
+            result = VF.createURI(uriMapping.getUri(id));
+            uriNodes.set(id, result);
+        }
+        return result;
+    }
+
+    /**
+     * Indicates whether there exist other distinct URIs equivalent to {@code uri}.
+     * @param uri URI
+     * @return true iff there are other equivalent URIs
+     */
+    public boolean hasAlternativeUris(String uri) {
+        int classId = getClassId(uri);
+        return classId != NO_CLASS && getClassSize(classId) > 1;
+    }
+
+    private static AbstractInternedUriMappingIterable copyToCompactMapping(UriMappingIterable uriMapping) {
+        // with the canonical URI as the subject of each link, the copy selects the same canonical URIs
+        CompactUriMappingIterableImpl result = new CompactUriMappingIterableImpl();
+        for (String mappedURI : uriMapping) {
+            result.addLink(uriMapping.getCanonicalURI(mappedURI), mappedURI);
+        }
+        return result;
+    }
+}
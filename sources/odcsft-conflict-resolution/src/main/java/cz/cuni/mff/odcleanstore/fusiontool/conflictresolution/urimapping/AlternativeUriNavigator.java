@@ -3,24 +3,22 @@
  */
 package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
 
-import cz.cuni.mff.odcleanstore.fusiontool.util.ConvertingIterator;
 import org.openrdf.model.URI;
-import org.openrdf.model.ValueFactory;
-import org.openrdf.model.impl.ValueFactoryImpl;
-import org.openrdf.util.iterators.Iterators;
 
 import java.util.*;
 
 /**
  * Class for listing of alternative URIs based on a given mapping of URIs to canonical URIs.
- * When {@link #listAlternativeUris(String)} is called for the first time, the map of alternative
- * URIs is build in O(N log N) time and O(N) space where N is number of mapped URIs.
+ * When alternative URIs are requested for the first time, an {@link AlternativeUriIndex} of alternative
+ * URIs is built in O(N) time and space where N is number of mapped URIs.
+ * Returned lists are read-only views of the index, so that listing alternative URIs requires no copying;
+ * {@link URI} instances in the lists are cached by the index.
+ * Instances can be safely shared by multiple threads provided the underlying URI mapping is not modified,
+ * not even by reading; call {@link MutableUriMapping#compressPaths()} on mutable mappings before sharing them.
  */
 public class AlternativeUriNavigator {
-    private static final int EXPECTED_ALTERNATIVES = 3;
-
     private final UriMappingIterable uriMapping;
-    private Map<String, List<String>> alternativeURIMap;
+    private volatile AlternativeUriIndex alternativeUriIndex;
 
     /**
      * @param uriMapping mapping of URIs to their canonical equivalent
@@ -31,55 +29,51 @@ public class AlternativeUriNavigator {
 
     /**
      * Returns iterator over all URIs that map to the same canonical URIs.
-     * First call of this method may have O(N log N) complexity (N is number of mapped URIs).
+     * First call of this method may have O(N) complexity (N is number of mapped URIs).
      * @param uri URI
      * @return iterator over alternative URIs
      */
     @Deprecated
     public List<String> listAlternativeUris(String uri) {
-        String canonicalURI = uriMapping.getCanonicalURI(uri);
-        List<String> alternativeURIs = getAlternativeUriMap().get(canonicalURI);
-        if (alternativeURIs == null) {
+        AlternativeUriIndex index = getAlternativeUriIndex();
+        int classId = index.getClassId(uri);
+        if (classId == AlternativeUriIndex.NO_CLASS) {
             return Collections.singletonList(uri);
         } else {
-            return alternativeURIs;
+            return new AlternativeStringUriList(index, classId);
         }
     }
 
     /**
      * Returns iterator over all URIs that map to the same canonical URIs.
-     * First call of this method may have O(N log N) complexity (N is number of mapped URIs).
+     * First call of this method may have O(N) complexity (N is number of mapped URIs).
      * @param uri URI
      * @return iterator over alternative URIs
      */
     public List<URI> listAlternativeUris(URI uri) {
-        String canonicalURI = uriMapping.getCanonicalURI(uri.stringValue());
-        final List<String> alternativeURIs = getAlternativeUriMap().get(canonicalURI);
-        if (alternativeURIs == null) {
+        AlternativeUriIndex index = getAlternativeUriIndex();
+        int classId = index.getClassId(uri.stringValue());
+        if (classId == AlternativeUriIndex.NO_CLASS) {
             return Collections.singletonList(uri);
         } else {
-            List<URI> result = new ArrayList<URI>(alternativeURIs.size());
-            Iterators.addAll(new StringURIConvertingIterator(alternativeURIs), result);
-            return result;
+            return new AlternativeUriList(index, classId);
         }
     }
 
     /**
      * Indicates whether there exist other distinct URIs that map to the same canonical URIs as {@code uri}.
-     * First call of this method may have O(N log N) complexity (N is number of mapped URIs).
+     * First call of this method may have O(N) complexity (N is number of mapped URIs).
      * @param uri URI
      * @return iterator over alternative URIs
      */
     @Deprecated
     public boolean hasAlternativeUris(String uri) {
-        String canonicalURI = uriMapping.getCanonicalURI(uri);
-        List<String> alternativeURIs = getAlternativeUriMap().get(canonicalURI);
-        return alternativeURIs != null && alternativeURIs.size() > 1;
+        return getAlternativeUriIndex().hasAlternativeUris(uri);
     }
 
     /**
      * Indicates whether there exist other distinct URIs that map to the same canonical URIs as {@code uri}.
-     * First call of this method may have O(N log N) complexity (N is number of mapped URIs).
+     * First call of this method may have O(N) complexity (N is number of mapped URIs).
      * @param uri URI
      * @return iterator over alternative URIs
      */
@@ -87,40 +81,74 @@ public class AlternativeUriNavigator {
         return hasAlternativeUris(uri.toString());
     }
 
-    private Map<String, List<String>> getAlternativeUriMap() {
-        if (alternativeURIMap == null) {
-            alternativeURIMap = findAlternativeUris();
+    /**
+     * Returns the index of alternative URIs, building it on first call.
+     * The index allows to enumerate alternative URIs without any allocation.
+     * @return index of alternative URIs
+     */
+    public AlternativeUriIndex getAlternativeUriIndex() {
+        AlternativeUriIndex result = alternativeUriIndex;
+        if (result == null) {
+            synchronized (this) {
+                result = alternativeUriIndex;
+                if (result == null) {
+                    result = AlternativeUriIndex.build(uriMapping);
+                    alternativeUriIndex = result;
+                }
+            }
         }
-        return alternativeURIMap;
+        return result;
     }
 
-    private Map<String, List<String>> findAlternativeUris() {
-        HashMap<String, List<String>> alternativeURIMap = new HashMap<String, List<String>>();
+    /**
+     * Read-only list view of URIs in a class of {@link AlternativeUriIndex}.
+     */
+    private static class AlternativeStringUriList extends AbstractList<String> implements RandomAccess {
+        private final AlternativeUriIndex index;
+        private final int classId;
+
+        public AlternativeStringUriList(AlternativeUriIndex index, int classId) {
+            this.index = index;
+            this.classId = classId;
+        }
 
-        for (String mappedURI : uriMapping) {
-            String canonicalURI = uriMapping.getCanonicalURI(mappedURI);
-            List<String> alternativeURIs = alternativeURIMap.get(canonicalURI);
-            if (alternativeURIs == null) {
-                alternativeURIs = new ArrayList<String>(EXPECTED_ALTERNATIVES);
-                alternativeURIs.add(canonicalURI); // don't forget canonical URI, it won't show up in the iteration
-                alternativeURIMap.put(canonicalURI, alternativeURIs);
+        @Override
+        public String get(int i) {
+            if (i < 0 || i >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + i);
             }
-            alternativeURIs.add(mappedURI);
+            return index.getUri(classId, i);
         }
 
-        return alternativeURIMap;
+        @Override
+        public int size() {
+            return index.getClassSize(classId);
+        }
     }
 
-    private static class StringURIConvertingIterator extends ConvertingIterator<String, URI> {
-        private static final ValueFactory VF = ValueFactoryImpl.getInstance();
+    /**
+     * Read-only list view of URIs in a class of {@link AlternativeUriIndex} converted to {@link URI}.
+     */
+    private static class AlternativeUriList extends AbstractList<URI> implements RandomAccess {
+        private final AlternativeUriIndex index;
+        private final int classId;
+
+        public AlternativeUriList(AlternativeUriIndex index, int classId) {
+            this.index = index;
+            this.classId = classId;
+        }
 
-        public StringURIConvertingIterator(List<String> alternativeURIs) {
-            super(alternativeURIs.iterator());
+        @Override
+        public URI get(int i) {
+            if (i < 0 || i >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + i);
+            }
+            return index.getUriNode(classId, i);
         }
 
         @Override
-        public URI convert(String uri) {
-            return VF.createURI(uri);
+        public int size() {
+            return index.getClassSize(classId);
         }
     }
 }
@@ -0,0 +1,155 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Memory efficient variant of {@link UriMappingIterableImpl} for large sets of owl:sameAs links.
+ * URIs are interned to consecutive int identifiers through an open-addressing hash table and the disjoint-set
+ * data structure is kept in int arrays on heap, so that each mapped URI costs only a few dozen bytes
+ * in addition to the URI string itself.
+ *
+ * Reading the mapping modifies it by path halving; instances can be shared by multiple threads for reading
+ * only after {@link #compressPaths()} is called and provided that no links are added.
+ * @see AbstractCompactUriMappingIterable
+ */
+public class CompactUriMappingIterableImpl extends AbstractCompactUriMappingIterable {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Interned URIs indexed by their identifier. */
+    private String[] uris;
+
+    /**
+     * Open-addressing hash table mapping URIs to identifiers; contains identifier + 1 or 0 for an empty slot.
+     * The size is a power of two and the table is at most half full.
+     */
+    private int[] uriTable;
+
+    /** DFU parents, see {@link #getParent(int)}. */
+    private int[] parent;
+
+    /** Number of URIs in subtree; valid only for roots. */
+    private int[] size;
+
+    /** Number of interned URIs. */
+    private int uriCount = 0;
+
+    /**
+     * Creates an instance with no preferred URIs.
+     */
+    public CompactUriMappingIterableImpl() {
+        this(Collections.<String>emptySet());
+    }
+
+    /**
+     * Creates an instance with the selected preferred URIs.
+     * @param preferredURIs set of URIs preferred as canonical URIs; can be null
+     */
+    public CompactUriMappingIterableImpl(Set<String> preferredURIs) {
+        super(preferredURIs);
+        this.uris = new String[INITIAL_CAPACITY];
+        this.parent = new int[INITIAL_CAPACITY];
+        this.size = new int[INITIAL_CAPACITY];
+        this.uriTable = new int[2 * INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int find(String uri) {
+        int mask = uriTable.length - 1;
+        int slot = hash(uri) & mask;
+        while (uriTable[slot] != 0) {
+            int id = uriTable[slot] - 1;
+            if (uris[id].equals(uri)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_ID;
+    }
+
+    @Override
+    protected int intern(String uri) {
+        int mask = uriTable.length - 1;
+        int slot = hash(uri) & mask;
+        while (uriTable[slot] != 0) {
+            int id = uriTable[slot] - 1;
+            if (uris[id].equals(uri)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (uriCount == uris.length) {
+            grow();
+            return intern(uri);
+        }
+        int id = uriCount++;
+        uris[id] = uri;
+        initRoot(id);
+        uriTable[slot] = id + 1;
+        return id;
+    }
+
+    @Override
+    public String getUri(int id) {
+        return uris[id];
+    }
+
+    @Override
+    public int getUriCount() {
+        return uriCount;
+    }
+
+    @Override
+    protected int getParent(int id) {
+        return parent[id];
+    }
+
+    @Override
+    protected void setParent(int id, int parent) {
+        this.parent[id] = parent;
+    }
+
+    @Override
+    protected int getSize(int id) {
+        return size[id];
+    }
+
+    @Override
+    protected void setSize(int id, int size) {
+        this.size[id] = size;
+    }
+
+    private void grow() {
+        if (uris.length >= Integer.MAX_VALUE / 4) {
+            throw new IllegalStateException("Too many URIs in owl:sameAs links");
+        }
+        int newCapacity = uris.length * 2;
+        uris = Arrays.copyOf(uris, newCapacity);
+        parent = Arrays.copyOf(parent, newCapacity);
+        size = Arrays.copyOf(size, newCapacity);
+
+        int[] newTable = new int[2 * newCapacity];
+        int mask = newTable.length - 1;
+        for (int id = 0; id < uriCount; id++) {
+            int slot = hash(uris[id]) & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id + 1;
+        }
+        uriTable = newTable;
+    }
+
+    /**
+     * Hash function for URIs in open-addressing hash tables.
+     * Spreads bits of {@link String#hashCode()} (which is cached by String) so that linear probing works well.
+     * @param uri URI
+     * @return hash of the URI
+     */
+    public static int hash(String uri) {
+        int h = uri.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,352 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.vocabulary.OWL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Variant of {@link CompactUriMappingIterableImpl} to which owl:sameAs links can be added by multiple threads in parallel.
+ * URIs are interned through a lock-striped hash table and the disjoint-set data structure (DFU) is updated
+ * without locking: roots are linked with compare-and-set in the order of a pseudo-random priority of their
+ * identifiers and paths are shortened by path halving with compare-and-set.
+ *
+ * Because links may be added in any order, the canonical URI of each set of equivalent URIs must not depend on
+ * the order of links. Preferred URIs take precedence and the lexicographically least URI is selected among
+ * the candidates. Canonical URIs are resolved when the mapping is first read after links were added.
+ *
+ * Links can be added by multiple threads concurrently; instances can be shared by multiple threads for reading
+ * provided that no links are added at the same time.
+ */
+public class ConcurrentUriMappingIterableImpl extends AbstractInternedUriMappingIterable implements MutableUriMapping {
+    private static final Logger LOG = LoggerFactory.getLogger(ConcurrentUriMappingIterableImpl.class);
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_URI_COUNT = Integer.MAX_VALUE / 2;
+    private static final int STRIPE_SHIFT = 6;
+    private static final int STRIPE_COUNT = 1 << STRIPE_SHIFT;
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+    /** Interned URIs indexed by their identifier, allocated in chunks. */
+    private final AtomicReferenceArray<String[]> uriChunks = new AtomicReferenceArray<>((MAX_URI_COUNT >>> CHUNK_SHIFT) + 1);
+
+    /**
+     * DFU parents indexed by URI identifier, allocated in chunks; roots are their own parents.
+     * When canonical URIs are resolved, the parent of each URI is set to its canonical URI.
+     */
+    private final AtomicReferenceArray<AtomicIntegerArray> parentChunks = new AtomicReferenceArray<>((MAX_URI_COUNT >>> CHUNK_SHIFT) + 1);
+
+    /** Parts of the hash table of URIs, selected by hash; each part is guarded by its own lock. */
+    private final Stripe[] stripes;
+
+    /** Number of interned URIs; identifiers are allocated from this counter. */
+    private final AtomicInteger uriCount = new AtomicInteger();
+
+    /** Indicates that links were added since canonical URIs were resolved. */
+    private volatile boolean isModified = false;
+
+    /**
+     * Creates an instance with no preferred URIs.
+     */
+    public ConcurrentUriMappingIterableImpl() {
+        this(Collections.<String>emptySet());
+    }
+
+    /**
+     * Creates an instance with the selected preferred URIs.
+     * @param preferredURIs set of URIs preferred as canonical URIs; can be null
+     */
+    public ConcurrentUriMappingIterableImpl(Set<String> preferredURIs) {
+        super(preferredURIs);
+        this.stripes = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Adds owl:sameAs mappings as an RDF triples.
+     * This method can be called by multiple threads concurrently.
+     * @param link statement with URI mapping
+     */
+    @Override
+    public void addLink(Statement link) {
+        if (!(link.getSubject() instanceof URI) || !(link.getObject() instanceof URI)) {
+            // Ignore sameAs links between everything but URI resources; see owl:sameAs syntax
+            // at see http://www.w3.org/TR/2004/REC-owl-semantics-20040210/syntax.html
+            return;
+        }
+        if (!OWL.SAMEAS.equals(link.getPredicate())) {
+            LOG.warn("A triple with predicate {} passed as a sameAs link", link.getPredicate());
+        }
+        addLink(link.getSubject().stringValue(), link.getObject().stringValue());
+    }
+
+    /**
+     * Add an owl:sameAs mapping for two URIs given as strings.
+     * This method can be called by multiple threads concurrently.
+     * @param subjectURI subject of a triple with the owl:sameAs predicate
+     * @param objectURI object of a triple with the owl:sameAs predicate
+     */
+    @Override
+    public void addLink(String subjectURI, String objectURI) {
+        dfuUnion(intern(subjectURI), intern(objectURI));
+        if (!isModified) {
+            isModified = true;
+        }
+    }
+
+    @Override
+    public int find(String uri) {
+        resolveCanonicalURIsIfModified();
+        int hash = CompactUriMappingIterableImpl.hash(uri);
+        int[] table = getStripe(hash).table;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (getUri(id).equals(uri)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_ID;
+    }
+
+    /**
+     * Returns the identifier of the given URI, interning it if necessary.
+     * @param uri URI
+     * @return identifier of the URI
+     */
+    private int intern(String uri) {
+        int hash = CompactUriMappingIterableImpl.hash(uri);
+        Stripe stripe = getStripe(hash);
+        synchronized (stripe) {
+            int[] table = stripe.table;
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            while (table[slot] != 0) {
+                int id = table[slot] - 1;
+                if (getUri(id).equals(uri)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = uriCount.getAndIncrement();
+            if (id >= MAX_URI_COUNT) {
+                throw new IllegalStateException("Too many URIs in owl:sameAs links");
+            }
+            getUriChunk(id)[id & CHUNK_MASK] = uri;
+            getParentChunk(id).set(id & CHUNK_MASK, id);
+            table[slot] = id + 1;
+            stripe.size++;
+            if (stripe.size > table.length / 2) {
+                stripe.table = rehash(table);
+            }
+            return id;
+        }
+    }
+
+    @Override
+    public String getUri(int id) {
+        return uriChunks.get(id >>> CHUNK_SHIFT)[id & CHUNK_MASK];
+    }
+
+    @Override
+    public int getUriCount() {
+        return uriCount.get();
+    }
+
+    /**
+     * Resolves canonical URIs, so that reading the mapping doesn't modify it until more links are added.
+     */
+    @Override
+    public void compressPaths() {
+        resolveCanonicalURIsIfModified();
+    }
+
+    @Override
+    public int getCanonicalId(int id) {
+        resolveCanonicalURIsIfModified();
+        return getParentValue(id);
+    }
+
+    /**
+     * Returns true if the first URI is a better candidate for canonical URI than the second one.
+     * The order is total so that the selected canonical URI doesn't depend on the order of links.
+     * @param id1 a URI identifier
+     * @param id2 a URI identifier
+     * @return true iff the first URI is preferred
+     */
+    private boolean isBetterCanonicalURI(int id1, int id2) {
+        String uri1 = getUri(id1);
+        String uri2 = getUri(id2);
+        boolean isPreferred1 = isPreferredURI(uri1);
+        if (isPreferred1 != isPreferredURI(uri2)) {
+            return isPreferred1;
+        }
+        return uri1.compareTo(uri2) < 0;
+    }
+
+    /**
+     * Resolves canonical URIs for all sets of equivalent URIs if any links were added since the last resolution.
+     * The parent of each URI is then set to its canonical URI, which keeps the DFU valid for adding more links.
+     */
+    private void resolveCanonicalURIsIfModified() {
+        if (!isModified) {
+            return;
+        }
+        synchronized (this) {
+            if (!isModified) {
+                return;
+            }
+            int count = uriCount.get();
+            int[] roots = new int[count];
+            for (int id = 0; id < count; id++) {
+                roots[id] = dfuRoot(id);
+            }
+            int[] canonicalIds = new int[count];
+            Arrays.fill(canonicalIds, NO_ID);
+            for (int id = 0; id < count; id++) {
+                int root = roots[id];
+                if (canonicalIds[root] == NO_ID || isBetterCanonicalURI(id, canonicalIds[root])) {
+                    canonicalIds[root] = id;
+                }
+            }
+            for (int id = 0; id < count; id++) {
+                setParentValue(id, canonicalIds[roots[id]]);
+            }
+            isModified = false;
+        }
+    }
+
+    /**
+     * Returns the root of the DFU subtree containing the given URI.
+     * Path halving is used to shorten paths; a parent is replaced only if it hasn't been changed concurrently.
+     * @param id URI identifier
+     * @return identifier of the root
+     */
+    private int dfuRoot(int id) {
+        int current = id;
+        int parent = getParentValue(current);
+        while (parent != current) {
+            int grandParent = getParentValue(parent);
+            if (grandParent != parent) {
+                compareAndSetParentValue(current, parent, grandParent);
+            }
+            current = grandParent;
+            parent = getParentValue(current);
+        }
+        return current;
+    }
+
+    /**
+     * Adds a sameAs mapping between URIs by joining the respective subtrees in DFU.
+     * The root with lower priority is attached to the other root; attaching fails and is retried
+     * if the root has been attached concurrently by another thread.
+     * @param id1 a URI identifier
+     * @param id2 a URI identifier
+     */
+    private void dfuUnion(int id1, int id2) {
+        while (true) {
+            int root1 = dfuRoot(id1);
+            int root2 = dfuRoot(id2);
+            if (root1 == root2) {
+                return;
+            }
+            // roots are always attached to roots with higher priority, which prevents cycles
+            if (hasLowerPriority(root1, root2)
+                    ? compareAndSetParentValue(root1, root1, root2)
+                    : compareAndSetParentValue(root2, root2, root1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Compares pseudo-random priorities of URIs; random linking keeps DFU trees shallow in expectation.
+     * The priority is a bijective function of the identifier, so that priorities of distinct URIs are distinct.
+     * @param id1 a URI identifier
+     * @param id2 a URI identifier
+     * @return true iff the first URI has lower priority
+     */
+    private static boolean hasLowerPriority(int id1, int id2) {
+        return getPriority(id1) < getPriority(id2);
+    }
+
+    private static int getPriority(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int getParentValue(int id) {
+        return parentChunks.get(id >>> CHUNK_SHIFT).get(id & CHUNK_MASK);
+    }
+
+    private void setParentValue(int id, int parent) {
+        parentChunks.get(id >>> CHUNK_SHIFT).set(id & CHUNK_MASK, parent);
+    }
+
+    private boolean compareAndSetParentValue(int id, int expectedParent, int parent) {
+        return parentChunks.get(id >>> CHUNK_SHIFT).compareAndSet(id & CHUNK_MASK, expectedParent, parent);
+    }
+
+    private String[] getUriChunk(int id) {
+        int chunkIndex = id >>> CHUNK_SHIFT;
+        String[] chunk = uriChunks.get(chunkIndex);
+        if (chunk == null) {
+            uriChunks.compareAndSet(chunkIndex, null, new String[CHUNK_SIZE]);
+            chunk = uriChunks.get(chunkIndex);
+        }
+        return chunk;
+    }
+
+    private AtomicIntegerArray getParentChunk(int id) {
+        int chunkIndex = id >>> CHUNK_SHIFT;
+        AtomicIntegerArray chunk = parentChunks.get(chunkIndex);
+        if (chunk == null) {
+            parentChunks.compareAndSet(chunkIndex, null, new AtomicIntegerArray(CHUNK_SIZE));
+            chunk = parentChunks.get(chunkIndex);
+        }
+        return chunk;
+    }
+
+    private Stripe getStripe(int hash) {
+        // high bits select the stripe, low bits the slot within the stripe
+        return stripes[hash >>> (Integer.SIZE - STRIPE_SHIFT)];
+    }
+
+    private int[] rehash(int[] table) {
+        int[] newTable = new int[table.length * 2];
+        int mask = newTable.length - 1;
+        for (int value : table) {
+            if (value != 0) {
+                int slot = CompactUriMappingIterableImpl.hash(getUri(value - 1)) & mask;
+                while (newTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newTable[slot] = value;
+            }
+        }
+        return newTable;
+    }
+
+    /**
+     * Part of the open-addressing hash table of URIs; contains identifier + 1 or 0 for an empty slot.
+     * The size is a power of two and the table is at most half full.
+     */
+    private static final class Stripe {
+        private int[] table = new int[INITIAL_STRIPE_CAPACITY];
+        private int size = 0;
+    }
+}
@@ -0,0 +1,30 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.UriMapping;
+import org.openrdf.model.Statement;
+
+/**
+ * {@link UriMapping} which can be built incrementally from owl:sameAs links.
+ */
+public interface MutableUriMapping extends UriMapping {
+    /**
+     * Adds owl:sameAs mappings as an RDF triples.
+     * owl:sameAs links between RDF nodes other than URIs are ignored.
+     * @param link statement with URI mapping
+     */
+    void addLink(Statement link);
+
+    /**
+     * Add an owl:sameAs mapping for two URIs given as strings.
+     * @param subjectURI subject of a triple with the owl:sameAs predicate
+     * @param objectURI object of a triple with the owl:sameAs predicate
+     */
+    void addLink(String subjectURI, String objectURI);
+
+    /**
+     * Prepares the mapping for reading once all links are added.
+     * Reading the mapping doesn't modify it afterwards and the mapping can be shared by multiple threads
+     * for reading until more links are added.
+     */
+    void compressPaths();
+}
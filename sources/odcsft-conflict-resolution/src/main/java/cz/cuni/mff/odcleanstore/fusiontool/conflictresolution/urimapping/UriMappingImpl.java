@@ -1,6 +1,5 @@
 package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
 
-import cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.UriMapping;
 import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
@@ -25,8 +24,10 @@ import java.util.Set;
  * {@link org.openrdf.model.Value RDF nodes} other then {@link org.openrdf.model.URI} are ignored.
  *
  * The implementation is based on a disjoint-set data structure (DFU) with path compression.
+ * Path compression modifies the DFU when the mapping is read; call {@link #compressPaths()} once all links
+ * are added before sharing the mapping between multiple threads.
  */
-public class UriMappingImpl implements UriMapping {
+public class UriMappingImpl implements MutableUriMapping {
     private static final Logger LOG = LoggerFactory.getLogger(UriMappingImpl.class);
     private static final ValueFactory VF = ValueFactoryImpl.getInstance();
 
@@ -82,6 +83,7 @@ public class UriMappingImpl implements UriMapping {
      * Adds owl:sameAs mappings as an RDF triples.
      * @param link statement with URI mapping
      */
+    @Override
     public void addLink(Statement link) {
         if (!(link.getSubject() instanceof URI) || !(link.getObject() instanceof URI)) {
             // Ignore sameAs links between everything but URI resources; see owl:sameAs syntax
@@ -103,10 +105,22 @@ public class UriMappingImpl implements UriMapping {
      * @param subjectURI subject of a triple with the owl:sameAs predicate
      * @param objectURI object of a triple with the owl:sameAs predicate
      */
+    @Override
     public void addLink(String subjectURI, String objectURI) {
         dfuUnion(subjectURI, objectURI);
     }
 
+    /**
+     * Links every URI directly to its canonical URI.
+     * Reading the mapping doesn't modify it afterwards, until more links are added.
+     */
+    @Override
+    public void compressPaths() {
+        for (String uri : uriDFUParent.keySet()) {
+            dfuRoot(uri);
+        }
+    }
+
     @Override
     public String getCanonicalURI(String uri) {
         if (!uriDFUParent.containsKey(uri)) {
@@ -145,18 +159,21 @@ public class UriMappingImpl implements UriMapping {
      * @return a canonical URI
      */
     private String dfuRoot(String uri) {
-        String parent = uriDFUParent.get(uri);
-        if (parent == null) {
-            // We are already at the root or no mapping is defined
-            return uri;
-        } else {
-            String root = dfuRoot(parent);
-            // Path compression optimization:
-            if (!root.equals(parent)) {
-                uriDFUParent.put(uri, root);
+        String root = uri;
+        String parent;
+        while ((parent = uriDFUParent.get(root)) != null) {
+            root = parent;
+        }
+        // Path compression optimization, iterative so that long chains don't overflow the stack
+        String current = uri;
+        while (!current.equals(root)) {
+            String next = uriDFUParent.get(current);
+            if (!next.equals(root)) {
+                uriDFUParent.put(current, root);
             }
-            return root;
+            current = next;
         }
+        return root;
     }
 
     /**
@@ -11,7 +11,11 @@ import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.model.vocabulary.OWL;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -187,5 +191,36 @@ public class UriMappingImplTest {
         mappedURI1 = getAndTestMappedUri(uri1, mappingPreferring3);
         Assert.assertEquals(uri3, mappedURI1);
     }
-}
 
+    @Test
+    public void isNotModifiedByReadingAfterPathsAreCompressed() throws Exception {
+        // Arrange
+        final AtomicInteger putCount = new AtomicInteger();
+        UriMappingImpl uriMapping = new UriMappingImpl() {
+            @Override
+            protected Map<String, String> createUriMap() {
+                return new HashMap<String, String>() {
+                    @Override
+                    public String put(String key, String value) {
+                        putCount.incrementAndGet();
+                        return super.put(key, value);
+                    }
+                };
+            }
+        };
+        Random random = new Random(0);
+        for (int i = 0; i < 5_000; i++) {
+            uriMapping.addLink("http://uri" + random.nextInt(5_000), "http://uri" + random.nextInt(5_000));
+        }
+
+        // Act
+        uriMapping.compressPaths();
+
+        // Assert
+        int putCountAfterCompression = putCount.get();
+        for (int i = 0; i < 5_000; i++) {
+            getAndTestMappedUri("http://uri" + i, uriMapping);
+        }
+        assertThat(putCount.get(), is(putCountAfterCompression));
+    }
+}
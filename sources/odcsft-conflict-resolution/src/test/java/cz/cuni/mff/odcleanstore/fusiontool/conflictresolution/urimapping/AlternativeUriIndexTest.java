@@ -0,0 +1,90 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.openrdf.model.URI;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class AlternativeUriIndexTest {
+    @Test
+    public void listsCanonicalUriFirst() throws Exception {
+        // Arrange
+        CompactUriMappingIterableImpl uriMapping = new CompactUriMappingIterableImpl(ImmutableSet.of("http://a2"));
+        uriMapping.addLink("http://a1", "http://a2");
+        uriMapping.addLink("http://a3", "http://a1");
+
+        // Act
+        AlternativeUriIndex index = AlternativeUriIndex.build(uriMapping);
+
+        // Assert
+        int classId = index.getClassId("http://a3");
+        assertThat(index.getClassSize(classId), equalTo(3));
+        assertThat(index.getUri(classId, 0), equalTo("http://a2"));
+        assertThat(getUris(index, classId), equalTo((Set<String>) ImmutableSet.of("http://a1", "http://a2", "http://a3")));
+        assertThat(index.getClassId("http://a1"), equalTo(classId));
+        assertThat(index.getClassId("http://b1"), equalTo(AlternativeUriIndex.NO_CLASS));
+    }
+
+    @Test
+    public void cachesUriInstances() throws Exception {
+        // Arrange
+        CompactUriMappingIterableImpl uriMapping = new CompactUriMappingIterableImpl(ImmutableSet.of("http://a2"));
+        uriMapping.addLink("http://a1", "http://a2");
+        AlternativeUriIndex index = AlternativeUriIndex.build(uriMapping);
+        int classId = index.getClassId("http://a1");
+
+        // Act
+        URI first = index.getUriNode(classId, 0);
+        URI second = index.getUriNode(classId, 0);
+
+        // Assert
+        assertThat(first.stringValue(), equalTo("http://a2"));
+        assertThat(second, sameInstance(first));
+    }
+
+    @Test
+    public void producesSameClassesForCompactAndOtherMappings() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        UriMappingIterableImpl uriMapping = new UriMappingIterableImpl();
+        CompactUriMappingIterableImpl compactMapping = new CompactUriMappingIterableImpl();
+        for (int i = 0; i < 5_000; i++) {
+            String subject = "http://example.com/" + random.nextInt(10_000);
+            String object = "http://example.com/" + random.nextInt(10_000);
+            uriMapping.addLink(subject, object);
+            compactMapping.addLink(subject, object);
+        }
+
+        // Act
+        AlternativeUriIndex index = AlternativeUriIndex.build(uriMapping);
+        AlternativeUriIndex compactIndex = AlternativeUriIndex.build(compactMapping);
+
+        // Assert
+        for (int i = 0; i < 10_000; i++) {
+            String uri = "http://example.com/" + i;
+            int classId = index.getClassId(uri);
+            int compactClassId = compactIndex.getClassId(uri);
+            assertThat(classId == AlternativeUriIndex.NO_CLASS, equalTo(compactClassId == AlternativeUriIndex.NO_CLASS));
+            assertThat(index.hasAlternativeUris(uri), equalTo(compactIndex.hasAlternativeUris(uri)));
+            if (classId != AlternativeUriIndex.NO_CLASS) {
+                assertThat(index.getUri(classId, 0), equalTo(uriMapping.getCanonicalURI(uri)));
+                assertThat(getUris(index, classId), equalTo(getUris(compactIndex, compactClassId)));
+            }
+        }
+    }
+
+    private static Set<String> getUris(AlternativeUriIndex index, int classId) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i < index.getClassSize(classId); i++) {
+            result.add(index.getUri(classId, i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,142 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CompactUriMappingIterableImplTest {
+    private static final ValueFactory VF = ValueFactoryImpl.getInstance();
+
+    @Test
+    public void mapsUnknownUriToItself() throws Exception {
+        // Arrange
+        CompactUriMappingIterableImpl uriMapping = new CompactUriMappingIterableImpl();
+        uriMapping.addLink("http://a1", "http://a2");
+        URI uri = VF.createURI("http://b1");
+
+        // Act & Assert
+        assertThat(uriMapping.getCanonicalURI("http://b1"), equalTo("http://b1"));
+        assertThat(uriMapping.mapURI(uri), is(uri));
+        assertThat(uriMapping.mapResource(uri), is((Resource) uri));
+    }
+
+    @Test
+    public void doesNotMapBlankNodes() throws Exception {
+        // Arrange
+        CompactUriMappingIterableImpl uriMapping = new CompactUriMappingIterableImpl();
+        uriMapping.addLink("http://a1", "http://a2");
+        BNode bNode = VF.createBNode("http://a1");
+
+        // Act
+        Resource result = uriMapping.mapResource(bNode);
+
+        // Assert
+        assertThat(result, is((Resource) bNode));
+    }
+
+    @Test
+    public void prefersPreferredUriRegardlessOfComponentSize() throws Exception {
+        // Arrange
+        CompactUriMappingIterableImpl uriMapping = new CompactUriMappingIterableImpl(ImmutableSet.of("http://b1"));
+        uriMapping.addLink("http://a1", "http://a2");
+        uriMapping.addLink("http://a2", "http://a3");
+        uriMapping.addLink("http://a3", "http://a4");
+        uriMapping.addLink("http://b2", "http://b1");
+
+        // Act
+        uriMapping.addLink("http://a4", "http://b2");
+
+        // Assert
+        for (String uri : ImmutableSet.of("http://a1", "http://a2", "http://a3", "http://a4", "http://b1", "http://b2")) {
+            assertThat(uriMapping.getCanonicalURI(uri), equalTo("http://b1"));
+        }
+        assertThat(uriMapping.mapResource(VF.createURI("http://a1")), equalTo((Resource) VF.createURI("http://b1")));
+        assertThat(ImmutableSet.copyOf(uriMapping),
+                equalTo(ImmutableSet.of("http://a1", "http://a2", "http://a3", "http://a4", "http://b2")));
+    }
+
+    @Test
+    public void handlesLongChainsOfLinks() throws Exception {
+        // Arrange
+        int chainLength = 1_000_000;
+        CompactUriMappingIterableImpl uriMapping = new CompactUriMappingIterableImpl();
+
+        // Act
+        for (int i = chainLength - 1; i > 0; i--) {
+            uriMapping.addLink("http://uri" + (i - 1), "http://uri" + i);
+        }
+
+        // Assert
+        String canonicalUri = uriMapping.getCanonicalURI("http://uri" + (chainLength - 1));
+        assertThat(uriMapping.getCanonicalURI("http://uri0"), equalTo(canonicalUri));
+        assertThat(uriMapping.getCanonicalURI("http://uri" + (chainLength / 2)), equalTo(canonicalUri));
+    }
+
+    @Test
+    public void producesSameMappingAsUriMappingIterableImpl() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        Set<String> preferredUris = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            preferredUris.add("http://uri" + random.nextInt(20_000));
+        }
+        CompactUriMappingIterableImpl compactMapping = new CompactUriMappingIterableImpl(preferredUris);
+        UriMappingIterableImpl expectedMapping = new UriMappingIterableImpl(preferredUris);
+
+        // Act
+        for (int i = 0; i < 15_000; i++) {
+            String subject = "http://uri" + random.nextInt(20_000);
+            String object = "http://uri" + random.nextInt(20_000);
+            compactMapping.addLink(subject, object);
+            expectedMapping.addLink(subject, object);
+        }
+
+        // Assert
+        for (int i = 0; i < 20_000; i++) {
+            String uri = "http://uri" + i;
+            assertThat(compactMapping.getCanonicalURI(uri), equalTo(expectedMapping.getCanonicalURI(uri)));
+        }
+        assertThat(ImmutableSet.copyOf(compactMapping), equalTo(ImmutableSet.copyOf(expectedMapping)));
+    }
+
+    @Test
+    public void isNotModifiedByReadingAfterPathsAreCompressed() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        CompactUriMappingIterableImpl uriMapping = new CompactUriMappingIterableImpl();
+        for (int i = 0; i < 5_000; i++) {
+            uriMapping.addLink("http://uri" + random.nextInt(5_000), "http://uri" + random.nextInt(5_000));
+        }
+
+        // Act
+        uriMapping.compressPaths();
+
+        // Assert
+        int[] parents = getParents(uriMapping);
+        for (int i = 0; i < 5_000; i++) {
+            uriMapping.getCanonicalURI("http://uri" + i);
+        }
+        ImmutableSet.copyOf(uriMapping);
+        assertThat(getParents(uriMapping), equalTo(parents));
+    }
+
+    private static int[] getParents(CompactUriMappingIterableImpl uriMapping) {
+        int[] result = new int[uriMapping.getUriCount()];
+        for (int id = 0; id < result.length; id++) {
+            result[id] = uriMapping.getParent(id);
+        }
+        return result;
+    }
+}
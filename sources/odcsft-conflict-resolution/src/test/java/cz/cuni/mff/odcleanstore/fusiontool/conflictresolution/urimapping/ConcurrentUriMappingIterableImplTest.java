@@ -0,0 +1,182 @@
+package cz.cuni.mff.odcleanstore.fusiontool.conflictresolution.urimapping;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.OWL;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ConcurrentUriMappingIterableImplTest {
+    private static final ValueFactory VF = ValueFactoryImpl.getInstance();
+    private static final int URI_COUNT = 50_000;
+    private static final int THREAD_COUNT = 8;
+
+    @Test
+    public void selectsLeastUriAsCanonical() throws Exception {
+        // Arrange
+        ConcurrentUriMappingIterableImpl uriMapping = new ConcurrentUriMappingIterableImpl();
+
+        // Act
+        uriMapping.addLink("http://a3", "http://a2");
+        uriMapping.addLink("http://a2", "http://a1");
+        uriMapping.addLink("http://b1", "http://b2");
+
+        // Assert
+        assertThat(uriMapping.getCanonicalURI("http://a3"), equalTo("http://a1"));
+        assertThat(uriMapping.getCanonicalURI("http://a1"), equalTo("http://a1"));
+        assertThat(uriMapping.getCanonicalURI("http://b2"), equalTo("http://b1"));
+        assertThat(ImmutableSet.copyOf(uriMapping), equalTo(ImmutableSet.of("http://a2", "http://a3", "http://b2")));
+    }
+
+    @Test
+    public void selectsPreferredUriAsCanonical() throws Exception {
+        // Arrange
+        ConcurrentUriMappingIterableImpl uriMapping = new ConcurrentUriMappingIterableImpl(ImmutableSet.of("http://a3", "http://a2"));
+
+        // Act
+        uriMapping.addLink("http://a1", "http://a2");
+        uriMapping.addLink("http://a3", "http://a1");
+
+        // Assert
+        assertThat(uriMapping.getCanonicalURI("http://a1"), equalTo("http://a2"));
+        assertThat(uriMapping.getCanonicalURI("http://a3"), equalTo("http://a2"));
+    }
+
+    @Test
+    public void addsLinksBetweenUrisOnly() throws Exception {
+        // Arrange
+        ConcurrentUriMappingIterableImpl uriMapping = new ConcurrentUriMappingIterableImpl();
+
+        // Act
+        uriMapping.addLink(VF.createStatement(VF.createURI("http://a2"), OWL.SAMEAS, VF.createURI("http://a1")));
+        uriMapping.addLink(VF.createStatement(VF.createURI("http://b2"), OWL.SAMEAS, VF.createLiteral("http://b1")));
+
+        // Assert
+        assertThat(uriMapping.getCanonicalURI("http://a2"), equalTo("http://a1"));
+        assertThat(uriMapping.getCanonicalURI("http://b2"), equalTo("http://b2"));
+    }
+
+    @Test
+    public void resolvesLinksAddedAfterReading() throws Exception {
+        // Arrange
+        ConcurrentUriMappingIterableImpl uriMapping = new ConcurrentUriMappingIterableImpl();
+        uriMapping.addLink("http://a2", "http://a3");
+        assertThat(uriMapping.getCanonicalURI("http://a3"), equalTo("http://a2"));
+
+        // Act
+        uriMapping.addLink("http://a3", "http://a1");
+
+        // Assert
+        assertThat(uriMapping.getCanonicalURI("http://a2"), equalTo("http://a1"));
+        assertThat(uriMapping.getCanonicalURI("http://a3"), equalTo("http://a1"));
+    }
+
+    @Test
+    public void producesSameMappingRegardlessOfOrderAndThreads() throws Exception {
+        // Arrange
+        Random random = new Random(0);
+        Set<String> preferredUris = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            preferredUris.add(uri(random.nextInt(URI_COUNT)));
+        }
+        List<String[]> links = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            links.add(new String[] {uri(random.nextInt(URI_COUNT)), uri(random.nextInt(URI_COUNT))});
+        }
+        UriMappingIterableImpl sequentialMapping = new UriMappingIterableImpl(preferredUris);
+        for (String[] link : links) {
+            sequentialMapping.addLink(link[0], link[1]);
+        }
+
+        // Act
+        ConcurrentUriMappingIterableImpl concurrentMapping1 = addLinksConcurrently(links, preferredUris);
+        Collections.shuffle(links, random);
+        ConcurrentUriMappingIterableImpl concurrentMapping2 = addLinksConcurrently(links, preferredUris);
+
+        // Assert
+        Map<String, String> expectedCanonicalUris = getExpectedCanonicalUris(sequentialMapping, preferredUris);
+        for (int i = 0; i < URI_COUNT; i++) {
+            String uri = uri(i);
+            String canonicalUri = concurrentMapping1.getCanonicalURI(uri);
+            assertThat(canonicalUri, equalTo(expectedCanonicalUris.get(sequentialMapping.getCanonicalURI(uri))));
+            assertThat(concurrentMapping2.getCanonicalURI(uri), equalTo(canonicalUri));
+        }
+        Set<String> expectedMappedUris = new HashSet<>();
+        for (String uri : sequentialMapping) {
+            expectedMappedUris.add(uri);
+            expectedMappedUris.add(sequentialMapping.getCanonicalURI(uri));
+        }
+        expectedMappedUris.removeAll(expectedCanonicalUris.values());
+        assertThat(ImmutableSet.copyOf(concurrentMapping1), equalTo(expectedMappedUris));
+    }
+
+    private static ConcurrentUriMappingIterableImpl addLinksConcurrently(final List<String[]> links, Set<String> preferredUris)
+            throws Exception {
+        final ConcurrentUriMappingIterableImpl uriMapping = new ConcurrentUriMappingIterableImpl(preferredUris);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                final int firstLink = thread;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = firstLink; i < links.size(); i += THREAD_COUNT) {
+                            uriMapping.addLink(links.get(i)[0], links.get(i)[1]);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return uriMapping;
+    }
+
+    /**
+     * Returns map from canonical URIs selected by {@link UriMappingIterableImpl} to the expected
+     * order-independent canonical URI of the same set of equivalent URIs.
+     */
+    private static Map<String, String> getExpectedCanonicalUris(UriMappingIterableImpl sequentialMapping, Set<String> preferredUris) {
+        Map<String, String> result = new HashMap<>();
+        for (int i = 0; i < URI_COUNT; i++) {
+            String uri = uri(i);
+            String component = sequentialMapping.getCanonicalURI(uri);
+            String current = result.get(component);
+            if (current == null) {
+                result.put(component, uri);
+            } else if (preferredUris.contains(uri) != preferredUris.contains(current)) {
+                if (preferredUris.contains(uri)) {
+                    result.put(component, uri);
+                }
+            } else if (uri.compareTo(current) < 0) {
+                result.put(component, uri);
+            }
+        }
+        return result;
+    }
+
+    private static String uri(int i) {
+        return "http://example.com/uri/" + i;
+    }
+}